@@ -10,10 +10,10 @@ VALUES
   ('aaaaaaa3-aaaa-aaaa-aaaa-aaaaaaaaaaa3', '22222222-2222-2222-2222-222222222222', NOW(), 'BLOOD_PRESSURE', 120, 'mmHg');
 
 
-INSERT INTO alerts (id, patient_id, vital_sign_id, timestamp, message, priority, route_to, acknowledged)
+INSERT INTO alerts (id, patient_id, vital_sign_id, timestamp, message, priority, route_to, acknowledged, status)
 VALUES
   ('bbbbbbb1-bbbb-bbbb-bbbb-bbbbbbbbbbb1', '11111111-1111-1111-1111-111111111111', 'aaaaaaa1-aaaa-aaaa-aaaa-aaaaaaaaaaa1', NOW(),
-   'Heart rate above normal threshold', 'HIGH', 'Doctor', FALSE),
+   'Heart rate above normal threshold', 'HIGH', 'Doctor', FALSE, 'PENDING'),
 
   ('bbbbbbb2-bbbb-bbbb-bbbb-bbbbbbbbbbb2', '22222222-2222-2222-2222-222222222222', 'aaaaaaa3-aaaa-aaaa-aaaa-aaaaaaaaaaa3', NOW(),
-   'Blood pressure within normal range', 'LOW', 'Nurse Station', TRUE);
+   'Blood pressure within normal range', 'LOW', 'Nurse Station', TRUE, 'ACKNOWLEDGED');
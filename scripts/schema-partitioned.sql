@@ -0,0 +1,83 @@
+-- Time-partitioned storage mode (PostgreSQL 11+), used with PartitionedJdbcReadingRepository.
+-- Same tables as schema.sql, but vital_signs is range-partitioned by day on timestamp so window
+-- queries only touch the partitions they overlap and purging old readings drops whole partitions.
+-- Daily partitions are created ahead of time and dropped by the repository; vital_signs_default
+-- catches anything outside the managed range.
+
+CREATE TABLE patients (
+    id UUID PRIMARY KEY,
+    first_name VARCHAR(100) NOT NULL,
+    last_name VARCHAR(100) NOT NULL,
+    dob DATE NOT NULL,
+    gender VARCHAR(10) CHECK (gender IN ('MALE', 'FEMALE', 'OTHER')) NOT NULL,
+    email VARCHAR(255) UNIQUE,
+    phone_number VARCHAR(20),
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
+CREATE TABLE vital_signs (
+    id UUID NOT NULL,
+    patient_id UUID NOT NULL,
+    timestamp TIMESTAMP NOT NULL,
+    type VARCHAR(50) CHECK (
+        type IN ('HEART_RATE', 'BLOOD_PRESSURE', 'BLOOD_OXYGEN', 'TEMPERATURE', 'RESPIRATORY_RATE',
+                 'BLOOD_GLUCOSE', 'ECG', 'EEG')
+    ) NOT NULL,
+    value DOUBLE PRECISION NOT NULL,
+    unit VARCHAR(16) NOT NULL,
+    -- The partition key has to be part of the primary key
+    PRIMARY KEY (id, timestamp),
+    CONSTRAINT fk_vital_patient FOREIGN KEY (patient_id) REFERENCES patients(id) ON DELETE CASCADE
+) PARTITION BY RANGE (timestamp);
+
+CREATE TABLE vital_signs_default PARTITION OF vital_signs DEFAULT;
+
+-- Created on the parent, so every partition gets its own copy
+CREATE INDEX idx_vitals_patient_type_time ON vital_signs(patient_id, type, timestamp);
+-- History pages and exports walk a patient's readings in timestamp order across all types
+CREATE INDEX idx_vitals_patient_time ON vital_signs(patient_id, timestamp);
+
+-- vital_sign_id can't reference a partitioned table's id alone, so there is no foreign key to
+-- vital_signs here; alerts outlive the raw readings they were raised from anyway.
+CREATE TABLE alerts (
+    id UUID PRIMARY KEY,
+    patient_id UUID NOT NULL,
+    -- Null for alerts raised by the monitoring system, whose readings carry no id
+    vital_sign_id UUID,
+    timestamp TIMESTAMP NOT NULL,
+    message TEXT NOT NULL,
+    priority VARCHAR(10) CHECK (priority IN ('LOW', 'MEDIUM', 'HIGH', 'CRITICAL')) NOT NULL,
+    route_to VARCHAR(100) NOT NULL,
+    acknowledged BOOLEAN DEFAULT FALSE,
+    status VARCHAR(20) CHECK (status IN ('PENDING', 'ACKNOWLEDGED', 'RESOLVED', 'FALSE_ALARM')) NOT NULL DEFAULT 'PENDING',
+    -- Repeats folded into the alert while its condition persisted
+    occurrences INTEGER NOT NULL DEFAULT 1,
+    last_occurrence TIMESTAMP,
+    peak_value DOUBLE PRECISION,
+    CONSTRAINT fk_alert_patient FOREIGN KEY (patient_id) REFERENCES patients(id) ON DELETE CASCADE
+);
+
+-- Serves per-patient lookups and alert history pages, which walk a patient's alerts in timestamp order
+CREATE INDEX idx_alerts_patient_time ON alerts(patient_id, timestamp);
+CREATE INDEX idx_alerts_vital_sign_id ON alerts(vital_sign_id);
+-- Open alerts are few next to the history, so only they are indexed by status
+CREATE INDEX idx_alerts_open ON alerts(status) WHERE status IN ('PENDING', 'ACKNOWLEDGED');
+
+-- Per-bucket statistics kept up to date as readings arrive, so trend queries over long ranges read
+-- a few hundred rows instead of every raw reading. histogram holds the non-empty bins of a
+-- 512-bin histogram over the type's plausible range, 6 bytes per bin (bin, count).
+CREATE TABLE vital_sign_rollups (
+    patient_id UUID NOT NULL,
+    type VARCHAR(50) NOT NULL,
+    granularity VARCHAR(10) CHECK (granularity IN ('MINUTE', 'HOUR', 'DAY')) NOT NULL,
+    bucket_start TIMESTAMP NOT NULL,
+    count BIGINT NOT NULL,
+    min_value DOUBLE PRECISION NOT NULL,
+    max_value DOUBLE PRECISION NOT NULL,
+    mean_value DOUBLE PRECISION NOT NULL,
+    -- Sum of squared differences from the mean, which is what merges exactly
+    m2 DOUBLE PRECISION NOT NULL,
+    histogram BYTEA NOT NULL,
+    PRIMARY KEY (patient_id, type, granularity, bucket_start),
+    CONSTRAINT fk_rollup_patient FOREIGN KEY (patient_id) REFERENCES patients(id) ON DELETE CASCADE
+);
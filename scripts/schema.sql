@@ -14,27 +14,60 @@ CREATE TABLE vital_signs (
     patient_id UUID NOT NULL,
     timestamp TIMESTAMP NOT NULL,
     type VARCHAR(50) CHECK (
-        type IN ('HEART_RATE', 'BLOOD_PRESSURE', 'TEMPERATURE', 'RESPIRATION_RATE', 'OXYGEN_SATURATION')
+        type IN ('HEART_RATE', 'BLOOD_PRESSURE', 'BLOOD_OXYGEN', 'TEMPERATURE', 'RESPIRATORY_RATE',
+                 'BLOOD_GLUCOSE', 'ECG', 'EEG')
     ) NOT NULL,
     value DOUBLE PRECISION NOT NULL,
-    unit VARCHAR(10) NOT NULL,
+    unit VARCHAR(16) NOT NULL,
     CONSTRAINT fk_vital_patient FOREIGN KEY (patient_id) REFERENCES patients(id) ON DELETE CASCADE
 );
 
 CREATE TABLE alerts (
     id UUID PRIMARY KEY,
     patient_id UUID NOT NULL,
-    vital_sign_id UUID NOT NULL,
+    -- Null for alerts raised by the monitoring system, whose readings carry no id
+    vital_sign_id UUID,
     timestamp TIMESTAMP NOT NULL,
     message TEXT NOT NULL,
     priority VARCHAR(10) CHECK (priority IN ('LOW', 'MEDIUM', 'HIGH', 'CRITICAL')) NOT NULL,
     route_to VARCHAR(100) NOT NULL,
     acknowledged BOOLEAN DEFAULT FALSE,
+    status VARCHAR(20) CHECK (status IN ('PENDING', 'ACKNOWLEDGED', 'RESOLVED', 'FALSE_ALARM')) NOT NULL DEFAULT 'PENDING',
+    -- Repeats folded into the alert while its condition persisted
+    occurrences INTEGER NOT NULL DEFAULT 1,
+    last_occurrence TIMESTAMP,
+    peak_value DOUBLE PRECISION,
     CONSTRAINT fk_alert_patient FOREIGN KEY (patient_id) REFERENCES patients(id) ON DELETE CASCADE,
     CONSTRAINT fk_alert_vital FOREIGN KEY (vital_sign_id) REFERENCES vital_signs(id) ON DELETE CASCADE
 );
 
 
-CREATE INDEX idx_vitals_patient_id ON vital_signs(patient_id);
-CREATE INDEX idx_alerts_patient_id ON alerts(patient_id);
+-- Serves both per-patient lookups and (patient, type, time window) range scans
+CREATE INDEX idx_vitals_patient_type_time ON vital_signs(patient_id, type, timestamp);
+-- History pages and exports walk a patient's readings in timestamp order across all types
+CREATE INDEX idx_vitals_patient_time ON vital_signs(patient_id, timestamp);
+-- Serves per-patient lookups and alert history pages, which walk a patient's alerts in timestamp order
+CREATE INDEX idx_alerts_patient_time ON alerts(patient_id, timestamp);
 CREATE INDEX idx_alerts_vital_sign_id ON alerts(vital_sign_id);
+-- Finds open alerts among the history. Kept portable (H2 runs this script in tests); the
+-- PostgreSQL-only partitioned schema indexes just the open statuses instead
+CREATE INDEX idx_alerts_status ON alerts(status);
+
+-- Per-bucket statistics kept up to date as readings arrive, so trend queries over long ranges read
+-- a few hundred rows instead of every raw reading. histogram holds the non-empty bins of a
+-- 512-bin histogram over the type's plausible range, 6 bytes per bin (bin, count).
+CREATE TABLE vital_sign_rollups (
+    patient_id UUID NOT NULL,
+    type VARCHAR(50) NOT NULL,
+    granularity VARCHAR(10) CHECK (granularity IN ('MINUTE', 'HOUR', 'DAY')) NOT NULL,
+    bucket_start TIMESTAMP NOT NULL,
+    count BIGINT NOT NULL,
+    min_value DOUBLE PRECISION NOT NULL,
+    max_value DOUBLE PRECISION NOT NULL,
+    mean_value DOUBLE PRECISION NOT NULL,
+    -- Sum of squared differences from the mean, which is what merges exactly
+    m2 DOUBLE PRECISION NOT NULL,
+    histogram BYTEA NOT NULL,
+    PRIMARY KEY (patient_id, type, granularity, bucket_start),
+    CONSTRAINT fk_rollup_patient FOREIGN KEY (patient_id) REFERENCES patients(id) ON DELETE CASCADE
+);
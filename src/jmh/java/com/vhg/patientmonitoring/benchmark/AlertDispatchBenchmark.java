@@ -0,0 +1,95 @@
+package com.vhg.patientmonitoring.benchmark;
+
+import com.vhg.patientmonitoring.core.MonitoringConfiguration;
+import com.vhg.patientmonitoring.core.PatientMonitoringSystem;
+import com.vhg.patientmonitoring.model.alert.Alert;
+import com.vhg.patientmonitoring.model.alert.AlertSeverity;
+import com.vhg.patientmonitoring.model.alert.AlertStatus;
+import com.vhg.patientmonitoring.model.reading.VitalSignReading;
+import com.vhg.patientmonitoring.repository.AlertRepository;
+import com.vhg.patientmonitoring.repository.impl.InMemoryReadingRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link PatientMonitoringSystem#handleAlert} for a mix of severities, with a no-op alert store
+ * so only the dispatch path itself is measured. Notifications are sent by the alert lanes' own
+ * threads, so this is the cost the monitoring thread pays per alert. The alerts repeat, so the
+ * dedup window is off and the rate limits are out of reach; otherwise every repeat would fold
+ * into an open episode and never be dispatched.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AlertDispatchBenchmark {
+    @Param({"100", "2000"})
+    public int patients;
+
+    private PatientMonitoringSystem system;
+    private Alert[] alerts;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        MonitoringConfiguration configuration = new MonitoringConfiguration();
+        configuration.setAlertDedupWindowMillis(0);
+        configuration.setAlertPatientRatePerMinute(Integer.MAX_VALUE);
+        configuration.setAlertWardRatePerMinute(Integer.MAX_VALUE);
+        system = new PatientMonitoringSystem(configuration, null, new InMemoryReadingRepository(), new DiscardingAlertRepository());
+        String[] patientIds = BenchmarkData.patientIds(patients);
+        AlertSeverity[] severities = AlertSeverity.values();
+        List<VitalSignReading> readings = BenchmarkData.readings(patientIds, 1);
+        alerts = new Alert[readings.size()];
+        for (int i = 0; i < alerts.length; i++) {
+            VitalSignReading reading = readings.get(i);
+            alerts[i] = new Alert(reading.getPatientId(), severities[i % severities.length], "Benchmark alert", reading);
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        system.shutdown();
+    }
+
+    @Benchmark
+    public void handleAlert() {
+        system.handleAlert(alerts[next++ % alerts.length]);
+    }
+
+    private static class DiscardingAlertRepository implements AlertRepository {
+        @Override
+        public void addAlert(Alert alert) {
+        }
+
+        @Override
+        public List<Alert> getPendingAlerts() {
+            return new ArrayList<>();
+        }
+
+        @Override
+        public List<Alert> getAlertsForPatient(String patientId) {
+            return new ArrayList<>();
+        }
+
+        @Override
+        public void updateAlertStatus(String alertId, AlertStatus newStatus) {
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package com.vhg.patientmonitoring.benchmark;
+
+import com.vhg.patientmonitoring.model.alert.Alert;
+import com.vhg.patientmonitoring.model.alert.AlertSeverity;
+import com.vhg.patientmonitoring.model.alert.AlertStatus;
+import com.vhg.patientmonitoring.repository.impl.InMemoryAlertRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Listing pending alerts next to a large history of resolved ones: the indexed repository against a
+ * scan of every stored alert, and the cost of acknowledging and reopening an alert.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgs = {"-Xmx4g"})
+public class AlertQueryBenchmark {
+    @Param({"1000000"})
+    public int historicalAlerts;
+
+    @Param({"200"})
+    public int pendingAlerts;
+
+    private InMemoryAlertRepository indexed;
+    private List<Alert> all;
+    private String[] pendingIds;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        indexed = new InMemoryAlertRepository(historicalAlerts);
+        all = new ArrayList<>(historicalAlerts + pendingAlerts);
+        String[] patientIds = BenchmarkData.patientIds(2000);
+        AlertSeverity[] severities = AlertSeverity.values();
+        for (int i = 0; i < historicalAlerts; i++) {
+            Alert alert = new Alert(patientIds[i % patientIds.length], severities[i % severities.length], "Resolved", null);
+            alert.setStatus(AlertStatus.RESOLVED);
+            indexed.addAlert(alert);
+            all.add(alert);
+        }
+        pendingIds = new String[pendingAlerts];
+        for (int i = 0; i < pendingAlerts; i++) {
+            Alert alert = new Alert(patientIds[i % patientIds.length], severities[i % severities.length], "Pending", null);
+            indexed.addAlert(alert);
+            all.add(alert);
+            pendingIds[i] = alert.getAlertId();
+        }
+    }
+
+    @Benchmark
+    public List<Alert> pendingIndexed() {
+        return indexed.getPendingAlerts();
+    }
+
+    @Benchmark
+    public List<Alert> pendingScan() {
+        List<Alert> pending = new ArrayList<>();
+        for (Alert alert : all) {
+            if (alert.getStatus() == AlertStatus.PENDING) {
+                pending.add(alert);
+            }
+        }
+        return pending;
+    }
+
+    @Benchmark
+    public void acknowledgeAndReopen() {
+        String alertId = pendingIds[next++ % pendingIds.length];
+        indexed.updateAlertStatus(alertId, AlertStatus.ACKNOWLEDGED);
+        indexed.updateAlertStatus(alertId, AlertStatus.PENDING);
+    }
+}
@@ -0,0 +1,72 @@
+package com.vhg.patientmonitoring.benchmark;
+
+import com.vhg.patientmonitoring.agent.AIAgentSystem;
+import com.vhg.patientmonitoring.core.PatientMonitoringSystem;
+import com.vhg.patientmonitoring.model.reading.ReadingBlock;
+import com.vhg.patientmonitoring.model.reading.VitalSignReading;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link AIAgentSystem#detectAnomalies} over one window of readings for every patient, as objects and as a block
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AnomalyDetectionBenchmark {
+    @Param({"100", "1000"})
+    public int patients;
+
+    @Param({"12", "720"})
+    public int readingsPerWindow;
+
+    private PatientMonitoringSystem system;
+    private AIAgentSystem agent;
+    private List<VitalSignReading> readings;
+    private ReadingBlock block;
+
+    @Setup
+    public void setUp() {
+        String[] patientIds = BenchmarkData.patientIds(patients);
+        system = new PatientMonitoringSystem();
+        agent = new AIAgentSystem(system);
+        // Establish baselines from a separate warm-up window so the statistical path is exercised
+        for (VitalSignReading reading : BenchmarkData.readings(patientIds, 60)) {
+            agent.observeReading(reading);
+        }
+        readings = BenchmarkData.readings(patientIds, readingsPerWindow);
+        block = BenchmarkData.block(readings);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        system.shutdown();
+    }
+
+    @Benchmark
+    public int detectAnomaliesObjects() {
+        return agent.detectAnomalies(readings).size();
+    }
+
+    @Benchmark
+    public int detectAnomaliesBlock() {
+        return agent.detectAnomalies(block).size();
+    }
+}
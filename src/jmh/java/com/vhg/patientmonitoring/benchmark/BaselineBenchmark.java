@@ -0,0 +1,88 @@
+package com.vhg.patientmonitoring.benchmark;
+
+import com.vhg.patientmonitoring.agent.baseline.BaselineStore;
+import com.vhg.patientmonitoring.agent.baseline.PatientBaselines;
+import com.vhg.patientmonitoring.agent.baseline.StreamingBaseline;
+import com.vhg.patientmonitoring.model.reading.ReadingBlock;
+import com.vhg.patientmonitoring.model.reading.VitalSignType;
+import com.vhg.patientmonitoring.util.IdIndex;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of maintaining and reading patient baselines
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BaselineBenchmark {
+    @Param({"100", "2000"})
+    public int patients;
+
+    @Param({"12", "720"})
+    public int readingsPerWindow;
+
+    private final Random random = new Random(7);
+    private String[] patientIds;
+    private int[] patientIndexes;
+    private StreamingBaseline baseline;
+    private BaselineStore store;
+    private ReadingBlock windowBlock;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        patientIds = BenchmarkData.patientIds(patients);
+        patientIndexes = new int[patients];
+        for (int i = 0; i < patients; i++) {
+            patientIndexes[i] = IdIndex.PATIENTS.indexOf(patientIds[i]);
+        }
+        baseline = new StreamingBaseline();
+        store = new BaselineStore();
+        for (int i = 0; i < patients * 10; i++) {
+            store.record(patientIds[i % patients], VitalSignType.HEART_RATE, BenchmarkData.normalValue(random, VitalSignType.HEART_RATE));
+        }
+        // One patient's window, grouped by patient like a monitoring cycle produces it
+        windowBlock = new ReadingBlock(readingsPerWindow);
+        for (int i = 0; i < readingsPerWindow; i++) {
+            windowBlock.add(patientIndexes[0], VitalSignType.HEART_RATE, i, BenchmarkData.normalValue(random, VitalSignType.HEART_RATE), -1);
+        }
+    }
+
+    @Benchmark
+    public double streamingBaselineUpdate() {
+        baseline.add(60 + (next++ & 63));
+        return baseline.getMean();
+    }
+
+    @Benchmark
+    public void storeRecord() {
+        store.record(patientIds[next++ % patients], VitalSignType.HEART_RATE, 60 + (next & 63));
+    }
+
+    @Benchmark
+    public void storeRecordWindow() {
+        store.recordAll(windowBlock);
+    }
+
+    @Benchmark
+    public double storeLookup() {
+        PatientBaselines baselines = store.get(patientIndexes[next++ % patients]);
+        return baselines.getMean(VitalSignType.HEART_RATE.ordinal()) + baselines.getStdDev(VitalSignType.HEART_RATE.ordinal());
+    }
+}
@@ -0,0 +1,89 @@
+package com.vhg.patientmonitoring.benchmark;
+
+import com.vhg.patientmonitoring.model.reading.ReadingBlock;
+import com.vhg.patientmonitoring.model.reading.VitalSignReading;
+import com.vhg.patientmonitoring.model.reading.VitalSignType;
+import com.vhg.patientmonitoring.util.IdIndex;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Deterministic synthetic readings shared by the benchmarks
+ */
+final class BenchmarkData {
+    static final VitalSignType[] TYPES = {VitalSignType.HEART_RATE, VitalSignType.BLOOD_OXYGEN, VitalSignType.TEMPERATURE};
+    private static final double[] MEANS = {75, 97, 37};
+    private static final double[] SPREADS = {6, 1, 0.3};
+
+    private BenchmarkData() {
+    }
+
+    static String[] patientIds(int patients) {
+        String[] ids = new String[patients];
+        for (int i = 0; i < patients; i++) {
+            ids[i] = "bench-patient-" + i;
+            IdIndex.PATIENTS.indexOf(ids[i]);
+        }
+        return ids;
+    }
+
+    /**
+     * {@code readingsPerWindow} readings per patient and type, spread evenly over the last hour
+     * and ordered oldest first. About one in a thousand is far outside the normal range.
+     */
+    static List<VitalSignReading> readings(String[] patientIds, int readingsPerWindow) {
+        Random random = new Random(42);
+        LocalDateTime now = LocalDateTime.now();
+        long stepMillis = 3_600_000L / readingsPerWindow;
+        List<VitalSignReading> readings = new ArrayList<>(patientIds.length * readingsPerWindow * TYPES.length);
+        for (int r = 0; r < readingsPerWindow; r++) {
+            LocalDateTime timestamp = now.minusNanos((readingsPerWindow - r) * stepMillis * 1_000_000L);
+            for (String patientId : patientIds) {
+                for (int t = 0; t < TYPES.length; t++) {
+                    readings.add(new VitalSignReading(patientId, TYPES[t], value(random, t), TYPES[t].getUnit(), timestamp, null));
+                }
+            }
+        }
+        return readings;
+    }
+
+    static ReadingBlock block(List<VitalSignReading> readings) {
+        ReadingBlock block = new ReadingBlock(readings.size());
+        for (VitalSignReading reading : readings) {
+            block.add(reading);
+        }
+        return block;
+    }
+
+    static double normalValue(Random random, VitalSignType type) {
+        for (int t = 0; t < TYPES.length; t++) {
+            if (TYPES[t] == type) {
+                return MEANS[t] + SPREADS[t] * random.nextGaussian();
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Synthetic ECG lead in mV at 1 uV ADC resolution: baseline wander, a QRS complex every 0.8 s and noise.
+     */
+    static double[] ecg(int samples, int sampleRateHz, Random random) {
+        double[] values = new double[samples];
+        for (int i = 0; i < samples; i++) {
+            double t = (double) i / sampleRateHz;
+            double phase = t % 0.8;
+            double qrs = phase < 0.04 ? 1.2 * Math.sin(Math.PI * phase / 0.04) : 0;
+            double microvolts = 1000 * (0.1 * Math.sin(2 * Math.PI * 0.3 * t) + qrs) + 10 * random.nextGaussian();
+            values[i] = Math.round(microvolts) * 0.001;
+        }
+        return values;
+    }
+
+    private static double value(Random random, int type) {
+        double sigmas = random.nextInt(1000) == 0 ? 10 : random.nextGaussian();
+        return MEANS[type] + SPREADS[type] * sigmas;
+    }
+}
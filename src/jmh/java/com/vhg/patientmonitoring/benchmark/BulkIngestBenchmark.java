@@ -0,0 +1,113 @@
+package com.vhg.patientmonitoring.benchmark;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.vhg.patientmonitoring.ingest.BulkReadingParser;
+import com.vhg.patientmonitoring.model.reading.ReadingBlock;
+import com.vhg.patientmonitoring.model.reading.VitalSignReading;
+import com.vhg.patientmonitoring.model.reading.VitalSignType;
+import com.vhg.patientmonitoring.util.DateTimeUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parsing a gateway upload of 30,000 readings into storage batches, in readings per second. Compares
+ * the streaming parser on JSON, NDJSON and the binary format against binding the JSON to a tree first.
+ * The sink only counts, so this is the parsing cost; run with the gc profiler (the default here) for
+ * the allocation rate per reading.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BulkIngestBenchmark {
+    private static final int READINGS = 30_000;
+    private static final String PATIENT_ID = "bench-patient-0";
+
+    private BulkReadingParser parser;
+    private ObjectMapper objectMapper;
+    private byte[] json;
+    private byte[] ndjson;
+    private byte[] binary;
+    private long stored;
+
+    @Setup
+    public void setUp() throws IOException {
+        parser = new BulkReadingParser(4096, block -> {
+            stored += block.size();
+            return 0;
+        });
+        objectMapper = new ObjectMapper();
+        List<VitalSignReading> readings = BenchmarkData.readings(BenchmarkData.patientIds(1), READINGS / BenchmarkData.TYPES.length);
+
+        StringBuilder jsonBody = new StringBuilder("{\"vital_signs\":[");
+        StringBuilder ndjsonBody = new StringBuilder();
+        for (int i = 0; i < readings.size(); i++) {
+            VitalSignReading reading = readings.get(i);
+            String record = "{\"type\":\"" + reading.getType() + "\",\"value\":" + reading.getValue()
+                    + ",\"timestamp\":\"" + DateTimeUtils.toInstant(reading.getEpochNanos()) + "\"}";
+            jsonBody.append(i > 0 ? "," : "").append(record);
+            ndjsonBody.append(record).append('\n');
+        }
+        json = jsonBody.append("]}").toString().getBytes(StandardCharsets.UTF_8);
+        ndjson = ndjsonBody.toString().getBytes(StandardCharsets.UTF_8);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        BulkReadingParser.writeBinary(BenchmarkData.block(readings), out);
+        binary = out.toByteArray();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(READINGS)
+    public BulkReadingParser.Result streamingJson() throws IOException {
+        return parser.parseJson(PATIENT_ID, new ByteArrayInputStream(json));
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(READINGS)
+    public BulkReadingParser.Result streamingNdjson() throws IOException {
+        return parser.parseJson(PATIENT_ID, new ByteArrayInputStream(ndjson));
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(READINGS)
+    public BulkReadingParser.Result streamingBinary() throws IOException {
+        return parser.parseBinary(PATIENT_ID, new ByteArrayInputStream(binary));
+    }
+
+    /**
+     * The whole body bound to a tree, then copied into a block
+     */
+    @Benchmark
+    @OperationsPerInvocation(READINGS)
+    public void treeBoundJson(Blackhole blackhole) throws IOException {
+        JsonNode root = objectMapper.readTree(json);
+        ReadingBlock block = new ReadingBlock(READINGS);
+        for (JsonNode record : root.get("vital_signs")) {
+            block.add(PATIENT_ID, VitalSignType.valueOf(record.get("type").asText()),
+                    DateTimeUtils.toEpochNanos(Instant.parse(record.get("timestamp").asText())),
+                    record.get("value").asDouble());
+        }
+        blackhole.consume(block);
+    }
+}
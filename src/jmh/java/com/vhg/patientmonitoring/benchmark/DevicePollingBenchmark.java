@@ -0,0 +1,120 @@
+package com.vhg.patientmonitoring.benchmark;
+
+import com.vhg.patientmonitoring.device.DevicePoller;
+import com.vhg.patientmonitoring.device.SensorDevice;
+import com.vhg.patientmonitoring.model.reading.VitalSignReading;
+import com.vhg.patientmonitoring.model.reading.VitalSignType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Collection cycle time (including p99) for one patient's devices, one of which may be a slow monitor.
+ * Compares the parallel, timeout-bounded {@link DevicePoller} with polling the devices one after another.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DevicePollingBenchmark {
+    private static final String[] DEVICE_TYPES = {"Heart rate monitor", "Blood pressure monitor", "Oxygen saturation monitor", "Temperature probe"};
+    private static final long DEVICE_LATENCY_MILLIS = 2;
+    private static final long SLOW_DEVICE_LATENCY_MILLIS = 500;
+    private static final long DEVICE_TIMEOUT_MILLIS = 50;
+
+    @Param({"4", "16"})
+    public int devices;
+
+    @Param({"false", "true"})
+    public boolean slowDevice;
+
+    private DevicePoller poller;
+    private List<SimulatedDevice> deviceList;
+
+    @Setup
+    public void setUp() {
+        poller = new DevicePoller(DEVICE_TIMEOUT_MILLIS, 3, 1000);
+        deviceList = new ArrayList<>();
+        for (int i = 0; i < devices; i++) {
+            long latency = slowDevice && i == 0 ? SLOW_DEVICE_LATENCY_MILLIS : DEVICE_LATENCY_MILLIS;
+            SimulatedDevice device = new SimulatedDevice("device-" + i, DEVICE_TYPES[i % DEVICE_TYPES.length], latency);
+            deviceList.add(device);
+            poller.add(device, "benchmark-patient");
+        }
+    }
+
+    @Benchmark
+    public List<VitalSignReading> parallelPoll() {
+        return poller.poll("benchmark-patient");
+    }
+
+    @Benchmark
+    public List<VitalSignReading> sequentialPoll() {
+        List<VitalSignReading> readings = new ArrayList<>(deviceList.size());
+        for (SimulatedDevice device : deviceList) {
+            readings.add(device.takeReading("benchmark-patient", DevicePoller.mapDeviceToVitalSignType(device.getDeviceType())));
+        }
+        return readings;
+    }
+
+    private static class SimulatedDevice implements SensorDevice {
+        private final String deviceId;
+        private final String deviceType;
+        private final long latencyMillis;
+
+        SimulatedDevice(String deviceId, String deviceType, long latencyMillis) {
+            this.deviceId = deviceId;
+            this.deviceType = deviceType;
+            this.latencyMillis = latencyMillis;
+        }
+
+        @Override
+        public String getDeviceId() {
+            return deviceId;
+        }
+
+        @Override
+        public String getDeviceType() {
+            return deviceType;
+        }
+
+        @Override
+        public boolean isConnected() {
+            return true;
+        }
+
+        @Override
+        public void connect() {
+        }
+
+        @Override
+        public void disconnect() {
+        }
+
+        @Override
+        public VitalSignReading takeReading(String patientId, VitalSignType type) {
+            try {
+                Thread.sleep(latencyMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return new VitalSignReading(patientId, type, BenchmarkData.normalValue(ThreadLocalRandom.current(), type), type.getUnit(), LocalDateTime.now(), this);
+        }
+    }
+}
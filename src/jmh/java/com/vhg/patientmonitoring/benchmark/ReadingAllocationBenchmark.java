@@ -0,0 +1,95 @@
+package com.vhg.patientmonitoring.benchmark;
+
+import com.vhg.patientmonitoring.model.reading.ReadingBlock;
+import com.vhg.patientmonitoring.model.reading.VitalSignReading;
+import com.vhg.patientmonitoring.model.reading.VitalSignType;
+import com.vhg.patientmonitoring.repository.impl.InMemoryReadingRepository;
+import com.vhg.patientmonitoring.util.IdIndex;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Allocation per ingested reading: {@link VitalSignReading} objects vs. compact {@link ReadingBlock} rows.
+ * <p>
+ * Run with the gc profiler ({@code ./gradlew jmh}); {@code gc.alloc.rate.norm} is reported per operation
+ * and every operation is one reading, so it reads directly as bytes/reading. At 1M readings/minute
+ * the heap churn is that figure times 10^6 per minute.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ReadingAllocationBenchmark {
+    private static final int BATCH = 1_000;
+    private static final int PATIENTS = 100;
+
+    private String[] patientIds;
+    private int[] patientIndexes;
+    private InMemoryReadingRepository objectRepository;
+    private InMemoryReadingRepository compactRepository;
+    private ReadingBlock block;
+
+    @Setup
+    public void setUp() {
+        patientIds = new String[PATIENTS];
+        patientIndexes = new int[PATIENTS];
+        for (int i = 0; i < PATIENTS; i++) {
+            patientIds[i] = "patient-" + i;
+            patientIndexes[i] = IdIndex.PATIENTS.indexOf(patientIds[i]);
+        }
+        objectRepository = new InMemoryReadingRepository();
+        compactRepository = new InMemoryReadingRepository();
+        block = new ReadingBlock(BATCH);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public void objectReadings() {
+        for (int i = 0; i < BATCH; i++) {
+            // What devices produce today: a fresh object with its own LocalDateTime.now()
+            VitalSignReading reading = new VitalSignReading(patientIds[i % PATIENTS], VitalSignType.HEART_RATE,
+                    60 + (i & 31), "bpm", null);
+            objectRepository.addReading(reading);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public void compactReadings() {
+        block.clear();
+        long now = TimeUnit.MILLISECONDS.toNanos(System.currentTimeMillis());
+        for (int i = 0; i < BATCH; i++) {
+            block.add(patientIndexes[i % PATIENTS], VitalSignType.HEART_RATE, now + i, 60 + (i & 31), -1);
+        }
+        compactRepository.addReadings(block);
+    }
+
+    @Benchmark
+    public void objectWindow(Blackhole blackhole) {
+        for (VitalSignReading reading : objectRepository.getReadingsForPatient(patientIds[0], 60)) {
+            blackhole.consume(reading.getValue());
+        }
+    }
+
+    @Benchmark
+    public void compactWindow(Blackhole blackhole) {
+        ReadingBlock.Cursor reading = compactRepository.getReadingBlockForPatient(patientIds[0], 60).cursor();
+        while (reading.next()) {
+            blackhole.consume(reading.getValue());
+        }
+    }
+}
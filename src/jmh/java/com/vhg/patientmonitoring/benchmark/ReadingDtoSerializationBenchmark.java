@@ -0,0 +1,70 @@
+package com.vhg.patientmonitoring.benchmark;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.vhg.patientmonitoring.model.reading.ReadingBlock;
+import com.vhg.patientmonitoring.model.reading.VitalSignReading;
+import com.vhg.patientmonitoring.web.dto.ReadingDto;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serializing one patient's window of readings to JSON through {@link ReadingDto}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ReadingDtoSerializationBenchmark {
+    @Param({"12", "720"})
+    public int readingsPerWindow;
+
+    private ObjectMapper objectMapper;
+    private List<VitalSignReading> readings;
+    private ReadingBlock block;
+
+    @Setup
+    public void setUp() {
+        objectMapper = new ObjectMapper()
+                .registerModule(new JavaTimeModule())
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        readings = BenchmarkData.readings(BenchmarkData.patientIds(1), readingsPerWindow);
+        block = BenchmarkData.block(readings);
+    }
+
+    @Benchmark
+    public byte[] fromReadings() throws JsonProcessingException {
+        List<ReadingDto> dtos = new ArrayList<>(readings.size());
+        for (VitalSignReading reading : readings) {
+            dtos.add(ReadingDto.from(reading));
+        }
+        return objectMapper.writeValueAsBytes(dtos);
+    }
+
+    @Benchmark
+    public byte[] fromBlock() throws JsonProcessingException {
+        List<ReadingDto> dtos = new ArrayList<>(block.size());
+        ReadingBlock.Cursor reading = block.cursor();
+        while (reading.next()) {
+            dtos.add(ReadingDto.from(reading));
+        }
+        return objectMapper.writeValueAsBytes(dtos);
+    }
+}
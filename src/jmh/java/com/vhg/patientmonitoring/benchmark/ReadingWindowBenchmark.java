@@ -0,0 +1,69 @@
+package com.vhg.patientmonitoring.benchmark;
+
+import com.vhg.patientmonitoring.model.reading.ReadingBlock;
+import com.vhg.patientmonitoring.model.reading.VitalSignReading;
+import com.vhg.patientmonitoring.model.reading.VitalSignType;
+import com.vhg.patientmonitoring.repository.impl.InMemoryReadingRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Last-hour window queries against the in-memory {@code ReadingRepository}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ReadingWindowBenchmark {
+    @Param({"100", "2000"})
+    public int patients;
+
+    @Param({"12", "720"})
+    public int readingsPerWindow;
+
+    private String[] patientIds;
+    private InMemoryReadingRepository repository;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        patientIds = BenchmarkData.patientIds(patients);
+        repository = new InMemoryReadingRepository();
+        for (VitalSignReading reading : BenchmarkData.readings(patientIds, readingsPerWindow)) {
+            repository.addReading(reading);
+        }
+    }
+
+    @Benchmark
+    public List<VitalSignReading> readingsForPatient() {
+        return repository.getReadingsForPatient(nextPatient(), 60);
+    }
+
+    @Benchmark
+    public List<VitalSignReading> readingsForPatientByType() {
+        return repository.getReadingsForPatientByType(nextPatient(), VitalSignType.HEART_RATE, 60);
+    }
+
+    @Benchmark
+    public ReadingBlock readingBlockForPatient() {
+        return repository.getReadingBlockForPatient(nextPatient(), 60);
+    }
+
+    private String nextPatient() {
+        return patientIds[next++ % patients];
+    }
+}
@@ -0,0 +1,113 @@
+package com.vhg.patientmonitoring.benchmark;
+
+import com.vhg.patientmonitoring.core.MonitoringConfiguration;
+import com.vhg.patientmonitoring.model.analytics.Rollup;
+import com.vhg.patientmonitoring.model.analytics.RollupGranularity;
+import com.vhg.patientmonitoring.model.analytics.VitalStatistics;
+import com.vhg.patientmonitoring.model.reading.ReadingBlock;
+import com.vhg.patientmonitoring.model.reading.VitalSignType;
+import com.vhg.patientmonitoring.repository.impl.InMemoryReadingRepository;
+import com.vhg.patientmonitoring.repository.impl.InMemoryRollupRepository;
+import com.vhg.patientmonitoring.service.AnalyticsService;
+import com.vhg.patientmonitoring.util.DateTimeUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A week of one patient's heart rate at 1 Hz: statistics and an hourly trend from the rollups against
+ * the same statistics computed by scanning the raw readings.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgs = {"-Xmx4g"})
+public class RollupQueryBenchmark {
+    private static final String PATIENT_ID = "bench-patient-0";
+    private static final int WEEK_MINUTES = 7 * 24 * 60;
+
+    @Param({"1"})
+    public int readingsPerSecond;
+
+    private InMemoryReadingRepository readings;
+    private AnalyticsService analytics;
+    private long fromNanos;
+    private long toNanos;
+
+    @Setup
+    public void setUp() {
+        Instant now = Instant.parse("2024-03-08T12:00:00Z");
+        Clock clock = Clock.fixed(now, ZoneOffset.UTC);
+        toNanos = DateTimeUtils.toEpochNanos(now);
+        fromNanos = toNanos - TimeUnit.MINUTES.toNanos(WEEK_MINUTES);
+        readings = new InMemoryReadingRepository(1 << 20, clock);
+        analytics = new AnalyticsService(new InMemoryRollupRepository(), new MonitoringConfiguration(), clock);
+
+        Random random = new Random(42);
+        long stepNanos = TimeUnit.SECONDS.toNanos(1) / readingsPerSecond;
+        ReadingBlock block = new ReadingBlock(4096);
+        for (long t = fromNanos; t < toNanos; t += stepNanos) {
+            block.add(PATIENT_ID, VitalSignType.HEART_RATE, t, BenchmarkData.normalValue(random, VitalSignType.HEART_RATE));
+            if (block.size() == 4096) {
+                store(block);
+            }
+        }
+        store(block);
+        // Everything but the current buckets is stored and evicted, as for a long-running system
+        analytics.flush();
+    }
+
+    @TearDown
+    public void tearDown() {
+        analytics.shutdown();
+    }
+
+    @Benchmark
+    public VitalStatistics rawScan() {
+        ReadingBlock week = readings.getReadingBlockForPatient(PATIENT_ID, WEEK_MINUTES);
+        VitalStatistics statistics = new VitalStatistics(VitalSignType.HEART_RATE);
+        for (int i = 0; i < week.size(); i++) {
+            if (week.type(i) == VitalSignType.HEART_RATE) {
+                statistics.add(week.value(i));
+            }
+        }
+        return statistics;
+    }
+
+    @Benchmark
+    public VitalStatistics summarize() {
+        return analytics.summarize(PATIENT_ID, VitalSignType.HEART_RATE, fromNanos, toNanos);
+    }
+
+    @Benchmark
+    public List<Rollup> hourlyTrend() {
+        return analytics.getRollups(PATIENT_ID, VitalSignType.HEART_RATE, RollupGranularity.HOUR, fromNanos, toNanos);
+    }
+
+    private void store(ReadingBlock block) {
+        readings.addReadings(block);
+        ReadingBlock.Cursor cursor = block.cursor();
+        while (cursor.next()) {
+            analytics.record(cursor);
+        }
+        block.clear();
+    }
+}
@@ -0,0 +1,174 @@
+package com.vhg.patientmonitoring.benchmark;
+
+import com.vhg.patientmonitoring.model.reading.VitalSignType;
+import com.vhg.patientmonitoring.repository.impl.JdbcReadingRepository;
+import com.vhg.patientmonitoring.repository.impl.PartitionedJdbcReadingRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.time.LocalDate;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Window-query latency and purge time of the {@code vital_signs} layouts on PostgreSQL:
+ * <ul>
+ *     <li>{@code legacy}: one table indexed on {@code patient_id} only (the original schema)</li>
+ *     <li>{@code composite}: one table with the {@code (patient_id, type, timestamp)} index</li>
+ *     <li>{@code partitioned}: daily partitions from {@code scripts/schema-partitioned.sql}</li>
+ * </ul>
+ * Needs a scratch database, given by {@code -Dbenchmark.jdbc.url}, {@code -Dbenchmark.jdbc.user} and
+ * {@code -Dbenchmark.jdbc.password}. Each layout is loaded once into its own schema with
+ * {@code generate_series} ({@code rows} readings spread over {@value #DAYS} days) and reused by later runs.
+ */
+@State(Scope.Benchmark)
+@Fork(1)
+public class VitalSignsStorageBenchmark {
+    private static final int DAYS = 30;
+    private static final int LOAD_CHUNK = 5_000_000;
+    private static final String PATIENT_ID_FORMAT = "00000000-0000-0000-0000-%012d";
+    private static final String TYPES_SQL = "ARRAY['HEART_RATE', 'BLOOD_PRESSURE', 'BLOOD_OXYGEN', 'TEMPERATURE', 'RESPIRATORY_RATE']";
+
+    @Param({"legacy", "composite", "partitioned"})
+    public String layout;
+
+    @Param({"100000000"})
+    public long rows;
+
+    @Param({"2000"})
+    public int patients;
+
+    private JdbcTemplate jdbcTemplate;
+    private JdbcReadingRepository repository;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        String schema = "bench_" + layout;
+        String url = System.getProperty("benchmark.jdbc.url", "jdbc:postgresql://localhost:5432/bench_db");
+        DriverManagerDataSource admin = new DriverManagerDataSource(url,
+                System.getProperty("benchmark.jdbc.user", "postgres"), System.getProperty("benchmark.jdbc.password", ""));
+        new JdbcTemplate(admin).execute("CREATE SCHEMA IF NOT EXISTS " + schema);
+
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(url + (url.contains("?") ? "&" : "?") + "currentSchema=" + schema,
+                System.getProperty("benchmark.jdbc.user", "postgres"), System.getProperty("benchmark.jdbc.password", ""));
+        jdbcTemplate = new JdbcTemplate(dataSource);
+
+        boolean loaded = !jdbcTemplate.queryForList(
+                "SELECT 1 FROM information_schema.tables WHERE table_schema = ? AND table_name = 'bench_meta'", schema).isEmpty()
+                && rows == jdbcTemplate.queryForObject("SELECT rows FROM bench_meta", Long.class);
+        if (!loaded) {
+            createTables();
+        }
+
+        if (layout.equals("partitioned")) {
+            PartitionedJdbcReadingRepository partitioned = new PartitionedJdbcReadingRepository(dataSource);
+            partitioned.ensurePartitions(LocalDate.now().minusDays(DAYS + 1), LocalDate.now());
+            repository = partitioned;
+        } else {
+            repository = new JdbcReadingRepository(dataSource);
+        }
+
+        if (!loaded) {
+            insertReadings(0, rows);
+            if (!layout.equals("partitioned")) {
+                jdbcTemplate.execute(layout.equals("legacy")
+                        ? "CREATE INDEX idx_vitals_patient_id ON vital_signs(patient_id)"
+                        : "CREATE INDEX idx_vitals_patient_type_time ON vital_signs(patient_id, type, timestamp)");
+            }
+            jdbcTemplate.execute("ANALYZE vital_signs");
+            jdbcTemplate.execute("CREATE TABLE bench_meta (rows BIGINT)");
+            jdbcTemplate.update("INSERT INTO bench_meta VALUES (?)", rows);
+        }
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    @Warmup(iterations = 2, time = 5)
+    @Measurement(iterations = 5, time = 5)
+    public int windowQueryByType() {
+        return repository.getReadingsForPatientByType(randomPatient(), VitalSignType.HEART_RATE, 60).size();
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    @Warmup(iterations = 2, time = 5)
+    @Measurement(iterations = 5, time = 5)
+    public int windowQueryAllTypes() {
+        return repository.getReadingsForPatient(randomPatient(), 60).size();
+    }
+
+    /**
+     * Each invocation first reloads one day of readings just past the retention window (untimed),
+     * then times purging it.
+     */
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 0)
+    @Measurement(iterations = 3)
+    public void purgeOneDay(ExpiredDay expiredDay) {
+        repository.purgeOldReadings(DAYS);
+    }
+
+    @State(Scope.Benchmark)
+    public static class ExpiredDay {
+        @Setup(Level.Invocation)
+        public void load(VitalSignsStorageBenchmark benchmark) {
+            if (benchmark.repository instanceof PartitionedJdbcReadingRepository partitioned) {
+                LocalDate day = LocalDate.now().minusDays(DAYS + 1);
+                partitioned.ensurePartitions(day, day);
+            }
+            long rowsPerDay = benchmark.rows / DAYS;
+            benchmark.insertReadings(benchmark.rows, benchmark.rows + rowsPerDay);
+        }
+    }
+
+    private void createTables() {
+        jdbcTemplate.execute("DROP TABLE IF EXISTS vital_signs CASCADE");
+        jdbcTemplate.execute("DROP TABLE IF EXISTS bench_meta");
+        String columns = "id UUID NOT NULL, patient_id UUID NOT NULL, timestamp TIMESTAMP NOT NULL, "
+                + "type VARCHAR(50) NOT NULL, value DOUBLE PRECISION NOT NULL, unit VARCHAR(16) NOT NULL";
+        if (layout.equals("partitioned")) {
+            jdbcTemplate.execute("CREATE TABLE vital_signs (" + columns + ", PRIMARY KEY (id, timestamp)) PARTITION BY RANGE (timestamp)");
+            jdbcTemplate.execute("CREATE TABLE vital_signs_default PARTITION OF vital_signs DEFAULT");
+            jdbcTemplate.execute("CREATE INDEX idx_vitals_patient_type_time ON vital_signs(patient_id, type, timestamp)");
+        } else {
+            jdbcTemplate.execute("CREATE TABLE vital_signs (" + columns + ", PRIMARY KEY (id))");
+        }
+    }
+
+    /**
+     * Inserts readings {@code from} (inclusive) to {@code to} (exclusive) of a series where reading
+     * {@code g} is {@code g * DAYS / rows} days old, round-robin over patients and types.
+     */
+    private void insertReadings(long from, long to) {
+        for (long start = from; start < to; start += LOAD_CHUNK) {
+            long end = Math.min(to, start + LOAD_CHUNK) - 1;
+            jdbcTemplate.update("INSERT INTO vital_signs (id, patient_id, timestamp, type, value, unit) "
+                    + "SELECT gen_random_uuid(), "
+                    + "('00000000-0000-0000-0000-' || lpad((g % ?)::text, 12, '0'))::uuid, "
+                    + "LOCALTIMESTAMP - make_interval(secs => g * ?::double precision), "
+                    + TYPES_SQL + "[1 + ((g / ?) % 5)::int], 60 + random() * 40, 'bpm' "
+                    + "FROM generate_series(?::bigint, ?::bigint) AS g",
+                    patients, TimeUnit.DAYS.toSeconds(DAYS) / (double) rows, patients, start, end);
+        }
+    }
+
+    private String randomPatient() {
+        return String.format(PATIENT_ID_FORMAT, ThreadLocalRandom.current().nextInt(patients));
+    }
+}
@@ -0,0 +1,117 @@
+package com.vhg.patientmonitoring.benchmark;
+
+import com.vhg.patientmonitoring.model.reading.SampleBatch;
+import com.vhg.patientmonitoring.model.reading.VitalSignType;
+import com.vhg.patientmonitoring.repository.waveform.WaveformStore;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Ingest throughput and read latency of the {@link WaveformStore} for synthetic 500 Hz ECG channels.
+ * {@code ingest} appends one 0.5 s batch per operation (multiply ops/s by {@value #BATCH_SAMPLES} for
+ * samples/s); the read benchmarks run against {@value #PRELOADED_MINUTES} minutes per channel. The
+ * compression ratio reached is printed at tear-down.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class WaveformStoreBenchmark {
+    private static final int SAMPLE_RATE_HZ = 500;
+    private static final long INTERVAL_NANOS = 1_000_000_000L / SAMPLE_RATE_HZ;
+    private static final int BATCH_SAMPLES = 250;
+    private static final int PRELOADED_MINUTES = 10;
+    private static final long START_NANOS = 1_700_000_000_000_000_000L;
+
+    @Param({"10", "200"})
+    public int channels;
+
+    private Path directory;
+    private WaveformStore store;
+    private String[] patientIds;
+    private double[] signal;
+    private long[] nextNanos;
+    private int nextChannel;
+    private int signalOffset;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("waveform-benchmark");
+        store = WaveformStore.open(directory, 10_000, 64 * 1024 * 1024);
+        patientIds = BenchmarkData.patientIds(channels);
+        signal = BenchmarkData.ecg(SAMPLE_RATE_HZ * 60, SAMPLE_RATE_HZ, new Random(42));
+        nextNanos = new long[channels];
+        Arrays.fill(nextNanos, START_NANOS);
+
+        // Preload the read window; ingest then continues after it
+        int batches = PRELOADED_MINUTES * 60 * SAMPLE_RATE_HZ / BATCH_SAMPLES;
+        for (int i = 0; i < batches * channels; i++) {
+            ingest();
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        store.close();
+        System.out.println("Waveform store: " + store.getStats());
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    @Benchmark
+    public void ingest() {
+        int channel = nextChannel;
+        nextChannel = (nextChannel + 1) % channels;
+        if (signalOffset + BATCH_SAMPLES > signal.length) {
+            signalOffset = 0;
+        }
+        double[] values = Arrays.copyOfRange(signal, signalOffset, signalOffset + BATCH_SAMPLES);
+        if (channel == channels - 1) {
+            signalOffset += BATCH_SAMPLES;
+        }
+        store.append(new SampleBatch(patientIds[channel], VitalSignType.ECG, null, nextNanos[channel], INTERVAL_NANOS, values));
+        nextNanos[channel] += BATCH_SAMPLES * INTERVAL_NANOS;
+    }
+
+    /**
+     * Ten seconds of one channel at full resolution, as for a strip review
+     */
+    @Benchmark
+    public List<SampleBatch> readTenSeconds() {
+        long from = START_NANOS + 60 * 1_000_000_000L;
+        return store.read(patientIds[0], VitalSignType.ECG, from, from + 10 * 1_000_000_000L);
+    }
+
+    /**
+     * Ten minutes of one channel as a 1000-point min/max envelope, as for a dashboard trend
+     */
+    @Benchmark
+    public WaveformStore.MinMaxSeries downsampleTenMinutes() {
+        return store.downsample(patientIds[0], VitalSignType.ECG, START_NANOS,
+                START_NANOS + PRELOADED_MINUTES * 60 * 1_000_000_000L, 1000);
+    }
+}
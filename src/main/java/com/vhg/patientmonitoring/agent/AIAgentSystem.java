@@ -1,31 +1,89 @@
 package com.vhg.patientmonitoring.agent;
 
+import com.vhg.patientmonitoring.agent.baseline.BaselineSnapshot;
+import com.vhg.patientmonitoring.agent.baseline.BaselineStore;
+import com.vhg.patientmonitoring.agent.baseline.PatientBaselines;
 import com.vhg.patientmonitoring.agent.model.LLMModelInterface;
 import com.vhg.patientmonitoring.agent.model.ModelInterface;
+import com.vhg.patientmonitoring.agent.rules.AlertRule;
+import com.vhg.patientmonitoring.agent.rules.RuleEngine;
+import com.vhg.patientmonitoring.agent.rules.RuleMatches;
+import com.vhg.patientmonitoring.core.CadenceController;
+import com.vhg.patientmonitoring.core.MonitoringConfiguration;
 import com.vhg.patientmonitoring.core.PatientMonitoringSystem;
 import com.vhg.patientmonitoring.model.alert.Alert;
 import com.vhg.patientmonitoring.model.alert.AlertSeverity;
+import com.vhg.patientmonitoring.model.analytics.Rollup;
+import com.vhg.patientmonitoring.model.analytics.RollupGranularity;
+import com.vhg.patientmonitoring.model.analytics.VitalStatistics;
 import com.vhg.patientmonitoring.model.patient.Patient;
+import com.vhg.patientmonitoring.model.reading.ReadingBlock;
+import com.vhg.patientmonitoring.model.reading.ReadingView;
 import com.vhg.patientmonitoring.model.reading.VitalSignReading;
 import com.vhg.patientmonitoring.model.reading.VitalSignType;
+import com.vhg.patientmonitoring.service.AnalyticsService;
+import com.vhg.patientmonitoring.util.DateTimeUtils;
 
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.ZoneId;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 
 /**
  * Implementation of the Agent system using AI capabilities
  */
 public class AIAgentSystem implements AgentSystem {
+    // Readings needed before a baseline's deviation band is trusted over general guidelines
+    public static final long MIN_BASELINE_SAMPLES = 30;
+    // Width of the normal band, in standard deviations
+    static final double ANOMALY_SIGMAS = 3.0;
+    // Floor on the band width relative to the mean, so a very steady signal doesn't alert on noise
+    public static final double MIN_RELATIVE_STD_DEV = 0.02;
+    private static final int BASELINE_SEED_WINDOW_MINUTES = 60;
+    private static final int TREND_MINUTE_POINTS_MAX_MINUTES = 3 * 60;
+    private static final int TREND_HOUR_POINTS_MAX_MINUTES = 14 * 24 * 60;
+
     private PatientMonitoringSystem monitoringSystem;
-    private Map<String, Map<VitalSignType, Double>> patientBaselines;
+    private BaselineStore baselineStore;
+    private RuleEngine ruleEngine;
     private ModelInterface modelInterface;
+    private DecisionCache decisionCache;
+    private DecisionPipeline decisionPipeline;
+    private volatile Consumer<String> decisionListener;
 
     public AIAgentSystem(PatientMonitoringSystem monitoringSystem) {
+        this(monitoringSystem, new LLMModelInterface()); // Using large language model for intelligence
+    }
+
+    public AIAgentSystem(PatientMonitoringSystem monitoringSystem, ModelInterface modelInterface) {
+        MonitoringConfiguration configuration = monitoringSystem != null ? monitoringSystem.getConfiguration() : new MonitoringConfiguration();
         this.monitoringSystem = monitoringSystem;
-        this.patientBaselines = new HashMap<>();
-        this.modelInterface = new LLMModelInterface(); // Using large language model for intelligence
+        this.baselineStore = new BaselineStore();
+        this.ruleEngine = createRuleEngine(configuration);
+        this.modelInterface = modelInterface;
+        this.decisionCache = new DecisionCache(configuration.getDecisionCacheTtlMillis(), configuration.getDecisionCacheMaxEntries());
+        this.decisionPipeline = new DecisionPipeline(modelInterface, decisionCache, configuration.getModelBatchSize(),
+                configuration.getModelBatchWindowMillis(), configuration.getModelMaxConcurrentBatches(),
+                configuration.getModelTimeoutMillis(), this::interpretModelOutput, this::handleDecision);
+    }
+
+    private static RuleEngine createRuleEngine(MonitoringConfiguration configuration) {
+        RuleEngine engine = RuleEngine.withDefaultRules();
+        if (configuration.getRulesFile() != null) {
+            try {
+                engine.watch(Path.of(configuration.getRulesFile()), configuration.getRulesReloadIntervalMillis());
+            } catch (IOException | RuntimeException e) {
+                System.err.println("Error loading alert rules from " + configuration.getRulesFile()
+                        + ", using default rules: " + e.getMessage());
+            }
+        }
+        return engine;
     }
 
     @Override
@@ -40,19 +98,36 @@ public class AIAgentSystem implements AgentSystem {
         context.put("patientHistory", patient.getMedicalHistory());
         context.put("medications", patient.getCurrentMedications());
 
-        Decision decision = makeDecision(patient, recentReadings, context);
+        // A stable patient usually looks the same as last cycle; reuse the model's decision for that state
+        long fingerprint = DecisionCache.fingerprint(patient, recentReadings);
+        Decision cached = decisionCache.get(patientId, fingerprint);
+        if (cached != null) {
+            handleDecision(patientId, cached);
+            return;
+        }
 
-        // Act on the decision
-        handleDecision(decision);
+        // Hand off to the model without waiting for it; the decision is acted on when it arrives.
+        // If the model can't answer in time, the rule-based decision computed now is used instead.
+        Map<String, Object> modelInput = prepareModelInput(patient, recentReadings, context);
+        decisionPipeline.submit(patientId, fingerprint, modelInput, ruleBasedDecision(recentReadings));
     }
 
+    /**
+     * Fits the trend to rollups rather than raw readings, so a window of weeks costs a few hundred
+     * rows however often the patient is sampled.
+     */
     @Override
-    public void analyzeTrends(String patientId, VitalSignType type, int timeWindowMinutes) {
-        List<VitalSignReading> readings = monitoringSystem.getReadingRepository()
-                .getReadingsForPatientByType(patientId, type, timeWindowMinutes);
-
-        // Perform trend analysis using statistical methods or ML
-        // Implementation details...
+    public Trend analyzeTrends(String patientId, VitalSignType type, int timeWindowMinutes) {
+        AnalyticsService analytics = monitoringSystem.getAnalyticsService();
+        long toNanos = DateTimeUtils.nowEpochNanos(Clock.systemUTC());
+        long fromNanos = toNanos - TimeUnit.MINUTES.toNanos(timeWindowMinutes);
+        // Enough points for a fit without reading more rollups than the window needs
+        RollupGranularity granularity = timeWindowMinutes <= TREND_MINUTE_POINTS_MAX_MINUTES ? RollupGranularity.MINUTE
+                : timeWindowMinutes <= TREND_HOUR_POINTS_MAX_MINUTES ? RollupGranularity.HOUR : RollupGranularity.DAY;
+
+        List<Rollup> points = analytics.getRollups(patientId, type, granularity, granularity.bucketStart(fromNanos), toNanos);
+        VitalStatistics statistics = analytics.summarize(patientId, type, fromNanos, toNanos);
+        return Trend.fit(type, statistics, points, timeWindowMinutes / 60.0);
     }
 
     @Override
@@ -60,8 +135,15 @@ public class AIAgentSystem implements AgentSystem {
         List<Alert> alerts = new ArrayList<>();
 
         for (VitalSignReading reading : readings) {
+            // Configured clinical rules take precedence over the statistical check
+            AlertRule rule = ruleEngine.evaluate(reading);
+            if (rule != null) {
+                alerts.add(new Alert(reading.getPatientId(), rule.getSeverity(), generateRuleAlertMessage(reading, rule), reading));
+                continue;
+            }
+
             // Get patient baseline
-            Double baseline = getPatientBaseline(reading.getPatientId(), reading.getType());
+            PatientBaselines baseline = baselineStore.get(reading.getPatientId());
 
             // Check if reading is anomalous based on patient-specific criteria
             if (isAnomalous(reading, baseline)) {
@@ -75,25 +157,116 @@ public class AIAgentSystem implements AgentSystem {
     }
 
     @Override
-    public void learnPatientBaselines(String patientId) {
-        // Calculate baselines for each vital sign type for this patient
-        for (VitalSignType type : VitalSignType.values()) {
-            List<VitalSignReading> historicalReadings = monitoringSystem.getReadingRepository()
-                    .getReadingsForPatientByType(patientId, type, 10080); // Last week
-
-            // Calculate the mean (or another statistical measure) as the baseline
-            double baseline = calculateBaseline(historicalReadings);
+    public List<Alert> detectAnomalies(ReadingBlock block) {
+        List<Alert> alerts = new ArrayList<>();
 
-            // Store the baseline
-            if (!patientBaselines.containsKey(patientId)) {
-                patientBaselines.put(patientId, new HashMap<>());
+        // Screen the whole block against rules and baselines in primitive column loops; only flagged
+        // readings are revisited through a flyweight and materialized for their alert
+        RuleMatches ruleMatches = ruleEngine.evaluate(block);
+        int[] deviations = BatchAnomalyDetector.detect(block, baselineStore);
+        ReadingBlock.Cursor reading = block.cursor();
+        int nextMatch = 0;
+        int nextDeviation = 0;
+        while (nextMatch < ruleMatches.size() || nextDeviation < deviations.length) {
+            int matchPosition = nextMatch < ruleMatches.size() ? ruleMatches.position(nextMatch) : Integer.MAX_VALUE;
+            int deviationPosition = nextDeviation < deviations.length ? deviations[nextDeviation] : Integer.MAX_VALUE;
+            int position = Math.min(matchPosition, deviationPosition);
+            reading.moveTo(position);
+            VitalSignReading triggeringReading = block.toReading(position, ZoneId.systemDefault());
+
+            if (matchPosition == position) {
+                // As in the list path, a rule match takes precedence over a deviation of the same reading
+                AlertRule rule = ruleMatches.rule(nextMatch++);
+                alerts.add(new Alert(reading.getPatientId(), rule.getSeverity(), generateRuleAlertMessage(reading, rule), triggeringReading));
+                if (deviationPosition == position) {
+                    nextDeviation++;
+                }
+            } else {
+                PatientBaselines baseline = baselineStore.get(reading.getPatientIndex());
+                AlertSeverity severity = determineAlertSeverity(reading, baseline);
+                String message = generateAlertMessage(reading, baseline);
+                alerts.add(new Alert(reading.getPatientId(), severity, message, triggeringReading));
+                nextDeviation++;
             }
-            patientBaselines.get(patientId).put(type, baseline);
         }
+
+        return alerts;
+    }
+
+    @Override
+    public void observeReading(ReadingView reading) {
+        // O(1) baseline update per reading; replaces recalculating from a week of history
+        baselineStore.record(reading.getPatientId(), reading.getType(), reading.getValue());
+    }
+
+    @Override
+    public void learnPatientBaselines(String patientId) {
+        // Baselines are maintained as readings arrive. This only seeds a patient we hold no state for
+        // (e.g. after a restart without restored snapshots) from the recent window.
+        if (baselineStore.contains(patientId)) {
+            return;
+        }
+
+        List<VitalSignReading> recentReadings = monitoringSystem.getReadingRepository()
+                .getReadingsForPatient(patientId, BASELINE_SEED_WINDOW_MINUTES);
+        for (VitalSignReading reading : recentReadings) {
+            observeReading(reading);
+        }
+    }
+
+    /**
+     * Captures the patient's baselines so they can be persisted and restored instead of relearned.
+     */
+    public Map<VitalSignType, BaselineSnapshot> snapshotBaselines(String patientId) {
+        return baselineStore.snapshot(patientId);
+    }
+
+    public void restoreBaselines(String patientId, Map<VitalSignType, BaselineSnapshot> snapshots) {
+        baselineStore.restore(patientId, snapshots);
+    }
+
+    public BaselineStore getBaselineStore() {
+        return baselineStore;
+    }
+
+    public RuleEngine getRuleEngine() {
+        return ruleEngine;
+    }
+
+    public DecisionPipeline.Stats getDecisionStats() {
+        return decisionPipeline.getStats();
+    }
+
+    public DecisionCache.Stats getDecisionCacheStats() {
+        return decisionCache.getStats();
+    }
+
+    @Override
+    public void setDecisionListener(Consumer<String> listener) {
+        this.decisionListener = listener;
+    }
+
+    @Override
+    public void invalidateDecisions(String patientId) {
+        decisionCache.invalidate(patientId);
+    }
+
+    @Override
+    public void shutdown() {
+        decisionPipeline.shutdown();
+        ruleEngine.stopWatching();
     }
 
     @Override
     public Decision makeDecision(Patient patient, List<VitalSignReading> readings, Map<String, Object> context) {
+        String patientId = String.valueOf(patient.getPatientId());
+        long fingerprint = DecisionCache.fingerprint(patient, readings);
+        Decision cached = decisionCache.get(patientId, fingerprint);
+        if (cached != null) {
+            return cached;
+        }
+        long generation = decisionCache.generation(patientId);
+
         // Prepare input for the AI model
         Map<String, Object> modelInput = prepareModelInput(patient, readings, context);
 
@@ -102,76 +275,66 @@ public class AIAgentSystem implements AgentSystem {
 
         // Convert model output to a Decision object
         Decision decision = interpretModelOutput(modelOutput);
+        decisionCache.put(patientId, fingerprint, decision, generation);
 
         return decision;
     }
 
-    private boolean isAnomalous(VitalSignReading reading, Double baseline) {
+    private boolean isAnomalous(ReadingView reading, PatientBaselines baseline) {
         // Logic to determine if a reading is anomalous
-        // Could use simple threshold-based rules or more complex statistical methods
+        // Threshold-based rules are handled by the rule engine; this is the statistical check
 
-        if (baseline == null) {
-            // No baseline established, use general medical guidelines
-            return isAnomalousByGeneralGuidelines(reading);
+        if (!hasEstablishedBaseline(reading, baseline)) {
+            // No baseline established, only the configured rules apply
+            return false;
         }
 
-        // Calculate how much the reading deviates from the baseline
-        double deviation = Math.abs(reading.getValue() - baseline) / baseline;
-
-        // Consider it anomalous if it deviates by more than 20%
-        return deviation > 0.2;
-    }
-
-    private boolean isAnomalousByGeneralGuidelines(VitalSignReading reading) {
-        // Check if reading is outside normal medical ranges
-        switch (reading.getType()) {
-            case HEART_RATE:
-                return reading.getValue() < 50 || reading.getValue() > 120;
-            case BLOOD_PRESSURE:
-                // Simplified - in reality would need to check systolic and diastolic separately
-                return reading.getValue() < 90 || reading.getValue() > 140;
-            case TEMPERATURE:
-                return reading.getValue() < 36.0 || reading.getValue() > 38.0;
-            // Add cases for other vital signs
-            default:
-                return false;
-        }
+        // Consider it anomalous if it falls outside the patient's own standard-deviation band
+        return deviationInSigmas(reading, baseline) > ANOMALY_SIGMAS;
+    }
+
+    private boolean hasEstablishedBaseline(ReadingView reading, PatientBaselines baseline) {
+        return baseline != null && baseline.getCount(reading.getType().ordinal()) >= MIN_BASELINE_SAMPLES;
+    }
+
+    private double deviationInSigmas(ReadingView reading, PatientBaselines baseline) {
+        int type = reading.getType().ordinal();
+        double mean = baseline.getMean(type);
+        double band = Math.max(baseline.getStdDev(type), Math.abs(mean) * MIN_RELATIVE_STD_DEV);
+        return band == 0 ? 0 : Math.abs(reading.getValue() - mean) / band;
     }
 
-    private AlertSeverity determineAlertSeverity(VitalSignReading reading, Double baseline) {
+    private AlertSeverity determineAlertSeverity(ReadingView reading, PatientBaselines baseline) {
         // Logic to determine severity based on how far the reading is from normal/baseline
-        // Implementation details...
-        return AlertSeverity.MEDIUM; // Placeholder
+        if (!hasEstablishedBaseline(reading, baseline)) {
+            return AlertSeverity.MEDIUM;
+        }
+
+        double sigmas = deviationInSigmas(reading, baseline);
+        if (sigmas > 2 * ANOMALY_SIGMAS) {
+            return AlertSeverity.CRITICAL;
+        } else if (sigmas > 1.5 * ANOMALY_SIGMAS) {
+            return AlertSeverity.HIGH;
+        }
+        return AlertSeverity.MEDIUM;
     }
 
-    private String generateAlertMessage(VitalSignReading reading, Double baseline) {
+    private String generateAlertMessage(ReadingView reading, PatientBaselines baseline) {
         // Generate a human-readable message explaining the alert
         return String.format("Abnormal %s reading of %.1f %s detected. Patient's normal range is around %.1f %s.",
                 reading.getType().toString().toLowerCase().replace('_', ' '),
                 reading.getValue(),
                 reading.getUnit(),
-                baseline,
+                baseline != null && baseline.hasBaseline(reading.getType()) ? baseline.getMean(reading.getType().ordinal()) : null,
                 reading.getUnit());
     }
 
-    private Double getPatientBaseline(String patientId, VitalSignType type) {
-        if (patientBaselines.containsKey(patientId) && patientBaselines.get(patientId).containsKey(type)) {
-            return patientBaselines.get(patientId).get(type);
-        }
-        return null; // No baseline established yet
-    }
-
-    private double calculateBaseline(List<VitalSignReading> readings) {
-        // Calculate baseline from historical readings (e.g., mean or median)
-        if (readings == null || readings.isEmpty()) {
-            return 0.0;
-        }
-
-        double sum = 0.0;
-        for (VitalSignReading reading : readings) {
-            sum += reading.getValue();
-        }
-        return sum / readings.size();
+    private String generateRuleAlertMessage(ReadingView reading, AlertRule rule) {
+        return String.format("%s: %s reading of %.1f %s.",
+                rule.getMessage(),
+                reading.getType().toString().toLowerCase().replace('_', ' '),
+                reading.getValue(),
+                reading.getUnit());
     }
 
     private Map<String, Object> prepareModelInput(Patient patient, List<VitalSignReading> readings, Map<String, Object> context) {
@@ -182,24 +345,74 @@ public class AIAgentSystem implements AgentSystem {
 
     private Decision interpretModelOutput(Map<String, Object> modelOutput) {
         // Convert model prediction into an actionable decision
-        // Implementation details...
-        return new Decision(DecisionType.NO_ACTION, "Monitor", 0.0); // Placeholder
+        Object type = modelOutput.get("decisionType");
+        Object description = modelOutput.get("description");
+        Object confidence = modelOutput.get("confidence");
+        return new Decision(type != null ? DecisionType.valueOf(type.toString()) : DecisionType.NO_ACTION,
+                description != null ? description.toString() : "Monitor",
+                confidence instanceof Number number ? number.doubleValue() : 0.0);
     }
 
-    private void handleDecision(Decision decision) {
+    /**
+     * Decision from the configured rules and baselines alone, acted on when the model doesn't answer in time.
+     * Looks at the latest reading of each vital sign in the window.
+     */
+    private Decision ruleBasedDecision(List<VitalSignReading> recentReadings) {
+        boolean[] seen = new boolean[VitalSignType.values().length];
+        for (int i = recentReadings.size() - 1; i >= 0; i--) {
+            VitalSignReading reading = recentReadings.get(i);
+            if (seen[reading.getType().ordinal()]) {
+                continue;
+            }
+            seen[reading.getType().ordinal()] = true;
+
+            AlertRule rule = ruleEngine.check(reading);
+            if (rule != null) {
+                return new Decision(DecisionType.ALERT, generateRuleAlertMessage(reading, rule), 1.0);
+            }
+            PatientBaselines baseline = baselineStore.get(reading.getPatientId());
+            if (isAnomalous(reading, baseline)) {
+                return new Decision(DecisionType.ALERT, generateAlertMessage(reading, baseline), 0.5);
+            }
+        }
+        return new Decision(DecisionType.NO_ACTION, "Continue monitoring (rule-based)", 0.5);
+    }
+
+    private void adjustCadence(String patientId, boolean faster) {
+        if (monitoringSystem == null) {
+            return;
+        }
+        CadenceController cadenceController = monitoringSystem.getCadenceController();
+        if (faster) {
+            cadenceController.escalate(patientId);
+        } else {
+            cadenceController.relax(patientId);
+        }
+    }
+
+    private void handleDecision(String patientId, Decision decision) {
         switch (decision.getType()) {
             case ALERT:
                 // Create and dispatch an alert
+                // A patient worth alerting on is worth watching more closely
+                adjustCadence(patientId, true);
                 break;
             case ADJUST_MONITORING:
-                // Change monitoring frequency or parameters
+                // Deteriorating: ramp towards sub-second sampling
+                adjustCadence(patientId, true);
                 break;
             case RECOMMEND_INTERVENTION:
                 // Send recommendation to healthcare provider
                 break;
             case NO_ACTION:
-                // Continue normal monitoring
+                // Continue normal monitoring, easing off towards the slowest cadence while stable
+                adjustCadence(patientId, false);
                 break;
         }
+
+        Consumer<String> listener = decisionListener;
+        if (listener != null) {
+            listener.accept(patientId);
+        }
     }
 }
\ No newline at end of file
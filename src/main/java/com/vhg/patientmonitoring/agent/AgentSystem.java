@@ -2,19 +2,36 @@ package com.vhg.patientmonitoring.agent;
 
 import com.vhg.patientmonitoring.model.alert.Alert;
 import com.vhg.patientmonitoring.model.patient.Patient;
+import com.vhg.patientmonitoring.model.reading.ReadingBlock;
+import com.vhg.patientmonitoring.model.reading.ReadingView;
 import com.vhg.patientmonitoring.model.reading.VitalSignReading;
 import com.vhg.patientmonitoring.model.reading.VitalSignType;
 
 import java.util.List;
 import java.util.Map;
+import java.util.function.Consumer;
 
 /**
  * Core agentic AI interface
  */
 public interface AgentSystem {
     void processPatientData(String patientId);
-    void analyzeTrends(String patientId, VitalSignType type, int timeWindowMinutes);
+    /**
+     * Direction of the vital sign over the last {@code timeWindowMinutes}.
+     */
+    Trend analyzeTrends(String patientId, VitalSignType type, int timeWindowMinutes);
     List<Alert> detectAnomalies(List<VitalSignReading> readings);
+    List<Alert> detectAnomalies(ReadingBlock readings);
+    void observeReading(ReadingView reading);
     void learnPatientBaselines(String patientId);
     Decision makeDecision(Patient patient, List<VitalSignReading> readings, Map<String, Object> context);
+    /**
+     * Registers a callback invoked with the patient id whenever a decision for that patient has been acted on.
+     */
+    void setDecisionListener(Consumer<String> listener);
+    /**
+     * Forgets cached decisions for the patient, e.g. after a new alert or a medication change.
+     */
+    void invalidateDecisions(String patientId);
+    void shutdown();
 }
\ No newline at end of file
@@ -0,0 +1,58 @@
+package com.vhg.patientmonitoring.agent;
+
+import com.vhg.patientmonitoring.agent.baseline.BaselineStore;
+import com.vhg.patientmonitoring.agent.baseline.PatientBaselines;
+import com.vhg.patientmonitoring.model.reading.ReadingBlock;
+
+import java.util.Arrays;
+
+/**
+ * Screens a whole block of readings (e.g. a ward tick) for deviations from patient baselines using only
+ * primitive column loops.
+ * <p>
+ * One pass over the value, type and patient columns tests each reading against its patient's baseline
+ * band. There is no boxing, no per-reading object and no allocation beyond the result. Only flagged
+ * positions come out, so callers build alerts for those alone.
+ */
+final class BatchAnomalyDetector {
+    private BatchAnomalyDetector() {
+    }
+
+    /**
+     * Positions of the anomalous readings in the block, in block order.
+     */
+    static int[] detect(ReadingBlock block, BaselineStore baselineStore) {
+        int size = block.size();
+        int[] patientIndexes = block.patientIndexes();
+        byte[] typeOrdinals = block.typeOrdinals();
+        double[] values = block.values();
+        // Anomalies are rare, so the result starts small and grows on demand
+        int[] flagged = new int[16];
+        int count = 0;
+
+        // Blocks arrive grouped by patient, so the baseline lookup is done once per run of readings
+        int currentPatient = -1;
+        PatientBaselines baselines = null;
+        for (int i = 0; i < size; i++) {
+            if (patientIndexes[i] != currentPatient) {
+                currentPatient = patientIndexes[i];
+                baselines = baselineStore.get(currentPatient);
+            }
+            int type = typeOrdinals[i];
+            if (baselines == null || baselines.getCount(type) < AIAgentSystem.MIN_BASELINE_SAMPLES) {
+                // Readings without an established baseline are left to the configured rules
+                continue;
+            }
+            double mean = baselines.getMean(type);
+            double band = Math.max(baselines.getStdDev(type), Math.abs(mean) * AIAgentSystem.MIN_RELATIVE_STD_DEV);
+            // A zero-width band can't measure deviation; never flag rather than flag everything
+            if (band > 0 && Math.abs(values[i] - mean) > AIAgentSystem.ANOMALY_SIGMAS * band) {
+                if (count == flagged.length) {
+                    flagged = Arrays.copyOf(flagged, count * 2);
+                }
+                flagged[count++] = i;
+            }
+        }
+        return Arrays.copyOf(flagged, count);
+    }
+}
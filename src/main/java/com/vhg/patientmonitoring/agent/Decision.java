@@ -19,4 +19,12 @@ class Decision {
     public DecisionType getType() {
         return type;
     }
+
+    public String getDescription() {
+        return description;
+    }
+
+    public double getConfidence() {
+        return confidence;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,240 @@
+package com.vhg.patientmonitoring.agent;
+
+import com.vhg.patientmonitoring.model.patient.Patient;
+import com.vhg.patientmonitoring.model.reading.VitalSignReading;
+import com.vhg.patientmonitoring.model.reading.VitalSignType;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Remembers the last model decision per patient together with a fingerprint of the state it was made for.
+ * <p>
+ * The fingerprint quantizes the vitals window (latest, mean, min and max per vital sign, rounded to a
+ * step too small to matter clinically) and hashes in the patient's medical history and current
+ * medications, so consecutive cycles of a stable patient map to the same fingerprint and reuse the
+ * decision instead of calling the model, while a medication change misses. Entries expire after a TTL,
+ * the least recently used patients are evicted beyond the size bound, and {@link #invalidate(String)}
+ * drops a patient's entry when something the fingerprint can't see changes (a new alert).
+ */
+public class DecisionCache {
+    // Quantization step per vital sign, indexed by ordinal
+    private static final double[] QUANTUM = new double[VitalSignType.values().length];
+
+    static {
+        Arrays.fill(QUANTUM, 1.0);
+        QUANTUM[VitalSignType.HEART_RATE.ordinal()] = 5;
+        QUANTUM[VitalSignType.BLOOD_PRESSURE.ordinal()] = 5;
+        QUANTUM[VitalSignType.BLOOD_OXYGEN.ordinal()] = 1;
+        QUANTUM[VitalSignType.TEMPERATURE.ordinal()] = 0.2;
+        QUANTUM[VitalSignType.RESPIRATORY_RATE.ordinal()] = 2;
+        QUANTUM[VitalSignType.BLOOD_GLUCOSE.ordinal()] = 10;
+        QUANTUM[VitalSignType.ECG.ordinal()] = 0.1;
+        QUANTUM[VitalSignType.EEG.ordinal()] = 10;
+    }
+
+    private final long ttlNanos;
+    private final int maxEntries;
+    // Access-ordered, so iteration starts at the least recently used patient; guarded by itself
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    // Bumped on every invalidation, so a decision computed before it can't be cached after it
+    private final Map<String, AtomicLong> generations = new ConcurrentHashMap<>();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder expirations = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+
+    public DecisionCache(long ttlMillis, int maxEntries) {
+        this.ttlNanos = TimeUnit.MILLISECONDS.toNanos(ttlMillis);
+        this.maxEntries = maxEntries;
+    }
+
+    /**
+     * Fingerprint of the quantized vitals window and the patient context.
+     */
+    public static long fingerprint(Patient patient, List<VitalSignReading> readings) {
+        int types = QUANTUM.length;
+        long[] latest = new long[types];
+        double[] sums = new double[types];
+        long[] mins = new long[types];
+        long[] maxes = new long[types];
+        int[] counts = new int[types];
+        Arrays.fill(mins, Long.MAX_VALUE);
+        Arrays.fill(maxes, Long.MIN_VALUE);
+
+        for (VitalSignReading reading : readings) {
+            int type = reading.getType().ordinal();
+            long quantized = quantize(type, reading.getValue());
+            latest[type] = quantized;
+            sums[type] += reading.getValue();
+            mins[type] = Math.min(mins[type], quantized);
+            maxes[type] = Math.max(maxes[type], quantized);
+            counts[type]++;
+        }
+
+        long hash = patient != null
+                ? mix(Objects.hashCode(patient.getMedicalHistory()), Objects.hashCode(patient.getCurrentMedications()))
+                : 0;
+        for (int type = 0; type < types; type++) {
+            if (counts[type] > 0) {
+                hash = mix(hash, type);
+                hash = mix(hash, latest[type]);
+                hash = mix(hash, quantize(type, sums[type] / counts[type]));
+                hash = mix(hash, mins[type]);
+                hash = mix(hash, maxes[type]);
+            }
+        }
+        return hash;
+    }
+
+    /**
+     * Cached decision for the patient if it was made for the same fingerprint and hasn't expired, else null.
+     */
+    public Decision get(String patientId, long fingerprint) {
+        synchronized (entries) {
+            Entry entry = entries.get(patientId);
+            if (entry != null && System.nanoTime() - entry.storedAt > ttlNanos) {
+                entries.remove(patientId);
+                expirations.increment();
+                entry = null;
+            }
+            if (entry != null && entry.fingerprint == fingerprint) {
+                hits.increment();
+                return entry.decision;
+            }
+        }
+        misses.increment();
+        return null;
+    }
+
+    /**
+     * Current invalidation generation of the patient, to be passed back to {@link #put}.
+     */
+    public long generation(String patientId) {
+        AtomicLong generation = generations.get(patientId);
+        return generation != null ? generation.get() : 0;
+    }
+
+    /**
+     * Caches the decision unless the patient was invalidated since {@code generation} was read.
+     */
+    public void put(String patientId, long fingerprint, Decision decision, long generation) {
+        synchronized (entries) {
+            if (generation(patientId) != generation) {
+                return;
+            }
+            entries.put(patientId, new Entry(fingerprint, decision, System.nanoTime()));
+            Iterator<Entry> eldest = entries.values().iterator();
+            while (entries.size() > maxEntries && eldest.hasNext()) {
+                eldest.next();
+                eldest.remove();
+                evictions.increment();
+            }
+        }
+    }
+
+    public void invalidate(String patientId) {
+        synchronized (entries) {
+            generations.computeIfAbsent(patientId, id -> new AtomicLong()).incrementAndGet();
+            if (entries.remove(patientId) != null) {
+                invalidations.increment();
+            }
+        }
+    }
+
+    public Stats getStats() {
+        int size;
+        synchronized (entries) {
+            size = entries.size();
+        }
+        return new Stats(size, hits.sum(), misses.sum(), evictions.sum(), expirations.sum(), invalidations.sum());
+    }
+
+    private static long quantize(int type, double value) {
+        return Math.round(value / QUANTUM[type]);
+    }
+
+    private static long mix(long hash, long value) {
+        // 64-bit variant of the MurmurHash3 finalizer over the running hash
+        long h = (hash ^ value) * 0x9E3779B97F4A7C15L;
+        h ^= h >>> 32;
+        h *= 0xC2B2AE3D27D4EB4FL;
+        return h ^ (h >>> 29);
+    }
+
+    private record Entry(long fingerprint, Decision decision, long storedAt) {
+    }
+
+    /**
+     * Point-in-time snapshot of the decision cache
+     */
+    public static class Stats {
+        private final int size;
+        private final long hits;
+        private final long misses;
+        private final long evictions;
+        private final long expirations;
+        private final long invalidations;
+
+        public Stats(int size, long hits, long misses, long evictions, long expirations, long invalidations) {
+            this.size = size;
+            this.hits = hits;
+            this.misses = misses;
+            this.evictions = evictions;
+            this.expirations = expirations;
+            this.invalidations = invalidations;
+        }
+
+        public int getSize() {
+            return size;
+        }
+
+        public long getHits() {
+            return hits;
+        }
+
+        public long getMisses() {
+            return misses;
+        }
+
+        public double getHitRatio() {
+            long lookups = hits + misses;
+            return lookups == 0 ? 0 : (double) hits / lookups;
+        }
+
+        public long getEvictions() {
+            return evictions;
+        }
+
+        public long getExpirations() {
+            return expirations;
+        }
+
+        public long getInvalidations() {
+            return invalidations;
+        }
+
+        @Override
+        public String toString() {
+            return "Stats{" +
+                    "size=" + size +
+                    ", hits=" + hits +
+                    ", misses=" + misses +
+                    ", hitRatio=" + String.format("%.3f", getHitRatio()) +
+                    ", evictions=" + evictions +
+                    ", expirations=" + expirations +
+                    ", invalidations=" + invalidations +
+                    '}';
+        }
+    }
+}
@@ -0,0 +1,315 @@
+package com.vhg.patientmonitoring.agent;
+
+import com.vhg.patientmonitoring.agent.model.ModelInterface;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+/**
+ * Asynchronous path from monitoring cycles to model decisions.
+ * <p>
+ * {@link #submit} never blocks. Requests are coalesced per patient: while a patient's request waits or
+ * is with the model, a newer one replaces whatever is still waiting, so only the newest context is
+ * sent. A dispatcher thread groups waiting patients into micro-batches for
+ * {@link ModelInterface#predictBatch}, with at most {@code maxConcurrentBatches} calls outstanding;
+ * a batch formed while all of them are busy waits for one to finish without holding up the
+ * dispatcher. Each decision (or, if the model fails or the batch isn't answered within the timeout
+ * of being formed, the request's rule-based fallback) is handed to the decision handler. Model decisions are also stored in the {@link DecisionCache}.
+ */
+public class DecisionPipeline {
+    private final ModelInterface model;
+    private final DecisionCache cache;
+    private final Function<Map<String, Object>, Decision> interpreter;
+    private final BiConsumer<String, Decision> handler;
+    private final int maxBatchSize;
+    private final long batchWindowNanos;
+    private final long timeoutMillis;
+    private final Semaphore permits;
+
+    private final Map<String, PatientSlot> slots = new ConcurrentHashMap<>();
+    // Slots with a waiting request and nothing in flight, each present at most once
+    private final LinkedBlockingQueue<PatientSlot> ready = new LinkedBlockingQueue<>();
+    // Batches waiting for a permit, oldest first
+    private final ConcurrentLinkedQueue<Batch> waitingForPermit = new ConcurrentLinkedQueue<>();
+    private final Thread dispatcher;
+    private volatile boolean running = true;
+
+    private final LongAdder submitted = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+    private final LongAdder batches = new LongAdder();
+    private final LongAdder modelDecisions = new LongAdder();
+    private final LongAdder fallbackDecisions = new LongAdder();
+    private final LongAdder totalBatchNanos = new LongAdder();
+    private final AtomicLong maxBatchNanos = new AtomicLong();
+
+    DecisionPipeline(ModelInterface model, DecisionCache cache, int maxBatchSize, long batchWindowMillis, int maxConcurrentBatches,
+                     long timeoutMillis, Function<Map<String, Object>, Decision> interpreter,
+                     BiConsumer<String, Decision> handler) {
+        this.model = model;
+        this.cache = cache;
+        this.interpreter = interpreter;
+        this.handler = handler;
+        this.maxBatchSize = maxBatchSize;
+        this.batchWindowNanos = TimeUnit.MILLISECONDS.toNanos(batchWindowMillis);
+        this.timeoutMillis = timeoutMillis;
+        this.permits = new Semaphore(maxConcurrentBatches);
+        this.dispatcher = new Thread(this::dispatchLoop, "decision-dispatcher");
+        this.dispatcher.setDaemon(true);
+        this.dispatcher.start();
+    }
+
+    /**
+     * Queues a decision request for the patient, replacing any request of theirs not yet sent.
+     *
+     * @param fingerprint the {@link DecisionCache#fingerprint} of the state the model input describes
+     * @param fallback    decision to act on if the model doesn't answer in time
+     */
+    void submit(String patientId, long fingerprint, Map<String, Object> modelInput, Decision fallback) {
+        submitted.increment();
+        PatientSlot slot = slots.computeIfAbsent(patientId, PatientSlot::new);
+        synchronized (slot) {
+            if (slot.waiting != null) {
+                coalesced.increment();
+            } else if (!slot.inFlight) {
+                ready.add(slot);
+            }
+            slot.waiting = new Request(modelInput, fallback, fingerprint, cache.generation(patientId));
+        }
+    }
+
+    void shutdown() {
+        running = false;
+        dispatcher.interrupt();
+    }
+
+    public Stats getStats() {
+        return new Stats(submitted.sum(), coalesced.sum(), batches.sum(), modelDecisions.sum(), fallbackDecisions.sum(),
+                totalBatchNanos.sum(), maxBatchNanos.get());
+    }
+
+    private void dispatchLoop() {
+        List<PatientSlot> batch = new ArrayList<>(maxBatchSize);
+        while (running) {
+            try {
+                batch.add(ready.take());
+                // Give other patients a short window to join the batch
+                long deadline = System.nanoTime() + batchWindowNanos;
+                while (batch.size() < maxBatchSize) {
+                    PatientSlot next = ready.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+                dispatch(new ArrayList<>(batch));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void dispatch(List<PatientSlot> batch) {
+        List<Request> requests = new ArrayList<>(batch.size());
+        List<Map<String, Object>> inputs = new ArrayList<>(batch.size());
+        for (PatientSlot slot : batch) {
+            synchronized (slot) {
+                requests.add(slot.waiting);
+                inputs.add(slot.waiting.modelInput);
+                slot.waiting = null;
+                slot.inFlight = true;
+            }
+        }
+
+        // The timeout covers waiting for a permit too, so a completely stuck model can't stall decisions
+        CompletableFuture<List<Map<String, Object>>> result = new CompletableFuture<>();
+        result.orTimeout(timeoutMillis, TimeUnit.MILLISECONDS)
+                .whenComplete((outputs, error) -> {
+                    if (error != null) {
+                        System.err.println("Model decision failed for a batch of " + batch.size()
+                                + " patients, using rule-based fallback: " + error);
+                    }
+                    complete(batch, requests, error == null && outputs.size() == batch.size() ? outputs : null);
+                });
+        waitingForPermit.removeIf(waiting -> waiting.result.isDone());
+        waitingForPermit.add(new Batch(inputs, result));
+        startWaitingBatches();
+    }
+
+    /**
+     * Sends waiting batches to the model while permits are free. Called after a batch is queued and
+     * after a permit is released, so a batch can't be left waiting with a permit free.
+     */
+    private void startWaitingBatches() {
+        while (!waitingForPermit.isEmpty() && permits.tryAcquire()) {
+            Batch batch = waitingForPermit.poll();
+            // Batches that already fell back aren't worth a model call
+            while (batch != null && batch.result.isDone()) {
+                batch = waitingForPermit.poll();
+            }
+            if (batch == null) {
+                permits.release();
+                return;
+            }
+            call(batch);
+        }
+    }
+
+    private void call(Batch batch) {
+        long start = System.nanoTime();
+        CompletableFuture<List<Map<String, Object>>> call;
+        try {
+            call = model.predictBatch(batch.inputs);
+        } catch (RuntimeException e) {
+            call = CompletableFuture.failedFuture(e);
+        }
+        batches.increment();
+        // The permit is held until the model really finishes, so a slow model can't be flooded with calls
+        call.whenComplete((outputs, error) -> {
+            permits.release();
+            long duration = System.nanoTime() - start;
+            totalBatchNanos.add(duration);
+            maxBatchNanos.accumulateAndGet(duration, Math::max);
+            startWaitingBatches();
+            if (error != null) {
+                batch.result.completeExceptionally(error);
+            } else {
+                batch.result.complete(outputs);
+            }
+        });
+    }
+
+    private void complete(List<PatientSlot> batch, List<Request> requests, List<Map<String, Object>> outputs) {
+        for (int i = 0; i < batch.size(); i++) {
+            PatientSlot slot = batch.get(i);
+            Decision decision = null;
+            if (outputs != null) {
+                try {
+                    decision = interpreter.apply(outputs.get(i));
+                    modelDecisions.increment();
+                    Request request = requests.get(i);
+                    cache.put(slot.patientId, request.fingerprint, decision, request.generation);
+                } catch (RuntimeException e) {
+                    System.err.println("Error interpreting model output for patient " + slot.patientId + ": " + e.getMessage());
+                }
+            }
+            if (decision == null) {
+                decision = requests.get(i).fallback;
+                fallbackDecisions.increment();
+            }
+
+            try {
+                handler.accept(slot.patientId, decision);
+            } catch (RuntimeException e) {
+                System.err.println("Error handling decision for patient " + slot.patientId + ": " + e.getMessage());
+            }
+
+            synchronized (slot) {
+                slot.inFlight = false;
+                if (slot.waiting != null) {
+                    ready.add(slot);
+                }
+            }
+        }
+    }
+
+    private record Batch(List<Map<String, Object>> inputs, CompletableFuture<List<Map<String, Object>>> result) {
+    }
+
+    private record Request(Map<String, Object> modelInput, Decision fallback, long fingerprint, long generation) {
+    }
+
+    /**
+     * Per-patient coalescing state, guarded by its own monitor
+     */
+    private static final class PatientSlot {
+        private final String patientId;
+        private Request waiting;
+        private boolean inFlight;
+
+        private PatientSlot(String patientId) {
+            this.patientId = patientId;
+        }
+    }
+
+    /**
+     * Point-in-time snapshot of the decision pipeline
+     */
+    public static class Stats {
+        private final long submitted;
+        private final long coalesced;
+        private final long batches;
+        private final long modelDecisions;
+        private final long fallbackDecisions;
+        private final long totalBatchNanos;
+        private final long maxBatchNanos;
+
+        public Stats(long submitted, long coalesced, long batches, long modelDecisions, long fallbackDecisions,
+                     long totalBatchNanos, long maxBatchNanos) {
+            this.submitted = submitted;
+            this.coalesced = coalesced;
+            this.batches = batches;
+            this.modelDecisions = modelDecisions;
+            this.fallbackDecisions = fallbackDecisions;
+            this.totalBatchNanos = totalBatchNanos;
+            this.maxBatchNanos = maxBatchNanos;
+        }
+
+        public long getSubmitted() {
+            return submitted;
+        }
+
+        /**
+         * Requests replaced by a newer one for the same patient before being sent
+         */
+        public long getCoalesced() {
+            return coalesced;
+        }
+
+        public long getBatches() {
+            return batches;
+        }
+
+        public long getModelDecisions() {
+            return modelDecisions;
+        }
+
+        public long getFallbackDecisions() {
+            return fallbackDecisions;
+        }
+
+        public long getMeanBatchNanos() {
+            return batches == 0 ? 0 : totalBatchNanos / batches;
+        }
+
+        public long getMaxBatchNanos() {
+            return maxBatchNanos;
+        }
+
+        @Override
+        public String toString() {
+            return "Stats{" +
+                    "submitted=" + submitted +
+                    ", coalesced=" + coalesced +
+                    ", batches=" + batches +
+                    ", modelDecisions=" + modelDecisions +
+                    ", fallbackDecisions=" + fallbackDecisions +
+                    ", meanBatchNanos=" + getMeanBatchNanos() +
+                    ", maxBatchNanos=" + maxBatchNanos +
+                    '}';
+        }
+    }
+}
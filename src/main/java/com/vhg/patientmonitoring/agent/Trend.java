@@ -0,0 +1,103 @@
+package com.vhg.patientmonitoring.agent;
+
+import com.vhg.patientmonitoring.model.analytics.Rollup;
+import com.vhg.patientmonitoring.model.analytics.VitalStatistics;
+import com.vhg.patientmonitoring.model.reading.VitalSignType;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Direction of one vital sign over a time window, fitted to the means of its rollups
+ */
+public class Trend {
+    public enum Direction {
+        RISING,
+        FALLING,
+        // The fitted change over the window is within one standard deviation of the readings
+        STABLE
+    }
+
+    private final VitalSignType type;
+    private final VitalStatistics statistics;
+    private final double slopePerHour;
+    private final Direction direction;
+
+    public Trend(VitalSignType type, VitalStatistics statistics, double slopePerHour, Direction direction) {
+        this.type = type;
+        this.statistics = statistics;
+        this.slopePerHour = slopePerHour;
+        this.direction = direction;
+    }
+
+    /**
+     * Least-squares line through the rollup means, each weighted by its number of readings.
+     */
+    static Trend fit(VitalSignType type, VitalStatistics statistics, List<Rollup> points, double windowHours) {
+        double weight = 0;
+        double meanX = 0;
+        double meanY = 0;
+        for (Rollup point : points) {
+            long count = point.getStatistics().getCount();
+            weight += count;
+            meanX += count * hours(point);
+            meanY += count * point.getStatistics().getMean();
+        }
+        double slope = 0;
+        if (weight > 0) {
+            meanX /= weight;
+            meanY /= weight;
+            double covariance = 0;
+            double variance = 0;
+            for (Rollup point : points) {
+                long count = point.getStatistics().getCount();
+                double dx = hours(point) - meanX;
+                covariance += count * dx * (point.getStatistics().getMean() - meanY);
+                variance += count * dx * dx;
+            }
+            slope = variance > 0 ? covariance / variance : 0;
+        }
+
+        double change = slope * windowHours;
+        Direction direction = Math.abs(change) <= statistics.getStandardDeviation() ? Direction.STABLE
+                : change > 0 ? Direction.RISING : Direction.FALLING;
+        return new Trend(type, statistics, slope, direction);
+    }
+
+    private static double hours(Rollup point) {
+        long midpoint = point.getBucketStartNanos() + point.getGranularity().getLengthNanos() / 2;
+        return (double) midpoint / TimeUnit.HOURS.toNanos(1);
+    }
+
+    public VitalSignType getType() {
+        return type;
+    }
+
+    /**
+     * Statistics of all readings in the window
+     */
+    public VitalStatistics getStatistics() {
+        return statistics;
+    }
+
+    /**
+     * Fitted change per hour, in the vital sign's unit
+     */
+    public double getSlopePerHour() {
+        return slopePerHour;
+    }
+
+    public Direction getDirection() {
+        return direction;
+    }
+
+    @Override
+    public String toString() {
+        return "Trend{" +
+                "type=" + type +
+                ", direction=" + direction +
+                ", slopePerHour=" + slopePerHour +
+                ", statistics=" + statistics +
+                '}';
+    }
+}
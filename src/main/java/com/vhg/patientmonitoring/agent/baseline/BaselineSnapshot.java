@@ -0,0 +1,66 @@
+package com.vhg.patientmonitoring.agent.baseline;
+
+/**
+ * Immutable copy of a {@link StreamingBaseline}, suitable for persisting and later restoring
+ */
+public class BaselineSnapshot {
+    private final double alpha;
+    private final long count;
+    private final double mean;
+    private final double variance;
+    private final double p05;
+    private final double median;
+    private final double p95;
+    private final double[] sketchState;
+
+    public BaselineSnapshot(double alpha, long count, double mean, double variance,
+                            double p05, double median, double p95, double[] sketchState) {
+        this.alpha = alpha;
+        this.count = count;
+        this.mean = mean;
+        this.variance = variance;
+        this.p05 = p05;
+        this.median = median;
+        this.p95 = p95;
+        this.sketchState = sketchState.clone();
+    }
+
+    public double getAlpha() {
+        return alpha;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public double getMean() {
+        return mean;
+    }
+
+    public double getVariance() {
+        return variance;
+    }
+
+    public double getStdDev() {
+        return Math.sqrt(variance);
+    }
+
+    public double getP05() {
+        return p05;
+    }
+
+    public double getMedian() {
+        return median;
+    }
+
+    public double getP95() {
+        return p95;
+    }
+
+    /**
+     * Raw quantile sketch markers, needed to resume the sketch exactly on restore.
+     */
+    public double[] getSketchState() {
+        return sketchState.clone();
+    }
+}
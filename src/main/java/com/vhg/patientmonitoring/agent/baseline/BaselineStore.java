@@ -0,0 +1,156 @@
+package com.vhg.patientmonitoring.agent.baseline;
+
+import com.vhg.patientmonitoring.model.reading.ReadingBlock;
+import com.vhg.patientmonitoring.model.reading.VitalSignType;
+import com.vhg.patientmonitoring.util.IdIndex;
+import com.vhg.patientmonitoring.util.IndexedTable;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Concurrent store of streaming baselines, sharded by interned patient index.
+ * <p>
+ * Writers update a patient's {@link StreamingBaseline}s under that patient's own monitor and then
+ * publish a fresh immutable {@link PatientBaselines} (copy-on-write per patient). A single reading
+ * copies the previously published values and refreshes only its own type, so publishing costs one
+ * array and one object. Readers only do two array lookups and a volatile read, with no locks and no
+ * boxing.
+ */
+public class BaselineStore {
+    private static final VitalSignType[] TYPES = VitalSignType.values();
+
+    private final IdIndex patients;
+    private final double alpha;
+    private final IndexedTable<Entry> entries = new IndexedTable<>();
+
+    public BaselineStore() {
+        this(IdIndex.PATIENTS, StreamingBaseline.DEFAULT_ALPHA);
+    }
+
+    public BaselineStore(IdIndex patients, double alpha) {
+        this.patients = patients;
+        this.alpha = alpha;
+    }
+
+    /**
+     * Published baselines for the patient, or null if none were recorded yet.
+     */
+    public PatientBaselines get(int patientIndex) {
+        Entry entry = entry(patientIndex, false);
+        return entry != null ? entry.published : null;
+    }
+
+    public PatientBaselines get(String patientId) {
+        int patientIndex = patients.find(patientId);
+        return patientIndex >= 0 ? get(patientIndex) : null;
+    }
+
+    public boolean contains(String patientId) {
+        return get(patientId) != null;
+    }
+
+    public void record(String patientId, VitalSignType type, double value) {
+        Entry entry = entry(patients.indexOf(patientId), true);
+        synchronized (entry) {
+            entry.add(type.ordinal(), value);
+            entry.publish(type.ordinal());
+        }
+    }
+
+    /**
+     * Records a whole block, publishing once per run of readings for the same patient rather than per reading.
+     */
+    public void recordAll(ReadingBlock block) {
+        int i = 0;
+        while (i < block.size()) {
+            int patientIndex = block.patientIndex(i);
+            Entry entry = entry(patientIndex, true);
+            synchronized (entry) {
+                while (i < block.size() && block.patientIndex(i) == patientIndex) {
+                    entry.add(block.typeOrdinal(i), block.value(i));
+                    i++;
+                }
+                entry.publish();
+            }
+        }
+    }
+
+    public Map<VitalSignType, BaselineSnapshot> snapshot(String patientId) {
+        Map<VitalSignType, BaselineSnapshot> snapshots = new EnumMap<>(VitalSignType.class);
+        int patientIndex = patients.find(patientId);
+        Entry entry = patientIndex >= 0 ? entry(patientIndex, false) : null;
+        if (entry != null) {
+            synchronized (entry) {
+                for (VitalSignType type : TYPES) {
+                    StreamingBaseline baseline = entry.estimators[type.ordinal()];
+                    if (baseline != null) {
+                        snapshots.put(type, baseline.snapshot());
+                    }
+                }
+            }
+        }
+        return snapshots;
+    }
+
+    public void restore(String patientId, Map<VitalSignType, BaselineSnapshot> snapshots) {
+        Entry entry = entry(patients.indexOf(patientId), true);
+        synchronized (entry) {
+            snapshots.forEach((type, snapshot) -> entry.estimators[type.ordinal()] = StreamingBaseline.restore(snapshot));
+            entry.publish();
+        }
+    }
+
+    private Entry entry(int patientIndex, boolean create) {
+        return create ? entries.getOrCreate(patientIndex, Entry::new) : entries.get(patientIndex);
+    }
+
+    /**
+     * Writer-side estimators for one patient plus the last published view of them
+     */
+    private final class Entry {
+        private final StreamingBaseline[] estimators = new StreamingBaseline[TYPES.length];
+        private volatile PatientBaselines published;
+
+        private void add(int typeOrdinal, double value) {
+            StreamingBaseline baseline = estimators[typeOrdinal];
+            if (baseline == null) {
+                baseline = new StreamingBaseline(alpha);
+                estimators[typeOrdinal] = baseline;
+            }
+            baseline.add(value);
+        }
+
+        private void publish() {
+            double[] stats = new double[TYPES.length * PatientBaselines.FIELDS];
+            for (int i = 0; i < TYPES.length; i++) {
+                write(stats, i);
+            }
+            published = new PatientBaselines(stats);
+        }
+
+        /**
+         * Publishes a change to one type's baseline on top of the last published values.
+         */
+        private void publish(int typeOrdinal) {
+            PatientBaselines previous = published;
+            if (previous == null) {
+                publish();
+                return;
+            }
+            double[] stats = previous.copyStats();
+            write(stats, typeOrdinal);
+            published = new PatientBaselines(stats);
+        }
+
+        private void write(double[] stats, int typeOrdinal) {
+            StreamingBaseline baseline = estimators[typeOrdinal];
+            if (baseline != null) {
+                int at = typeOrdinal * PatientBaselines.FIELDS;
+                stats[at] = baseline.getCount();
+                stats[at + 1] = baseline.getMean();
+                stats[at + 2] = baseline.getStdDev();
+            }
+        }
+    }
+}
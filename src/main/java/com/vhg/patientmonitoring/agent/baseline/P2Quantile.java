@@ -0,0 +1,126 @@
+package com.vhg.patientmonitoring.agent.baseline;
+
+import java.util.Arrays;
+
+/**
+ * Streaming estimate of a single quantile using the P² algorithm (Jain &amp; Chlamtac).
+ * <p>
+ * Keeps five markers regardless of how many samples were seen, so each update is O(1) and the whole
+ * state fits in {@link #STATE_SIZE} doubles for snapshots.
+ */
+public class P2Quantile {
+    public static final int STATE_SIZE = 16;
+
+    private final double p;
+    private final double[] heights = new double[5];
+    private final double[] positions = new double[5];
+    private final double[] desired = new double[5];
+    private final double[] increments;
+    private long count;
+
+    public P2Quantile(double p) {
+        this.p = p;
+        this.increments = new double[]{0, p / 2, p, (1 + p) / 2, 1};
+    }
+
+    public void add(double x) {
+        if (count < 5) {
+            heights[(int) count++] = x;
+            if (count == 5) {
+                Arrays.sort(heights);
+                for (int i = 0; i < 5; i++) {
+                    positions[i] = i;
+                }
+                desired[0] = 0;
+                desired[1] = 2 * p;
+                desired[2] = 4 * p;
+                desired[3] = 2 + 2 * p;
+                desired[4] = 4;
+            }
+            return;
+        }
+        count++;
+
+        // Find the cell the sample falls into, stretching the extremes if needed
+        int cell;
+        if (x < heights[0]) {
+            heights[0] = x;
+            cell = 0;
+        } else if (x >= heights[4]) {
+            heights[4] = x;
+            cell = 3;
+        } else {
+            cell = 0;
+            while (x >= heights[cell + 1]) {
+                cell++;
+            }
+        }
+
+        for (int i = cell + 1; i < 5; i++) {
+            positions[i]++;
+        }
+        for (int i = 0; i < 5; i++) {
+            desired[i] += increments[i];
+        }
+
+        // Nudge the three middle markers towards their desired positions
+        for (int i = 1; i < 4; i++) {
+            double drift = desired[i] - positions[i];
+            if ((drift >= 1 && positions[i + 1] - positions[i] > 1) || (drift <= -1 && positions[i - 1] - positions[i] < -1)) {
+                int step = drift > 0 ? 1 : -1;
+                double candidate = parabolic(i, step);
+                heights[i] = heights[i - 1] < candidate && candidate < heights[i + 1] ? candidate : linear(i, step);
+                positions[i] += step;
+            }
+        }
+    }
+
+    public double estimate() {
+        if (count == 0) {
+            return Double.NaN;
+        }
+        if (count < 5) {
+            double[] seen = Arrays.copyOf(heights, (int) count);
+            Arrays.sort(seen);
+            return seen[(int) Math.min(count - 1, Math.round(p * (count - 1)))];
+        }
+        return heights[2];
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public double getQuantile() {
+        return p;
+    }
+
+    /**
+     * Writes the sketch state into {@code into} starting at {@code offset}.
+     */
+    public void writeState(double[] into, int offset) {
+        System.arraycopy(heights, 0, into, offset, 5);
+        System.arraycopy(positions, 0, into, offset + 5, 5);
+        System.arraycopy(desired, 0, into, offset + 10, 5);
+        into[offset + 15] = count;
+    }
+
+    public void readState(double[] from, int offset) {
+        System.arraycopy(from, offset, heights, 0, 5);
+        System.arraycopy(from, offset + 5, positions, 0, 5);
+        System.arraycopy(from, offset + 10, desired, 0, 5);
+        count = (long) from[offset + 15];
+    }
+
+    private double parabolic(int i, int step) {
+        double below = positions[i] - positions[i - 1];
+        double above = positions[i + 1] - positions[i];
+        return heights[i] + step / (positions[i + 1] - positions[i - 1])
+                * ((below + step) * (heights[i + 1] - heights[i]) / above
+                + (above - step) * (heights[i] - heights[i - 1]) / below);
+    }
+
+    private double linear(int i, int step) {
+        return heights[i] + step * (heights[i + step] - heights[i]) / (positions[i + step] - positions[i]);
+    }
+}
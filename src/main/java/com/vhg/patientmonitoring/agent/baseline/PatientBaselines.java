@@ -0,0 +1,43 @@
+package com.vhg.patientmonitoring.agent.baseline;
+
+import com.vhg.patientmonitoring.model.reading.VitalSignType;
+
+/**
+ * Immutable, published view of one patient's baselines, indexed by {@link VitalSignType} ordinal.
+ * <p>
+ * A new instance replaces the old one whenever the baselines change, so readers see a consistent
+ * set of values without locking or boxing.
+ */
+public final class PatientBaselines {
+    // Count, mean and standard deviation of each type, one run of FIELDS values per ordinal
+    static final int FIELDS = 3;
+
+    private final double[] stats;
+
+    PatientBaselines(double[] stats) {
+        this.stats = stats;
+    }
+
+    public long getCount(int typeOrdinal) {
+        return (long) stats[typeOrdinal * FIELDS];
+    }
+
+    public double getMean(int typeOrdinal) {
+        return stats[typeOrdinal * FIELDS + 1];
+    }
+
+    public double getStdDev(int typeOrdinal) {
+        return stats[typeOrdinal * FIELDS + 2];
+    }
+
+    public boolean hasBaseline(VitalSignType type) {
+        return getCount(type.ordinal()) > 0;
+    }
+
+    /**
+     * Copy of the values, for the writer to build the next instance from
+     */
+    double[] copyStats() {
+        return stats.clone();
+    }
+}
@@ -0,0 +1,93 @@
+package com.vhg.patientmonitoring.agent.baseline;
+
+/**
+ * Incrementally maintained baseline for one (patient, vital sign type).
+ * <p>
+ * Tracks an exponentially-weighted mean and variance plus P² sketches for the 5th, 50th and 95th
+ * percentiles. Every update is O(1). Until {@code 1 / alpha} samples have been seen the weight
+ * is {@code 1 / count}, so the early estimate is the plain running mean rather than being
+ * dominated by the first sample. Not thread-safe: meant to be fed by the patient's monitoring cycle.
+ */
+public class StreamingBaseline {
+    public static final double DEFAULT_ALPHA = 1e-4;
+    static final double[] QUANTILES = {0.05, 0.5, 0.95};
+
+    private final double alpha;
+    private final P2Quantile[] quantiles;
+    private long count;
+    private double mean;
+    private double variance;
+
+    public StreamingBaseline() {
+        this(DEFAULT_ALPHA);
+    }
+
+    public StreamingBaseline(double alpha) {
+        this.alpha = alpha;
+        this.quantiles = new P2Quantile[QUANTILES.length];
+        for (int i = 0; i < QUANTILES.length; i++) {
+            quantiles[i] = new P2Quantile(QUANTILES[i]);
+        }
+    }
+
+    public void add(double value) {
+        count++;
+        double weight = Math.max(alpha, 1.0 / count);
+        double diff = value - mean;
+        double increment = weight * diff;
+        mean += increment;
+        variance = (1 - weight) * (variance + diff * increment);
+
+        for (P2Quantile quantile : quantiles) {
+            quantile.add(value);
+        }
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public double getMean() {
+        return mean;
+    }
+
+    public double getVariance() {
+        return variance;
+    }
+
+    public double getStdDev() {
+        return Math.sqrt(variance);
+    }
+
+    public double getP05() {
+        return quantiles[0].estimate();
+    }
+
+    public double getMedian() {
+        return quantiles[1].estimate();
+    }
+
+    public double getP95() {
+        return quantiles[2].estimate();
+    }
+
+    public BaselineSnapshot snapshot() {
+        double[] sketchState = new double[quantiles.length * P2Quantile.STATE_SIZE];
+        for (int i = 0; i < quantiles.length; i++) {
+            quantiles[i].writeState(sketchState, i * P2Quantile.STATE_SIZE);
+        }
+        return new BaselineSnapshot(alpha, count, mean, variance, getP05(), getMedian(), getP95(), sketchState);
+    }
+
+    public static StreamingBaseline restore(BaselineSnapshot snapshot) {
+        StreamingBaseline baseline = new StreamingBaseline(snapshot.getAlpha());
+        baseline.count = snapshot.getCount();
+        baseline.mean = snapshot.getMean();
+        baseline.variance = snapshot.getVariance();
+        double[] sketchState = snapshot.getSketchState();
+        for (int i = 0; i < baseline.quantiles.length; i++) {
+            baseline.quantiles[i].readState(sketchState, i * P2Quantile.STATE_SIZE);
+        }
+        return baseline;
+    }
+}
@@ -1,14 +1,38 @@
 package com.vhg.patientmonitoring.agent.model;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Interface for working with AI/ML models
  */
 public interface ModelInterface {
     Map<String, Object> predict(Map<String, Object> input);
+
+    /**
+     * Predicts for several inputs at once without blocking the caller; outputs are in input order.
+     * Models with a real batch endpoint should override this. The default runs {@link #predict} for
+     * each input on a virtual thread.
+     */
+    default CompletableFuture<List<Map<String, Object>>> predictBatch(List<Map<String, Object>> inputs) {
+        CompletableFuture<List<Map<String, Object>>> result = new CompletableFuture<>();
+        Thread.ofVirtual().name("model-predict").start(() -> {
+            try {
+                List<Map<String, Object>> outputs = new ArrayList<>(inputs.size());
+                for (Map<String, Object> input : inputs) {
+                    outputs.add(predict(input));
+                }
+                result.complete(outputs);
+            } catch (RuntimeException e) {
+                result.completeExceptionally(e);
+            }
+        });
+        return result;
+    }
+
     void train(List<Map<String, Object>> trainingData);
     void saveModel(String path);
     void loadModel(String path);
-}
\ No newline at end of file
+}
@@ -0,0 +1,95 @@
+package com.vhg.patientmonitoring.agent.model;
+
+import com.vhg.patientmonitoring.agent.DecisionType;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Local stand-in for a remote model that answers every request with a fixed decision after an
+ * injected latency. For tests, load tests and running without model access.
+ */
+public class StubModelInterface implements ModelInterface {
+    private final long latencyMillis;
+    private final long jitterMillis;
+    private final DecisionType decisionType;
+
+    private final LongAdder batches = new LongAdder();
+    private final LongAdder predictions = new LongAdder();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger maxInFlight = new AtomicInteger();
+
+    public StubModelInterface(long latencyMillis) {
+        this(latencyMillis, 0, DecisionType.NO_ACTION);
+    }
+
+    /**
+     * @param latencyMillis fixed latency of every call (a batch costs the same as a single prediction)
+     * @param jitterMillis  up to this much extra latency, uniformly distributed
+     */
+    public StubModelInterface(long latencyMillis, long jitterMillis, DecisionType decisionType) {
+        this.latencyMillis = latencyMillis;
+        this.jitterMillis = jitterMillis;
+        this.decisionType = decisionType;
+    }
+
+    @Override
+    public Map<String, Object> predict(Map<String, Object> input) {
+        return predictBatch(List.of(input)).join().get(0);
+    }
+
+    @Override
+    public CompletableFuture<List<Map<String, Object>>> predictBatch(List<Map<String, Object>> inputs) {
+        batches.increment();
+        maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+        long delay = latencyMillis + (jitterMillis > 0 ? ThreadLocalRandom.current().nextLong(jitterMillis + 1) : 0);
+
+        return CompletableFuture.supplyAsync(() -> {
+            List<Map<String, Object>> outputs = new ArrayList<>(inputs.size());
+            for (int i = 0; i < inputs.size(); i++) {
+                Map<String, Object> result = new HashMap<>();
+                result.put("decisionType", decisionType.toString());
+                result.put("description", "Stub decision");
+                result.put("confidence", 0.9);
+                outputs.add(result);
+            }
+            predictions.add(inputs.size());
+            inFlight.decrementAndGet();
+            return outputs;
+        }, CompletableFuture.delayedExecutor(delay, TimeUnit.MILLISECONDS));
+    }
+
+    public long getBatches() {
+        return batches.sum();
+    }
+
+    public long getPredictions() {
+        return predictions.sum();
+    }
+
+    /**
+     * Highest number of calls that were outstanding at the same time.
+     */
+    public int getMaxInFlight() {
+        return maxInFlight.get();
+    }
+
+    @Override
+    public void train(List<Map<String, Object>> trainingData) {
+    }
+
+    @Override
+    public void saveModel(String path) {
+    }
+
+    @Override
+    public void loadModel(String path) {
+    }
+}
@@ -0,0 +1,74 @@
+package com.vhg.patientmonitoring.agent.rules;
+
+import com.fasterxml.jackson.annotation.JsonSubTypes;
+import com.fasterxml.jackson.annotation.JsonTypeInfo;
+import com.vhg.patientmonitoring.model.alert.AlertSeverity;
+
+/**
+ * Base class of the clinical alert rules loaded from configuration.
+ * <p>
+ * Rules are plain definitions; {@link RuleEngine} compiles a set of them into flat predicate arrays
+ * before any reading is evaluated.
+ */
+@JsonTypeInfo(use = JsonTypeInfo.Id.NAME, property = "kind")
+@JsonSubTypes({
+        @JsonSubTypes.Type(value = ThresholdRule.class, name = "threshold"),
+        @JsonSubTypes.Type(value = RateOfChangeRule.class, name = "rate-of-change"),
+        @JsonSubTypes.Type(value = CombinationRule.class, name = "combination")
+})
+public abstract class AlertRule {
+    private String id;
+    private AlertSeverity severity = AlertSeverity.MEDIUM;
+    private String message;
+    private long maxAgeSeconds = 300;
+
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public AlertSeverity getSeverity() {
+        return severity;
+    }
+
+    public void setSeverity(AlertSeverity severity) {
+        this.severity = severity;
+    }
+
+    /**
+     * Human-readable description used in the alert message; defaults to the rule id.
+     */
+    public String getMessage() {
+        return message != null ? message : id;
+    }
+
+    public void setMessage(String message) {
+        this.message = message;
+    }
+
+    /**
+     * How old another reading may be and still count towards this rule (for rates and combinations).
+     */
+    public long getMaxAgeSeconds() {
+        return maxAgeSeconds;
+    }
+
+    public void setMaxAgeSeconds(long maxAgeSeconds) {
+        this.maxAgeSeconds = maxAgeSeconds;
+    }
+
+    /**
+     * Adds this rule's predicates to the rule set being compiled.
+     */
+    abstract void compile(RuleSet.Builder builder);
+
+    static <T> T required(T value, String rule, String property) {
+        if (value == null) {
+            throw new IllegalArgumentException("Rule " + rule + " is missing '" + property + "'");
+        }
+        return value;
+    }
+}
@@ -0,0 +1,75 @@
+package com.vhg.patientmonitoring.agent.rules;
+
+import com.vhg.patientmonitoring.model.reading.VitalSignType;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Fires when all conditions hold at once on the patient's latest readings, e.g. heart rate high
+ * and SpO2 low. Readings older than {@link #getMaxAgeSeconds()} don't count.
+ */
+public class CombinationRule extends AlertRule {
+    private List<Condition> conditions = new ArrayList<>();
+
+    public List<Condition> getConditions() {
+        return conditions;
+    }
+
+    public void setConditions(List<Condition> conditions) {
+        this.conditions = conditions;
+    }
+
+    @Override
+    void compile(RuleSet.Builder builder) {
+        if (conditions == null || conditions.isEmpty()) {
+            throw new IllegalArgumentException("Combination rule " + getId() + " has no conditions");
+        }
+        RuleSet.Builder rule = builder.rule(this);
+        for (Condition condition : conditions) {
+            required(condition.getType(), getId(), "conditions[].type");
+            if (condition.getAbove() == null && condition.getBelow() == null) {
+                throw new IllegalArgumentException("Combination rule " + getId() + " has a condition without 'above' or 'below'");
+            }
+            if (condition.getAbove() != null) {
+                rule.condition(condition.getType(), RuleSet.ABOVE, condition.getAbove());
+            }
+            if (condition.getBelow() != null) {
+                rule.condition(condition.getType(), RuleSet.BELOW, condition.getBelow());
+            }
+        }
+    }
+
+    /**
+     * One vital sign's bound; giving both {@code above} and {@code below} requires the value to lie between them
+     */
+    public static class Condition {
+        private VitalSignType type;
+        private Double above;
+        private Double below;
+
+        public VitalSignType getType() {
+            return type;
+        }
+
+        public void setType(VitalSignType type) {
+            this.type = type;
+        }
+
+        public Double getAbove() {
+            return above;
+        }
+
+        public void setAbove(Double above) {
+            this.above = above;
+        }
+
+        public Double getBelow() {
+            return below;
+        }
+
+        public void setBelow(Double below) {
+            this.below = below;
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package com.vhg.patientmonitoring.agent.rules;
+
+import com.vhg.patientmonitoring.model.reading.VitalSignType;
+
+import java.util.Arrays;
+
+/**
+ * Latest two readings of each vital sign for one patient, as needed by rate and combination rules.
+ * Guarded by the instance's monitor.
+ */
+final class PatientVitals {
+    private static final int TYPE_COUNT = VitalSignType.values().length;
+    private static final long NONE = Long.MIN_VALUE;
+
+    private final double[] latestValues = new double[TYPE_COUNT];
+    private final long[] latestNanos = new long[TYPE_COUNT];
+    private final double[] previousValues = new double[TYPE_COUNT];
+    private final long[] previousNanos = new long[TYPE_COUNT];
+
+    PatientVitals() {
+        Arrays.fill(latestNanos, NONE);
+        Arrays.fill(previousNanos, NONE);
+    }
+
+    /**
+     * @return whether the reading became the latest of its type (false for out-of-order or repeated readings)
+     */
+    boolean record(int type, double value, long epochNanos) {
+        if (latestNanos[type] != NONE && epochNanos <= latestNanos[type]) {
+            return false;
+        }
+        previousValues[type] = latestValues[type];
+        previousNanos[type] = latestNanos[type];
+        latestValues[type] = value;
+        latestNanos[type] = epochNanos;
+        return true;
+    }
+
+    double latest(int type) {
+        return latestValues[type];
+    }
+
+    boolean isFresh(int type, long atNanos, long maxAgeNanos) {
+        return latestNanos[type] != NONE && Math.abs(atNanos - latestNanos[type]) <= maxAgeNanos;
+    }
+
+    /**
+     * Change between the last two readings of the type per nanosecond, or 0 if there is no recent pair.
+     */
+    double changePerNanos(int type, long maxGapNanos) {
+        if (previousNanos[type] == NONE) {
+            return 0;
+        }
+        long gap = latestNanos[type] - previousNanos[type];
+        return gap > maxGapNanos ? 0 : (latestValues[type] - previousValues[type]) / gap;
+    }
+}
@@ -0,0 +1,51 @@
+package com.vhg.patientmonitoring.agent.rules;
+
+import com.vhg.patientmonitoring.model.reading.VitalSignType;
+
+/**
+ * Fires when a vital sign rises or falls faster than the given rate (units per minute) between
+ * two consecutive readings
+ */
+public class RateOfChangeRule extends AlertRule {
+    private VitalSignType type;
+    private Double risePerMinute;
+    private Double fallPerMinute;
+
+    public VitalSignType getType() {
+        return type;
+    }
+
+    public void setType(VitalSignType type) {
+        this.type = type;
+    }
+
+    public Double getRisePerMinute() {
+        return risePerMinute;
+    }
+
+    public void setRisePerMinute(Double risePerMinute) {
+        this.risePerMinute = risePerMinute;
+    }
+
+    public Double getFallPerMinute() {
+        return fallPerMinute;
+    }
+
+    public void setFallPerMinute(Double fallPerMinute) {
+        this.fallPerMinute = fallPerMinute;
+    }
+
+    @Override
+    void compile(RuleSet.Builder builder) {
+        required(type, getId(), "type");
+        if (risePerMinute == null && fallPerMinute == null) {
+            throw new IllegalArgumentException("Rate-of-change rule " + getId() + " needs 'risePerMinute' and/or 'fallPerMinute'");
+        }
+        if (risePerMinute != null) {
+            builder.rule(this).condition(type, RuleSet.RISE, risePerMinute);
+        }
+        if (fallPerMinute != null) {
+            builder.rule(this).condition(type, RuleSet.FALL, fallPerMinute);
+        }
+    }
+}
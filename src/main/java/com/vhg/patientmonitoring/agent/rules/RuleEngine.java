@@ -0,0 +1,217 @@
+package com.vhg.patientmonitoring.agent.rules;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.vhg.patientmonitoring.model.reading.ReadingBlock;
+import com.vhg.patientmonitoring.model.reading.ReadingView;
+import com.vhg.patientmonitoring.util.IdIndex;
+import com.vhg.patientmonitoring.util.IndexedTable;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Evaluates configured clinical alert rules against incoming readings.
+ * <p>
+ * Rules are read from JSON ({@code {"rules": [...]}}, see {@code alert-rules.json}) and compiled into
+ * an immutable {@link RuleSet}. Reloading compiles a new set off to the side and swaps it in with a
+ * single volatile write, so evaluation never pauses and always sees one complete set. A rule file
+ * that fails to parse or compile is reported and the previous rules stay in force.
+ */
+public class RuleEngine {
+    /** Classpath resource with the rules used when no rule file is configured */
+    public static final String DEFAULT_RULES_RESOURCE = "/alert-rules.json";
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+    private static final TypeReference<List<AlertRule>> RULE_LIST = new TypeReference<>() {
+    };
+
+    private final IdIndex patients;
+    private final IndexedTable<PatientVitals> vitalsByPatient = new IndexedTable<>();
+    private volatile RuleSet rules = RuleSet.EMPTY;
+    private ScheduledExecutorService watcher;
+    private final AtomicLong reloads = new AtomicLong();
+
+    public RuleEngine() {
+        this(IdIndex.PATIENTS);
+    }
+
+    public RuleEngine(IdIndex patients) {
+        this.patients = patients;
+    }
+
+    /**
+     * Engine with the bundled default rules.
+     */
+    public static RuleEngine withDefaultRules() {
+        RuleEngine engine = new RuleEngine();
+        try (InputStream in = RuleEngine.class.getResourceAsStream(DEFAULT_RULES_RESOURCE)) {
+            if (in == null) {
+                throw new IllegalStateException("Missing default rules resource " + DEFAULT_RULES_RESOURCE);
+            }
+            engine.load(in);
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to load default rules", e);
+        }
+        return engine;
+    }
+
+    public void load(InputStream in) throws IOException {
+        JsonNode root = OBJECT_MAPPER.readTree(in);
+        List<AlertRule> definitions = OBJECT_MAPPER.convertValue(root.path("rules"), RULE_LIST);
+        setRules(definitions);
+    }
+
+    public void load(Path file) throws IOException {
+        try (InputStream in = Files.newInputStream(file)) {
+            load(in);
+        }
+    }
+
+    /**
+     * Compiles the rules and makes them the active set.
+     *
+     * @throws IllegalArgumentException if a rule is incomplete; the active set is left unchanged
+     */
+    public void setRules(List<AlertRule> definitions) {
+        RuleSet.Builder builder = new RuleSet.Builder();
+        for (AlertRule definition : definitions) {
+            AlertRule.required(definition.getId(), "<unnamed>", "id");
+            definition.compile(builder);
+        }
+        rules = builder.build();
+    }
+
+    /**
+     * Loads the file now and then reloads it whenever its modification time changes.
+     */
+    public synchronized void watch(Path file, long pollIntervalMillis) throws IOException {
+        load(file);
+        stopWatching();
+        FileTime[] loadedVersion = {Files.getLastModifiedTime(file)};
+        watcher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "alert-rules-watcher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        watcher.scheduleWithFixedDelay(() -> {
+            try {
+                FileTime modified = Files.getLastModifiedTime(file);
+                if (!modified.equals(loadedVersion[0])) {
+                    loadedVersion[0] = modified;
+                    load(file);
+                    reloads.incrementAndGet();
+                }
+            } catch (IOException | RuntimeException e) {
+                System.err.println("Error reloading alert rules from " + file + ", keeping previous rules: " + e.getMessage());
+            }
+        }, pollIntervalMillis, pollIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    public synchronized void stopWatching() {
+        if (watcher != null) {
+            watcher.shutdownNow();
+            watcher = null;
+        }
+    }
+
+    /**
+     * Number of compiled rules in force (a rule with both an upper and a lower bound counts twice).
+     */
+    public int getRuleCount() {
+        return rules.size();
+    }
+
+    /**
+     * Number of times a watched rule file was reloaded after it changed.
+     */
+    public long getReloadCount() {
+        return reloads.get();
+    }
+
+    /**
+     * Records the reading for rate and combination rules and returns the most severe rule it triggers, or null.
+     */
+    public AlertRule evaluate(ReadingView reading) {
+        RuleSet current = rules;
+        int type = reading.getType().ordinal();
+        if (!current.hasRules(type) && !current.isStateful(type)) {
+            return null;
+        }
+        PatientVitals vitals = current.isStateful(type) ? vitals(patients.indexOf(reading.getPatientId())) : null;
+        return evaluate(current, vitals, type, reading.getValue(), reading.getEpochNanos());
+    }
+
+    /**
+     * Most severe rule the reading triggers given the patient's latest readings, without recording it.
+     * Rate-of-change rules are only judged by {@link #evaluate(ReadingView)}.
+     */
+    public AlertRule check(ReadingView reading) {
+        RuleSet current = rules;
+        int type = reading.getType().ordinal();
+        if (!current.hasRules(type)) {
+            return null;
+        }
+        if (!current.isStateful(type)) {
+            return current.evaluate(type, reading.getValue(), reading.getEpochNanos(), null, false);
+        }
+        PatientVitals vitals = vitals(patients.indexOf(reading.getPatientId()));
+        synchronized (vitals) {
+            return current.evaluate(type, reading.getValue(), reading.getEpochNanos(), vitals, false);
+        }
+    }
+
+    /**
+     * Evaluates a whole block against one rule set. Blocks arrive grouped by patient, so patient
+     * state is looked up once per run of readings.
+     */
+    public RuleMatches evaluate(ReadingBlock block) {
+        RuleSet current = rules;
+        RuleMatches matches = new RuleMatches();
+        int[] patientIndexes = block.patientIndexes();
+        byte[] typeOrdinals = block.typeOrdinals();
+        double[] values = block.values();
+        long[] epochNanos = block.epochNanos();
+
+        int currentPatient = -1;
+        PatientVitals vitals = null;
+        for (int i = 0; i < block.size(); i++) {
+            int type = typeOrdinals[i];
+            if (!current.hasRules(type) && !current.isStateful(type)) {
+                continue;
+            }
+            if (current.isStateful(type) && (vitals == null || patientIndexes[i] != currentPatient)) {
+                currentPatient = patientIndexes[i];
+                vitals = vitals(currentPatient);
+            }
+            AlertRule match = evaluate(current, current.isStateful(type) ? vitals : null, type, values[i], epochNanos[i]);
+            if (match != null) {
+                matches.add(i, match);
+            }
+        }
+        return matches;
+    }
+
+    private static AlertRule evaluate(RuleSet rules, PatientVitals vitals, int type, double value, long epochNanos) {
+        if (vitals == null) {
+            return rules.evaluate(type, value, epochNanos, null, true);
+        }
+        synchronized (vitals) {
+            boolean applied = vitals.record(type, value, epochNanos);
+            return rules.evaluate(type, value, epochNanos, vitals, applied);
+        }
+    }
+
+    private PatientVitals vitals(int patientIndex) {
+        return vitalsByPatient.getOrCreate(patientIndex, PatientVitals::new);
+    }
+}
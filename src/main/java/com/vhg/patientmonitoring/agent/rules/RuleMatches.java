@@ -0,0 +1,35 @@
+package com.vhg.patientmonitoring.agent.rules;
+
+import java.util.Arrays;
+
+/**
+ * Sparse result of evaluating a reading block: the positions that matched a rule, in block order,
+ * each with its most severe matching rule
+ */
+public final class RuleMatches {
+    private int[] positions = new int[16];
+    private AlertRule[] rules = new AlertRule[16];
+    private int size;
+
+    void add(int position, AlertRule rule) {
+        if (size == positions.length) {
+            positions = Arrays.copyOf(positions, size * 2);
+            rules = Arrays.copyOf(rules, size * 2);
+        }
+        positions[size] = position;
+        rules[size] = rule;
+        size++;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int position(int i) {
+        return positions[i];
+    }
+
+    public AlertRule rule(int i) {
+        return rules[i];
+    }
+}
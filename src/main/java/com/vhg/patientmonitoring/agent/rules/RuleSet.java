@@ -0,0 +1,185 @@
+package com.vhg.patientmonitoring.agent.rules;
+
+import com.vhg.patientmonitoring.model.reading.VitalSignType;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Immutable, compiled form of a list of {@link AlertRule}s.
+ * <p>
+ * Every rule is a conjunction of predicates, stored as parallel primitive arrays (vital sign, operator,
+ * threshold) with the rule's predicates contiguous. Rules are indexed by each vital sign they reference,
+ * so a reading only evaluates the rules that can change because of it.
+ */
+final class RuleSet {
+    static final byte ABOVE = 0;
+    static final byte BELOW = 1;
+    static final byte RISE = 2;
+    static final byte FALL = 3;
+
+    private static final int TYPE_COUNT = VitalSignType.values().length;
+    private static final double NANOS_PER_MINUTE = TimeUnit.MINUTES.toNanos(1);
+
+    static final RuleSet EMPTY = new Builder().build();
+
+    private final AlertRule[] sources;
+    private final long[] maxAgeNanos;
+    // Predicates of rule r are [conditionStart[r], conditionStart[r + 1])
+    private final int[] conditionStart;
+    private final byte[] conditionTypes;
+    private final byte[] operators;
+    private final double[] thresholds;
+    private final int[][] rulesByType;
+    // Types whose readings must be remembered per patient, for rates and combinations
+    private final boolean[] statefulTypes;
+
+    private RuleSet(Builder builder) {
+        int ruleCount = builder.sources.size();
+        this.sources = builder.sources.toArray(new AlertRule[0]);
+        this.maxAgeNanos = new long[ruleCount];
+        this.conditionStart = Arrays.copyOf(builder.conditionStart, ruleCount + 1);
+        this.conditionStart[ruleCount] = builder.conditionCount;
+        this.conditionTypes = Arrays.copyOf(builder.conditionTypes, builder.conditionCount);
+        this.operators = Arrays.copyOf(builder.operators, builder.conditionCount);
+        this.thresholds = Arrays.copyOf(builder.thresholds, builder.conditionCount);
+        this.statefulTypes = new boolean[TYPE_COUNT];
+
+        int[] counts = new int[TYPE_COUNT];
+        boolean[][] references = new boolean[ruleCount][TYPE_COUNT];
+        for (int r = 0; r < ruleCount; r++) {
+            maxAgeNanos[r] = TimeUnit.SECONDS.toNanos(sources[r].getMaxAgeSeconds());
+            boolean stateful = false;
+            int firstType = conditionTypes[conditionStart[r]];
+            for (int c = conditionStart[r]; c < conditionStart[r + 1]; c++) {
+                references[r][conditionTypes[c]] = true;
+                stateful |= operators[c] == RISE || operators[c] == FALL || conditionTypes[c] != firstType;
+            }
+            for (int t = 0; t < TYPE_COUNT; t++) {
+                if (references[r][t]) {
+                    counts[t]++;
+                    statefulTypes[t] |= stateful;
+                }
+            }
+        }
+        this.rulesByType = new int[TYPE_COUNT][];
+        for (int t = 0; t < TYPE_COUNT; t++) {
+            rulesByType[t] = new int[counts[t]];
+            int n = 0;
+            for (int r = 0; r < ruleCount; r++) {
+                if (references[r][t]) {
+                    rulesByType[t][n++] = r;
+                }
+            }
+        }
+    }
+
+    int size() {
+        return sources.length;
+    }
+
+    boolean hasRules(int type) {
+        return rulesByType[type].length > 0;
+    }
+
+    boolean isStateful(int type) {
+        return statefulTypes[type];
+    }
+
+    /**
+     * Evaluates the rules that reference the reading's vital sign.
+     *
+     * @param vitals the patient's latest readings, already updated with this one; null if the type isn't stateful
+     * @param applied whether this reading is the patient's latest of its type (rates are only judged on the latest pair)
+     * @return the most severe matching rule, or null
+     */
+    AlertRule evaluate(int type, double value, long epochNanos, PatientVitals vitals, boolean applied) {
+        AlertRule match = null;
+        for (int r : rulesByType[type]) {
+            if (matches(r, type, value, epochNanos, vitals, applied)
+                    && (match == null || sources[r].getSeverity().compareTo(match.getSeverity()) > 0)) {
+                match = sources[r];
+            }
+        }
+        return match;
+    }
+
+    private boolean matches(int rule, int type, double value, long epochNanos, PatientVitals vitals, boolean applied) {
+        for (int c = conditionStart[rule]; c < conditionStart[rule + 1]; c++) {
+            int conditionType = conditionTypes[c];
+            double threshold = thresholds[c];
+            switch (operators[c]) {
+                case ABOVE, BELOW -> {
+                    double current;
+                    if (conditionType == type) {
+                        current = value;
+                    } else if (vitals.isFresh(conditionType, epochNanos, maxAgeNanos[rule])) {
+                        current = vitals.latest(conditionType);
+                    } else {
+                        return false;
+                    }
+                    if (operators[c] == ABOVE ? !(current > threshold) : !(current < threshold)) {
+                        return false;
+                    }
+                }
+                case RISE, FALL -> {
+                    if (!applied && conditionType == type) {
+                        return false;
+                    }
+                    double perMinute = vitals.changePerNanos(conditionType, maxAgeNanos[rule]) * NANOS_PER_MINUTE;
+                    if (operators[c] == RISE ? !(perMinute > threshold) : !(-perMinute > threshold)) {
+                        return false;
+                    }
+                }
+                default -> throw new IllegalStateException("Unknown rule operator " + operators[c]);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Collects predicates while compiling; {@link #rule(AlertRule)} starts a new conjunction.
+     */
+    static final class Builder {
+        private final List<AlertRule> sources = new ArrayList<>();
+        private int[] conditionStart = new int[16];
+        private byte[] conditionTypes = new byte[16];
+        private byte[] operators = new byte[16];
+        private double[] thresholds = new double[16];
+        private int conditionCount;
+
+        Builder rule(AlertRule source) {
+            if (!sources.isEmpty() && conditionStart[sources.size() - 1] == conditionCount) {
+                throw new IllegalArgumentException("Rule " + sources.get(sources.size() - 1).getId() + " has no conditions");
+            }
+            if (sources.size() == conditionStart.length) {
+                conditionStart = Arrays.copyOf(conditionStart, sources.size() * 2);
+            }
+            conditionStart[sources.size()] = conditionCount;
+            sources.add(source);
+            return this;
+        }
+
+        Builder condition(VitalSignType type, byte operator, double threshold) {
+            if (conditionCount == thresholds.length) {
+                conditionTypes = Arrays.copyOf(conditionTypes, conditionCount * 2);
+                operators = Arrays.copyOf(operators, conditionCount * 2);
+                thresholds = Arrays.copyOf(thresholds, conditionCount * 2);
+            }
+            conditionTypes[conditionCount] = (byte) type.ordinal();
+            operators[conditionCount] = operator;
+            thresholds[conditionCount] = threshold;
+            conditionCount++;
+            return this;
+        }
+
+        RuleSet build() {
+            if (!sources.isEmpty() && conditionStart[sources.size() - 1] == conditionCount) {
+                throw new IllegalArgumentException("Rule " + sources.get(sources.size() - 1).getId() + " has no conditions");
+            }
+            return new RuleSet(this);
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package com.vhg.patientmonitoring.agent.rules;
+
+import com.vhg.patientmonitoring.model.reading.VitalSignType;
+
+/**
+ * Fires when a reading of one vital sign is above {@code above} or below {@code below}
+ */
+public class ThresholdRule extends AlertRule {
+    private VitalSignType type;
+    private Double above;
+    private Double below;
+
+    public VitalSignType getType() {
+        return type;
+    }
+
+    public void setType(VitalSignType type) {
+        this.type = type;
+    }
+
+    public Double getAbove() {
+        return above;
+    }
+
+    public void setAbove(Double above) {
+        this.above = above;
+    }
+
+    public Double getBelow() {
+        return below;
+    }
+
+    public void setBelow(Double below) {
+        this.below = below;
+    }
+
+    @Override
+    void compile(RuleSet.Builder builder) {
+        required(type, getId(), "type");
+        if (above == null && below == null) {
+            throw new IllegalArgumentException("Threshold rule " + getId() + " needs 'above' and/or 'below'");
+        }
+        // Either bound alone is enough, so each becomes its own single-predicate rule
+        if (above != null) {
+            builder.rule(this).condition(type, RuleSet.ABOVE, above);
+        }
+        if (below != null) {
+            builder.rule(this).condition(type, RuleSet.BELOW, below);
+        }
+    }
+}
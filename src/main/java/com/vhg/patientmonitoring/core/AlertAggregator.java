@@ -0,0 +1,289 @@
+package com.vhg.patientmonitoring.core;
+
+import com.vhg.patientmonitoring.model.alert.Alert;
+import com.vhg.patientmonitoring.model.alert.AlertSeverity;
+import com.vhg.patientmonitoring.model.alert.AlertStatus;
+import com.vhg.patientmonitoring.model.reading.VitalSignReading;
+import com.vhg.patientmonitoring.model.reading.VitalSignType;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Collapses repeated alerts into one evolving alert per condition and rate-limits new ones.
+ * <p>
+ * An alert opens an episode for its patient and vital sign. While repeats keep arriving within the
+ * window of the previous one, they are folded into the episode's alert (occurrence count, last
+ * occurrence, peak value) and not passed on, unless they are more severe: then the episode's alert is
+ * escalated and passed on again, under its original id. New episodes are rate-limited per patient and
+ * per ward with token buckets; a limited alert still opens its episode, and is passed on with the
+ * first repeat the limit allows, or as soon as it escalates. CRITICAL alerts are never rate-limited.
+ */
+public class AlertAggregator {
+    // Checked for expired episodes every this many alerts
+    private static final int PURGE_INTERVAL = 1024;
+
+    private final long windowNanos;
+    private final int patientAlertsPerMinute;
+    private final int wardAlertsPerMinute;
+    private final Function<String, String> wardOfPatient;
+
+    private final Map<EpisodeKey, Episode> episodes = new ConcurrentHashMap<>();
+    private final Map<String, TokenBucket> patientBuckets = new ConcurrentHashMap<>();
+    private final Map<String, TokenBucket> wardBuckets = new ConcurrentHashMap<>();
+
+    private final LongAdder received = new LongAdder();
+    private final LongAdder emitted = new LongAdder();
+    private final LongAdder escalations = new LongAdder();
+    private final LongAdder collapsed = new LongAdder();
+    private final LongAdder rateLimited = new LongAdder();
+
+    /**
+     * @param windowMillis  how long after its last occurrence an episode stays open for repeats
+     * @param wardOfPatient ward of a patient, or null if unknown (then only the patient limit applies)
+     */
+    public AlertAggregator(long windowMillis, int patientAlertsPerMinute, int wardAlertsPerMinute,
+                           Function<String, String> wardOfPatient) {
+        this.windowNanos = TimeUnit.MILLISECONDS.toNanos(windowMillis);
+        this.patientAlertsPerMinute = patientAlertsPerMinute;
+        this.wardAlertsPerMinute = wardAlertsPerMinute;
+        this.wardOfPatient = wardOfPatient;
+    }
+
+    /**
+     * Folds the alert into its episode.
+     *
+     * @return the alert to store and notify (the alert itself for a new episode, the episode's alert on
+     * escalation), or null if it was suppressed
+     */
+    public Alert offer(Alert alert) {
+        return offer(alert, System.nanoTime());
+    }
+
+    Alert offer(Alert alert, long nowNanos) {
+        received.increment();
+        if (received.sum() % PURGE_INTERVAL == 0) {
+            purgeExpired(nowNanos);
+        }
+
+        VitalSignReading reading = alert.getTriggeringReading();
+        EpisodeKey key = new EpisodeKey(alert.getPatientId(), reading != null ? reading.getType() : null);
+        Episode fresh = new Episode(alert, nowNanos);
+        Episode episode = episodes.merge(key, fresh,
+                (open, next) -> open.isEnded(nowNanos, windowNanos) ? next : open);
+
+        synchronized (episode) {
+            if (episode == fresh) {
+                return admit(episode, nowNanos) ? alert : null;
+            }
+            Alert open = episode.alert;
+            episode.lastSeenNanos = nowNanos;
+            open.setOccurrences(open.getOccurrences() + 1);
+            open.setLastOccurrence(alert.getTimestamp());
+            if (reading != null && isMoreExtreme(reading, open.getPeakValue())) {
+                open.setPeakValue(reading.getValue());
+            }
+            if (alert.getSeverity().compareTo(open.getSeverity()) > 0) {
+                open.setSeverity(alert.getSeverity());
+                open.setMessage(alert.getMessage());
+                open.setTriggeringReading(reading);
+                episode.emitted = true;
+                escalations.increment();
+                emitted.increment();
+                return open;
+            }
+            if (!episode.emitted) {
+                // Held back when it opened; goes out with the first repeat the rate limit allows
+                return admit(episode, nowNanos) ? open : null;
+            }
+        }
+        collapsed.increment();
+        return null;
+    }
+
+    /**
+     * Ends the episode of an alert that staff resolved or dismissed, so that a recurrence is raised as a
+     * new alert instead of being folded into the closed one.
+     */
+    public void close(String alertId) {
+        episodes.values().removeIf(episode -> episode.alert.getAlertId().equals(alertId));
+    }
+
+    public Stats getStats() {
+        return new Stats(received.sum(), emitted.sum(), escalations.sum(), collapsed.sum(), rateLimited.sum(),
+                episodes.size());
+    }
+
+    /**
+     * Whether the episode's alert may go out now; called under the episode's monitor.
+     */
+    private boolean admit(Episode episode, long nowNanos) {
+        Alert alert = episode.alert;
+        if (alert.getSeverity() != AlertSeverity.CRITICAL && !acquireRate(alert.getPatientId(), nowNanos)) {
+            rateLimited.increment();
+            return false;
+        }
+        episode.emitted = true;
+        emitted.increment();
+        return true;
+    }
+
+    private boolean acquireRate(String patientId, long nowNanos) {
+        TokenBucket patientBucket = patientBuckets.computeIfAbsent(patientId,
+                id -> new TokenBucket(patientAlertsPerMinute, nowNanos));
+        String ward = wardOfPatient != null ? wardOfPatient.apply(patientId) : null;
+        if (ward == null) {
+            return patientBucket.tryAcquire(nowNanos);
+        }
+        TokenBucket wardBucket = wardBuckets.computeIfAbsent(ward, id -> new TokenBucket(wardAlertsPerMinute, nowNanos));
+        // Take the ward's token only once the patient's is granted, so a noisy patient doesn't drain the ward
+        return patientBucket.tryAcquire(nowNanos) && wardBucket.tryAcquire(nowNanos);
+    }
+
+    private void purgeExpired(long nowNanos) {
+        Iterator<Episode> iterator = episodes.values().iterator();
+        while (iterator.hasNext()) {
+            if (iterator.next().isEnded(nowNanos, windowNanos)) {
+                iterator.remove();
+            }
+        }
+    }
+
+    private static boolean isMoreExtreme(VitalSignReading reading, double peak) {
+        double typical = reading.getType().getTypicalValue();
+        return Double.isNaN(peak) || Math.abs(reading.getValue() - typical) > Math.abs(peak - typical);
+    }
+
+    private record EpisodeKey(String patientId, VitalSignType type) {
+    }
+
+    /**
+     * Open alert of a patient's vital sign; the alert and {@code emitted} are updated under the episode's monitor
+     */
+    private static final class Episode {
+        private final Alert alert;
+        private volatile long lastSeenNanos;
+        // Whether the alert has been passed on, rather than held back by the rate limit
+        private boolean emitted;
+
+        private Episode(Alert alert, long nowNanos) {
+            this.alert = alert;
+            this.lastSeenNanos = nowNanos;
+        }
+
+        /**
+         * Quiet for longer than the window, or its alert was closed in a store that updates it in place
+         */
+        private boolean isEnded(long nowNanos, long windowNanos) {
+            AlertStatus status = alert.getStatus();
+            return nowNanos - lastSeenNanos > windowNanos
+                    || status == AlertStatus.RESOLVED || status == AlertStatus.FALSE_ALARM;
+        }
+    }
+
+    /**
+     * Allows a burst of {@code perMinute} and refills at {@code perMinute} per minute
+     */
+    private static final class TokenBucket {
+        private final double capacity;
+        private final double tokensPerNano;
+        private double tokens;
+        private long refilledAtNanos;
+
+        private TokenBucket(int perMinute, long nowNanos) {
+            this.capacity = perMinute;
+            this.tokensPerNano = perMinute / (double) TimeUnit.MINUTES.toNanos(1);
+            this.tokens = perMinute;
+            this.refilledAtNanos = nowNanos;
+        }
+
+        private synchronized boolean tryAcquire(long nowNanos) {
+            tokens = Math.min(capacity, tokens + Math.max(0, nowNanos - refilledAtNanos) * tokensPerNano);
+            refilledAtNanos = nowNanos;
+            if (tokens < 1) {
+                return false;
+            }
+            tokens--;
+            return true;
+        }
+    }
+
+    /**
+     * Point-in-time snapshot of alert aggregation
+     */
+    public static class Stats {
+        private final long received;
+        private final long emitted;
+        private final long escalations;
+        private final long collapsed;
+        private final long rateLimited;
+        private final int openEpisodes;
+
+        public Stats(long received, long emitted, long escalations, long collapsed, long rateLimited, int openEpisodes) {
+            this.received = received;
+            this.emitted = emitted;
+            this.escalations = escalations;
+            this.collapsed = collapsed;
+            this.rateLimited = rateLimited;
+            this.openEpisodes = openEpisodes;
+        }
+
+        public long getReceived() {
+            return received;
+        }
+
+        /**
+         * Alerts passed on to storage and notification, new episodes and escalations
+         */
+        public long getEmitted() {
+            return emitted;
+        }
+
+        public long getEscalations() {
+            return escalations;
+        }
+
+        /**
+         * Repeats folded into an open alert
+         */
+        public long getCollapsed() {
+            return collapsed;
+        }
+
+        /**
+         * New alerts, and repeats of ones not yet passed on, held back by the patient or ward rate limit
+         */
+        public long getRateLimited() {
+            return rateLimited;
+        }
+
+        public long getSuppressed() {
+            return collapsed + rateLimited;
+        }
+
+        public double getSuppressedFraction() {
+            return received == 0 ? 0 : (double) getSuppressed() / received;
+        }
+
+        public int getOpenEpisodes() {
+            return openEpisodes;
+        }
+
+        @Override
+        public String toString() {
+            return "Stats{" +
+                    "received=" + received +
+                    ", emitted=" + emitted +
+                    ", escalations=" + escalations +
+                    ", collapsed=" + collapsed +
+                    ", rateLimited=" + rateLimited +
+                    ", suppressedFraction=" + String.format("%.3f", getSuppressedFraction()) +
+                    ", openEpisodes=" + openEpisodes +
+                    '}';
+        }
+    }
+}
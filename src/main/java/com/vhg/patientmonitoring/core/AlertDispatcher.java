@@ -0,0 +1,286 @@
+package com.vhg.patientmonitoring.core;
+
+import com.vhg.patientmonitoring.model.alert.Alert;
+import com.vhg.patientmonitoring.model.alert.AlertSeverity;
+import com.vhg.patientmonitoring.util.LatencyHistogram;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Delivers alerts to notification channels off the caller's thread.
+ * <p>
+ * Every severity has its own lane: a bounded queue with its own workers, so a CRITICAL alert is never
+ * queued behind MEDIUM ones and a slow email gateway can't hold up the pager. Each alert becomes one
+ * delivery per channel registered for its severity. A failed delivery is retried on its own with
+ * exponential backoff, up to a number of attempts. If a lane is full, CRITICAL and HIGH alerts are
+ * delivered on the caller's thread rather than dropped; MEDIUM and LOW ones are dropped and counted.
+ * Latency is measured end to end, from the triggering reading's timestamp to the notification being sent.
+ */
+public class AlertDispatcher {
+    private final Map<AlertSeverity, Lane> lanes = new EnumMap<>(AlertSeverity.class);
+    private final Map<AlertSeverity, List<NamedChannel>> channels = new EnumMap<>(AlertSeverity.class);
+    private final Map<AlertSeverity, LatencyHistogram> latencies = new EnumMap<>(AlertSeverity.class);
+    private final ScheduledExecutorService retryTimer;
+    private final int maxAttempts;
+    private final long initialBackoffMillis;
+    private final long maxBackoffMillis;
+    private volatile boolean running = true;
+
+    private final LongAdder dispatched = new LongAdder();
+    private final LongAdder delivered = new LongAdder();
+    private final LongAdder retries = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder deliveredOnCaller = new LongAdder();
+
+    /**
+     * @param workersPerLane threads delivering alerts of each severity
+     * @param queueCapacity  deliveries waiting per severity before the lane counts as full
+     * @param maxAttempts    delivery attempts per channel before an alert is given up on
+     */
+    public AlertDispatcher(int workersPerLane, int queueCapacity, int maxAttempts, long initialBackoffMillis,
+                           long maxBackoffMillis) {
+        this.maxAttempts = maxAttempts;
+        this.initialBackoffMillis = initialBackoffMillis;
+        this.maxBackoffMillis = maxBackoffMillis;
+        this.retryTimer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "alert-retry");
+            thread.setDaemon(true);
+            return thread;
+        });
+        for (AlertSeverity severity : AlertSeverity.values()) {
+            channels.put(severity, new CopyOnWriteArrayList<>());
+            latencies.put(severity, new LatencyHistogram());
+            lanes.put(severity, new Lane(severity, workersPerLane, queueCapacity));
+        }
+    }
+
+    /**
+     * Sends alerts of the given severities to the channel from now on.
+     */
+    public void addChannel(String name, NotificationChannel channel, AlertSeverity... severities) {
+        for (AlertSeverity severity : severities) {
+            channels.get(severity).add(new NamedChannel(name, channel));
+        }
+    }
+
+    /**
+     * Queues the alert for every channel of its severity and returns without waiting for delivery.
+     */
+    public void dispatch(Alert alert) {
+        dispatched.increment();
+        for (NamedChannel channel : channels.get(alert.getSeverity())) {
+            enqueue(new Delivery(alert, channel, 1));
+        }
+    }
+
+    /**
+     * Stops accepting retries and lets the workers finish the deliveries already queued.
+     */
+    public void shutdown() {
+        running = false;
+        retryTimer.shutdownNow();
+    }
+
+    public Stats getStats() {
+        Map<AlertSeverity, Integer> queued = new EnumMap<>(AlertSeverity.class);
+        Map<AlertSeverity, LatencyHistogram.Snapshot> latency = new EnumMap<>(AlertSeverity.class);
+        for (AlertSeverity severity : AlertSeverity.values()) {
+            queued.put(severity, lanes.get(severity).queue.size());
+            latency.put(severity, latencies.get(severity).snapshot());
+        }
+        return new Stats(dispatched.sum(), delivered.sum(), retries.sum(), failed.sum(), dropped.sum(),
+                deliveredOnCaller.sum(), queued, latency);
+    }
+
+    private void enqueue(Delivery delivery) {
+        AlertSeverity severity = delivery.alert.getSeverity();
+        if (lanes.get(severity).queue.offer(delivery)) {
+            return;
+        }
+        if (severity == AlertSeverity.CRITICAL || severity == AlertSeverity.HIGH) {
+            // Slower than queueing, but an urgent alert must not be lost
+            deliveredOnCaller.increment();
+            deliver(delivery);
+        } else {
+            dropped.increment();
+            System.err.println("Alert queue for " + severity + " is full, dropping notification of alert "
+                    + delivery.alert.getAlertId() + " via " + delivery.channel.name);
+        }
+    }
+
+    private void deliver(Delivery delivery) {
+        Alert alert = delivery.alert;
+        try {
+            delivery.channel.channel.send(alert);
+        } catch (RuntimeException e) {
+            retryOrGiveUp(delivery, e);
+            return;
+        }
+        delivered.increment();
+        LocalDateTime observedAt = alert.getTriggeringReading() != null
+                ? alert.getTriggeringReading().getTimestamp()
+                : alert.getTimestamp();
+        latencies.get(alert.getSeverity()).record(Duration.between(observedAt, LocalDateTime.now()).toNanos());
+    }
+
+    private void retryOrGiveUp(Delivery delivery, RuntimeException error) {
+        if (delivery.attempt >= maxAttempts || !running) {
+            failed.increment();
+            System.err.println("Giving up on notifying alert " + delivery.alert.getAlertId() + " via "
+                    + delivery.channel.name + " after " + delivery.attempt + " attempts: " + error.getMessage());
+            return;
+        }
+        retries.increment();
+        long backoff = Math.min(maxBackoffMillis, initialBackoffMillis << Math.min(delivery.attempt - 1, 20));
+        System.err.println("Error notifying alert " + delivery.alert.getAlertId() + " via " + delivery.channel.name
+                + ", retrying in " + backoff + " ms: " + error.getMessage());
+        try {
+            retryTimer.schedule(() -> enqueue(new Delivery(delivery.alert, delivery.channel, delivery.attempt + 1)),
+                    backoff, TimeUnit.MILLISECONDS);
+        } catch (RuntimeException e) {
+            // Shut down meanwhile
+            failed.increment();
+        }
+    }
+
+    private record NamedChannel(String name, NotificationChannel channel) {
+    }
+
+    private record Delivery(Alert alert, NamedChannel channel, int attempt) {
+    }
+
+    /**
+     * Queue and workers of one severity
+     */
+    private final class Lane {
+        private final BlockingQueue<Delivery> queue;
+
+        private Lane(AlertSeverity severity, int workers, int capacity) {
+            this.queue = new ArrayBlockingQueue<>(capacity);
+            for (int i = 0; i < workers; i++) {
+                Thread worker = new Thread(this::work, "alert-" + severity.name().toLowerCase() + "-" + i);
+                worker.setDaemon(true);
+                worker.start();
+            }
+        }
+
+        private void work() {
+            while (running || !queue.isEmpty()) {
+                try {
+                    Delivery delivery = queue.poll(100, TimeUnit.MILLISECONDS);
+                    if (delivery != null) {
+                        deliver(delivery);
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                } catch (RuntimeException e) {
+                    System.err.println("Error dispatching alert: " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    /**
+     * Point-in-time snapshot of alert dispatch
+     */
+    public static class Stats {
+        private final long dispatched;
+        private final long delivered;
+        private final long retries;
+        private final long failed;
+        private final long dropped;
+        private final long deliveredOnCaller;
+        private final Map<AlertSeverity, Integer> queued;
+        private final Map<AlertSeverity, LatencyHistogram.Snapshot> latency;
+
+        public Stats(long dispatched, long delivered, long retries, long failed, long dropped, long deliveredOnCaller,
+                     Map<AlertSeverity, Integer> queued, Map<AlertSeverity, LatencyHistogram.Snapshot> latency) {
+            this.dispatched = dispatched;
+            this.delivered = delivered;
+            this.retries = retries;
+            this.failed = failed;
+            this.dropped = dropped;
+            this.deliveredOnCaller = deliveredOnCaller;
+            this.queued = queued;
+            this.latency = latency;
+        }
+
+        public long getDispatched() {
+            return dispatched;
+        }
+
+        /**
+         * Notifications sent, one per alert and channel
+         */
+        public long getDelivered() {
+            return delivered;
+        }
+
+        public long getRetries() {
+            return retries;
+        }
+
+        /**
+         * Notifications given up on after the last attempt
+         */
+        public long getFailed() {
+            return failed;
+        }
+
+        /**
+         * MEDIUM and LOW notifications dropped because their lane was full
+         */
+        public long getDropped() {
+            return dropped;
+        }
+
+        /**
+         * CRITICAL and HIGH notifications sent on the caller's thread because their lane was full
+         */
+        public long getDeliveredOnCaller() {
+            return deliveredOnCaller;
+        }
+
+        public int getQueued(AlertSeverity severity) {
+            return queued.get(severity);
+        }
+
+        /**
+         * Time from the triggering reading to the notification being sent
+         */
+        public LatencyHistogram.Snapshot getLatency(AlertSeverity severity) {
+            return latency.get(severity);
+        }
+
+        @Override
+        public String toString() {
+            List<String> lanes = new ArrayList<>();
+            for (Map.Entry<AlertSeverity, LatencyHistogram.Snapshot> entry : latency.entrySet()) {
+                lanes.add(entry.getKey() + "=" + entry.getValue() + " queued " + queued.get(entry.getKey()));
+            }
+            return "Stats{" +
+                    "dispatched=" + dispatched +
+                    ", delivered=" + delivered +
+                    ", retries=" + retries +
+                    ", failed=" + failed +
+                    ", dropped=" + dropped +
+                    ", deliveredOnCaller=" + deliveredOnCaller +
+                    ", lanes=" + lanes +
+                    '}';
+        }
+    }
+}
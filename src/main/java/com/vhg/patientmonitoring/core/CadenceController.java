@@ -0,0 +1,244 @@
+package com.vhg.patientmonitoring.core;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Adapts each patient's monitoring cadence to their condition, within a per-node sampling budget.
+ * <p>
+ * A decision that a patient is deteriorating shortens their cadence geometrically, down to a sub-second
+ * minimum; a decision that all is well lengthens it gradually, up to the maximum. Demand is the sum over
+ * patients of samples per cycle divided by cadence. Once it exceeds the node's budget the scheduler
+ * stretches every cadence by the same factor, which keeps the relative urgency of patients while
+ * bounding total device and database load.
+ * <p>
+ * Registration, cadence changes and the scheduler calls that apply them happen under one lock, so the
+ * scheduler always ends up with the latest cadence and never re-schedules a patient just unregistered.
+ */
+public class CadenceController {
+    // Cadence multipliers applied per decision
+    private static final double ESCALATION_FACTOR = 0.25;
+    private static final double RELAXATION_FACTOR = 1.5;
+
+    private final MonitoringScheduler scheduler;
+    private final long defaultCadenceMillis;
+    private final long minCadenceMillis;
+    private final long maxCadenceMillis;
+    private final double maxSamplesPerSecond;
+    private final Map<String, PatientCadence> cadences = new ConcurrentHashMap<>();
+    // Requested samples per second over all patients; guarded by this
+    private double demand;
+
+    private final LongAdder escalations = new LongAdder();
+    private final LongAdder relaxations = new LongAdder();
+    private final LongAdder collectedSamples = new LongAdder();
+
+    public CadenceController(MonitoringScheduler scheduler, MonitoringConfiguration configuration) {
+        this.scheduler = scheduler;
+        this.defaultCadenceMillis = configuration.getDefaultCadenceMillis();
+        this.minCadenceMillis = configuration.getMinCadenceMillis();
+        this.maxCadenceMillis = configuration.getMaxCadenceMillis();
+        this.maxSamplesPerSecond = configuration.getMaxSamplesPerSecond();
+    }
+
+    /**
+     * Starts monitoring the patient at the default cadence, or at their current one if already registered.
+     */
+    public synchronized void register(String patientId) {
+        PatientCadence cadence = cadences.computeIfAbsent(patientId, id -> new PatientCadence(defaultCadenceMillis));
+        scheduler.schedulePatient(patientId, cadence.cadenceMillis);
+    }
+
+    public synchronized void unregister(String patientId) {
+        PatientCadence cadence = cadences.remove(patientId);
+        if (cadence != null) {
+            demand = Math.max(0, demand - cadence.samplesPerSecond());
+            rebalance();
+        }
+        scheduler.unschedulePatient(patientId);
+    }
+
+    /**
+     * Samples the patient more often, e.g. after a decision that they are deteriorating.
+     */
+    public void escalate(String patientId) {
+        if (changeCadence(patientId, ESCALATION_FACTOR)) {
+            escalations.increment();
+        }
+    }
+
+    /**
+     * Samples the patient less often, e.g. after a decision that they are stable.
+     */
+    public void relax(String patientId) {
+        if (changeCadence(patientId, RELAXATION_FACTOR)) {
+            relaxations.increment();
+        }
+    }
+
+    /**
+     * Records the number of readings a monitoring cycle of the patient collected.
+     */
+    public void recordCycle(String patientId, int samples) {
+        collectedSamples.add(samples);
+        PatientCadence cadence = cadences.get(patientId);
+        if (cadence == null || cadence.samplesPerCycle == samples) {
+            return;
+        }
+        synchronized (this) {
+            if (cadences.get(patientId) != cadence) {
+                // Unregistered meanwhile; its demand is already gone
+                return;
+            }
+            demand -= cadence.samplesPerSecond();
+            cadence.samplesPerCycle = samples;
+            demand = Math.max(0, demand + cadence.samplesPerSecond());
+            rebalance();
+        }
+    }
+
+    /**
+     * Cadence requested for the patient before any budget stretching, or -1 if not registered.
+     */
+    public long getCadenceMillis(String patientId) {
+        PatientCadence cadence = cadences.get(patientId);
+        return cadence != null ? cadence.cadenceMillis : -1;
+    }
+
+    /**
+     * Samples per second the patient is currently monitored at, after budget stretching.
+     */
+    public double getEffectiveSamplesPerSecond(String patientId) {
+        PatientCadence cadence = cadences.get(patientId);
+        return cadence != null ? cadence.samplesPerSecond() / scheduler.getRateScale() : 0;
+    }
+
+    public Stats getStats() {
+        double requested;
+        synchronized (this) {
+            requested = demand;
+        }
+        return new Stats(cadences.size(), requested, maxSamplesPerSecond, scheduler.getRateScale(),
+                escalations.sum(), relaxations.sum(), collectedSamples.sum());
+    }
+
+    private synchronized boolean changeCadence(String patientId, double factor) {
+        // Checked under the lock unregister takes, so an unregistered patient is never scheduled again
+        PatientCadence cadence = cadences.get(patientId);
+        if (cadence == null) {
+            return false;
+        }
+        long next = Math.max(minCadenceMillis, Math.min(maxCadenceMillis, Math.round(cadence.cadenceMillis * factor)));
+        if (next == cadence.cadenceMillis) {
+            return false;
+        }
+        demand -= cadence.samplesPerSecond();
+        cadence.cadenceMillis = next;
+        demand = Math.max(0, demand + cadence.samplesPerSecond());
+        rebalance();
+        // Applied before the lock is released, so concurrent changes reach the scheduler in order
+        scheduler.schedulePatient(patientId, next);
+        return true;
+    }
+
+    // Caller holds the lock
+    private void rebalance() {
+        scheduler.setRateScale(demand > maxSamplesPerSecond ? demand / maxSamplesPerSecond : 1.0);
+    }
+
+    /**
+     * Requested cadence of one patient; written under the controller's lock
+     */
+    private static final class PatientCadence {
+        private volatile long cadenceMillis;
+        private volatile int samplesPerCycle;
+
+        private PatientCadence(long cadenceMillis) {
+            this.cadenceMillis = cadenceMillis;
+        }
+
+        private double samplesPerSecond() {
+            return samplesPerCycle * 1000.0 / cadenceMillis;
+        }
+    }
+
+    /**
+     * Point-in-time snapshot of the node's sampling load
+     */
+    public static class Stats {
+        private final int patients;
+        private final double requestedSamplesPerSecond;
+        private final double maxSamplesPerSecond;
+        private final double rateScale;
+        private final long escalations;
+        private final long relaxations;
+        private final long collectedSamples;
+
+        public Stats(int patients, double requestedSamplesPerSecond, double maxSamplesPerSecond, double rateScale,
+                     long escalations, long relaxations, long collectedSamples) {
+            this.patients = patients;
+            this.requestedSamplesPerSecond = requestedSamplesPerSecond;
+            this.maxSamplesPerSecond = maxSamplesPerSecond;
+            this.rateScale = rateScale;
+            this.escalations = escalations;
+            this.relaxations = relaxations;
+            this.collectedSamples = collectedSamples;
+        }
+
+        public int getPatients() {
+            return patients;
+        }
+
+        /**
+         * Samples per second the patients' cadences ask for, before budget stretching
+         */
+        public double getRequestedSamplesPerSecond() {
+            return requestedSamplesPerSecond;
+        }
+
+        /**
+         * Samples per second the node actually runs at, never above the budget
+         */
+        public double getEffectiveSamplesPerSecond() {
+            return requestedSamplesPerSecond / rateScale;
+        }
+
+        public double getMaxSamplesPerSecond() {
+            return maxSamplesPerSecond;
+        }
+
+        /**
+         * Factor every cadence is stretched by to stay within budget; 1 when under budget
+         */
+        public double getRateScale() {
+            return rateScale;
+        }
+
+        public long getEscalations() {
+            return escalations;
+        }
+
+        public long getRelaxations() {
+            return relaxations;
+        }
+
+        public long getCollectedSamples() {
+            return collectedSamples;
+        }
+
+        @Override
+        public String toString() {
+            return "Stats{" +
+                    "patients=" + patients +
+                    ", requestedSamplesPerSecond=" + String.format("%.1f", requestedSamplesPerSecond) +
+                    ", effectiveSamplesPerSecond=" + String.format("%.1f", getEffectiveSamplesPerSecond()) +
+                    ", maxSamplesPerSecond=" + String.format("%.1f", maxSamplesPerSecond) +
+                    ", rateScale=" + String.format("%.3f", rateScale) +
+                    ", escalations=" + escalations +
+                    ", relaxations=" + relaxations +
+                    ", collectedSamples=" + collectedSamples +
+                    '}';
+        }
+    }
+}
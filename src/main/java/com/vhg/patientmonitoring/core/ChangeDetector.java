@@ -0,0 +1,237 @@
+package com.vhg.patientmonitoring.core;
+
+import com.vhg.patientmonitoring.agent.AIAgentSystem;
+import com.vhg.patientmonitoring.agent.baseline.BaselineStore;
+import com.vhg.patientmonitoring.agent.baseline.PatientBaselines;
+import com.vhg.patientmonitoring.model.reading.ReadingView;
+import com.vhg.patientmonitoring.model.reading.VitalSignType;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Decides whether a monitoring cycle needs to run the agent for a patient.
+ * <p>
+ * Each collected reading is compared with the value of the same vital sign at the patient's last
+ * evaluation. A change is material when it exceeds the configured number of baseline standard
+ * deviations; without an established baseline every change is. Cycles with no material change skip
+ * the agent, but a patient is always re-evaluated once its last evaluation is older than the max
+ * staleness. The latency from the arrival of the oldest unevaluated reading to the agent's decision is
+ * tracked as well.
+ */
+public class ChangeDetector {
+    private static final int TYPES = VitalSignType.values().length;
+
+    private final BaselineStore baselineStore;
+    private final double significanceSigmas;
+    private final long maxStalenessNanos;
+    private final Map<String, PatientState> states = new ConcurrentHashMap<>();
+
+    private final LongAdder materialChanges = new LongAdder();
+    private final LongAdder heartbeats = new LongAdder();
+    private final LongAdder skipped = new LongAdder();
+    private final LongAdder decisions = new LongAdder();
+    private final LongAdder totalLatencyNanos = new LongAdder();
+    private final AtomicLong maxLatencyNanos = new AtomicLong();
+
+    public ChangeDetector(BaselineStore baselineStore, MonitoringConfiguration configuration) {
+        this.baselineStore = baselineStore;
+        this.significanceSigmas = configuration.getChangeSignificanceSigmas();
+        this.maxStalenessNanos = TimeUnit.MILLISECONDS.toNanos(configuration.getMaxEvaluationStalenessMillis());
+    }
+
+    /**
+     * Notes a newly collected reading. Expects the reading to be in the baseline store already.
+     */
+    public void observe(ReadingView reading) {
+        PatientState state = states.computeIfAbsent(reading.getPatientId(), id -> new PatientState());
+        int type = reading.getType().ordinal();
+        synchronized (state) {
+            state.latest[type] = reading.getValue();
+            if (!state.pending) {
+                state.pending = true;
+                state.pendingSinceNanos = System.nanoTime();
+            }
+            if (!state.changed && isMaterial(reading.getPatientId(), type, state.evaluated[type], reading.getValue())) {
+                state.changed = true;
+            }
+        }
+    }
+
+    /**
+     * Whether the agent should evaluate the patient this cycle. A true result counts as the evaluation:
+     * the current readings become the reference for later changes.
+     */
+    public boolean shouldEvaluate(String patientId) {
+        PatientState state = states.computeIfAbsent(patientId, id -> new PatientState());
+        long now = System.nanoTime();
+        synchronized (state) {
+            boolean stale = !state.evaluatedOnce || now - state.evaluatedAtNanos >= maxStalenessNanos;
+            if (!state.changed && !stale) {
+                skipped.increment();
+                return false;
+            }
+            (state.changed ? materialChanges : heartbeats).increment();
+
+            System.arraycopy(state.latest, 0, state.evaluated, 0, TYPES);
+            state.changed = false;
+            state.evaluatedOnce = true;
+            state.evaluatedAtNanos = now;
+            // An evaluation still waiting for its decision keeps the older arrival time
+            if (state.pending && !state.awaitingDecision) {
+                state.awaitingDecision = true;
+                state.awaitingSinceNanos = state.pendingSinceNanos;
+            }
+            state.pending = false;
+        }
+        return true;
+    }
+
+    /**
+     * Records that the agent acted on a decision for the patient.
+     */
+    public void decisionMade(String patientId) {
+        PatientState state = states.get(patientId);
+        if (state == null) {
+            return;
+        }
+        long latency;
+        synchronized (state) {
+            if (!state.awaitingDecision) {
+                return;
+            }
+            state.awaitingDecision = false;
+            latency = System.nanoTime() - state.awaitingSinceNanos;
+        }
+        decisions.increment();
+        totalLatencyNanos.add(latency);
+        maxLatencyNanos.accumulateAndGet(latency, Math::max);
+    }
+
+    public void forget(String patientId) {
+        states.remove(patientId);
+    }
+
+    public Stats getStats() {
+        return new Stats(materialChanges.sum(), heartbeats.sum(), skipped.sum(), decisions.sum(),
+                totalLatencyNanos.sum(), maxLatencyNanos.get());
+    }
+
+    private boolean isMaterial(String patientId, int type, double evaluated, double value) {
+        if (Double.isNaN(evaluated)) {
+            // A vital sign the agent hasn't seen for this patient yet
+            return true;
+        }
+        PatientBaselines baselines = baselineStore.get(patientId);
+        if (baselines == null || baselines.getCount(type) < AIAgentSystem.MIN_BASELINE_SAMPLES) {
+            return value != evaluated;
+        }
+        double mean = baselines.getMean(type);
+        double band = Math.max(baselines.getStdDev(type), Math.abs(mean) * AIAgentSystem.MIN_RELATIVE_STD_DEV);
+        return Math.abs(value - evaluated) > significanceSigmas * band;
+    }
+
+    /**
+     * Per-patient change state, guarded by its own monitor
+     */
+    private static final class PatientState {
+        private final double[] latest = new double[TYPES];
+        // Readings at the last evaluation, NaN for vital signs not seen then
+        private final double[] evaluated = new double[TYPES];
+        private boolean changed;
+        private boolean evaluatedOnce;
+        private long evaluatedAtNanos;
+        // Arrival of the oldest reading not yet evaluated
+        private boolean pending;
+        private long pendingSinceNanos;
+        // Arrival of the oldest reading of an evaluation whose decision hasn't come back yet
+        private boolean awaitingDecision;
+        private long awaitingSinceNanos;
+
+        private PatientState() {
+            Arrays.fill(latest, Double.NaN);
+            Arrays.fill(evaluated, Double.NaN);
+        }
+    }
+
+    /**
+     * Point-in-time snapshot of the change detector
+     */
+    public static class Stats {
+        private final long materialChanges;
+        private final long heartbeats;
+        private final long skipped;
+        private final long decisions;
+        private final long totalLatencyNanos;
+        private final long maxLatencyNanos;
+
+        public Stats(long materialChanges, long heartbeats, long skipped, long decisions,
+                     long totalLatencyNanos, long maxLatencyNanos) {
+            this.materialChanges = materialChanges;
+            this.heartbeats = heartbeats;
+            this.skipped = skipped;
+            this.decisions = decisions;
+            this.totalLatencyNanos = totalLatencyNanos;
+            this.maxLatencyNanos = maxLatencyNanos;
+        }
+
+        /**
+         * Evaluations triggered by a material change
+         */
+        public long getMaterialChanges() {
+            return materialChanges;
+        }
+
+        /**
+         * Evaluations triggered only because the last one became too old
+         */
+        public long getHeartbeats() {
+            return heartbeats;
+        }
+
+        public long getEvaluations() {
+            return materialChanges + heartbeats;
+        }
+
+        public long getSkipped() {
+            return skipped;
+        }
+
+        public double getSkippedFraction() {
+            long cycles = getEvaluations() + skipped;
+            return cycles == 0 ? 0 : (double) skipped / cycles;
+        }
+
+        public long getDecisions() {
+            return decisions;
+        }
+
+        /**
+         * Mean time from the arrival of a reading to the decision of the evaluation that covered it
+         */
+        public long getMeanLatencyNanos() {
+            return decisions == 0 ? 0 : totalLatencyNanos / decisions;
+        }
+
+        public long getMaxLatencyNanos() {
+            return maxLatencyNanos;
+        }
+
+        @Override
+        public String toString() {
+            return "Stats{" +
+                    "materialChanges=" + materialChanges +
+                    ", heartbeats=" + heartbeats +
+                    ", skipped=" + skipped +
+                    ", skippedFraction=" + String.format("%.3f", getSkippedFraction()) +
+                    ", decisions=" + decisions +
+                    ", meanLatencyNanos=" + getMeanLatencyNanos() +
+                    ", maxLatencyNanos=" + maxLatencyNanos +
+                    '}';
+        }
+    }
+}
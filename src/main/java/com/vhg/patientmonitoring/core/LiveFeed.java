@@ -0,0 +1,492 @@
+package com.vhg.patientmonitoring.core;
+
+import com.vhg.patientmonitoring.model.alert.Alert;
+import com.vhg.patientmonitoring.model.reading.ReadingView;
+import com.vhg.patientmonitoring.model.reading.VitalSignType;
+import com.vhg.patientmonitoring.util.DateTimeUtils;
+
+import java.io.IOException;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Pushes new readings and alerts to live dashboards, per patient or per ward.
+ * <p>
+ * The monitoring system publishes everything once into a bounded queue; a single fan-out thread hands
+ * each item to the subscriptions of its patient and ward. Every subscription buffers what it has not
+ * sent yet: vital signs conflated to the latest value per patient and vital sign, alerts conflated by
+ * id, both bounded, so a slow client falls behind to the current state instead of queueing history.
+ * A subscription with something to send gets a virtual thread that writes until its buffer is empty,
+ * so thousands of connections need no thread each while idle and a stalled one blocks only itself.
+ * <p>
+ * Frames are compact JSON. A {@code vitals} frame carries one patient's vital signs that changed since
+ * the last frame sent on the connection, e.g. {@code {"p":"<patient id>","ts":<epoch millis>,
+ * "v":{"HEART_RATE":72.0}}}; an {@code alert} frame carries the alert's current state.
+ */
+public class LiveFeed {
+    private static final long WARD_CACHE_NANOS = TimeUnit.SECONDS.toNanos(10);
+
+    private final BlockingQueue<Object> queue;
+    private final int clientBufferSize;
+    private final Function<String, String> wardOfPatient;
+    private final Map<String, Set<Subscription>> byPatient = new ConcurrentHashMap<>();
+    private final Map<String, Set<Subscription>> byWard = new ConcurrentHashMap<>();
+    private final AtomicInteger subscriptions = new AtomicInteger();
+    private final ExecutorService writers = Executors.newVirtualThreadPerTaskExecutor();
+    private final Thread fanOut;
+    private volatile boolean running = true;
+
+    // Only used by the fan-out thread
+    private final Map<String, String> wardCache = new HashMap<>();
+    private long wardCacheClearedNanos = System.nanoTime();
+
+    private final LongAdder published = new LongAdder();
+    private final LongAdder queueDropped = new LongAdder();
+    private final LongAdder framesSent = new LongAdder();
+    private final LongAdder conflated = new LongAdder();
+    private final LongAdder clientDropped = new LongAdder();
+    private final LongAdder disconnected = new LongAdder();
+
+    /**
+     * @param queueCapacity    items waiting for fan-out before further ones are dropped
+     * @param clientBufferSize unsent vital signs (per patient and type) and alerts held per subscription
+     * @param wardOfPatient    ward of a patient, or null if unknown
+     */
+    public LiveFeed(int queueCapacity, int clientBufferSize, Function<String, String> wardOfPatient) {
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.clientBufferSize = clientBufferSize;
+        this.wardOfPatient = wardOfPatient;
+        this.fanOut = new Thread(this::fanOutLoop, "live-feed");
+        this.fanOut.setDaemon(true);
+        this.fanOut.start();
+    }
+
+    public Subscription subscribePatient(String patientId, Sink sink) {
+        return subscribe(byPatient, patientId, sink);
+    }
+
+    public Subscription subscribeWard(String ward, Sink sink) {
+        return subscribe(byWard, ward, sink);
+    }
+
+    /**
+     * Queues a reading for its subscribers. The reading is copied, so a {@code ReadingBlock} cursor may be
+     * passed. Returns at once; without subscribers it does nothing.
+     */
+    public void publish(ReadingView reading) {
+        if (subscriptions.get() > 0) {
+            enqueue(new LiveReading(reading.getPatientId(), reading.getType(), reading.getValue(),
+                    reading.getEpochNanos()));
+        }
+    }
+
+    /**
+     * Queues a new or updated alert for its subscribers.
+     */
+    public void publish(Alert alert) {
+        if (subscriptions.get() > 0) {
+            enqueue(alert);
+        }
+    }
+
+    public int getSubscriptionCount() {
+        return subscriptions.get();
+    }
+
+    /**
+     * Stops fan-out and closes every subscription.
+     */
+    public void shutdown() {
+        running = false;
+        fanOut.interrupt();
+        try {
+            fanOut.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        for (Map<String, Set<Subscription>> index : List.of(byPatient, byWard)) {
+            for (Set<Subscription> subscribers : index.values()) {
+                for (Subscription subscription : subscribers) {
+                    subscription.close();
+                }
+            }
+        }
+        writers.shutdown();
+    }
+
+    public Stats getStats() {
+        return new Stats(subscriptions.get(), published.sum(), queueDropped.sum(), framesSent.sum(),
+                conflated.sum(), clientDropped.sum(), disconnected.sum());
+    }
+
+    private Subscription subscribe(Map<String, Set<Subscription>> index, String key, Sink sink) {
+        Subscription subscription = new Subscription(index, key, sink);
+        index.computeIfAbsent(key, k -> ConcurrentHashMap.newKeySet()).add(subscription);
+        subscriptions.incrementAndGet();
+        return subscription;
+    }
+
+    private void enqueue(Object item) {
+        if (queue.offer(item)) {
+            published.increment();
+        } else {
+            queueDropped.increment();
+        }
+    }
+
+    private void fanOutLoop() {
+        while (running) {
+            Object item;
+            try {
+                item = queue.poll(100, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                continue;
+            }
+            if (item == null) {
+                continue;
+            }
+            try {
+                String patientId = item instanceof LiveReading reading ? reading.patientId : ((Alert) item).getPatientId();
+                offer(byPatient.get(patientId), item);
+                if (!byWard.isEmpty()) {
+                    String ward = wardOf(patientId);
+                    if (!ward.isEmpty()) {
+                        offer(byWard.get(ward), item);
+                    }
+                }
+            } catch (RuntimeException e) {
+                System.err.println("Error fanning out live update: " + e.getMessage());
+            }
+        }
+    }
+
+    private static void offer(Set<Subscription> subscribers, Object item) {
+        if (subscribers == null) {
+            return;
+        }
+        for (Subscription subscription : subscribers) {
+            subscription.offer(item);
+        }
+    }
+
+    private String wardOf(String patientId) {
+        // Wards change rarely; looking one up may hit the patient repository
+        long now = System.nanoTime();
+        if (now - wardCacheClearedNanos > WARD_CACHE_NANOS) {
+            wardCache.clear();
+            wardCacheClearedNanos = now;
+        }
+        return wardCache.computeIfAbsent(patientId, id -> {
+            String ward = wardOfPatient != null ? wardOfPatient.apply(id) : null;
+            return ward != null ? ward : "";
+        });
+    }
+
+    /**
+     * Connection a subscription writes its frames to, e.g. a server-sent event stream
+     */
+    public interface Sink {
+        /**
+         * Writes one frame; may block while the client is slow to read.
+         *
+         * @throws IOException if the client is gone, which ends the subscription
+         */
+        void send(String event, String data) throws IOException;
+
+        /**
+         * Ends the connection, when the subscription is closed from this side.
+         */
+        void close();
+    }
+
+    /**
+     * One dashboard connection's interest in a patient or ward and the updates not yet sent to it
+     */
+    public final class Subscription {
+        private final Map<String, Set<Subscription>> index;
+        private final String key;
+        private final Sink sink;
+        private final LinkedHashMap<ReadingKey, LiveReading> pendingReadings = new LinkedHashMap<>();
+        private final LinkedHashMap<String, Alert> pendingAlerts = new LinkedHashMap<>();
+        // Last value sent per vital sign, for delta encoding; only used by the writing thread
+        private final Map<ReadingKey, Double> lastSent = new HashMap<>();
+        private boolean writing;
+        private boolean closed;
+
+        private Subscription(Map<String, Set<Subscription>> index, String key, Sink sink) {
+            this.index = index;
+            this.key = key;
+            this.sink = sink;
+        }
+
+        /**
+         * Stops sending and closes the sink. Safe to call more than once.
+         */
+        public void close() {
+            synchronized (this) {
+                if (closed) {
+                    return;
+                }
+                closed = true;
+                pendingReadings.clear();
+                pendingAlerts.clear();
+            }
+            Set<Subscription> subscribers = index.get(key);
+            if (subscribers != null) {
+                subscribers.remove(this);
+            }
+            subscriptions.decrementAndGet();
+            disconnected.increment();
+            try {
+                sink.close();
+            } catch (RuntimeException e) {
+                // Already gone
+            }
+        }
+
+        public boolean isClosed() {
+            synchronized (this) {
+                return closed;
+            }
+        }
+
+        private void offer(Object item) {
+            synchronized (this) {
+                if (closed) {
+                    return;
+                }
+                if (item instanceof LiveReading reading) {
+                    ReadingKey readingKey = new ReadingKey(reading.patientId, reading.type);
+                    if (pendingReadings.containsKey(readingKey)) {
+                        conflated.increment();
+                    } else if (pendingReadings.size() >= clientBufferSize) {
+                        clientDropped.increment();
+                        return;
+                    }
+                    pendingReadings.put(readingKey, reading);
+                } else {
+                    Alert alert = (Alert) item;
+                    if (pendingAlerts.containsKey(alert.getAlertId())) {
+                        conflated.increment();
+                    } else if (pendingAlerts.size() >= clientBufferSize) {
+                        // Make room: the oldest unsent alert is the least current
+                        pendingAlerts.remove(pendingAlerts.keySet().iterator().next());
+                        clientDropped.increment();
+                    }
+                    pendingAlerts.put(alert.getAlertId(), alert);
+                }
+                if (writing) {
+                    return;
+                }
+                writing = true;
+            }
+            try {
+                writers.execute(this::write);
+            } catch (RuntimeException e) {
+                // Shutting down
+                close();
+            }
+        }
+
+        private void write() {
+            while (true) {
+                List<LiveReading> readings;
+                List<Alert> alerts;
+                synchronized (this) {
+                    if (closed || (pendingReadings.isEmpty() && pendingAlerts.isEmpty())) {
+                        writing = false;
+                        return;
+                    }
+                    readings = new ArrayList<>(pendingReadings.values());
+                    alerts = new ArrayList<>(pendingAlerts.values());
+                    pendingReadings.clear();
+                    pendingAlerts.clear();
+                }
+                try {
+                    // Alerts go out first
+                    for (Alert alert : alerts) {
+                        sink.send("alert", encodeAlert(alert));
+                        framesSent.increment();
+                    }
+                    for (String frame : encodeVitals(readings)) {
+                        sink.send("vitals", frame);
+                        framesSent.increment();
+                    }
+                } catch (IOException | RuntimeException e) {
+                    close();
+                    return;
+                }
+            }
+        }
+
+        /**
+         * One frame per patient with the vital signs whose value changed since they were last sent
+         */
+        private List<String> encodeVitals(List<LiveReading> readings) {
+            Map<String, StringBuilder> framesByPatient = new LinkedHashMap<>();
+            Map<String, Long> latestByPatient = new HashMap<>();
+            for (LiveReading reading : readings) {
+                Double previous = lastSent.put(new ReadingKey(reading.patientId, reading.type), reading.value);
+                if (previous != null && previous == reading.value) {
+                    continue;
+                }
+                StringBuilder values = framesByPatient.get(reading.patientId);
+                if (values == null) {
+                    values = new StringBuilder();
+                    framesByPatient.put(reading.patientId, values);
+                } else {
+                    values.append(',');
+                }
+                values.append('"').append(reading.type.name()).append("\":").append(reading.value);
+                latestByPatient.merge(reading.patientId, reading.epochNanos, Math::max);
+            }
+            List<String> frames = new ArrayList<>(framesByPatient.size());
+            for (Map.Entry<String, StringBuilder> entry : framesByPatient.entrySet()) {
+                StringBuilder frame = new StringBuilder(32 + entry.getValue().length());
+                frame.append("{\"p\":");
+                appendString(frame, entry.getKey());
+                frame.append(",\"ts\":").append(TimeUnit.NANOSECONDS.toMillis(latestByPatient.get(entry.getKey())))
+                        .append(",\"v\":{").append(entry.getValue()).append("}}");
+                frames.add(frame.toString());
+            }
+            return frames;
+        }
+    }
+
+    private static String encodeAlert(Alert alert) {
+        StringBuilder frame = new StringBuilder(160);
+        frame.append("{\"id\":");
+        appendString(frame, alert.getAlertId());
+        frame.append(",\"p\":");
+        appendString(frame, alert.getPatientId());
+        frame.append(",\"severity\":\"").append(alert.getSeverity().name())
+                .append("\",\"status\":\"").append(alert.getStatus().name())
+                .append("\",\"message\":");
+        appendString(frame, alert.getMessage());
+        frame.append(",\"ts\":").append(TimeUnit.NANOSECONDS.toMillis(
+                        DateTimeUtils.toEpochNanos(alert.getLastOccurrence(), ZoneId.systemDefault())))
+                .append(",\"occurrences\":").append(alert.getOccurrences())
+                .append('}');
+        return frame.toString();
+    }
+
+    private static void appendString(StringBuilder json, String value) {
+        if (value == null) {
+            json.append("null");
+            return;
+        }
+        json.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"' -> json.append("\\\"");
+                case '\\' -> json.append("\\\\");
+                case '\n' -> json.append("\\n");
+                case '\r' -> json.append("\\r");
+                case '\t' -> json.append("\\t");
+                default -> {
+                    if (c < 0x20) {
+                        json.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        json.append(c);
+                    }
+                }
+            }
+        }
+        json.append('"');
+    }
+
+    private record ReadingKey(String patientId, VitalSignType type) {
+    }
+
+    private record LiveReading(String patientId, VitalSignType type, double value, long epochNanos) {
+    }
+
+    /**
+     * Point-in-time snapshot of live feed delivery
+     */
+    public static class Stats {
+        private final int subscriptions;
+        private final long published;
+        private final long queueDropped;
+        private final long framesSent;
+        private final long conflated;
+        private final long clientDropped;
+        private final long disconnected;
+
+        public Stats(int subscriptions, long published, long queueDropped, long framesSent, long conflated,
+                     long clientDropped, long disconnected) {
+            this.subscriptions = subscriptions;
+            this.published = published;
+            this.queueDropped = queueDropped;
+            this.framesSent = framesSent;
+            this.conflated = conflated;
+            this.clientDropped = clientDropped;
+            this.disconnected = disconnected;
+        }
+
+        public int getSubscriptions() {
+            return subscriptions;
+        }
+
+        public long getPublished() {
+            return published;
+        }
+
+        /**
+         * Updates dropped because fan-out fell behind
+         */
+        public long getQueueDropped() {
+            return queueDropped;
+        }
+
+        public long getFramesSent() {
+            return framesSent;
+        }
+
+        /**
+         * Updates replaced by a newer one before a slow client was sent them
+         */
+        public long getConflated() {
+            return conflated;
+        }
+
+        /**
+         * Updates dropped because a client's buffer was full
+         */
+        public long getClientDropped() {
+            return clientDropped;
+        }
+
+        public long getDisconnected() {
+            return disconnected;
+        }
+
+        @Override
+        public String toString() {
+            return "Stats{" +
+                    "subscriptions=" + subscriptions +
+                    ", published=" + published +
+                    ", queueDropped=" + queueDropped +
+                    ", framesSent=" + framesSent +
+                    ", conflated=" + conflated +
+                    ", clientDropped=" + clientDropped +
+                    ", disconnected=" + disconnected +
+                    '}';
+        }
+    }
+}
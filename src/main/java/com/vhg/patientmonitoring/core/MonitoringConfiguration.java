@@ -0,0 +1,492 @@
+package com.vhg.patientmonitoring.core;
+
+/**
+ * Tunable settings for the monitoring engine
+ */
+public class MonitoringConfiguration {
+    private long defaultCadenceMillis = 5000;
+    private long minCadenceMillis = 500;
+    private long maxCadenceMillis = 30_000;
+    private double maxSamplesPerSecond = 5_000;
+    private long deviceTimeoutMillis = 1000;
+    private int deviceFailureThreshold = 3;
+    private long deviceRetryMillis = 30_000;
+    private int deviceConnectConcurrency = 256;
+    private long deviceHealthCheckMillis = 5000;
+    private long deviceReconnectInitialMillis = 1000;
+    private long deviceReconnectMaxMillis = 60_000;
+    private int alertWorkersPerLane = 2;
+    private int alertQueueCapacity = 10_000;
+    private int alertMaxAttempts = 5;
+    private long alertRetryInitialMillis = 500;
+    private long alertRetryMaxMillis = 30_000;
+    private long alertDedupWindowMillis = 300_000;
+    private int alertPatientRatePerMinute = 6;
+    private int alertWardRatePerMinute = 30;
+    private int liveFeedQueueCapacity = 65_536;
+    private int liveClientBufferSize = 512;
+    private int streamPrefetchBatches = 16;
+    private int ingestBatchSize = 4096;
+    private long rollupFlushIntervalMillis = 10_000;
+    private int minuteRollupRetentionDays = 3;
+    private int hourRollupRetentionDays = 90;
+    private int dayRollupRetentionDays = 730;
+    private String waveformDirectory;
+    private long waveformChunkMillis = 10_000;
+    private int waveformSegmentBytes = 64 * 1024 * 1024;
+    private int schedulerThreads = Math.max(1, Runtime.getRuntime().availableProcessors() / 4);
+    private boolean virtualThreadCycles = true;
+    private int cycleThreads = Runtime.getRuntime().availableProcessors();
+    private String rulesFile;
+    private long rulesReloadIntervalMillis = 5000;
+    private int modelBatchSize = 16;
+    private long modelBatchWindowMillis = 20;
+    private int modelMaxConcurrentBatches = 4;
+    private long modelTimeoutMillis = 10_000;
+    private long decisionCacheTtlMillis = 60_000;
+    private int decisionCacheMaxEntries = 10_000;
+    private double changeSignificanceSigmas = 1.0;
+    private long maxEvaluationStalenessMillis = 60_000;
+
+    public long getDefaultCadenceMillis() {
+        return defaultCadenceMillis;
+    }
+
+    public void setDefaultCadenceMillis(long defaultCadenceMillis) {
+        this.defaultCadenceMillis = defaultCadenceMillis;
+    }
+
+    /**
+     * Fastest cadence a deteriorating patient is ramped up to.
+     */
+    public long getMinCadenceMillis() {
+        return minCadenceMillis;
+    }
+
+    public void setMinCadenceMillis(long minCadenceMillis) {
+        this.minCadenceMillis = minCadenceMillis;
+    }
+
+    /**
+     * Slowest cadence a stable patient is relaxed to.
+     */
+    public long getMaxCadenceMillis() {
+        return maxCadenceMillis;
+    }
+
+    public void setMaxCadenceMillis(long maxCadenceMillis) {
+        this.maxCadenceMillis = maxCadenceMillis;
+    }
+
+    /**
+     * Budget of device readings per second for this node; cadences are stretched to stay within it.
+     */
+    public double getMaxSamplesPerSecond() {
+        return maxSamplesPerSecond;
+    }
+
+    public void setMaxSamplesPerSecond(double maxSamplesPerSecond) {
+        this.maxSamplesPerSecond = maxSamplesPerSecond;
+    }
+
+    /**
+     * Longest a monitoring cycle waits for any one device's reading.
+     */
+    public long getDeviceTimeoutMillis() {
+        return deviceTimeoutMillis;
+    }
+
+    public void setDeviceTimeoutMillis(long deviceTimeoutMillis) {
+        this.deviceTimeoutMillis = deviceTimeoutMillis;
+    }
+
+    /**
+     * Consecutive failures or timeouts after which a device is skipped for {@link #getDeviceRetryMillis()}.
+     */
+    public int getDeviceFailureThreshold() {
+        return deviceFailureThreshold;
+    }
+
+    public void setDeviceFailureThreshold(int deviceFailureThreshold) {
+        this.deviceFailureThreshold = deviceFailureThreshold;
+    }
+
+    public long getDeviceRetryMillis() {
+        return deviceRetryMillis;
+    }
+
+    public void setDeviceRetryMillis(long deviceRetryMillis) {
+        this.deviceRetryMillis = deviceRetryMillis;
+    }
+
+    /**
+     * Device connects in progress at once during startup and reconnects.
+     */
+    public int getDeviceConnectConcurrency() {
+        return deviceConnectConcurrency;
+    }
+
+    public void setDeviceConnectConcurrency(int deviceConnectConcurrency) {
+        this.deviceConnectConcurrency = deviceConnectConcurrency;
+    }
+
+    /**
+     * Interval at which dropped devices are detected and failed devices retried.
+     */
+    public long getDeviceHealthCheckMillis() {
+        return deviceHealthCheckMillis;
+    }
+
+    public void setDeviceHealthCheckMillis(long deviceHealthCheckMillis) {
+        this.deviceHealthCheckMillis = deviceHealthCheckMillis;
+    }
+
+    /**
+     * Delay before a failed device is first retried; doubles per failure up to {@link #getDeviceReconnectMaxMillis()}.
+     */
+    public long getDeviceReconnectInitialMillis() {
+        return deviceReconnectInitialMillis;
+    }
+
+    public void setDeviceReconnectInitialMillis(long deviceReconnectInitialMillis) {
+        this.deviceReconnectInitialMillis = deviceReconnectInitialMillis;
+    }
+
+    public long getDeviceReconnectMaxMillis() {
+        return deviceReconnectMaxMillis;
+    }
+
+    public void setDeviceReconnectMaxMillis(long deviceReconnectMaxMillis) {
+        this.deviceReconnectMaxMillis = deviceReconnectMaxMillis;
+    }
+
+    /**
+     * Threads delivering notifications for each alert severity.
+     */
+    public int getAlertWorkersPerLane() {
+        return alertWorkersPerLane;
+    }
+
+    public void setAlertWorkersPerLane(int alertWorkersPerLane) {
+        this.alertWorkersPerLane = alertWorkersPerLane;
+    }
+
+    /**
+     * Notifications waiting per severity; beyond it urgent ones are sent by the caller, others dropped.
+     */
+    public int getAlertQueueCapacity() {
+        return alertQueueCapacity;
+    }
+
+    public void setAlertQueueCapacity(int alertQueueCapacity) {
+        this.alertQueueCapacity = alertQueueCapacity;
+    }
+
+    public int getAlertMaxAttempts() {
+        return alertMaxAttempts;
+    }
+
+    public void setAlertMaxAttempts(int alertMaxAttempts) {
+        this.alertMaxAttempts = alertMaxAttempts;
+    }
+
+    /**
+     * Delay before a failed notification is retried; doubles per attempt up to {@link #getAlertRetryMaxMillis()}.
+     */
+    public long getAlertRetryInitialMillis() {
+        return alertRetryInitialMillis;
+    }
+
+    public void setAlertRetryInitialMillis(long alertRetryInitialMillis) {
+        this.alertRetryInitialMillis = alertRetryInitialMillis;
+    }
+
+    public long getAlertRetryMaxMillis() {
+        return alertRetryMaxMillis;
+    }
+
+    public void setAlertRetryMaxMillis(long alertRetryMaxMillis) {
+        this.alertRetryMaxMillis = alertRetryMaxMillis;
+    }
+
+    /**
+     * How long after its last repeat an alert stays open; repeats within it are folded into the open alert.
+     */
+    public long getAlertDedupWindowMillis() {
+        return alertDedupWindowMillis;
+    }
+
+    public void setAlertDedupWindowMillis(long alertDedupWindowMillis) {
+        this.alertDedupWindowMillis = alertDedupWindowMillis;
+    }
+
+    /**
+     * New non-critical alerts per patient per minute (also the burst allowed).
+     */
+    public int getAlertPatientRatePerMinute() {
+        return alertPatientRatePerMinute;
+    }
+
+    public void setAlertPatientRatePerMinute(int alertPatientRatePerMinute) {
+        this.alertPatientRatePerMinute = alertPatientRatePerMinute;
+    }
+
+    /**
+     * New non-critical alerts per ward per minute; the ward is the patient's {@code ward} demographic.
+     */
+    public int getAlertWardRatePerMinute() {
+        return alertWardRatePerMinute;
+    }
+
+    public void setAlertWardRatePerMinute(int alertWardRatePerMinute) {
+        this.alertWardRatePerMinute = alertWardRatePerMinute;
+    }
+
+    /**
+     * Readings and alerts waiting to be fanned out to live dashboards; beyond this they are dropped.
+     */
+    public int getLiveFeedQueueCapacity() {
+        return liveFeedQueueCapacity;
+    }
+
+    public void setLiveFeedQueueCapacity(int liveFeedQueueCapacity) {
+        this.liveFeedQueueCapacity = liveFeedQueueCapacity;
+    }
+
+    /**
+     * Undelivered vital signs and alerts held per dashboard connection while it is slow to read.
+     */
+    public int getLiveClientBufferSize() {
+        return liveClientBufferSize;
+    }
+
+    public void setLiveClientBufferSize(int liveClientBufferSize) {
+        this.liveClientBufferSize = liveClientBufferSize;
+    }
+
+    /**
+     * Readings of a bulk upload stored at a time; the upload is parsed into a reused batch of this size.
+     */
+    public int getIngestBatchSize() {
+        return ingestBatchSize;
+    }
+
+    public void setIngestBatchSize(int ingestBatchSize) {
+        this.ingestBatchSize = ingestBatchSize;
+    }
+
+    /**
+     * How often rollups changed by new readings are written to the rollup repository.
+     */
+    public long getRollupFlushIntervalMillis() {
+        return rollupFlushIntervalMillis;
+    }
+
+    public void setRollupFlushIntervalMillis(long rollupFlushIntervalMillis) {
+        this.rollupFlushIntervalMillis = rollupFlushIntervalMillis;
+    }
+
+    /**
+     * Days minute rollups are kept; older ranges are summarized to whole hours.
+     */
+    public int getMinuteRollupRetentionDays() {
+        return minuteRollupRetentionDays;
+    }
+
+    public void setMinuteRollupRetentionDays(int minuteRollupRetentionDays) {
+        this.minuteRollupRetentionDays = minuteRollupRetentionDays;
+    }
+
+    /**
+     * Days hour rollups are kept; older ranges are summarized to whole days.
+     */
+    public int getHourRollupRetentionDays() {
+        return hourRollupRetentionDays;
+    }
+
+    public void setHourRollupRetentionDays(int hourRollupRetentionDays) {
+        this.hourRollupRetentionDays = hourRollupRetentionDays;
+    }
+
+    public int getDayRollupRetentionDays() {
+        return dayRollupRetentionDays;
+    }
+
+    public void setDayRollupRetentionDays(int dayRollupRetentionDays) {
+        this.dayRollupRetentionDays = dayRollupRetentionDays;
+    }
+
+    /**
+     * Sample batches requested ahead from a streaming device; bounds how far it can run ahead of ingestion.
+     */
+    public int getStreamPrefetchBatches() {
+        return streamPrefetchBatches;
+    }
+
+    public void setStreamPrefetchBatches(int streamPrefetchBatches) {
+        this.streamPrefetchBatches = streamPrefetchBatches;
+    }
+
+    /**
+     * Directory of the ECG/EEG waveform chunk store; when null waveforms are stored as ordinary readings.
+     */
+    public String getWaveformDirectory() {
+        return waveformDirectory;
+    }
+
+    public void setWaveformDirectory(String waveformDirectory) {
+        this.waveformDirectory = waveformDirectory;
+    }
+
+    /**
+     * Duration of waveform samples compressed together as one chunk.
+     */
+    public long getWaveformChunkMillis() {
+        return waveformChunkMillis;
+    }
+
+    public void setWaveformChunkMillis(long waveformChunkMillis) {
+        this.waveformChunkMillis = waveformChunkMillis;
+    }
+
+    public int getWaveformSegmentBytes() {
+        return waveformSegmentBytes;
+    }
+
+    public void setWaveformSegmentBytes(int waveformSegmentBytes) {
+        this.waveformSegmentBytes = waveformSegmentBytes;
+    }
+
+    /**
+     * Number of carrier threads that fire ticks. Ticks only hand work off, so a couple are plenty.
+     */
+    public int getSchedulerThreads() {
+        return schedulerThreads;
+    }
+
+    public void setSchedulerThreads(int schedulerThreads) {
+        this.schedulerThreads = schedulerThreads;
+    }
+
+    /**
+     * Whether monitoring cycles run on virtual threads (blocking device/DB calls then park
+     * instead of pinning a platform thread). When false, {@link #getCycleThreads()} platform threads are used.
+     */
+    public boolean isVirtualThreadCycles() {
+        return virtualThreadCycles;
+    }
+
+    public void setVirtualThreadCycles(boolean virtualThreadCycles) {
+        this.virtualThreadCycles = virtualThreadCycles;
+    }
+
+    public int getCycleThreads() {
+        return cycleThreads;
+    }
+
+    public void setCycleThreads(int cycleThreads) {
+        this.cycleThreads = cycleThreads;
+    }
+
+    /**
+     * JSON file with the alert rules, watched for changes; when null the bundled {@code alert-rules.json} is used.
+     */
+    public String getRulesFile() {
+        return rulesFile;
+    }
+
+    public void setRulesFile(String rulesFile) {
+        this.rulesFile = rulesFile;
+    }
+
+    public long getRulesReloadIntervalMillis() {
+        return rulesReloadIntervalMillis;
+    }
+
+    public void setRulesReloadIntervalMillis(long rulesReloadIntervalMillis) {
+        this.rulesReloadIntervalMillis = rulesReloadIntervalMillis;
+    }
+
+    /**
+     * Most patients sent to the model in one call.
+     */
+    public int getModelBatchSize() {
+        return modelBatchSize;
+    }
+
+    public void setModelBatchSize(int modelBatchSize) {
+        this.modelBatchSize = modelBatchSize;
+    }
+
+    /**
+     * How long the first waiting request may wait for others to join its batch.
+     */
+    public long getModelBatchWindowMillis() {
+        return modelBatchWindowMillis;
+    }
+
+    public void setModelBatchWindowMillis(long modelBatchWindowMillis) {
+        this.modelBatchWindowMillis = modelBatchWindowMillis;
+    }
+
+    public int getModelMaxConcurrentBatches() {
+        return modelMaxConcurrentBatches;
+    }
+
+    public void setModelMaxConcurrentBatches(int modelMaxConcurrentBatches) {
+        this.modelMaxConcurrentBatches = modelMaxConcurrentBatches;
+    }
+
+    /**
+     * How long to wait for a model decision before acting on the rule-based fallback instead.
+     */
+    public long getModelTimeoutMillis() {
+        return modelTimeoutMillis;
+    }
+
+    public void setModelTimeoutMillis(long modelTimeoutMillis) {
+        this.modelTimeoutMillis = modelTimeoutMillis;
+    }
+
+    /**
+     * How long a cached model decision may be reused for an unchanged patient state.
+     */
+    public long getDecisionCacheTtlMillis() {
+        return decisionCacheTtlMillis;
+    }
+
+    public void setDecisionCacheTtlMillis(long decisionCacheTtlMillis) {
+        this.decisionCacheTtlMillis = decisionCacheTtlMillis;
+    }
+
+    public int getDecisionCacheMaxEntries() {
+        return decisionCacheMaxEntries;
+    }
+
+    public void setDecisionCacheMaxEntries(int decisionCacheMaxEntries) {
+        this.decisionCacheMaxEntries = decisionCacheMaxEntries;
+    }
+
+    /**
+     * Change of a vital sign since the last agent evaluation, in baseline standard deviations, that
+     * makes the agent evaluate the patient again. Zero evaluates on any change.
+     */
+    public double getChangeSignificanceSigmas() {
+        return changeSignificanceSigmas;
+    }
+
+    public void setChangeSignificanceSigmas(double changeSignificanceSigmas) {
+        this.changeSignificanceSigmas = changeSignificanceSigmas;
+    }
+
+    /**
+     * Longest time a patient goes without an agent evaluation, changed or not.
+     */
+    public long getMaxEvaluationStalenessMillis() {
+        return maxEvaluationStalenessMillis;
+    }
+
+    public void setMaxEvaluationStalenessMillis(long maxEvaluationStalenessMillis) {
+        this.maxEvaluationStalenessMillis = maxEvaluationStalenessMillis;
+    }
+}
@@ -0,0 +1,317 @@
+package com.vhg.patientmonitoring.core;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * Multiplexes per-patient monitoring cycles onto a bounded set of carrier threads.
+ * <p>
+ * Each patient gets its own cadence and a random start offset within its first period so that
+ * thousands of patients don't all tick at once. A tick only hands the cycle off to the cycle
+ * executor; if the patient's previous cycle is still running the tick is skipped rather than queued.
+ */
+public class MonitoringScheduler {
+    private final Consumer<String> cycle;
+    private final ScheduledThreadPoolExecutor ticker;
+    private final ExecutorService cycleExecutor;
+    private final Map<String, PatientSchedule> schedules = new ConcurrentHashMap<>();
+    // Stretches every cadence to keep the node within its rate budget; 1 means cadences as requested
+    private volatile double rateScale = 1.0;
+
+    private final LongAdder ticks = new LongAdder();
+    private final LongAdder skippedTicks = new LongAdder();
+    private final LongAdder completedCycles = new LongAdder();
+    private final LongAdder totalTickLagNanos = new LongAdder();
+    private final LongAdder totalCycleNanos = new LongAdder();
+    private final AtomicLong maxTickLagNanos = new AtomicLong();
+    private final AtomicLong maxCycleNanos = new AtomicLong();
+
+    public MonitoringScheduler(MonitoringConfiguration configuration, Consumer<String> cycle) {
+        this.cycle = cycle;
+        this.ticker = new ScheduledThreadPoolExecutor(configuration.getSchedulerThreads(), namedDaemonThreads("monitoring-tick-"));
+        this.ticker.setRemoveOnCancelPolicy(true);
+        this.cycleExecutor = configuration.isVirtualThreadCycles()
+                ? Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("monitoring-cycle-", 0).factory())
+                : Executors.newFixedThreadPool(configuration.getCycleThreads(), namedDaemonThreads("monitoring-cycle-"));
+    }
+
+    /**
+     * Starts (or re-times) monitoring of a patient at the given cadence. A shorter cadence takes effect
+     * immediately; a longer one from the next tick.
+     */
+    public void schedulePatient(String patientId, long cadenceMillis) {
+        long periodNanos = TimeUnit.MILLISECONDS.toNanos(cadenceMillis);
+        PatientSchedule existing = schedules.get(patientId);
+        if (existing != null) {
+            existing.retime(periodNanos);
+            return;
+        }
+
+        PatientSchedule schedule = new PatientSchedule(patientId, periodNanos);
+        if (schedules.putIfAbsent(patientId, schedule) == null) {
+            // Jitter the first tick anywhere within one period to spread load evenly
+            schedule.start(ThreadLocalRandom.current().nextLong(periodNanos));
+        } else {
+            schedules.get(patientId).retime(periodNanos);
+        }
+    }
+
+    /**
+     * Multiplies every patient's cadence by {@code scale} (at least 1) from their next tick on.
+     */
+    public void setRateScale(double scale) {
+        this.rateScale = Math.max(1.0, scale);
+    }
+
+    public double getRateScale() {
+        return rateScale;
+    }
+
+    public void unschedulePatient(String patientId) {
+        PatientSchedule schedule = schedules.remove(patientId);
+        if (schedule != null) {
+            schedule.cancel();
+        }
+    }
+
+    public boolean isScheduled(String patientId) {
+        return schedules.containsKey(patientId);
+    }
+
+    public void shutdown() {
+        schedules.values().forEach(PatientSchedule::cancel);
+        schedules.clear();
+        ticker.shutdownNow();
+        cycleExecutor.shutdown();
+    }
+
+    /**
+     * Lag of the patient's most recent tick behind its planned time, or -1 if the patient is not scheduled.
+     */
+    public long getLastTickLagNanos(String patientId) {
+        PatientSchedule schedule = schedules.get(patientId);
+        return schedule != null ? schedule.lastTickLagNanos : -1;
+    }
+
+    /**
+     * Duration of the patient's most recently completed cycle, or -1 if the patient is not scheduled.
+     */
+    public long getLastCycleNanos(String patientId) {
+        PatientSchedule schedule = schedules.get(patientId);
+        return schedule != null ? schedule.lastCycleNanos : -1;
+    }
+
+    public Stats getStats() {
+        return new Stats(schedules.size(), ticks.sum(), skippedTicks.sum(), completedCycles.sum(),
+                totalTickLagNanos.sum(), maxTickLagNanos.get(), totalCycleNanos.sum(), maxCycleNanos.get());
+    }
+
+    private void runCycle(PatientSchedule schedule) {
+        long start = System.nanoTime();
+        try {
+            cycle.accept(schedule.patientId);
+        } catch (Exception e) {
+            System.err.println("Error monitoring patient " + schedule.patientId + ": " + e.getMessage());
+        } finally {
+            long duration = System.nanoTime() - start;
+            schedule.lastCycleNanos = duration;
+            completedCycles.increment();
+            totalCycleNanos.add(duration);
+            maxCycleNanos.accumulateAndGet(duration, Math::max);
+            schedule.inFlight.set(false);
+        }
+    }
+
+    private long scaled(long periodNanos) {
+        return (long) (periodNanos * rateScale);
+    }
+
+    private static ThreadFactory namedDaemonThreads(String prefix) {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + counter.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    /**
+     * Self-rescheduling tick for a single patient. Each tick schedules the next one from the planned
+     * (not actual) time so cadence doesn't drift, and picks up cadence changes on the next tick.
+     */
+    private final class PatientSchedule implements Runnable {
+        private final String patientId;
+        private final AtomicBoolean inFlight = new AtomicBoolean();
+        private volatile long periodNanos;
+        private volatile boolean cancelled;
+        private volatile ScheduledFuture<?> future;
+        private volatile long lastTickLagNanos;
+        private volatile long lastCycleNanos;
+        // Written under this schedule's monitor, by the running tick or a re-time
+        private volatile long plannedTickNanos;
+
+        private PatientSchedule(String patientId, long periodNanos) {
+            this.patientId = patientId;
+            this.periodNanos = periodNanos;
+        }
+
+        private synchronized void start(long initialDelayNanos) {
+            plannedTickNanos = System.nanoTime() + initialDelayNanos;
+            future = ticker.schedule(this, initialDelayNanos, TimeUnit.NANOSECONDS);
+        }
+
+        private synchronized void retime(long newPeriodNanos) {
+            periodNanos = newPeriodNanos;
+            // Pull a far-off next tick in, so a deteriorating patient doesn't wait out its old slow cadence.
+            // A tick that is already running has a non-positive delay and is left alone.
+            long scaledPeriod = scaled(newPeriodNanos);
+            ScheduledFuture<?> current = future;
+            if (!cancelled && current != null && current.getDelay(TimeUnit.NANOSECONDS) > scaledPeriod
+                    && current.cancel(false)) {
+                try {
+                    plannedTickNanos = System.nanoTime() + scaledPeriod;
+                    future = ticker.schedule(this, scaledPeriod, TimeUnit.NANOSECONDS);
+                } catch (RejectedExecutionException e) {
+                    // Scheduler is shutting down
+                }
+            }
+        }
+
+        private void cancel() {
+            cancelled = true;
+            ScheduledFuture<?> current = future;
+            if (current != null) {
+                current.cancel(false);
+            }
+        }
+
+        @Override
+        public void run() {
+            if (cancelled) {
+                return;
+            }
+            long now = System.nanoTime();
+            long lag = Math.max(0, now - plannedTickNanos);
+            lastTickLagNanos = lag;
+            ticks.increment();
+            totalTickLagNanos.add(lag);
+            maxTickLagNanos.accumulateAndGet(lag, Math::max);
+
+            if (inFlight.compareAndSet(false, true)) {
+                try {
+                    cycleExecutor.execute(() -> runCycle(this));
+                } catch (RejectedExecutionException e) {
+                    inFlight.set(false);
+                    return;
+                }
+            } else {
+                // Previous cycle still running: skip instead of piling up work
+                skippedTicks.increment();
+            }
+
+            scheduleNext(now);
+        }
+
+        private synchronized void scheduleNext(long now) {
+            long period = scaled(periodNanos);
+            long next = plannedTickNanos + period;
+            if (next <= now) {
+                // Fell more than a whole period behind; realign rather than firing a burst of catch-up ticks
+                next = now + period;
+            }
+            plannedTickNanos = next;
+            if (!cancelled) {
+                try {
+                    future = ticker.schedule(this, next - now, TimeUnit.NANOSECONDS);
+                } catch (RejectedExecutionException e) {
+                    // Scheduler is shutting down
+                }
+            }
+        }
+    }
+
+    /**
+     * Point-in-time snapshot of scheduler health, used to size deployments
+     */
+    public static class Stats {
+        private final int scheduledPatients;
+        private final long ticks;
+        private final long skippedTicks;
+        private final long completedCycles;
+        private final long totalTickLagNanos;
+        private final long maxTickLagNanos;
+        private final long totalCycleNanos;
+        private final long maxCycleNanos;
+
+        public Stats(int scheduledPatients, long ticks, long skippedTicks, long completedCycles,
+                     long totalTickLagNanos, long maxTickLagNanos, long totalCycleNanos, long maxCycleNanos) {
+            this.scheduledPatients = scheduledPatients;
+            this.ticks = ticks;
+            this.skippedTicks = skippedTicks;
+            this.completedCycles = completedCycles;
+            this.totalTickLagNanos = totalTickLagNanos;
+            this.maxTickLagNanos = maxTickLagNanos;
+            this.totalCycleNanos = totalCycleNanos;
+            this.maxCycleNanos = maxCycleNanos;
+        }
+
+        public int getScheduledPatients() {
+            return scheduledPatients;
+        }
+
+        public long getTicks() {
+            return ticks;
+        }
+
+        public long getSkippedTicks() {
+            return skippedTicks;
+        }
+
+        public long getCompletedCycles() {
+            return completedCycles;
+        }
+
+        public long getMeanTickLagNanos() {
+            return ticks == 0 ? 0 : totalTickLagNanos / ticks;
+        }
+
+        public long getMaxTickLagNanos() {
+            return maxTickLagNanos;
+        }
+
+        public long getMeanCycleNanos() {
+            return completedCycles == 0 ? 0 : totalCycleNanos / completedCycles;
+        }
+
+        public long getMaxCycleNanos() {
+            return maxCycleNanos;
+        }
+
+        @Override
+        public String toString() {
+            return "Stats{" +
+                    "scheduledPatients=" + scheduledPatients +
+                    ", ticks=" + ticks +
+                    ", skippedTicks=" + skippedTicks +
+                    ", completedCycles=" + completedCycles +
+                    ", meanTickLagNanos=" + getMeanTickLagNanos() +
+                    ", maxTickLagNanos=" + maxTickLagNanos +
+                    ", meanCycleNanos=" + getMeanCycleNanos() +
+                    ", maxCycleNanos=" + maxCycleNanos +
+                    '}';
+        }
+    }
+}
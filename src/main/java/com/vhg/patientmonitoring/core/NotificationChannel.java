@@ -0,0 +1,15 @@
+package com.vhg.patientmonitoring.core;
+
+import com.vhg.patientmonitoring.model.alert.Alert;
+
+/**
+ * A way of notifying staff about an alert (SMS, pager, email, dashboard...)
+ */
+@FunctionalInterface
+public interface NotificationChannel {
+    /**
+     * Delivers the alert, blocking until it is sent. Throws if delivery failed; the
+     * {@link AlertDispatcher} then retries it.
+     */
+    void send(Alert alert);
+}
@@ -2,22 +2,43 @@ package com.vhg.patientmonitoring.core;
 
 import com.vhg.patientmonitoring.agent.AIAgentSystem;
 import com.vhg.patientmonitoring.agent.AgentSystem;
+import com.vhg.patientmonitoring.device.DeviceDiscovery;
+import com.vhg.patientmonitoring.device.DeviceManager;
+import com.vhg.patientmonitoring.device.DevicePoller;
+import com.vhg.patientmonitoring.device.SampleSubscriber;
 import com.vhg.patientmonitoring.device.SensorDevice;
+import com.vhg.patientmonitoring.device.StreamingSensorDevice;
+import com.vhg.patientmonitoring.device.impl.SimulatedDeviceDiscovery;
+import com.vhg.patientmonitoring.export.AlertExporter;
+import com.vhg.patientmonitoring.export.ReadingExporter;
+import com.vhg.patientmonitoring.ingest.BulkReadingParser;
 import com.vhg.patientmonitoring.model.alert.Alert;
+import com.vhg.patientmonitoring.model.alert.AlertStatus;
 import com.vhg.patientmonitoring.model.patient.Patient;
+import com.vhg.patientmonitoring.model.reading.ReadingBlock;
+import com.vhg.patientmonitoring.model.reading.SampleBatch;
 import com.vhg.patientmonitoring.model.reading.VitalSignReading;
 import com.vhg.patientmonitoring.model.reading.VitalSignType;
 import com.vhg.patientmonitoring.repository.AlertRepository;
 import com.vhg.patientmonitoring.repository.PatientRepository;
 import com.vhg.patientmonitoring.repository.ReadingRepository;
+import com.vhg.patientmonitoring.repository.RollupRepository;
+import com.vhg.patientmonitoring.repository.impl.InMemoryAlertRepository;
+import com.vhg.patientmonitoring.repository.impl.InMemoryReadingRepository;
+import com.vhg.patientmonitoring.repository.impl.InMemoryRollupRepository;
+import com.vhg.patientmonitoring.repository.waveform.WaveformStore;
+import com.vhg.patientmonitoring.service.AnalyticsService;
 
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Clock;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import static com.vhg.patientmonitoring.model.alert.AlertSeverity.*;
-import static java.text.DateFormat.MEDIUM;
 
 /**
  * Main class for the Patient Monitoring System
@@ -26,24 +47,92 @@ public class PatientMonitoringSystem {
     private PatientRepository patientRepository;
     private ReadingRepository readingRepository;
     private AlertRepository alertRepository;
-    private List<SensorDevice> connectedDevices;
+    private DevicePoller devicePoller;
+    private DeviceManager deviceManager;
+    private DeviceDiscovery deviceDiscovery;
     private AgentSystem agentSystem;
     private NotificationService notificationService;
-    private ExecutorService executorService;
-    private boolean running;
+    private AlertAggregator alertAggregator;
+    private AlertDispatcher alertDispatcher;
+    private LiveFeed liveFeed;
+    private BulkReadingParser bulkReadingParser;
+    private ReadingExporter readingExporter;
+    private AlertExporter alertExporter;
+    private AnalyticsService analyticsService;
+    private MonitoringConfiguration configuration;
+    private MonitoringScheduler scheduler;
+    private CadenceController cadenceController;
+    private ChangeDetector changeDetector;
+    private WaveformStore waveformStore;
+    // The reading rings take one writer at a time, so every append for a patient holds its writer's monitor
+    private final Map<String, Writer> writers = new ConcurrentHashMap<>();
+    private volatile boolean running;
 
     public PatientMonitoringSystem() {
+        this(new MonitoringConfiguration());
+    }
+
+    public PatientMonitoringSystem(MonitoringConfiguration configuration) {
+        this(configuration, new InMemoryReadingRepository());
+    }
+
+    /**
+     * @param readingRepository e.g. a {@code WriteBehindReadingRepository} to also persist readings to the database
+     */
+    public PatientMonitoringSystem(MonitoringConfiguration configuration, ReadingRepository readingRepository) {
+        this(configuration, null, readingRepository, null);
+    }
+
+    public PatientMonitoringSystem(MonitoringConfiguration configuration, PatientRepository patientRepository,
+                                   ReadingRepository readingRepository, AlertRepository alertRepository) {
         // Initialize repositories
-        // In a real application, these would be implementations backed by a database
+        this.patientRepository = patientRepository;
+        this.readingRepository = readingRepository;
+        // Without a store of their own, alerts are kept (indexed) in memory
+        this.alertRepository = alertRepository != null ? alertRepository : new InMemoryAlertRepository();
 
-        this.connectedDevices = new ArrayList<>();
-        this.executorService = Executors.newFixedThreadPool(10);
+        this.configuration = configuration;
+        this.devicePoller = new DevicePoller(configuration.getDeviceTimeoutMillis(),
+                configuration.getDeviceFailureThreshold(), configuration.getDeviceRetryMillis());
+        this.deviceManager = new DeviceManager(devicePoller, configuration.getDeviceConnectConcurrency(),
+                configuration.getDeviceReconnectInitialMillis(), configuration.getDeviceReconnectMaxMillis());
+        this.scheduler = new MonitoringScheduler(configuration, this::monitorPatient);
+        this.cadenceController = new CadenceController(scheduler, configuration);
         this.notificationService = new NotificationService();
+        this.alertAggregator = new AlertAggregator(configuration.getAlertDedupWindowMillis(),
+                configuration.getAlertPatientRatePerMinute(), configuration.getAlertWardRatePerMinute(), this::wardOf);
+        this.alertDispatcher = new AlertDispatcher(configuration.getAlertWorkersPerLane(), configuration.getAlertQueueCapacity(),
+                configuration.getAlertMaxAttempts(), configuration.getAlertRetryInitialMillis(),
+                configuration.getAlertRetryMaxMillis());
+        // Immediate notification to medical staff for urgent alerts, standard notification for MEDIUM; LOW is only stored
+        alertDispatcher.addChannel("urgent", notificationService::sendUrgentNotification, CRITICAL, HIGH);
+        alertDispatcher.addChannel("standard", notificationService::sendStandardNotification, MEDIUM);
+        this.liveFeed = new LiveFeed(configuration.getLiveFeedQueueCapacity(), configuration.getLiveClientBufferSize(),
+                this::wardOf);
+        this.readingExporter = new ReadingExporter(readingRepository);
+        this.alertExporter = new AlertExporter(this.alertRepository);
+        this.analyticsService = new AnalyticsService(new InMemoryRollupRepository(), configuration, Clock.systemUTC());
     }
 
     public void initialize() {
         // Initialize the system components
-        this.agentSystem = new AIAgentSystem(this);
+        AIAgentSystem aiAgentSystem = new AIAgentSystem(this);
+        this.agentSystem = aiAgentSystem;
+        this.changeDetector = new ChangeDetector(aiAgentSystem.getBaselineStore(), configuration);
+        agentSystem.setDecisionListener(changeDetector::decisionMade);
+        // Uploads feed the agent and change detector, so they are only accepted from here on
+        this.bulkReadingParser = new BulkReadingParser(configuration.getIngestBatchSize(), this::ingestReadings);
+
+        // Waveforms are too dense for the reading repository; keep them in the chunk store when configured
+        if (configuration.getWaveformDirectory() != null) {
+            try {
+                this.waveformStore = WaveformStore.open(Path.of(configuration.getWaveformDirectory()),
+                        configuration.getWaveformChunkMillis(), configuration.getWaveformSegmentBytes());
+            } catch (IOException e) {
+                System.err.println("Error opening waveform store in " + configuration.getWaveformDirectory()
+                        + ", storing waveforms as readings: " + e.getMessage());
+            }
+        }
 
         // Connect to all available devices
         connectToDevices();
@@ -53,109 +142,287 @@ public class PatientMonitoringSystem {
         startMonitoring();
     }
 
+    /**
+     * Sets how devices are discovered at startup; by default every patient gets a simulated set of monitors.
+     */
+    public void setDeviceDiscovery(DeviceDiscovery deviceDiscovery) {
+        this.deviceDiscovery = deviceDiscovery;
+    }
+
+    /**
+     * Sets where rollups are persisted, e.g. a {@code JdbcRollupRepository}; by default they are kept in memory.
+     * Call before {@link #initialize()}.
+     */
+    public void setRollupRepository(RollupRepository rollupRepository) {
+        analyticsService.shutdown();
+        this.analyticsService = new AnalyticsService(rollupRepository, configuration, Clock.systemUTC());
+    }
+
     private void connectToDevices() {
-        // Discover and connect to available sensor devices
-        // Implementation details...
+        // Discover and connect to available sensor devices, many at once
+        DeviceDiscovery discovery = deviceDiscovery;
+        if (discovery == null) {
+            List<String> patientIds = new ArrayList<>();
+            for (Patient patient : getAllPatients()) {
+                patientIds.add(String.valueOf(patient.getPatientId()));
+            }
+            discovery = new SimulatedDeviceDiscovery(patientIds, 0);
+        }
+        // How many connected and how long it took are in the device manager's stats
+        deviceManager.connectAll(discovery);
+
+        // Devices that failed or drop later are reconnected in the background
+        deviceManager.startHealthChecks(configuration.getDeviceHealthCheckMillis());
+    }
+
+    /**
+     * Connects a sensor device for the patient and adds it to the patient's devices polled every cycle.
+     */
+    public void connectDevice(SensorDevice device, String patientId) {
+        deviceManager.connect(device, patientId);
     }
 
     private void startMonitoring() {
-        // Start the monitoring loop for each patient
-        List<Patient> patients = patientRepository.getAllPatients();
+        // Register every patient with the shared scheduler; cycles are multiplexed onto a bounded set of threads.
+        // Patients start at the default cadence, which then follows the agent's decisions.
+        List<Patient> patients = getAllPatients();
 
         for (Patient patient : patients) {
-            executorService.submit(() -> monitorPatient(String.valueOf(patient.getPatientId())));
+            cadenceController.register(String.valueOf(patient.getPatientId()));
         }
     }
 
+    /**
+     * Runs a single monitoring cycle for a patient. Invoked by the scheduler once per tick.
+     */
     private void monitorPatient(String patientId) {
-        while (running) {
-            try {
-                // Collect readings from all relevant devices
-                collectReadings(patientId);
-
-                // Process the patient data through the AI agent
-                agentSystem.processPatientData(patientId);
-
-                // Wait before the next monitoring cycle
-                Thread.sleep(5000); // 5 seconds
-            } catch (InterruptedException e) {
-                Thread.currentThread().interrupt();
-                break;
-            } catch (Exception e) {
-                // Log error
-                System.err.println("Error monitoring patient " + patientId + ": " + e.getMessage());
+        if (!running) {
+            return;
+        }
+
+        // Collect readings from all relevant devices
+        int samples = collectReadings(patientId);
+        cadenceController.recordCycle(patientId, samples);
+
+        // Process the patient data through the AI agent, unless nothing material changed since it last looked
+        if (changeDetector.shouldEvaluate(patientId)) {
+            agentSystem.processPatientData(patientId);
+        }
+    }
+
+    /**
+     * Subscribes to a streaming device's samples of one vital sign for a patient. Samples are stored as
+     * they arrive; discrete vitals also feed baselines and change detection, waveforms only storage.
+     */
+    public SampleSubscriber connectStreamingDevice(StreamingSensorDevice device, String patientId, VitalSignType type) {
+        if (!device.isConnected()) {
+            device.connect();
+        }
+        SampleSubscriber subscriber = new SampleSubscriber(device.getDeviceId(), configuration.getStreamPrefetchBatches(),
+                this::ingestSamples);
+        device.samples(patientId, type).subscribe(subscriber);
+        return subscriber;
+    }
+
+    private void ingestSamples(SampleBatch batch) {
+        // A waveform sample polled on its own has no sample interval and is kept as a plain reading
+        if (batch.getType().isWaveform() && waveformStore != null && batch.getIntervalNanos() > 0) {
+            waveformStore.append(batch);
+            return;
+        }
+
+        ReadingBlock block = new ReadingBlock(batch.size());
+        batch.appendTo(block);
+        ingestReadings(block);
+    }
+
+    /**
+     * Stores a block of readings, e.g. a batch of a bulk upload, from any thread.
+     * <p>
+     * Readings at or after the newest already stored for their patient and type are live: they are
+     * appended under the patient's writer lock and discrete vitals also feed baselines, change
+     * detection and live dashboards. Older ones are history and only go to durable storage (see
+     * {@link ReadingRepository#addHistoricalReadings}) and the analytics rollups.
+     *
+     * @return how many readings only went to the rollups: history, when the repository does not keep it
+     */
+    public int ingestReadings(ReadingBlock block) {
+        ReadingBlock historical = new ReadingBlock(16);
+        int start = 0;
+        while (start < block.size()) {
+            // One patient's run of readings at a time, usually the whole block
+            int end = start + 1;
+            while (end < block.size() && block.patientIndex(end) == block.patientIndex(start)) {
+                end++;
             }
+            ingestLive(block, start, end, historical);
+            start = end;
         }
+        return storeHistorical(historical);
     }
 
-    private void collectReadings(String patientId) {
-        // Collect readings from all devices for this patient
-        for (SensorDevice device : connectedDevices) {
-            try {
-                VitalSignType type = mapDeviceToVitalSignType(device);
-                if (type != null) {
-                    VitalSignReading reading = device.takeReading(patientId, type);
-                    readingRepository.addReading(reading);
+    private void ingestLive(ReadingBlock block, int from, int to, ReadingBlock historical) {
+        Writer writer = writerFor(block.patientId(from));
+        synchronized (writer) {
+            ReadingBlock live = new ReadingBlock(to - from);
+            for (int i = from; i < to; i++) {
+                VitalSignType type = block.type(i);
+                long epochNanos = block.epochNanos(i);
+                ReadingBlock target = writer.advance(type, epochNanos) ? live : historical;
+                target.add(block.patientIndex(i), type, epochNanos, block.value(i), block.deviceIndex(i));
+            }
+            if (live.isEmpty()) {
+                return;
+            }
+            readingRepository.addReadings(live);
+
+            ReadingBlock.Cursor reading = live.cursor();
+            while (reading.next()) {
+                if (!reading.getType().isWaveform()) {
+                    agentSystem.observeReading(reading);
+                    changeDetector.observe(reading);
+                    liveFeed.publish(reading);
+                    analyticsService.record(reading);
                 }
-            } catch (Exception e) {
-                // Log device error
-                System.err.println("Error collecting reading from device " + device.getDeviceId() + ": " + e.getMessage());
             }
         }
     }
 
-    private VitalSignType mapDeviceToVitalSignType(SensorDevice device) {
-        // Map a device to the type of vital sign it monitors
-        String deviceType = device.getDeviceType().toLowerCase();
+    private int storeHistorical(ReadingBlock historical) {
+        if (historical.isEmpty()) {
+            return 0;
+        }
+        readingRepository.addHistoricalReadings(historical);
+        ReadingBlock.Cursor reading = historical.cursor();
+        while (reading.next()) {
+            analyticsService.record(reading);
+        }
+        return readingRepository.keepsHistoricalReadings() ? 0 : historical.size();
+    }
 
-        if (deviceType.contains("heart") || deviceType.contains("pulse")) {
-            return VitalSignType.HEART_RATE;
-        } else if (deviceType.contains("pressure")) {
-            return VitalSignType.BLOOD_PRESSURE;
-        } else if (deviceType.contains("oxygen") || deviceType.contains("o2")) {
-            return VitalSignType.BLOOD_OXYGEN;
-        } else if (deviceType.contains("temp")) {
-            return VitalSignType.TEMPERATURE;
+    private int collectReadings(String patientId) {
+        // Poll all devices for this patient at once; a slow or failing device costs at most the device timeout
+        int samples = 0;
+        List<VitalSignReading> readings = devicePoller.poll(patientId);
+        ReadingBlock historical = new ReadingBlock(0);
+        Writer writer = writerFor(patientId);
+        synchronized (writer) {
+            for (VitalSignReading reading : readings) {
+                // A device whose clock lags the others' is stored, but not as the patient's latest state
+                if (!writer.advance(reading.getType(), reading.getEpochNanos())) {
+                    historical.add(reading);
+                    continue;
+                }
+                try {
+                    readingRepository.addReading(reading);
+                    agentSystem.observeReading(reading);
+                    changeDetector.observe(reading);
+                    liveFeed.publish(reading);
+                    analyticsService.record(reading);
+                    samples++;
+                } catch (Exception e) {
+                    System.err.println("Error storing reading for patient " + patientId + ": " + e.getMessage());
+                }
+            }
+        }
+        try {
+            storeHistorical(historical);
+        } catch (Exception e) {
+            System.err.println("Error storing late readings for patient " + patientId + ": " + e.getMessage());
         }
-        // Add mappings for other device types
+        return samples;
+    }
 
-        return null;
+    private Writer writerFor(String patientId) {
+        return writers.computeIfAbsent(patientId, id -> new Writer());
     }
 
     public void shutdown() {
         this.running = false;
-        this.executorService.shutdown();
+        this.scheduler.shutdown();
+        if (agentSystem != null) {
+            agentSystem.shutdown();
+        }
 
-        // Disconnect from all devices
-        for (SensorDevice device : connectedDevices) {
+        if (waveformStore != null) {
             try {
-                device.disconnect();
-            } catch (Exception e) {
-                // Log error
-                System.err.println("Error disconnecting from device " + device.getDeviceId() + ": " + e.getMessage());
+                waveformStore.close();
+            } catch (IOException e) {
+                System.err.println("Error closing waveform store: " + e.getMessage());
             }
         }
+
+        // Disconnect from all devices
+        deviceManager.shutdown();
+
+        alertDispatcher.shutdown();
+        liveFeed.shutdown();
+        analyticsService.shutdown();
     }
 
     public void handleAlert(Alert alert) {
+        // Repeats of an open alert only update it; only new and escalated alerts go further
+        Alert emitted = alertAggregator.offer(alert);
+        if (emitted == null) {
+            return;
+        }
+        alert = emitted;
+
         // Store the alert
         alertRepository.addAlert(alert);
 
-        // Send notification based on alert severity
-        switch (alert.getSeverity()) {
-            case CRITICAL:
-            case HIGH:
-                // Immediate notification to medical staff
-                notificationService.sendUrgentNotification(alert);
-                break;
-            case MEDIUM:
-                // Standard notification
-                notificationService.sendStandardNotification(alert);
-                break;
-            case LOW:
-                // Just log the alert
-                break;
+        // A cached decision predates the alert and may no longer fit the patient's state
+        if (agentSystem != null) {
+            agentSystem.invalidateDecisions(alert.getPatientId());
+        }
+
+        // Send notifications based on alert severity, without waiting for slow gateways
+        alertDispatcher.dispatch(alert);
+        liveFeed.publish(alert);
+    }
+
+    /**
+     * Moves an alert to a new status, e.g. when staff acknowledge or resolve it. Once resolved or
+     * dismissed, a recurrence of its condition is raised as a new alert.
+     */
+    public void updateAlertStatus(String alertId, AlertStatus newStatus) {
+        alertRepository.updateAlertStatus(alertId, newStatus);
+        if (newStatus == AlertStatus.RESOLVED || newStatus == AlertStatus.FALSE_ALARM) {
+            alertAggregator.close(alertId);
+        }
+    }
+
+    /**
+     * Patients whose demographics place them in the ward; empty without a patient repository.
+     */
+    public List<String> getPatientIdsInWard(String ward) {
+        List<String> patientIds = new ArrayList<>();
+        if (patientRepository == null) {
+            return patientIds;
+        }
+        for (Patient patient : patientRepository.getAllPatients()) {
+            Map<String, String> demographics = patient.getDemographics();
+            if (demographics != null && ward.equals(demographics.get("ward"))) {
+                patientIds.add(String.valueOf(patient.getPatientId()));
+            }
+        }
+        return patientIds;
+    }
+
+    /**
+     * Every known patient; none without a patient repository, e.g. when patients are only added later.
+     */
+    private List<Patient> getAllPatients() {
+        return patientRepository != null ? patientRepository.getAllPatients() : new ArrayList<>();
+    }
+
+    private String wardOf(String patientId) {
+        if (patientRepository == null) {
+            return null;
         }
+        Patient patient = patientRepository.getPatientById(patientId);
+        Map<String, String> demographics = patient != null ? patient.getDemographics() : null;
+        return demographics != null ? demographics.get("ward") : null;
     }
 
     // Getters for repositories
@@ -171,4 +438,85 @@ public class PatientMonitoringSystem {
     public AlertRepository getAlertRepository() {
         return alertRepository;
     }
-}
\ No newline at end of file
+
+    public MonitoringConfiguration getConfiguration() {
+        return configuration;
+    }
+
+    public MonitoringScheduler getScheduler() {
+        return scheduler;
+    }
+
+    public WaveformStore getWaveformStore() {
+        return waveformStore;
+    }
+
+    public DevicePoller getDevicePoller() {
+        return devicePoller;
+    }
+
+    public DeviceManager getDeviceManager() {
+        return deviceManager;
+    }
+
+    public AlertAggregator getAlertAggregator() {
+        return alertAggregator;
+    }
+
+    public AlertDispatcher getAlertDispatcher() {
+        return alertDispatcher;
+    }
+
+    /**
+     * Parser that stores uploads through {@link #ingestReadings}; {@code null} until {@link #initialize()}.
+     */
+    public BulkReadingParser getBulkReadingParser() {
+        return bulkReadingParser;
+    }
+
+    public ReadingExporter getReadingExporter() {
+        return readingExporter;
+    }
+
+    public AlertExporter getAlertExporter() {
+        return alertExporter;
+    }
+
+    public AnalyticsService getAnalyticsService() {
+        return analyticsService;
+    }
+
+    public LiveFeed getLiveFeed() {
+        return liveFeed;
+    }
+
+    public CadenceController getCadenceController() {
+        return cadenceController;
+    }
+
+    public ChangeDetector getChangeDetector() {
+        return changeDetector;
+    }
+
+    /**
+     * A patient's append lock, and the newest timestamp appended for each vital sign type.
+     */
+    private static final class Writer {
+        private final long[] newest = new long[VitalSignType.values().length];
+
+        private Writer() {
+            Arrays.fill(newest, Long.MIN_VALUE);
+        }
+
+        /**
+         * Makes the reading the type's newest unless an older one would be appended after a later one.
+         */
+        private boolean advance(VitalSignType type, long epochNanos) {
+            if (epochNanos < newest[type.ordinal()]) {
+                return false;
+            }
+            newest[type.ordinal()] = epochNanos;
+            return true;
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package com.vhg.patientmonitoring.device;
+
+import java.util.List;
+
+/**
+ * Finds the sensor devices that can be reached and the patient each one is attached to
+ */
+public interface DeviceDiscovery {
+    /**
+     * Devices currently reachable, returned unconnected. Calling this again may return new instances for
+     * devices found before; the {@link DeviceManager} ignores those by device id.
+     */
+    List<Assignment> discover();
+
+    /**
+     * A discovered device and the patient it monitors
+     */
+    final class Assignment {
+        private final SensorDevice device;
+        private final String patientId;
+
+        public Assignment(SensorDevice device, String patientId) {
+            this.device = device;
+            this.patientId = patientId;
+        }
+
+        public SensorDevice getDevice() {
+            return device;
+        }
+
+        public String getPatientId() {
+            return patientId;
+        }
+    }
+}
@@ -0,0 +1,364 @@
+package com.vhg.patientmonitoring.device;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Connects discovered devices, hands the connected ones to the {@link DevicePoller} and keeps them connected.
+ * <p>
+ * Connects run in parallel on virtual threads, at most {@code maxConcurrentConnects} at a time, so
+ * startup takes about {@code devices / maxConcurrentConnects} handshakes instead of one per device. Devices
+ * are indexed by id and by patient. A device whose connect fails, or that is found disconnected by the
+ * health check, is taken out of the poll and retried with exponential backoff and jitter, so a ward of
+ * devices dropping off together doesn't reconnect in lockstep.
+ */
+public class DeviceManager {
+    private final DevicePoller poller;
+    private final Semaphore connectPermits;
+    private final long initialBackoffMillis;
+    private final long maxBackoffMillis;
+
+    private final Map<String, ManagedDevice> devicesById = new ConcurrentHashMap<>();
+    private final Map<String, List<ManagedDevice>> devicesByPatient = new ConcurrentHashMap<>();
+    private ScheduledExecutorService healthChecker;
+    private volatile long startupMillis;
+
+    private final LongAdder connectFailures = new LongAdder();
+    private final LongAdder lostConnections = new LongAdder();
+    private final LongAdder reconnectAttempts = new LongAdder();
+
+    /**
+     * @param maxConcurrentConnects connects in progress at once, across startup and reconnects
+     * @param initialBackoffMillis  delay before the first retry of a failed device; doubles per failure
+     * @param maxBackoffMillis      upper bound of the retry delay
+     */
+    public DeviceManager(DevicePoller poller, int maxConcurrentConnects, long initialBackoffMillis, long maxBackoffMillis) {
+        this.poller = poller;
+        this.connectPermits = new Semaphore(maxConcurrentConnects);
+        this.initialBackoffMillis = initialBackoffMillis;
+        this.maxBackoffMillis = maxBackoffMillis;
+    }
+
+    /**
+     * Connects every discovered device not managed yet, in parallel, and waits for the connects to finish.
+     * Devices that fail to connect are left to the health check to retry.
+     *
+     * @return the number of newly discovered devices that connected
+     */
+    public int connectAll(DeviceDiscovery discovery) {
+        long start = System.nanoTime();
+        List<ManagedDevice> discovered = new ArrayList<>();
+        for (DeviceDiscovery.Assignment assignment : discovery.discover()) {
+            ManagedDevice managed = manage(assignment.getDevice(), assignment.getPatientId());
+            if (managed != null) {
+                discovered.add(managed);
+            }
+        }
+        connectInParallel(discovered);
+        startupMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        int connected = 0;
+        for (ManagedDevice managed : discovered) {
+            if (managed.state == State.CONNECTED) {
+                connected++;
+            }
+        }
+        return connected;
+    }
+
+    /**
+     * Connects a single device for the patient and keeps it connected from then on.
+     *
+     * @return whether the device is connected; if not, it is retried in the background
+     */
+    public boolean connect(SensorDevice device, String patientId) {
+        ManagedDevice managed = manage(device, patientId);
+        if (managed == null) {
+            managed = devicesById.get(device.getDeviceId());
+            return managed != null && managed.state == State.CONNECTED;
+        }
+        connectPermits.acquireUninterruptibly();
+        try {
+            connect(managed);
+        } finally {
+            connectPermits.release();
+        }
+        return managed.state == State.CONNECTED;
+    }
+
+    /**
+     * Checks the devices' connections every {@code intervalMillis}: devices that dropped are taken out of the
+     * poll and reconnected, and failed devices are retried once their backoff has passed.
+     */
+    public synchronized void startHealthChecks(long intervalMillis) {
+        stopHealthChecks();
+        healthChecker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "device-health-check");
+            thread.setDaemon(true);
+            return thread;
+        });
+        healthChecker.scheduleWithFixedDelay(() -> {
+            try {
+                checkHealth();
+            } catch (RuntimeException e) {
+                System.err.println("Error checking device health: " + e.getMessage());
+            }
+        }, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    public synchronized void stopHealthChecks() {
+        if (healthChecker != null) {
+            healthChecker.shutdownNow();
+            healthChecker = null;
+        }
+    }
+
+    /**
+     * Runs one health check now; {@link #startHealthChecks} runs it periodically.
+     */
+    public void checkHealth() {
+        long now = System.nanoTime();
+        List<ManagedDevice> due = new ArrayList<>();
+        for (ManagedDevice managed : devicesById.values()) {
+            synchronized (managed) {
+                if (managed.state == State.CONNECTED && !managed.device.isConnected()) {
+                    System.err.println("Lost connection to device " + managed.device.getDeviceId() + ", reconnecting");
+                    lostConnections.increment();
+                    poller.remove(managed.device);
+                    managed.state = State.CONNECTING;
+                    due.add(managed);
+                } else if (managed.state == State.RECONNECTING && now - managed.nextAttemptNanos >= 0) {
+                    managed.state = State.CONNECTING;
+                    due.add(managed);
+                }
+            }
+        }
+        reconnectAttempts.add(due.size());
+        connectInParallel(due);
+    }
+
+    /**
+     * Stops the health check and disconnects every managed device.
+     */
+    public void shutdown() {
+        stopHealthChecks();
+        for (ManagedDevice managed : devicesById.values()) {
+            poller.remove(managed.device);
+            try {
+                managed.device.disconnect();
+            } catch (Exception e) {
+                System.err.println("Error disconnecting from device " + managed.device.getDeviceId() + ": " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Every device managed for the patient, connected or not.
+     */
+    public List<SensorDevice> getDevicesForPatient(String patientId) {
+        List<ManagedDevice> managed = devicesByPatient.getOrDefault(patientId, List.of());
+        List<SensorDevice> result = new ArrayList<>(managed.size());
+        for (ManagedDevice entry : managed) {
+            result.add(entry.device);
+        }
+        return result;
+    }
+
+    public SensorDevice getDevice(String deviceId) {
+        ManagedDevice managed = devicesById.get(deviceId);
+        return managed != null ? managed.device : null;
+    }
+
+    public Stats getStats() {
+        int connected = 0;
+        int reconnecting = 0;
+        for (ManagedDevice managed : devicesById.values()) {
+            if (managed.state == State.CONNECTED) {
+                connected++;
+            } else if (managed.state == State.RECONNECTING) {
+                reconnecting++;
+            }
+        }
+        return new Stats(devicesById.size(), connected, reconnecting, connectFailures.sum(), lostConnections.sum(),
+                reconnectAttempts.sum(), startupMillis);
+    }
+
+    /**
+     * Registers the device, or returns null if a device with its id is already managed.
+     */
+    private ManagedDevice manage(SensorDevice device, String patientId) {
+        ManagedDevice managed = new ManagedDevice(device, patientId);
+        if (devicesById.putIfAbsent(device.getDeviceId(), managed) != null) {
+            return null;
+        }
+        devicesByPatient.computeIfAbsent(patientId, id -> new CopyOnWriteArrayList<>()).add(managed);
+        return managed;
+    }
+
+    private void connectInParallel(Collection<ManagedDevice> devices) {
+        if (devices.isEmpty()) {
+            return;
+        }
+        // Closing the executor waits for every connect to finish
+        try (ExecutorService executor = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("device-connect-", 0).factory())) {
+            for (ManagedDevice managed : devices) {
+                // Taking the permit before starting the thread keeps at most that many threads alive too
+                connectPermits.acquireUninterruptibly();
+                executor.execute(() -> {
+                    try {
+                        connect(managed);
+                    } finally {
+                        connectPermits.release();
+                    }
+                });
+            }
+        }
+    }
+
+    private void connect(ManagedDevice managed) {
+        SensorDevice device = managed.device;
+        try {
+            if (!device.isConnected()) {
+                device.connect();
+            }
+            if (!device.isConnected()) {
+                throw new IllegalStateException("device still disconnected after connect");
+            }
+        } catch (RuntimeException e) {
+            connectFailed(managed, e);
+            return;
+        }
+
+        synchronized (managed) {
+            managed.state = State.CONNECTED;
+            managed.failures = 0;
+        }
+        // The vital sign type is resolved here, once, rather than on every reading
+        if (!poller.add(device, managed.patientId)) {
+            System.err.println("Device " + device.getDeviceId() + " of type " + device.getDeviceType()
+                    + " doesn't monitor a known vital sign, not polling it");
+        }
+    }
+
+    private void connectFailed(ManagedDevice managed, RuntimeException error) {
+        connectFailures.increment();
+        long delayMillis;
+        synchronized (managed) {
+            managed.failures++;
+            long backoff = Math.min(maxBackoffMillis, initialBackoffMillis << Math.min(managed.failures - 1, 20));
+            // Full backoff on average, spread over [backoff / 2, backoff * 3 / 2)
+            delayMillis = backoff / 2 + ThreadLocalRandom.current().nextLong(backoff + 1);
+            managed.nextAttemptNanos = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(delayMillis);
+            managed.state = State.RECONNECTING;
+        }
+        System.err.println("Error connecting to device " + managed.device.getDeviceId() + ", retrying in "
+                + delayMillis + " ms: " + error.getMessage());
+    }
+
+    private enum State {
+        CONNECTING,
+        CONNECTED,
+        RECONNECTING
+    }
+
+    /**
+     * A device with its patient and connection state; state changes are guarded by its own monitor
+     */
+    private static final class ManagedDevice {
+        private final SensorDevice device;
+        private final String patientId;
+        private volatile State state = State.CONNECTING;
+        private int failures;
+        private long nextAttemptNanos;
+
+        private ManagedDevice(SensorDevice device, String patientId) {
+            this.device = device;
+            this.patientId = patientId;
+        }
+    }
+
+    /**
+     * Point-in-time snapshot of device connections
+     */
+    public static class Stats {
+        private final int managed;
+        private final int connected;
+        private final int reconnecting;
+        private final long connectFailures;
+        private final long lostConnections;
+        private final long reconnectAttempts;
+        private final long startupMillis;
+
+        public Stats(int managed, int connected, int reconnecting, long connectFailures, long lostConnections,
+                     long reconnectAttempts, long startupMillis) {
+            this.managed = managed;
+            this.connected = connected;
+            this.reconnecting = reconnecting;
+            this.connectFailures = connectFailures;
+            this.lostConnections = lostConnections;
+            this.reconnectAttempts = reconnectAttempts;
+            this.startupMillis = startupMillis;
+        }
+
+        public int getManaged() {
+            return managed;
+        }
+
+        public int getConnected() {
+            return connected;
+        }
+
+        /**
+         * Devices waiting out their backoff before the next connect attempt
+         */
+        public int getReconnecting() {
+            return reconnecting;
+        }
+
+        public long getConnectFailures() {
+            return connectFailures;
+        }
+
+        /**
+         * Connected devices later found disconnected by the health check
+         */
+        public long getLostConnections() {
+            return lostConnections;
+        }
+
+        public long getReconnectAttempts() {
+            return reconnectAttempts;
+        }
+
+        /**
+         * Duration of the last {@link DeviceManager#connectAll}
+         */
+        public long getStartupMillis() {
+            return startupMillis;
+        }
+
+        @Override
+        public String toString() {
+            return "Stats{" +
+                    "managed=" + managed +
+                    ", connected=" + connected +
+                    ", reconnecting=" + reconnecting +
+                    ", connectFailures=" + connectFailures +
+                    ", lostConnections=" + lostConnections +
+                    ", reconnectAttempts=" + reconnectAttempts +
+                    ", startupMillis=" + startupMillis +
+                    '}';
+        }
+    }
+}
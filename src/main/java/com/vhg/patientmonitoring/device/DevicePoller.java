@@ -0,0 +1,269 @@
+package com.vhg.patientmonitoring.device;
+
+import com.vhg.patientmonitoring.model.reading.VitalSignReading;
+import com.vhg.patientmonitoring.model.reading.VitalSignType;
+import com.vhg.patientmonitoring.util.CircuitBreaker;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Polls all connected devices for a patient concurrently.
+ * <p>
+ * Devices are indexed by the patient they are attached to, so a poll only touches that patient's devices.
+ * Each device's vital sign type is resolved once, when it is added. A poll starts every device's
+ * reading at once and waits at most the device timeout, so one hung monitor can't hold up the others.
+ * Each device has a {@link CircuitBreaker}: after repeated failures or timeouts it is skipped until its
+ * retry interval has passed, instead of costing every cycle a full timeout.
+ */
+public class DevicePoller {
+    private final long timeoutMillis;
+    private final int failureThreshold;
+    private final long retryMillis;
+    private final Map<String, List<PolledDevice>> devicesByPatient = new ConcurrentHashMap<>();
+    private final Map<SensorDevice, String> patientByDevice = new ConcurrentHashMap<>();
+
+    private final LongAdder polls = new LongAdder();
+    private final LongAdder readings = new LongAdder();
+    private final LongAdder timeouts = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+    private final LongAdder shortCircuited = new LongAdder();
+
+    /**
+     * @param failureThreshold consecutive failures after which a device is skipped
+     * @param retryMillis      how long a failing device is skipped before it is tried again
+     */
+    public DevicePoller(long timeoutMillis, int failureThreshold, long retryMillis) {
+        this.timeoutMillis = timeoutMillis;
+        this.failureThreshold = failureThreshold;
+        this.retryMillis = retryMillis;
+    }
+
+    /**
+     * Adds a connected device to the patient's poll. Adding a device that is already polled moves it to
+     * the given patient.
+     *
+     * @return false if the device type doesn't map to a vital sign, in which case it isn't polled
+     */
+    public boolean add(SensorDevice device, String patientId) {
+        VitalSignType type = mapDeviceToVitalSignType(device.getDeviceType());
+        if (type == null) {
+            return false;
+        }
+        remove(device);
+        patientByDevice.put(device, patientId);
+        devicesByPatient.computeIfAbsent(patientId, id -> new CopyOnWriteArrayList<>())
+                .add(new PolledDevice(device, type, new CircuitBreaker(failureThreshold, retryMillis)));
+        return true;
+    }
+
+    public void remove(SensorDevice device) {
+        String patientId = patientByDevice.remove(device);
+        if (patientId == null) {
+            return;
+        }
+        devicesByPatient.computeIfPresent(patientId, (id, polled) -> {
+            polled.removeIf(entry -> entry.device == device);
+            return polled.isEmpty() ? null : polled;
+        });
+    }
+
+    public List<SensorDevice> getDevices() {
+        return new ArrayList<>(patientByDevice.keySet());
+    }
+
+    public List<SensorDevice> getDevices(String patientId) {
+        List<PolledDevice> polled = devicesByPatient.getOrDefault(patientId, List.of());
+        List<SensorDevice> result = new ArrayList<>(polled.size());
+        for (PolledDevice entry : polled) {
+            result.add(entry.device);
+        }
+        return result;
+    }
+
+    /**
+     * Takes a reading from every device attached to the patient, in parallel. Returns the readings that
+     * arrived within the timeout, in device order.
+     */
+    public List<VitalSignReading> poll(String patientId) {
+        polls.increment();
+        List<PolledDevice> devices = devicesByPatient.get(patientId);
+        if (devices == null) {
+            return new ArrayList<>();
+        }
+        // Snapshot, so devices added meanwhile don't shift positions
+        PolledDevice[] snapshot = devices.toArray(new PolledDevice[0]);
+        List<CompletableFuture<VitalSignReading>> pending = new ArrayList<>(snapshot.length);
+        for (PolledDevice polled : snapshot) {
+            if (!polled.breaker.tryAcquire()) {
+                shortCircuited.increment();
+                pending.add(null);
+                continue;
+            }
+            CompletableFuture<VitalSignReading> reading;
+            try {
+                reading = polled.device.takeReadingAsync(patientId, polled.type);
+            } catch (RuntimeException e) {
+                reading = CompletableFuture.failedFuture(e);
+            }
+            pending.add(reading.orTimeout(timeoutMillis, TimeUnit.MILLISECONDS));
+        }
+
+        // Every future completes within the timeout, so waiting on them in turn is bounded by it as well
+        List<VitalSignReading> result = new ArrayList<>(snapshot.length);
+        for (int i = 0; i < snapshot.length; i++) {
+            CompletableFuture<VitalSignReading> reading = pending.get(i);
+            if (reading == null) {
+                continue;
+            }
+            PolledDevice polled = snapshot[i];
+            try {
+                VitalSignReading value = reading.join();
+                polled.breaker.recordSuccess();
+                if (value != null) {
+                    result.add(value);
+                    readings.increment();
+                }
+            } catch (CompletionException | CancellationException e) {
+                recordFailure(polled, e.getCause() != null ? e.getCause() : e);
+            }
+        }
+        return result;
+    }
+
+    public Stats getStats() {
+        int count = 0;
+        int openCircuits = 0;
+        for (List<PolledDevice> devices : devicesByPatient.values()) {
+            for (PolledDevice polled : devices) {
+                count++;
+                if (polled.breaker.getState() != CircuitBreaker.State.CLOSED) {
+                    openCircuits++;
+                }
+            }
+        }
+        return new Stats(count, openCircuits, polls.sum(), readings.sum(), timeouts.sum(), failures.sum(),
+                shortCircuited.sum());
+    }
+
+    private void recordFailure(PolledDevice polled, Throwable error) {
+        if (error instanceof TimeoutException) {
+            timeouts.increment();
+        } else {
+            failures.increment();
+            System.err.println("Error collecting reading from device " + polled.device.getDeviceId() + ": " + error.getMessage());
+        }
+        if (polled.breaker.recordFailure()) {
+            System.err.println("Device " + polled.device.getDeviceId() + " keeps failing, skipping it for "
+                    + retryMillis + " ms");
+        }
+    }
+
+    /**
+     * Maps a device type to the vital sign it monitors, or null if it monitors none we know.
+     */
+    public static VitalSignType mapDeviceToVitalSignType(String deviceType) {
+        String type = deviceType.toLowerCase();
+
+        if (type.contains("heart") || type.contains("pulse")) {
+            return VitalSignType.HEART_RATE;
+        } else if (type.contains("pressure")) {
+            return VitalSignType.BLOOD_PRESSURE;
+        } else if (type.contains("oxygen") || type.contains("o2")) {
+            return VitalSignType.BLOOD_OXYGEN;
+        } else if (type.contains("temp")) {
+            return VitalSignType.TEMPERATURE;
+        } else if (type.contains("resp")) {
+            return VitalSignType.RESPIRATORY_RATE;
+        }
+        // Add mappings for other device types
+
+        return null;
+    }
+
+    /**
+     * A device with its vital sign type resolved at connect time
+     */
+    private record PolledDevice(SensorDevice device, VitalSignType type, CircuitBreaker breaker) {
+    }
+
+    /**
+     * Point-in-time snapshot of device polling
+     */
+    public static class Stats {
+        private final int devices;
+        private final int openCircuits;
+        private final long polls;
+        private final long readings;
+        private final long timeouts;
+        private final long failures;
+        private final long shortCircuited;
+
+        public Stats(int devices, int openCircuits, long polls, long readings, long timeouts, long failures,
+                     long shortCircuited) {
+            this.devices = devices;
+            this.openCircuits = openCircuits;
+            this.polls = polls;
+            this.readings = readings;
+            this.timeouts = timeouts;
+            this.failures = failures;
+            this.shortCircuited = shortCircuited;
+        }
+
+        public int getDevices() {
+            return devices;
+        }
+
+        /**
+         * Devices currently skipped (or on trial) after repeated failures
+         */
+        public int getOpenCircuits() {
+            return openCircuits;
+        }
+
+        public long getPolls() {
+            return polls;
+        }
+
+        public long getReadings() {
+            return readings;
+        }
+
+        public long getTimeouts() {
+            return timeouts;
+        }
+
+        public long getFailures() {
+            return failures;
+        }
+
+        /**
+         * Device readings skipped because the device's circuit was open
+         */
+        public long getShortCircuited() {
+            return shortCircuited;
+        }
+
+        @Override
+        public String toString() {
+            return "Stats{" +
+                    "devices=" + devices +
+                    ", openCircuits=" + openCircuits +
+                    ", polls=" + polls +
+                    ", readings=" + readings +
+                    ", timeouts=" + timeouts +
+                    ", failures=" + failures +
+                    ", shortCircuited=" + shortCircuited +
+                    '}';
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package com.vhg.patientmonitoring.device;
+
+import com.vhg.patientmonitoring.model.reading.SampleBatch;
+import com.vhg.patientmonitoring.model.reading.VitalSignReading;
+import com.vhg.patientmonitoring.model.reading.VitalSignType;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.SubmissionPublisher;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Presents a pull-based {@link SensorDevice} (e.g. a heart rate monitor) as a {@link StreamingSensorDevice}.
+ * <p>
+ * Each stream polls the device at a fixed period on a shared ticker and publishes every reading as a
+ * batch of one. Polling starts with the first subscriber and stops, closing the stream, once every
+ * subscriber has cancelled. Polls only happen while the subscribers have outstanding demand, so a slow
+ * consumer throttles the device instead of filling a buffer.
+ */
+public class PullDeviceAdapter implements StreamingSensorDevice {
+    // Batches buffered per subscriber before offers are dropped; demand-driven polling rarely gets close
+    private static final int BUFFER_BATCHES = 16;
+
+    private final SensorDevice device;
+    private final long periodMillis;
+    private final ScheduledExecutorService ticker;
+    private final Executor deliveryExecutor;
+
+    public PullDeviceAdapter(SensorDevice device, long periodMillis, ScheduledExecutorService ticker, Executor deliveryExecutor) {
+        this.device = device;
+        this.periodMillis = periodMillis;
+        this.ticker = ticker;
+        this.deliveryExecutor = deliveryExecutor;
+    }
+
+    @Override
+    public Flow.Publisher<SampleBatch> samples(String patientId, VitalSignType type) {
+        return new PolledStream(patientId, type);
+    }
+
+    @Override
+    public String getDeviceId() {
+        return device.getDeviceId();
+    }
+
+    @Override
+    public String getDeviceType() {
+        return device.getDeviceType();
+    }
+
+    @Override
+    public boolean isConnected() {
+        return device.isConnected();
+    }
+
+    @Override
+    public void connect() {
+        device.connect();
+    }
+
+    @Override
+    public void disconnect() {
+        device.disconnect();
+    }
+
+    @Override
+    public VitalSignReading takeReading(String patientId, VitalSignType type) {
+        return device.takeReading(patientId, type);
+    }
+
+    @Override
+    public CompletableFuture<VitalSignReading> takeReadingAsync(String patientId, VitalSignType type) {
+        return device.takeReadingAsync(patientId, type);
+    }
+
+    /**
+     * One polled stream: publishes to its subscribers and polls the device while it has any
+     */
+    private final class PolledStream implements Flow.Publisher<SampleBatch>, Runnable {
+        private final SubmissionPublisher<SampleBatch> publisher = new SubmissionPublisher<>(deliveryExecutor, BUFFER_BATCHES);
+        private final String patientId;
+        private final VitalSignType type;
+        private final AtomicBoolean inFlight = new AtomicBoolean();
+        // Guarded by this
+        private ScheduledFuture<?> polling;
+
+        private PolledStream(String patientId, VitalSignType type) {
+            this.patientId = patientId;
+            this.type = type;
+        }
+
+        @Override
+        public void subscribe(Flow.Subscriber<? super SampleBatch> subscriber) {
+            // A stream whose subscribers all cancelled is closed, and completes a late subscriber at once
+            publisher.subscribe(subscriber);
+            synchronized (this) {
+                if (polling == null && !publisher.isClosed()) {
+                    polling = ticker.scheduleAtFixedRate(this, periodMillis, periodMillis, TimeUnit.MILLISECONDS);
+                }
+            }
+        }
+
+        @Override
+        public void run() {
+            if (!publisher.hasSubscribers()) {
+                synchronized (this) {
+                    publisher.close();
+                    polling.cancel(false);
+                }
+                return;
+            }
+
+            // No outstanding demand (or the last reading is still out): skip this poll rather than buffer
+            if (publisher.estimateMinimumDemand() <= 0 || !inFlight.compareAndSet(false, true)) {
+                return;
+            }
+            CompletableFuture<VitalSignReading> reading;
+            try {
+                reading = device.takeReadingAsync(patientId, type);
+            } catch (RuntimeException e) {
+                reading = CompletableFuture.failedFuture(e);
+            }
+            reading.whenComplete((value, error) -> {
+                if (error != null) {
+                    System.err.println("Error collecting reading from device " + device.getDeviceId() + ": " + error.getMessage());
+                } else if (value != null) {
+                    publisher.offer(SampleBatch.of(value), (subscriber, batch) -> false);
+                }
+                // Only once the reading counts against demand, or the next poll could overshoot it
+                inFlight.set(false);
+            });
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package com.vhg.patientmonitoring.device;
+
+import com.vhg.patientmonitoring.model.reading.SampleBatch;
+
+import java.util.concurrent.Flow;
+import java.util.function.Consumer;
+
+/**
+ * Consumes a device's sample stream with bounded demand.
+ * <p>
+ * Keeps at most {@code prefetch} batches requested and tops demand back up once half of them have been
+ * handled, so a device can never run further ahead of the consumer than that.
+ */
+public class SampleSubscriber implements Flow.Subscriber<SampleBatch> {
+    private final String name;
+    private final int prefetch;
+    private final int replenishAt;
+    private final Consumer<SampleBatch> sink;
+    private volatile Flow.Subscription subscription;
+    // Only touched from onNext, which the publisher never calls concurrently
+    private int handledSinceRequest;
+    private volatile long batches;
+    private volatile long samples;
+
+    public SampleSubscriber(String name, int prefetch, Consumer<SampleBatch> sink) {
+        this.name = name;
+        this.prefetch = prefetch;
+        this.replenishAt = Math.max(1, prefetch / 2);
+        this.sink = sink;
+    }
+
+    @Override
+    public void onSubscribe(Flow.Subscription subscription) {
+        this.subscription = subscription;
+        subscription.request(prefetch);
+    }
+
+    @Override
+    public void onNext(SampleBatch batch) {
+        try {
+            sink.accept(batch);
+        } catch (RuntimeException e) {
+            System.err.println("Error handling samples from " + name + ": " + e.getMessage());
+        }
+        batches++;
+        samples += batch.size();
+        if (++handledSinceRequest >= replenishAt) {
+            subscription.request(handledSinceRequest);
+            handledSinceRequest = 0;
+        }
+    }
+
+    @Override
+    public void onError(Throwable error) {
+        System.err.println("Sample stream from " + name + " failed: " + error.getMessage());
+    }
+
+    @Override
+    public void onComplete() {
+    }
+
+    public void cancel() {
+        Flow.Subscription current = subscription;
+        if (current != null) {
+            current.cancel();
+        }
+    }
+
+    public long getBatches() {
+        return batches;
+    }
+
+    public long getSamples() {
+        return samples;
+    }
+}
@@ -3,6 +3,8 @@ package com.vhg.patientmonitoring.device;
 import com.vhg.patientmonitoring.model.reading.VitalSignReading;
 import com.vhg.patientmonitoring.model.reading.VitalSignType;
 
+import java.util.concurrent.CompletableFuture;
+
 /**
  * Interface for physical sensor devices
  */
@@ -13,4 +15,20 @@ public interface SensorDevice {
     void connect();
     void disconnect();
     VitalSignReading takeReading(String patientId, VitalSignType type);
+
+    /**
+     * Takes a reading without blocking the caller. Devices with an asynchronous protocol should
+     * override this; the default runs {@link #takeReading} on a virtual thread.
+     */
+    default CompletableFuture<VitalSignReading> takeReadingAsync(String patientId, VitalSignType type) {
+        CompletableFuture<VitalSignReading> result = new CompletableFuture<>();
+        Thread.ofVirtual().name("device-" + getDeviceId()).start(() -> {
+            try {
+                result.complete(takeReading(patientId, type));
+            } catch (RuntimeException e) {
+                result.completeExceptionally(e);
+            }
+        });
+        return result;
+    }
 }
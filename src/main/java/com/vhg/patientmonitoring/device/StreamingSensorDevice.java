@@ -0,0 +1,21 @@
+package com.vhg.patientmonitoring.device;
+
+import com.vhg.patientmonitoring.model.reading.SampleBatch;
+import com.vhg.patientmonitoring.model.reading.VitalSignType;
+
+import java.util.concurrent.Flow;
+
+/**
+ * Sensor device that pushes samples instead of being polled, e.g. a 250-500 Hz ECG or EEG channel.
+ * <p>
+ * Samples arrive as {@link SampleBatch}es through a {@link Flow.Publisher}; subscribers request batches
+ * as they can handle them, and a device must not emit more than was requested. Implementations should
+ * deliver through a shared executor (a {@link java.util.concurrent.SubmissionPublisher} built on one
+ * does this) rather than a thread per device. Pull devices can be wrapped in a {@link PullDeviceAdapter}.
+ */
+public interface StreamingSensorDevice extends SensorDevice {
+    /**
+     * Publisher of the patient's samples of the given vital sign; each call starts a new stream.
+     */
+    Flow.Publisher<SampleBatch> samples(String patientId, VitalSignType type);
+}
@@ -0,0 +1,54 @@
+package com.vhg.patientmonitoring.device.impl;
+
+import com.vhg.patientmonitoring.device.SensorDevice;
+import com.vhg.patientmonitoring.model.reading.VitalSignReading;
+import com.vhg.patientmonitoring.model.reading.VitalSignType;
+
+/**
+ * Implementation for a blood pressure monitor (systolic pressure)
+ */
+class BloodPressureMonitor implements SensorDevice {
+    private String deviceId;
+    private volatile boolean connected;
+    private long connectLatencyMillis;
+
+    BloodPressureMonitor(String deviceId, long connectLatencyMillis) {
+        this.deviceId = deviceId;
+        this.connectLatencyMillis = connectLatencyMillis;
+    }
+
+    @Override
+    public String getDeviceId() {
+        return deviceId;
+    }
+
+    @Override
+    public String getDeviceType() {
+        return "Blood Pressure Monitor";
+    }
+
+    @Override
+    public boolean isConnected() {
+        return connected;
+    }
+
+    @Override
+    public void connect() {
+        // Logic to connect to the physical device
+        SimulatedDeviceDiscovery.simulateHandshake(connectLatencyMillis);
+        this.connected = true;
+    }
+
+    @Override
+    public void disconnect() {
+        // Logic to disconnect from the physical device
+        this.connected = false;
+    }
+
+    @Override
+    public VitalSignReading takeReading(String patientId, VitalSignType type) {
+        // Simulated reading - in a real app, would interface with actual hardware
+        double value = 110 + (Math.random() * 30); // Random systolic value between 110-140
+        return new VitalSignReading(patientId, VitalSignType.BLOOD_PRESSURE, value, "mmHg", this);
+    }
+}
\ No newline at end of file
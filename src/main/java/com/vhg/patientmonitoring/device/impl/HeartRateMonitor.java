@@ -9,9 +9,13 @@ import com.vhg.patientmonitoring.model.reading.VitalSignType;
  */
 class HeartRateMonitor implements SensorDevice {
     private String deviceId;
-    private boolean connected;
+    private volatile boolean connected;
+    private long connectLatencyMillis;
 
-    // Constructor and implementation of SensorDevice methods
+    HeartRateMonitor(String deviceId, long connectLatencyMillis) {
+        this.deviceId = deviceId;
+        this.connectLatencyMillis = connectLatencyMillis;
+    }
 
     @Override
     public String getDeviceId() {
@@ -31,6 +35,7 @@ class HeartRateMonitor implements SensorDevice {
     @Override
     public void connect() {
         // Logic to connect to the physical device
+        SimulatedDeviceDiscovery.simulateHandshake(connectLatencyMillis);
         this.connected = true;
     }
 
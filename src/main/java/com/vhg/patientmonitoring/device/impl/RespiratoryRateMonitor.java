@@ -0,0 +1,54 @@
+package com.vhg.patientmonitoring.device.impl;
+
+import com.vhg.patientmonitoring.device.SensorDevice;
+import com.vhg.patientmonitoring.model.reading.VitalSignReading;
+import com.vhg.patientmonitoring.model.reading.VitalSignType;
+
+/**
+ * Implementation for a respiratory rate monitor
+ */
+class RespiratoryRateMonitor implements SensorDevice {
+    private String deviceId;
+    private volatile boolean connected;
+    private long connectLatencyMillis;
+
+    RespiratoryRateMonitor(String deviceId, long connectLatencyMillis) {
+        this.deviceId = deviceId;
+        this.connectLatencyMillis = connectLatencyMillis;
+    }
+
+    @Override
+    public String getDeviceId() {
+        return deviceId;
+    }
+
+    @Override
+    public String getDeviceType() {
+        return "Respiratory Rate Monitor";
+    }
+
+    @Override
+    public boolean isConnected() {
+        return connected;
+    }
+
+    @Override
+    public void connect() {
+        // Logic to connect to the physical device
+        SimulatedDeviceDiscovery.simulateHandshake(connectLatencyMillis);
+        this.connected = true;
+    }
+
+    @Override
+    public void disconnect() {
+        // Logic to disconnect from the physical device
+        this.connected = false;
+    }
+
+    @Override
+    public VitalSignReading takeReading(String patientId, VitalSignType type) {
+        // Simulated reading - in a real app, would interface with actual hardware
+        double value = 12 + (Math.random() * 8); // Random value between 12-20
+        return new VitalSignReading(patientId, VitalSignType.RESPIRATORY_RATE, value, "breaths/min", this);
+    }
+}
\ No newline at end of file
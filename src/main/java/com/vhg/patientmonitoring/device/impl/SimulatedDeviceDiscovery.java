@@ -0,0 +1,48 @@
+package com.vhg.patientmonitoring.device.impl;
+
+import com.vhg.patientmonitoring.device.DeviceDiscovery;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Discovers a simulated bedside set of monitors (heart rate, blood pressure, SpO2, respiratory rate,
+ * temperature) for every patient. Stands in for network discovery until real device integrations exist.
+ */
+public class SimulatedDeviceDiscovery implements DeviceDiscovery {
+    private final Collection<String> patientIds;
+    private final long connectLatencyMillis;
+
+    /**
+     * @param connectLatencyMillis simulated handshake time of each device's {@code connect()}
+     */
+    public SimulatedDeviceDiscovery(Collection<String> patientIds, long connectLatencyMillis) {
+        this.patientIds = patientIds;
+        this.connectLatencyMillis = connectLatencyMillis;
+    }
+
+    @Override
+    public List<Assignment> discover() {
+        List<Assignment> assignments = new ArrayList<>(patientIds.size() * 5);
+        for (String patientId : patientIds) {
+            assignments.add(new Assignment(new HeartRateMonitor("hr-" + patientId, connectLatencyMillis), patientId));
+            assignments.add(new Assignment(new BloodPressureMonitor("bp-" + patientId, connectLatencyMillis), patientId));
+            assignments.add(new Assignment(new OxygenSaturationMonitor("spo2-" + patientId, connectLatencyMillis), patientId));
+            assignments.add(new Assignment(new RespiratoryRateMonitor("rr-" + patientId, connectLatencyMillis), patientId));
+            assignments.add(new Assignment(new TemparatureMonitor("temp-" + patientId, connectLatencyMillis), patientId));
+        }
+        return assignments;
+    }
+
+    static void simulateHandshake(long latencyMillis) {
+        if (latencyMillis <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(latencyMillis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
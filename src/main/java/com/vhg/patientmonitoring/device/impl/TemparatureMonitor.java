@@ -0,0 +1,54 @@
+package com.vhg.patientmonitoring.device.impl;
+
+import com.vhg.patientmonitoring.device.SensorDevice;
+import com.vhg.patientmonitoring.model.reading.VitalSignReading;
+import com.vhg.patientmonitoring.model.reading.VitalSignType;
+
+/**
+ * Implementation for a body temperature monitor
+ */
+class TemparatureMonitor implements SensorDevice {
+    private String deviceId;
+    private volatile boolean connected;
+    private long connectLatencyMillis;
+
+    TemparatureMonitor(String deviceId, long connectLatencyMillis) {
+        this.deviceId = deviceId;
+        this.connectLatencyMillis = connectLatencyMillis;
+    }
+
+    @Override
+    public String getDeviceId() {
+        return deviceId;
+    }
+
+    @Override
+    public String getDeviceType() {
+        return "Temperature Monitor";
+    }
+
+    @Override
+    public boolean isConnected() {
+        return connected;
+    }
+
+    @Override
+    public void connect() {
+        // Logic to connect to the physical device
+        SimulatedDeviceDiscovery.simulateHandshake(connectLatencyMillis);
+        this.connected = true;
+    }
+
+    @Override
+    public void disconnect() {
+        // Logic to disconnect from the physical device
+        this.connected = false;
+    }
+
+    @Override
+    public VitalSignReading takeReading(String patientId, VitalSignType type) {
+        // Simulated reading - in a real app, would interface with actual hardware
+        double value = 36.1 + (Math.random() * 1.4); // Random value between 36.1-37.5
+        return new VitalSignReading(patientId, VitalSignType.TEMPERATURE, value, "°C", this);
+    }
+}
\ No newline at end of file
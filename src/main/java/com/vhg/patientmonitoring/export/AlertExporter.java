@@ -0,0 +1,201 @@
+package com.vhg.patientmonitoring.export;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.vhg.patientmonitoring.model.alert.Alert;
+import com.vhg.patientmonitoring.repository.AlertRepository;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Writes alert history to a stream as NDJSON or CSV while it is read from the repository, the same
+ * way {@link ReadingExporter} writes vital signs: from {@link AlertRepository#forEachAlert} straight
+ * into a small output buffer. Patients are written one after another, each in timestamp order.
+ */
+public class AlertExporter {
+    private static final String CSV_HEADER =
+            "alert_id,patient_id,severity,status,message,timestamp,occurrences,last_occurrence,peak_value\n";
+
+    private final JsonFactory jsonFactory = new JsonFactory();
+    private final AlertRepository repository;
+
+    private final LongAdder exports = new LongAdder();
+    private final LongAdder alerts = new LongAdder();
+    private final LongAdder aborted = new LongAdder();
+
+    public AlertExporter(AlertRepository repository) {
+        this.repository = repository;
+    }
+
+    /**
+     * Writes every alert raised for the given patients in [fromNanos, toNanos) to {@code out}, which is
+     * flushed but not closed.
+     *
+     * @return alerts written
+     * @throws IOException if writing fails, typically because the client went away; the repository
+     *                     query is abandoned at that point
+     */
+    public long export(List<String> patientIds, long fromNanos, long toNanos, ReadingExporter.Format format,
+                       OutputStream out) throws IOException {
+        exports.increment();
+        RowWriter writer = format == ReadingExporter.Format.CSV ? new CsvWriter(out) : new NdjsonWriter(out);
+        long[] written = new long[1];
+        try {
+            for (String patientId : patientIds) {
+                repository.forEachAlert(patientId, fromNanos, toNanos, alert -> {
+                    try {
+                        writer.write(alert);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                    written[0]++;
+                });
+            }
+            writer.finish();
+            return written[0];
+        } catch (UncheckedIOException e) {
+            aborted.increment();
+            throw e.getCause();
+        } finally {
+            alerts.add(written[0]);
+        }
+    }
+
+    public Stats getStats() {
+        return new Stats(exports.sum(), alerts.sum(), aborted.sum());
+    }
+
+    /**
+     * Alert timestamps are local to the system's zone
+     */
+    private static String instant(LocalDateTime timestamp) {
+        return timestamp.atZone(ZoneId.systemDefault()).toInstant().toString();
+    }
+
+    private interface RowWriter {
+        void write(Alert alert) throws IOException;
+
+        void finish() throws IOException;
+    }
+
+    /**
+     * One JSON object per line, with the field names of {@code AlertDto}
+     */
+    private final class NdjsonWriter implements RowWriter {
+        private final JsonGenerator generator;
+
+        private NdjsonWriter(OutputStream out) throws IOException {
+            this.generator = jsonFactory.createGenerator(out, JsonEncoding.UTF8);
+            // Lines are separated by hand below, so every line (the last included) ends with one
+            generator.setRootValueSeparator(null);
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        }
+
+        @Override
+        public void write(Alert alert) throws IOException {
+            generator.writeStartObject();
+            generator.writeStringField("alertId", alert.getAlertId());
+            generator.writeStringField("patientId", alert.getPatientId());
+            generator.writeStringField("severity", alert.getSeverity().name());
+            generator.writeStringField("status", alert.getStatus().name());
+            generator.writeStringField("message", alert.getMessage());
+            generator.writeStringField("timestamp", instant(alert.getTimestamp()));
+            generator.writeNumberField("occurrences", alert.getOccurrences());
+            generator.writeStringField("lastOccurrence", instant(alert.getLastOccurrence()));
+            if (Double.isNaN(alert.getPeakValue())) {
+                generator.writeNullField("peakValue");
+            } else {
+                generator.writeNumberField("peakValue", alert.getPeakValue());
+            }
+            generator.writeEndObject();
+            generator.writeRaw('\n');
+        }
+
+        @Override
+        public void finish() throws IOException {
+            generator.flush();
+        }
+    }
+
+    private static final class CsvWriter implements RowWriter {
+        private final Writer writer;
+
+        private CsvWriter(OutputStream out) throws IOException {
+            this.writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+            writer.write(CSV_HEADER);
+        }
+
+        @Override
+        public void write(Alert alert) throws IOException {
+            ReadingExporter.writeCsvField(writer, alert.getAlertId());
+            writer.write(',');
+            ReadingExporter.writeCsvField(writer, alert.getPatientId());
+            writer.write(',');
+            writer.write(alert.getSeverity().name());
+            writer.write(',');
+            writer.write(alert.getStatus().name());
+            writer.write(',');
+            ReadingExporter.writeCsvField(writer, alert.getMessage());
+            writer.write(',');
+            writer.write(instant(alert.getTimestamp()));
+            writer.write(',');
+            writer.write(Integer.toString(alert.getOccurrences()));
+            writer.write(',');
+            writer.write(instant(alert.getLastOccurrence()));
+            writer.write(',');
+            if (!Double.isNaN(alert.getPeakValue())) {
+                writer.write(Double.toString(alert.getPeakValue()));
+            }
+            writer.write('\n');
+        }
+
+        @Override
+        public void finish() throws IOException {
+            writer.flush();
+        }
+    }
+
+    public static class Stats {
+        private final long exports;
+        private final long alerts;
+        private final long aborted;
+
+        public Stats(long exports, long alerts, long aborted) {
+            this.exports = exports;
+            this.alerts = alerts;
+            this.aborted = aborted;
+        }
+
+        public long getExports() {
+            return exports;
+        }
+
+        public long getAlerts() {
+            return alerts;
+        }
+
+        public long getAborted() {
+            return aborted;
+        }
+
+        @Override
+        public String toString() {
+            return "Stats{" +
+                    "exports=" + exports +
+                    ", alerts=" + alerts +
+                    ", aborted=" + aborted +
+                    '}';
+        }
+    }
+}
@@ -0,0 +1,216 @@
+package com.vhg.patientmonitoring.export;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.vhg.patientmonitoring.model.reading.ReadingView;
+import com.vhg.patientmonitoring.repository.ReadingRepository;
+import com.vhg.patientmonitoring.util.DateTimeUtils;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Writes vital sign history to a stream as NDJSON or CSV while it is read from the repository.
+ * <p>
+ * Each reading goes from {@link ReadingRepository#forEachReading} straight into a small output
+ * buffer, which is handed to the stream whenever it fills; with an HTTP response underneath, that is
+ * a chunked body. Memory use is the same for an hour of one patient as for a week of a ward. Patients
+ * are written one after another, each in timestamp order.
+ */
+public class ReadingExporter {
+    private static final String CSV_HEADER = "patient_id,type,value,unit,timestamp\n";
+
+    public enum Format {
+        NDJSON("application/x-ndjson"),
+        CSV("text/csv");
+
+        private final String contentType;
+
+        Format(String contentType) {
+            this.contentType = contentType;
+        }
+
+        public String getContentType() {
+            return contentType;
+        }
+
+        /**
+         * @throws IllegalArgumentException for anything but "ndjson" or "csv"
+         */
+        public static Format of(String name) {
+            return valueOf(name.toUpperCase(Locale.ROOT));
+        }
+    }
+
+    private final JsonFactory jsonFactory = new JsonFactory();
+    private final ReadingRepository repository;
+
+    private final LongAdder exports = new LongAdder();
+    private final LongAdder readings = new LongAdder();
+    private final LongAdder aborted = new LongAdder();
+
+    public ReadingExporter(ReadingRepository repository) {
+        this.repository = repository;
+    }
+
+    /**
+     * Writes every reading of the given patients in [fromNanos, toNanos) to {@code out}, which is
+     * flushed but not closed.
+     *
+     * @return readings written
+     * @throws IOException if writing fails, typically because the client went away; the repository
+     *                     query is abandoned at that point
+     */
+    public long export(List<String> patientIds, long fromNanos, long toNanos, Format format, OutputStream out)
+            throws IOException {
+        exports.increment();
+        RowWriter writer = format == Format.CSV ? new CsvWriter(out) : new NdjsonWriter(out);
+        long[] written = new long[1];
+        try {
+            for (String patientId : patientIds) {
+                repository.forEachReading(patientId, fromNanos, toNanos, reading -> {
+                    try {
+                        writer.write(reading);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                    written[0]++;
+                });
+            }
+            writer.finish();
+            return written[0];
+        } catch (UncheckedIOException e) {
+            aborted.increment();
+            throw e.getCause();
+        } finally {
+            readings.add(written[0]);
+        }
+    }
+
+    public Stats getStats() {
+        return new Stats(exports.sum(), readings.sum(), aborted.sum());
+    }
+
+    private interface RowWriter {
+        void write(ReadingView reading) throws IOException;
+
+        void finish() throws IOException;
+    }
+
+    /**
+     * One JSON object per line, with the field names of {@code ReadingDto}
+     */
+    private final class NdjsonWriter implements RowWriter {
+        private final JsonGenerator generator;
+
+        private NdjsonWriter(OutputStream out) throws IOException {
+            this.generator = jsonFactory.createGenerator(out, JsonEncoding.UTF8);
+            // Lines are separated by hand below, so every line (the last included) ends with one
+            generator.setRootValueSeparator(null);
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        }
+
+        @Override
+        public void write(ReadingView reading) throws IOException {
+            generator.writeStartObject();
+            generator.writeStringField("patientId", reading.getPatientId());
+            generator.writeStringField("type", reading.getType().name());
+            generator.writeNumberField("value", reading.getValue());
+            generator.writeStringField("unit", reading.getUnit());
+            generator.writeStringField("timestamp", DateTimeUtils.toInstant(reading.getEpochNanos()).toString());
+            generator.writeEndObject();
+            generator.writeRaw('\n');
+        }
+
+        @Override
+        public void finish() throws IOException {
+            generator.flush();
+        }
+    }
+
+    private static final class CsvWriter implements RowWriter {
+        private final Writer writer;
+
+        private CsvWriter(OutputStream out) throws IOException {
+            this.writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+            writer.write(CSV_HEADER);
+        }
+
+        @Override
+        public void write(ReadingView reading) throws IOException {
+            writeCsvField(writer, reading.getPatientId());
+            writer.write(',');
+            writer.write(reading.getType().name());
+            writer.write(',');
+            writer.write(Double.toString(reading.getValue()));
+            writer.write(',');
+            writeCsvField(writer, reading.getUnit());
+            writer.write(',');
+            writer.write(DateTimeUtils.toInstant(reading.getEpochNanos()).toString());
+            writer.write('\n');
+        }
+
+        @Override
+        public void finish() throws IOException {
+            writer.flush();
+        }
+    }
+
+    /**
+     * Writes a CSV field, quoted only if it has to be; {@code null} is an empty field.
+     */
+    static void writeCsvField(Writer writer, String value) throws IOException {
+        if (value == null) {
+            return;
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0) {
+            writer.write(value);
+            return;
+        }
+        writer.write('"');
+        writer.write(value.replace("\"", "\"\""));
+        writer.write('"');
+    }
+
+    public static class Stats {
+        private final long exports;
+        private final long readings;
+        private final long aborted;
+
+        public Stats(long exports, long readings, long aborted) {
+            this.exports = exports;
+            this.readings = readings;
+            this.aborted = aborted;
+        }
+
+        public long getExports() {
+            return exports;
+        }
+
+        public long getReadings() {
+            return readings;
+        }
+
+        public long getAborted() {
+            return aborted;
+        }
+
+        @Override
+        public String toString() {
+            return "Stats{" +
+                    "exports=" + exports +
+                    ", readings=" + readings +
+                    ", aborted=" + aborted +
+                    '}';
+        }
+    }
+}
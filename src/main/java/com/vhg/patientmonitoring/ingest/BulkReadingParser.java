@@ -0,0 +1,483 @@
+package com.vhg.patientmonitoring.ingest;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.StreamReadFeature;
+import com.vhg.patientmonitoring.model.reading.ReadingBlock;
+import com.vhg.patientmonitoring.model.reading.VitalSignType;
+import com.vhg.patientmonitoring.util.DateTimeUtils;
+import com.vhg.patientmonitoring.util.IdIndex;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.ToIntFunction;
+
+/**
+ * Parses bulk vital sign uploads straight off the request stream into batches of compact readings.
+ * <p>
+ * Nothing is materialized per reading: JSON is read token by token with Jackson's streaming parser,
+ * each value is validated as it is read and appended to a {@link ReadingBlock}, and every
+ * {@code batchSize} readings the block is handed to the sink and reused. The sink must therefore be
+ * done with the block when it returns; the reading repositories are. A rejected reading is counted
+ * and reported, and the rest of the upload is still stored. The sink answers how many of a batch's
+ * readings it only rolled up rather than stored, e.g. history without a durable store; those are
+ * reported apart from the created ones.
+ * <p>
+ * Accepted JSON shapes, all read by {@link #parseJson}: the documented {@code {"vital_signs": [...]}}
+ * wrapper, a bare array, or newline-delimited records. A record is either one reading,
+ * {@code {"type": "HEART_RATE", "value": 72, "timestamp": ...}}, or the documented multi-vital form,
+ * {@code {"timestamp": ..., "heart_rate": 72, "oxygen_saturation": 98, ...}}. Timestamps are ISO-8601
+ * instants or epoch milliseconds. {@link #parseBinary} reads the compact format written by
+ * {@link #writeBinary}.
+ */
+public class BulkReadingParser {
+    /** "VHGR": first four bytes of a binary upload */
+    public static final int BINARY_MAGIC = 0x56484752;
+    public static final int BINARY_VERSION = 1;
+
+    private static final int MAX_REPORTED_ERRORS = 20;
+    private static final long MAX_CLOCK_SKEW_NANOS = TimeUnit.MINUTES.toNanos(5);
+    private static final VitalSignType[] TYPES = VitalSignType.values();
+    // Fields of the documented multi-vital record; diastolic pressure has no vital sign type of its own
+    private static final Map<String, VitalSignType> VITAL_FIELDS = Map.of(
+            "heart_rate", VitalSignType.HEART_RATE,
+            "blood_pressure_systolic", VitalSignType.BLOOD_PRESSURE,
+            "oxygen_saturation", VitalSignType.BLOOD_OXYGEN,
+            "temperature", VitalSignType.TEMPERATURE,
+            "respiratory_rate", VitalSignType.RESPIRATORY_RATE,
+            "blood_glucose", VitalSignType.BLOOD_GLUCOSE);
+
+    // The fast double parser reads values without going through a String each
+    private final JsonFactory jsonFactory = JsonFactory.builder().enable(StreamReadFeature.USE_FAST_DOUBLE_PARSER).build();
+    private final int batchSize;
+    private final ToIntFunction<ReadingBlock> sink;
+    private final Clock clock;
+
+    private final LongAdder uploads = new LongAdder();
+    private final LongAdder created = new LongAdder();
+    private final LongAdder rolledUp = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder batches = new LongAdder();
+
+    /**
+     * @param batchSize readings handed to the sink at a time
+     * @param sink      stores a batch and returns how many of its readings were only rolled up, e.g.
+     *                  {@code PatientMonitoringSystem::ingestReadings}
+     */
+    public BulkReadingParser(int batchSize, ToIntFunction<ReadingBlock> sink) {
+        this(batchSize, sink, Clock.systemUTC());
+    }
+
+    BulkReadingParser(int batchSize, ToIntFunction<ReadingBlock> sink, Clock clock) {
+        this.batchSize = batchSize;
+        this.sink = sink;
+        this.clock = clock;
+    }
+
+    /**
+     * Parses a JSON or NDJSON upload of the patient's readings.
+     *
+     * @throws IOException if the body is not well-formed JSON; batches before the error are stored
+     */
+    public Result parseJson(String patientId, InputStream in) throws IOException {
+        Upload upload = new Upload(patientId);
+        try (JsonParser parser = jsonFactory.createParser(in)) {
+            JsonToken token;
+            while ((token = parser.nextToken()) != null) {
+                if (token == JsonToken.START_ARRAY) {
+                    readArray(parser, upload);
+                } else if (token == JsonToken.START_OBJECT) {
+                    JsonToken first = parser.nextToken();
+                    if (first == JsonToken.FIELD_NAME && "vital_signs".equals(parser.currentName())) {
+                        readWrapper(parser, upload);
+                    } else {
+                        readRecord(parser, first, upload);
+                    }
+                } else {
+                    throw new IOException("Expected a reading or an array of readings, got " + token);
+                }
+            }
+        } finally {
+            upload.flush();
+        }
+        return upload.finish();
+    }
+
+    /**
+     * Parses a binary upload: {@link #BINARY_MAGIC}, {@link #BINARY_VERSION} as one byte, then per
+     * reading a type ordinal byte, epoch nanos as a long and the value as a double, big-endian.
+     *
+     * @throws IOException if the header is wrong or the last reading is cut short
+     */
+    public Result parseBinary(String patientId, InputStream in) throws IOException {
+        Upload upload = new Upload(patientId);
+        DataInputStream data = new DataInputStream(new BufferedInputStream(in, 64 * 1024));
+        try {
+            if (data.readInt() != BINARY_MAGIC) {
+                throw new IOException("Not a binary readings upload");
+            }
+            int version = data.readUnsignedByte();
+            if (version != BINARY_VERSION) {
+                throw new IOException("Unsupported binary readings version " + version);
+            }
+            int typeOrdinal;
+            while ((typeOrdinal = data.read()) != -1) {
+                long epochNanos;
+                double value;
+                try {
+                    epochNanos = data.readLong();
+                    value = data.readDouble();
+                } catch (EOFException e) {
+                    throw new IOException("Reading " + upload.record + " is truncated");
+                }
+                if (typeOrdinal >= TYPES.length) {
+                    upload.reject(1, "unknown type " + typeOrdinal);
+                } else {
+                    upload.add(TYPES[typeOrdinal], epochNanos, value);
+                }
+                upload.record++;
+            }
+        } finally {
+            upload.flush();
+        }
+        return upload.finish();
+    }
+
+    /**
+     * Writes readings in the binary upload format, e.g. for a gateway or a test.
+     */
+    public static void writeBinary(ReadingBlock block, OutputStream out) throws IOException {
+        DataOutputStream data = new DataOutputStream(out);
+        data.writeInt(BINARY_MAGIC);
+        data.writeByte(BINARY_VERSION);
+        for (int i = 0; i < block.size(); i++) {
+            data.writeByte(block.typeOrdinal(i));
+            data.writeLong(block.epochNanos(i));
+            data.writeDouble(block.value(i));
+        }
+        data.flush();
+    }
+
+    public Stats getStats() {
+        return new Stats(uploads.sum(), created.sum(), rolledUp.sum(), failed.sum(), batches.sum());
+    }
+
+    private void readWrapper(JsonParser parser, Upload upload) throws IOException {
+        if (parser.nextToken() != JsonToken.START_ARRAY) {
+            throw new IOException("Expected an array of vital_signs");
+        }
+        readArray(parser, upload);
+        // Anything after the array in the wrapper is ignored
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            parser.nextToken();
+            parser.skipChildren();
+        }
+    }
+
+    private void readArray(JsonParser parser, Upload upload) throws IOException {
+        JsonToken token;
+        while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+            if (token != JsonToken.START_OBJECT) {
+                throw new IOException("Expected a reading object, got " + token);
+            }
+            readRecord(parser, parser.nextToken(), upload);
+        }
+    }
+
+    /**
+     * Reads one record's fields, starting at {@code token}, and adds its readings.
+     */
+    private void readRecord(JsonParser parser, JsonToken token, Upload upload) throws IOException {
+        upload.startRecord();
+        for (; token == JsonToken.FIELD_NAME; token = parser.nextToken()) {
+            String field = parser.currentName();
+            JsonToken value = parser.nextToken();
+            switch (field) {
+                case "timestamp" -> upload.timestampNanos = readTimestamp(parser, value, upload);
+                case "type" -> upload.type = readType(parser, value, upload);
+                case "value" -> {
+                    upload.value = value.isNumeric() ? parser.getDoubleValue() : Double.NaN;
+                    parser.skipChildren();
+                }
+                case "patient_id", "patientId" -> {
+                    if (value == JsonToken.VALUE_STRING && !upload.patientId.equals(parser.getText())) {
+                        upload.recordError = "belongs to another patient";
+                    }
+                    parser.skipChildren();
+                }
+                default -> {
+                    VitalSignType type = VITAL_FIELDS.get(field);
+                    if (type != null && value.isNumeric()) {
+                        upload.vitals[type.ordinal()] = parser.getDoubleValue();
+                    } else {
+                        // Unknown fields and nulls; nested objects are skipped whole
+                        parser.skipChildren();
+                    }
+                }
+            }
+        }
+        if (token != JsonToken.END_OBJECT) {
+            throw new IOException("Expected a field name, got " + token);
+        }
+        upload.endRecord();
+    }
+
+    private long readTimestamp(JsonParser parser, JsonToken token, Upload upload) throws IOException {
+        if (token.isNumeric()) {
+            return TimeUnit.MILLISECONDS.toNanos(parser.getLongValue());
+        }
+        if (token == JsonToken.VALUE_STRING) {
+            long epochNanos = DateTimeUtils.parseUtcEpochNanos(parser.getTextCharacters(), parser.getTextOffset(),
+                    parser.getTextLength());
+            if (epochNanos != Long.MIN_VALUE) {
+                return epochNanos;
+            }
+            try {
+                return DateTimeUtils.toEpochNanos(Instant.parse(parser.getText()));
+            } catch (DateTimeParseException e) {
+                upload.recordError = "invalid timestamp " + parser.getText();
+                return Long.MIN_VALUE;
+            }
+        }
+        parser.skipChildren();
+        return Long.MIN_VALUE;
+    }
+
+    private static VitalSignType readType(JsonParser parser, JsonToken token, Upload upload) throws IOException {
+        if (token == JsonToken.VALUE_STRING) {
+            // Matched in the parser's buffer rather than through a String per record
+            char[] text = parser.getTextCharacters();
+            int offset = parser.getTextOffset();
+            int length = parser.getTextLength();
+            for (VitalSignType type : TYPES) {
+                if (matches(type.name(), text, offset, length)) {
+                    return type;
+                }
+            }
+            upload.recordError = "unknown type " + parser.getText();
+            return null;
+        }
+        parser.skipChildren();
+        upload.recordError = "type is not a string";
+        return null;
+    }
+
+    private static boolean matches(String name, char[] text, int offset, int length) {
+        if (name.length() != length) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (name.charAt(i) != text[offset + i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * State of one upload: the batch being filled, the record being read and the outcome so far
+     */
+    private final class Upload {
+        private final String patientId;
+        private final int patientIndex;
+        private final ReadingBlock block = new ReadingBlock(batchSize);
+        private final long latestAllowedNanos = DateTimeUtils.toEpochNanos(clock.instant()) + MAX_CLOCK_SKEW_NANOS;
+        private final List<String> errors = new ArrayList<>();
+        private int record;
+        private int created;
+        private int rolledUp;
+        private int failed;
+
+        // Current record, reset for every one
+        private final double[] vitals = new double[TYPES.length];
+        private long timestampNanos;
+        private VitalSignType type;
+        private double value;
+        private String recordError;
+
+        private Upload(String patientId) {
+            this.patientId = patientId;
+            this.patientIndex = IdIndex.PATIENTS.indexOf(patientId);
+        }
+
+        private void startRecord() {
+            Arrays.fill(vitals, Double.NaN);
+            timestampNanos = Long.MIN_VALUE;
+            type = null;
+            value = Double.NaN;
+            recordError = null;
+        }
+
+        private void endRecord() {
+            int readings = type != null ? 1 : 0;
+            for (double vital : vitals) {
+                if (!Double.isNaN(vital)) {
+                    readings++;
+                }
+            }
+            if (recordError == null && timestampNanos == Long.MIN_VALUE) {
+                recordError = "timestamp missing";
+            }
+            if (recordError == null && readings == 0) {
+                recordError = "no vital signs";
+            }
+            if (recordError != null) {
+                reject(Math.max(1, readings), recordError);
+            } else {
+                if (type != null) {
+                    add(type, timestampNanos, value);
+                }
+                for (int t = 0; t < vitals.length; t++) {
+                    if (!Double.isNaN(vitals[t])) {
+                        add(TYPES[t], timestampNanos, vitals[t]);
+                    }
+                }
+            }
+            record++;
+        }
+
+        private void add(VitalSignType type, long epochNanos, double value) {
+            if (!type.isPlausible(value)) {
+                reject(1, type + " value " + value + " out of range");
+                return;
+            }
+            if (epochNanos > latestAllowedNanos) {
+                reject(1, "timestamp in the future");
+                return;
+            }
+            block.add(patientIndex, type, epochNanos, value, -1);
+            if (block.size() == batchSize) {
+                flush();
+            }
+        }
+
+        private void reject(int readings, String reason) {
+            failed += readings;
+            if (errors.size() < MAX_REPORTED_ERRORS) {
+                errors.add("vital_signs[" + record + "]: " + reason);
+            }
+        }
+
+        private void flush() {
+            if (!block.isEmpty()) {
+                int batchRolledUp = sink.applyAsInt(block);
+                created += block.size() - batchRolledUp;
+                rolledUp += batchRolledUp;
+                batches.increment();
+                block.clear();
+            }
+        }
+
+        private Result finish() {
+            uploads.increment();
+            BulkReadingParser.this.created.add(created);
+            BulkReadingParser.this.rolledUp.add(rolledUp);
+            BulkReadingParser.this.failed.add(failed);
+            return new Result(created, rolledUp, failed, errors);
+        }
+    }
+
+    /**
+     * Outcome of one upload, as returned to the client
+     */
+    public static class Result {
+        private final int created;
+        private final int rolledUp;
+        private final int failed;
+        private final List<String> errors;
+
+        public Result(int created, int rolledUp, int failed, List<String> errors) {
+            this.created = created;
+            this.rolledUp = rolledUp;
+            this.failed = failed;
+            this.errors = errors;
+        }
+
+        public int getCreated() {
+            return created;
+        }
+
+        /**
+         * Accepted readings kept only in the analytics rollups, e.g. history without a durable store
+         */
+        public int getRolledUp() {
+            return rolledUp;
+        }
+
+        public int getFailed() {
+            return failed;
+        }
+
+        /**
+         * Why readings were rejected, for the first few of them
+         */
+        public List<String> getErrors() {
+            return errors;
+        }
+    }
+
+    /**
+     * Point-in-time snapshot of bulk ingestion
+     */
+    public static class Stats {
+        private final long uploads;
+        private final long created;
+        private final long rolledUp;
+        private final long failed;
+        private final long batches;
+
+        public Stats(long uploads, long created, long rolledUp, long failed, long batches) {
+            this.uploads = uploads;
+            this.created = created;
+            this.rolledUp = rolledUp;
+            this.failed = failed;
+            this.batches = batches;
+        }
+
+        public long getUploads() {
+            return uploads;
+        }
+
+        public long getCreated() {
+            return created;
+        }
+
+        public long getRolledUp() {
+            return rolledUp;
+        }
+
+        public long getFailed() {
+            return failed;
+        }
+
+        public long getBatches() {
+            return batches;
+        }
+
+        @Override
+        public String toString() {
+            return "Stats{" +
+                    "uploads=" + uploads +
+                    ", created=" + created +
+                    ", rolledUp=" + rolledUp +
+                    ", failed=" + failed +
+                    ", batches=" + batches +
+                    '}';
+        }
+    }
+}
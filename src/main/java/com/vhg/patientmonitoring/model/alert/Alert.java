@@ -17,6 +17,9 @@ public class Alert {
     private LocalDateTime timestamp;
     private AlertStatus status;
     private VitalSignReading triggeringReading;
+    private int occurrences;
+    private LocalDateTime lastOccurrence;
+    private double peakValue;
 
     // Constructor, getters, setters
 
@@ -28,9 +31,90 @@ public class Alert {
         this.timestamp = LocalDateTime.now();
         this.status = AlertStatus.PENDING;
         this.triggeringReading = triggeringReading;
+        this.occurrences = 1;
+        this.lastOccurrence = timestamp;
+        this.peakValue = triggeringReading != null ? triggeringReading.getValue() : Double.NaN;
+    }
+
+    public String getAlertId() {
+        return alertId;
+    }
+
+    public void setAlertId(String alertId) {
+        this.alertId = alertId;
+    }
+
+    public String getPatientId() {
+        return patientId;
     }
 
     public AlertSeverity getSeverity() {
         return this.severity;
     }
+
+    public void setSeverity(AlertSeverity severity) {
+        this.severity = severity;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public void setMessage(String message) {
+        this.message = message;
+    }
+
+    public LocalDateTime getTimestamp() {
+        return timestamp;
+    }
+
+    public void setTimestamp(LocalDateTime timestamp) {
+        this.timestamp = timestamp;
+    }
+
+    public AlertStatus getStatus() {
+        return status;
+    }
+
+    public void setStatus(AlertStatus status) {
+        this.status = status;
+    }
+
+    public VitalSignReading getTriggeringReading() {
+        return triggeringReading;
+    }
+
+    public void setTriggeringReading(VitalSignReading triggeringReading) {
+        this.triggeringReading = triggeringReading;
+    }
+
+    /**
+     * Times this condition was detected while the alert was open; repeats are folded into the first alert.
+     */
+    public int getOccurrences() {
+        return occurrences;
+    }
+
+    public void setOccurrences(int occurrences) {
+        this.occurrences = occurrences;
+    }
+
+    public LocalDateTime getLastOccurrence() {
+        return lastOccurrence;
+    }
+
+    public void setLastOccurrence(LocalDateTime lastOccurrence) {
+        this.lastOccurrence = lastOccurrence;
+    }
+
+    /**
+     * Most extreme reading value seen while the alert was open, NaN if it has no triggering reading.
+     */
+    public double getPeakValue() {
+        return peakValue;
+    }
+
+    public void setPeakValue(double peakValue) {
+        this.peakValue = peakValue;
+    }
 }
\ No newline at end of file
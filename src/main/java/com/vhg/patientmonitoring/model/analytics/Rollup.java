@@ -0,0 +1,61 @@
+package com.vhg.patientmonitoring.model.analytics;
+
+import com.vhg.patientmonitoring.model.reading.VitalSignType;
+
+/**
+ * Statistics of one patient's readings of one vital sign type within one time bucket.
+ */
+public final class Rollup {
+    private final String patientId;
+    private final RollupGranularity granularity;
+    private final long bucketStartNanos;
+    private final VitalStatistics statistics;
+
+    public Rollup(String patientId, RollupGranularity granularity, long bucketStartNanos, VitalStatistics statistics) {
+        this.patientId = patientId;
+        this.granularity = granularity;
+        this.bucketStartNanos = bucketStartNanos;
+        this.statistics = statistics;
+    }
+
+    public String getPatientId() {
+        return patientId;
+    }
+
+    public VitalSignType getType() {
+        return statistics.getType();
+    }
+
+    public RollupGranularity getGranularity() {
+        return granularity;
+    }
+
+    public long getBucketStartNanos() {
+        return bucketStartNanos;
+    }
+
+    public long getBucketEndNanos() {
+        return bucketStartNanos + granularity.getLengthNanos();
+    }
+
+    public VitalStatistics getStatistics() {
+        return statistics;
+    }
+
+    /**
+     * Copy whose statistics no longer change with this rollup's
+     */
+    public Rollup copy() {
+        return new Rollup(patientId, granularity, bucketStartNanos, statistics.copy());
+    }
+
+    @Override
+    public String toString() {
+        return "Rollup{" +
+                "patientId='" + patientId + '\'' +
+                ", granularity=" + granularity +
+                ", bucketStartNanos=" + bucketStartNanos +
+                ", statistics=" + statistics +
+                '}';
+    }
+}
@@ -0,0 +1,44 @@
+package com.vhg.patientmonitoring.model.analytics;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bucket sizes readings are rolled up into. Buckets are aligned to the epoch, so days are UTC days.
+ */
+public enum RollupGranularity {
+    MINUTE(TimeUnit.MINUTES.toNanos(1)),
+    HOUR(TimeUnit.HOURS.toNanos(1)),
+    DAY(TimeUnit.DAYS.toNanos(1));
+
+    private final long lengthNanos;
+
+    RollupGranularity(long lengthNanos) {
+        this.lengthNanos = lengthNanos;
+    }
+
+    public long getLengthNanos() {
+        return lengthNanos;
+    }
+
+    /**
+     * Start of the bucket holding the instant
+     */
+    public long bucketStart(long epochNanos) {
+        return Math.floorDiv(epochNanos, lengthNanos) * lengthNanos;
+    }
+
+    /**
+     * First bucket boundary at or after the instant
+     */
+    public long nextBoundary(long epochNanos) {
+        long start = bucketStart(epochNanos);
+        return start == epochNanos ? start : start + lengthNanos;
+    }
+
+    /**
+     * Next finer granularity, or null for {@link #MINUTE}
+     */
+    public RollupGranularity finer() {
+        return this == MINUTE ? null : values()[ordinal() - 1];
+    }
+}
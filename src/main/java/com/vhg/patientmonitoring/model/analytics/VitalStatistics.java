@@ -0,0 +1,256 @@
+package com.vhg.patientmonitoring.model.analytics;
+
+import com.vhg.patientmonitoring.model.reading.VitalSignType;
+
+/**
+ * Mergeable summary of readings of one vital sign type: count, min, max, mean, variance and percentiles.
+ * <p>
+ * Mean and variance are kept with Welford's update and combined with Chan's formula, so merging
+ * summaries gives the same result as summarizing all their readings at once. Percentiles come from a
+ * histogram of {@link #BINS} equal bins over the type's plausible range and are reported as the bin
+ * midpoint, i.e. to within half a bin (0.34 bpm for heart rate, 0.03 °C for temperature). The
+ * histogram is dense while readings are added and compacted to its non-empty bins for storage.
+ * <p>
+ * Not thread-safe.
+ */
+public final class VitalStatistics {
+    public static final int BINS = 512;
+
+    private final VitalSignType type;
+    private long count;
+    private double min = Double.NaN;
+    private double max = Double.NaN;
+    private double mean;
+    // Sum of squared differences from the mean
+    private double m2;
+    // Exactly one of the two histogram forms is in use
+    private int[] dense;
+    private short[] sparseBins;
+    private int[] sparseCounts;
+
+    public VitalStatistics(VitalSignType type) {
+        this.type = type;
+        this.sparseBins = new short[0];
+        this.sparseCounts = new int[0];
+    }
+
+    /**
+     * Rebuilds stored statistics; {@code bins} are ascending and {@code binCounts} sum to {@code count}.
+     */
+    public static VitalStatistics of(VitalSignType type, long count, double min, double max, double mean, double m2,
+                                     short[] bins, int[] binCounts) {
+        VitalStatistics statistics = new VitalStatistics(type);
+        statistics.count = count;
+        statistics.min = min;
+        statistics.max = max;
+        statistics.mean = mean;
+        statistics.m2 = m2;
+        statistics.sparseBins = bins;
+        statistics.sparseCounts = binCounts;
+        return statistics;
+    }
+
+    public void add(double value) {
+        count++;
+        double delta = value - mean;
+        mean += delta / count;
+        m2 += delta * (value - mean);
+        min = count == 1 ? value : Math.min(min, value);
+        max = count == 1 ? value : Math.max(max, value);
+        inflate()[bin(value)]++;
+    }
+
+    public void merge(VitalStatistics other) {
+        if (other.count == 0) {
+            return;
+        }
+        long total = count + other.count;
+        double delta = other.mean - mean;
+        m2 += other.m2 + delta * delta * ((double) count * other.count / total);
+        mean += delta * other.count / total;
+        min = count == 0 ? other.min : Math.min(min, other.min);
+        max = count == 0 ? other.max : Math.max(max, other.max);
+        count = total;
+
+        int[] bins = inflate();
+        if (other.dense != null) {
+            for (int bin = 0; bin < BINS; bin++) {
+                bins[bin] += other.dense[bin];
+            }
+        } else {
+            for (int i = 0; i < other.sparseBins.length; i++) {
+                bins[other.sparseBins[i]] += other.sparseCounts[i];
+            }
+        }
+    }
+
+    /**
+     * Compact copy
+     */
+    public VitalStatistics copy() {
+        if (dense == null) {
+            return of(type, count, min, max, mean, m2, sparseBins.clone(), sparseCounts.clone());
+        }
+        // This one stays dense, as it is likely still being added to
+        VitalStatistics copy = of(type, count, min, max, mean, m2, null, null);
+        copy.dense = dense.clone();
+        copy.compact();
+        return copy;
+    }
+
+    /**
+     * Drops the dense histogram in favour of its non-empty bins; adding readings re-inflates it.
+     */
+    public void compact() {
+        if (dense == null) {
+            return;
+        }
+        int used = 0;
+        for (int binCount : dense) {
+            if (binCount != 0) {
+                used++;
+            }
+        }
+        sparseBins = new short[used];
+        sparseCounts = new int[used];
+        int i = 0;
+        for (int bin = 0; bin < BINS; bin++) {
+            if (dense[bin] != 0) {
+                sparseBins[i] = (short) bin;
+                sparseCounts[i++] = dense[bin];
+            }
+        }
+        dense = null;
+    }
+
+    public VitalSignType getType() {
+        return type;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * Lowest reading, or NaN if there are none
+     */
+    public double getMin() {
+        return min;
+    }
+
+    /**
+     * Highest reading, or NaN if there are none
+     */
+    public double getMax() {
+        return max;
+    }
+
+    /**
+     * Mean reading, or NaN if there are none
+     */
+    public double getMean() {
+        return count == 0 ? Double.NaN : mean;
+    }
+
+    /**
+     * Sample variance, or 0 with fewer than two readings
+     */
+    public double getVariance() {
+        return count < 2 ? 0 : m2 / (count - 1);
+    }
+
+    public double getStandardDeviation() {
+        return Math.sqrt(getVariance());
+    }
+
+    /**
+     * Sum of squared differences from the mean, as stored
+     */
+    public double getM2() {
+        return m2;
+    }
+
+    /**
+     * Reading at the given percentile (0-100), to within half a bin, or NaN if there are none.
+     */
+    public double getPercentile(double percentile) {
+        if (count == 0) {
+            return Double.NaN;
+        }
+        long rank = Math.max(1, (long) Math.ceil(count * percentile / 100));
+        long seen = 0;
+        if (dense != null) {
+            for (int bin = 0; bin < BINS; bin++) {
+                seen += dense[bin];
+                if (seen >= rank) {
+                    return clamp(midpoint(bin));
+                }
+            }
+        } else {
+            for (int i = 0; i < sparseBins.length; i++) {
+                seen += sparseCounts[i];
+                if (seen >= rank) {
+                    return clamp(midpoint(sparseBins[i]));
+                }
+            }
+        }
+        return max;
+    }
+
+    /**
+     * Non-empty histogram bins, ascending
+     */
+    public short[] getHistogramBins() {
+        compact();
+        return sparseBins;
+    }
+
+    /**
+     * Readings in each of {@link #getHistogramBins()}
+     */
+    public int[] getHistogramCounts() {
+        compact();
+        return sparseCounts;
+    }
+
+    private int[] inflate() {
+        if (dense == null) {
+            dense = new int[BINS];
+            for (int i = 0; i < sparseBins.length; i++) {
+                dense[sparseBins[i]] = sparseCounts[i];
+            }
+            sparseBins = null;
+            sparseCounts = null;
+        }
+        return dense;
+    }
+
+    private int bin(double value) {
+        double low = type.getMinPlausible();
+        int bin = (int) ((value - low) * BINS / (type.getMaxPlausible() - low));
+        return Math.max(0, Math.min(BINS - 1, bin));
+    }
+
+    private double midpoint(int bin) {
+        double low = type.getMinPlausible();
+        return low + (bin + 0.5) * (type.getMaxPlausible() - low) / BINS;
+    }
+
+    private double clamp(double value) {
+        return Math.max(min, Math.min(max, value));
+    }
+
+    @Override
+    public String toString() {
+        return "VitalStatistics{" +
+                "type=" + type +
+                ", count=" + count +
+                ", min=" + min +
+                ", max=" + max +
+                ", mean=" + getMean() +
+                ", stdDev=" + getStandardDeviation() +
+                ", p50=" + getPercentile(50) +
+                ", p95=" + getPercentile(95) +
+                '}';
+    }
+}
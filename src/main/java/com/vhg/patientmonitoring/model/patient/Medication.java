@@ -1,16 +1,70 @@
 package com.vhg.patientmonitoring.model.patient;
 
 import java.time.LocalDateTime;
+import java.util.Objects;
 
 /**
  * Represents medication information
  */
-class Medication {
+public class Medication {
     private String name;
     private String dosage;
     private String frequency;
     private LocalDateTime startDate;
     private LocalDateTime endDate;
 
-    // Constructor, getters, setters
-}
\ No newline at end of file
+    public Medication(String name, String dosage, String frequency, LocalDateTime startDate, LocalDateTime endDate) {
+        this.name = name;
+        this.dosage = dosage;
+        this.frequency = frequency;
+        this.startDate = startDate;
+        this.endDate = endDate;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getDosage() {
+        return dosage;
+    }
+
+    public String getFrequency() {
+        return frequency;
+    }
+
+    public LocalDateTime getStartDate() {
+        return startDate;
+    }
+
+    public LocalDateTime getEndDate() {
+        return endDate;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof Medication that)) {
+            return false;
+        }
+        return Objects.equals(name, that.name) && Objects.equals(dosage, that.dosage)
+                && Objects.equals(frequency, that.frequency) && Objects.equals(startDate, that.startDate)
+                && Objects.equals(endDate, that.endDate);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(name, dosage, frequency, startDate, endDate);
+    }
+
+    @Override
+    public String toString() {
+        return "Medication{" +
+                "name='" + name + '\'' +
+                ", dosage='" + dosage + '\'' +
+                ", frequency='" + frequency + '\'' +
+                '}';
+    }
+}
@@ -39,8 +39,8 @@ public class Patient {
         return patientId;
     }
 
-    public Object getMedicalHistory() {
-        return null;
+    public String getMedicalHistory() {
+        return medicalHistory;
     }
 
     public String getName() {
@@ -95,7 +95,7 @@ public class Patient {
         this.emergencyContact = emergencyContact;
     }
 
-    public Object getCurrentMedications() {
-        return null;
+    public List<Medication> getCurrentMedications() {
+        return currentMedications;
     }
 }
\ No newline at end of file
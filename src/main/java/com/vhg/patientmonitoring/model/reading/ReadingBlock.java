@@ -0,0 +1,198 @@
+package com.vhg.patientmonitoring.model.reading;
+
+import com.vhg.patientmonitoring.util.DateTimeUtils;
+import com.vhg.patientmonitoring.util.IdIndex;
+
+import java.time.ZoneId;
+import java.util.Arrays;
+
+/**
+ * Columnar, growable batch of compact readings.
+ * <p>
+ * Each reading is stored as an interned patient index, a {@link VitalSignType} ordinal, an epoch-nanos
+ * timestamp, the value and an interned device index (-1 when unknown): 25 bytes per reading in
+ * primitive arrays instead of a {@link VitalSignReading} with its strings, {@code LocalDateTime} and
+ * device reference. Use {@link #cursor()} to read it through the {@link ReadingView} flyweight.
+ */
+public class ReadingBlock {
+    private static final VitalSignType[] TYPES = VitalSignType.values();
+
+    private int[] patientIndexes;
+    private byte[] typeOrdinals;
+    private long[] epochNanos;
+    private double[] values;
+    private int[] deviceIndexes;
+    private int size;
+
+    public ReadingBlock(int initialCapacity) {
+        int capacity = Math.max(1, initialCapacity);
+        this.patientIndexes = new int[capacity];
+        this.typeOrdinals = new byte[capacity];
+        this.epochNanos = new long[capacity];
+        this.values = new double[capacity];
+        this.deviceIndexes = new int[capacity];
+    }
+
+    public void add(int patientIndex, VitalSignType type, long timestampNanos, double value, int deviceIndex) {
+        if (size == values.length) {
+            grow();
+        }
+        patientIndexes[size] = patientIndex;
+        typeOrdinals[size] = (byte) type.ordinal();
+        epochNanos[size] = timestampNanos;
+        values[size] = value;
+        deviceIndexes[size] = deviceIndex;
+        size++;
+    }
+
+    public void add(String patientId, VitalSignType type, long timestampNanos, double value) {
+        add(IdIndex.PATIENTS.indexOf(patientId), type, timestampNanos, value, -1);
+    }
+
+    public void add(VitalSignReading reading) {
+        int deviceIndex = reading.getSource() != null ? IdIndex.DEVICES.indexOf(reading.getSource().getDeviceId()) : -1;
+        add(IdIndex.PATIENTS.indexOf(reading.getPatientId()), reading.getType(), reading.getEpochNanos(),
+                reading.getValue(), deviceIndex);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public void clear() {
+        size = 0;
+    }
+
+    public int patientIndex(int i) {
+        return patientIndexes[i];
+    }
+
+    public String patientId(int i) {
+        return IdIndex.PATIENTS.idAt(patientIndexes[i]);
+    }
+
+    public int typeOrdinal(int i) {
+        return typeOrdinals[i];
+    }
+
+    public VitalSignType type(int i) {
+        return TYPES[typeOrdinals[i]];
+    }
+
+    public long epochNanos(int i) {
+        return epochNanos[i];
+    }
+
+    public double value(int i) {
+        return values[i];
+    }
+
+    public int deviceIndex(int i) {
+        return deviceIndexes[i];
+    }
+
+    /**
+     * Backing column arrays for tight batch loops; only the first {@link #size()} entries are valid.
+     */
+    public double[] values() {
+        return values;
+    }
+
+    public byte[] typeOrdinals() {
+        return typeOrdinals;
+    }
+
+    public int[] patientIndexes() {
+        return patientIndexes;
+    }
+
+    public long[] epochNanos() {
+        return epochNanos;
+    }
+
+    /**
+     * Materializes a single reading, e.g. to attach to an alert. Not meant for bulk use.
+     */
+    public VitalSignReading toReading(int i, ZoneId zone) {
+        VitalSignType type = type(i);
+        return new VitalSignReading(patientId(i), type, values[i], type.getUnit(),
+                DateTimeUtils.toLocalDateTime(epochNanos[i], zone), null);
+    }
+
+    /**
+     * Returns a reusable flyweight positioned before the first reading.
+     */
+    public Cursor cursor() {
+        return new Cursor();
+    }
+
+    private void grow() {
+        int capacity = values.length * 2;
+        patientIndexes = Arrays.copyOf(patientIndexes, capacity);
+        typeOrdinals = Arrays.copyOf(typeOrdinals, capacity);
+        epochNanos = Arrays.copyOf(epochNanos, capacity);
+        values = Arrays.copyOf(values, capacity);
+        deviceIndexes = Arrays.copyOf(deviceIndexes, capacity);
+    }
+
+    /**
+     * Flyweight {@link ReadingView} over one position of the block. Advancing it allocates nothing.
+     */
+    public final class Cursor implements ReadingView {
+        private int position = -1;
+
+        public boolean next() {
+            if (position + 1 >= size) {
+                return false;
+            }
+            position++;
+            return true;
+        }
+
+        public Cursor moveTo(int index) {
+            this.position = index;
+            return this;
+        }
+
+        public int position() {
+            return position;
+        }
+
+        @Override
+        public String getPatientId() {
+            return patientId(position);
+        }
+
+        public int getPatientIndex() {
+            return patientIndexes[position];
+        }
+
+        @Override
+        public VitalSignType getType() {
+            return type(position);
+        }
+
+        @Override
+        public double getValue() {
+            return values[position];
+        }
+
+        @Override
+        public String getUnit() {
+            return type(position).getUnit();
+        }
+
+        @Override
+        public long getEpochNanos() {
+            return epochNanos[position];
+        }
+
+        public int getDeviceIndex() {
+            return deviceIndexes[position];
+        }
+    }
+}
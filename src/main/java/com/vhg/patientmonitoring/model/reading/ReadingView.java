@@ -0,0 +1,15 @@
+package com.vhg.patientmonitoring.model.reading;
+
+/**
+ * Read-only view of a single vital sign sample.
+ * <p>
+ * Implemented both by {@link VitalSignReading} and by the {@link ReadingBlock} cursor, so consumers
+ * can work on compact readings without materializing an object per sample.
+ */
+public interface ReadingView {
+    String getPatientId();
+    VitalSignType getType();
+    double getValue();
+    String getUnit();
+    long getEpochNanos();
+}
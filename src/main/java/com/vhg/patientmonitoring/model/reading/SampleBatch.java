@@ -0,0 +1,80 @@
+package com.vhg.patientmonitoring.model.reading;
+
+import com.vhg.patientmonitoring.util.IdIndex;
+
+/**
+ * Consecutive, evenly spaced samples of one vital sign for one patient, as pushed by a streaming device.
+ * <p>
+ * Only the first timestamp and the sample interval are stored, so a second of a 500 Hz ECG channel is
+ * one object and one {@code double[]}. Discrete readings from pull devices are batches of one.
+ */
+public final class SampleBatch {
+    private final String patientId;
+    private final VitalSignType type;
+    private final String deviceId;
+    private final long startEpochNanos;
+    private final long intervalNanos;
+    private final double[] values;
+
+    /**
+     * @param values taken over by the batch; the caller must not modify them afterwards
+     */
+    public SampleBatch(String patientId, VitalSignType type, String deviceId, long startEpochNanos, long intervalNanos,
+                       double[] values) {
+        this.patientId = patientId;
+        this.type = type;
+        this.deviceId = deviceId;
+        this.startEpochNanos = startEpochNanos;
+        this.intervalNanos = intervalNanos;
+        this.values = values;
+    }
+
+    public static SampleBatch of(VitalSignReading reading) {
+        String deviceId = reading.getSource() != null ? reading.getSource().getDeviceId() : null;
+        return new SampleBatch(reading.getPatientId(), reading.getType(), deviceId, reading.getEpochNanos(), 0,
+                new double[]{reading.getValue()});
+    }
+
+    public String getPatientId() {
+        return patientId;
+    }
+
+    public VitalSignType getType() {
+        return type;
+    }
+
+    public String getDeviceId() {
+        return deviceId;
+    }
+
+    public long getStartEpochNanos() {
+        return startEpochNanos;
+    }
+
+    public long getIntervalNanos() {
+        return intervalNanos;
+    }
+
+    public int size() {
+        return values.length;
+    }
+
+    public double value(int i) {
+        return values[i];
+    }
+
+    public long epochNanos(int i) {
+        return startEpochNanos + i * intervalNanos;
+    }
+
+    /**
+     * Appends every sample to the block, interning the patient and device once for the whole batch.
+     */
+    public void appendTo(ReadingBlock block) {
+        int patientIndex = IdIndex.PATIENTS.indexOf(patientId);
+        int deviceIndex = deviceId != null ? IdIndex.DEVICES.indexOf(deviceId) : -1;
+        for (int i = 0; i < values.length; i++) {
+            block.add(patientIndex, type, epochNanos(i), values[i], deviceIndex);
+        }
+    }
+}
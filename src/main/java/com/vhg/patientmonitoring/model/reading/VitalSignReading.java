@@ -1,13 +1,16 @@
 package com.vhg.patientmonitoring.model.reading;
 
 import com.vhg.patientmonitoring.device.SensorDevice;
+import com.vhg.patientmonitoring.util.DateTimeUtils;
 
 import java.time.LocalDateTime;
+import java.time.ZoneId;
 
 /**
  * Represents a reading from a specific vital sign monitor
  */
-public class VitalSignReading {
+public class VitalSignReading implements ReadingView {
+    @Override
     public String getPatientId() {
         return patientId;
     }
@@ -18,6 +21,7 @@ public class VitalSignReading {
 
     private String patientId;
 
+    @Override
     public VitalSignType getType() {
         return type;
     }
@@ -26,6 +30,7 @@ public class VitalSignReading {
         this.type = type;
     }
 
+    @Override
     public double getValue() {
         return value;
     }
@@ -34,6 +39,7 @@ public class VitalSignReading {
         this.value = value;
     }
 
+    @Override
     public String getUnit() {
         return unit;
     }
@@ -46,6 +52,11 @@ public class VitalSignReading {
         return timestamp;
     }
 
+    @Override
+    public long getEpochNanos() {
+        return DateTimeUtils.toEpochNanos(timestamp, ZoneId.systemDefault());
+    }
+
     public void setTimestamp(LocalDateTime timestamp) {
         this.timestamp = timestamp;
     }
@@ -74,4 +85,13 @@ public class VitalSignReading {
         this.timestamp = LocalDateTime.now();
         this.source = source;
     }
+
+    public VitalSignReading(String patientId, VitalSignType type, double value, String unit, LocalDateTime timestamp, SensorDevice source) {
+        this.patientId = patientId;
+        this.type = type;
+        this.value = value;
+        this.unit = unit;
+        this.timestamp = timestamp;
+        this.source = source;
+    }
 }
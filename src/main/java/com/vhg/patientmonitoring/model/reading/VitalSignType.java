@@ -4,12 +4,61 @@ package com.vhg.patientmonitoring.model.reading;
  * Enum representing different types of vital signs
  */
 public enum VitalSignType {
-    HEART_RATE,
-    BLOOD_PRESSURE,
-    BLOOD_OXYGEN,
-    TEMPERATURE,
-    RESPIRATORY_RATE,
-    BLOOD_GLUCOSE,
-    ECG,
-    EEG
-}
\ No newline at end of file
+    HEART_RATE("bpm", 75, 0, 350),
+    BLOOD_PRESSURE("mmHg", 120, 0, 350),
+    BLOOD_OXYGEN("%", 98, 0, 100),
+    TEMPERATURE("°C", 37, 20, 46),
+    RESPIRATORY_RATE("breaths/min", 16, 0, 120),
+    BLOOD_GLUCOSE("mg/dL", 100, 0, 2000),
+    ECG("mV", 0, -50, 50),
+    EEG("µV", 0, -10_000, 10_000);
+
+    private final String unit;
+    private final double typicalValue;
+    private final double minPlausible;
+    private final double maxPlausible;
+
+    VitalSignType(String unit, double typicalValue, double minPlausible, double maxPlausible) {
+        this.unit = unit;
+        this.typicalValue = typicalValue;
+        this.minPlausible = minPlausible;
+        this.maxPlausible = maxPlausible;
+    }
+
+    /**
+     * Unit readings of this type are reported in. Compact readings don't carry a unit and use this one.
+     */
+    public String getUnit() {
+        return unit;
+    }
+
+    /**
+     * Typical resting value for an adult; how far a reading is from it tells how extreme the reading is.
+     */
+    public double getTypicalValue() {
+        return typicalValue;
+    }
+
+    /**
+     * Whether the value can be a real measurement, in this type's unit, rather than a sensor or entry error.
+     * The range is wide on purpose: extreme but possible values must still reach the alerting rules.
+     */
+    public boolean isPlausible(double value) {
+        return value >= minPlausible && value <= maxPlausible;
+    }
+
+    public double getMinPlausible() {
+        return minPlausible;
+    }
+
+    public double getMaxPlausible() {
+        return maxPlausible;
+    }
+
+    /**
+     * Whether this is a continuously sampled waveform rather than a discrete measurement.
+     */
+    public boolean isWaveform() {
+        return this == ECG || this == EEG;
+    }
+}
@@ -0,0 +1,61 @@
+package com.vhg.patientmonitoring.repository;
+
+/**
+ * Keyset position in a patient's alert history: the (timestamp, alert id) of the last alert returned.
+ * <p>
+ * Alerts are ordered by the time they were raised, then by id, which makes the key unique; the next
+ * page starts strictly after it however many alerts were raised in between. Clients get it as an
+ * opaque token.
+ */
+public final class AlertCursor {
+    private static final char SEPARATOR = '.';
+
+    private final long epochNanos;
+    private final String alertId;
+
+    public AlertCursor(long epochNanos, String alertId) {
+        this.epochNanos = epochNanos;
+        this.alertId = alertId;
+    }
+
+    /**
+     * Parses a token produced by {@link #encode()}.
+     *
+     * @throws IllegalArgumentException if the token is malformed
+     */
+    public static AlertCursor decode(String token) {
+        int separator = token.indexOf(SEPARATOR);
+        if (separator <= 0 || separator == token.length() - 1) {
+            throw new IllegalArgumentException("Malformed cursor: " + token);
+        }
+        try {
+            return new AlertCursor(Long.parseLong(token.substring(0, separator)), token.substring(separator + 1));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Malformed cursor: " + token, e);
+        }
+    }
+
+    public String encode() {
+        return Long.toString(epochNanos) + SEPARATOR + alertId;
+    }
+
+    public long getEpochNanos() {
+        return epochNanos;
+    }
+
+    public String getAlertId() {
+        return alertId;
+    }
+
+    /**
+     * True if an alert raised at this time with this id comes after the cursor
+     */
+    public boolean isBefore(long alertEpochNanos, String otherAlertId) {
+        return alertEpochNanos > epochNanos || (alertEpochNanos == epochNanos && otherAlertId.compareTo(alertId) > 0);
+    }
+
+    @Override
+    public String toString() {
+        return encode();
+    }
+}
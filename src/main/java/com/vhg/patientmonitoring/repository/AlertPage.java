@@ -0,0 +1,67 @@
+package com.vhg.patientmonitoring.repository;
+
+import com.vhg.patientmonitoring.model.alert.Alert;
+import com.vhg.patientmonitoring.util.DateTimeUtils;
+
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * One page of a patient's alert history, ordered by the time each alert was raised then by id, with
+ * the cursor to continue from ({@code null} on the last page).
+ */
+public final class AlertPage {
+    private final List<Alert> alerts;
+    private final AlertCursor nextCursor;
+
+    public AlertPage(List<Alert> alerts, AlertCursor nextCursor) {
+        this.alerts = alerts;
+        this.nextCursor = nextCursor;
+    }
+
+    /**
+     * Selects one page from alerts held in memory: those raised in [fromNanos, toNanos) after the
+     * cursor, sorted, cut to {@code limit}.
+     */
+    public static AlertPage select(List<Alert> source, long fromNanos, long toNanos, AlertCursor after, int limit) {
+        List<Alert> matching = new ArrayList<>();
+        for (Alert alert : source) {
+            long epochNanos = epochNanos(alert);
+            if (epochNanos >= fromNanos && epochNanos < toNanos
+                    && (after == null || after.isBefore(epochNanos, alert.getAlertId()))) {
+                matching.add(alert);
+            }
+        }
+        matching.sort(Comparator.comparingLong(AlertPage::epochNanos).thenComparing(Alert::getAlertId));
+
+        int size = Math.min(matching.size(), Math.max(1, limit));
+        List<Alert> page = new ArrayList<>(matching.subList(0, size));
+        AlertCursor next = null;
+        if (matching.size() > size) {
+            Alert last = page.get(size - 1);
+            next = new AlertCursor(epochNanos(last), last.getAlertId());
+        }
+        return new AlertPage(page, next);
+    }
+
+    /**
+     * When the alert was raised; alert timestamps are local to the system's zone
+     */
+    public static long epochNanos(Alert alert) {
+        return DateTimeUtils.toEpochNanos(alert.getTimestamp(), ZoneId.systemDefault());
+    }
+
+    public List<Alert> getAlerts() {
+        return alerts;
+    }
+
+    public AlertCursor getNextCursor() {
+        return nextCursor;
+    }
+
+    public boolean hasMore() {
+        return nextCursor != null;
+    }
+}
@@ -4,13 +4,44 @@ import com.vhg.patientmonitoring.model.alert.Alert;
 import com.vhg.patientmonitoring.model.alert.AlertStatus;
 
 import java.util.List;
+import java.util.function.Consumer;
 
 /**
  * Interface for alert storage and management
  */
 public interface AlertRepository {
+    int EXPORT_PAGE_SIZE = 1000;
+
+    /**
+     * Stores the alert. An escalated alert is stored again under its id and replaces the earlier version.
+     */
     void addAlert(Alert alert);
     List<Alert> getPendingAlerts();
     List<Alert> getAlertsForPatient(String patientId);
     void updateAlertStatus(String alertId, AlertStatus newStatus);
-}
\ No newline at end of file
+
+    /**
+     * Up to {@code limit} of the alerts raised for the patient in [fromNanos, toNanos) that come after
+     * the cursor ({@code null} for the first page), ordered by timestamp then alert id.
+     * <p>
+     * The default selects from {@link #getAlertsForPatient(String)} and is only suitable for stores
+     * that hold little history; database-backed stores seek on the key instead.
+     */
+    default AlertPage getAlertsPage(String patientId, long fromNanos, long toNanos, AlertCursor after, int limit) {
+        return AlertPage.select(getAlertsForPatient(patientId), fromNanos, toNanos, after, limit);
+    }
+
+    /**
+     * Hands the alerts raised for the patient in [fromNanos, toNanos) to {@code action} one at a time,
+     * in {@link #getAlertsPage} order. Memory use does not grow with the range: the default walks it
+     * page by page.
+     */
+    default void forEachAlert(String patientId, long fromNanos, long toNanos, Consumer<Alert> action) {
+        AlertCursor after = null;
+        do {
+            AlertPage page = getAlertsPage(patientId, fromNanos, toNanos, after, EXPORT_PAGE_SIZE);
+            page.getAlerts().forEach(action);
+            after = page.getNextCursor();
+        } while (after != null);
+    }
+}
@@ -0,0 +1,76 @@
+package com.vhg.patientmonitoring.repository;
+
+import com.vhg.patientmonitoring.model.reading.VitalSignType;
+
+/**
+ * Keyset position in a patient's reading history: the (timestamp, type, row id) of the last reading
+ * returned.
+ * <p>
+ * Readings are ordered by timestamp, then type, then row id, so the next page starts strictly after
+ * this key no matter how many readings were written or purged in between. Two devices can report the
+ * same type at the same instant, which is why the row id is part of the key. What a row id is belongs
+ * to the store that issued the cursor: the database row's id, or the reading's position among those
+ * with the same timestamp and type in memory. Clients get the cursor as an opaque token.
+ */
+public final class ReadingCursor {
+    private static final char SEPARATOR = '.';
+
+    private final long epochNanos;
+    private final VitalSignType type;
+    private final String rowId;
+
+    public ReadingCursor(long epochNanos, VitalSignType type, String rowId) {
+        this.epochNanos = epochNanos;
+        this.type = type;
+        this.rowId = rowId;
+    }
+
+    /**
+     * Parses a token produced by {@link #encode()}.
+     *
+     * @throws IllegalArgumentException if the token is malformed
+     */
+    public static ReadingCursor decode(String token) {
+        int first = token.indexOf(SEPARATOR);
+        int second = first > 0 ? token.indexOf(SEPARATOR, first + 1) : -1;
+        if (second < 0 || second == token.length() - 1 || token.indexOf(SEPARATOR, second + 1) >= 0) {
+            throw new IllegalArgumentException("Malformed cursor: " + token);
+        }
+        try {
+            return new ReadingCursor(Long.parseLong(token.substring(0, first)),
+                    VitalSignType.valueOf(token.substring(first + 1, second)), token.substring(second + 1));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Malformed cursor: " + token, e);
+        }
+    }
+
+    public String encode() {
+        return Long.toString(epochNanos) + SEPARATOR + type.name() + SEPARATOR + rowId;
+    }
+
+    public long getEpochNanos() {
+        return epochNanos;
+    }
+
+    public VitalSignType getType() {
+        return type;
+    }
+
+    public String getRowId() {
+        return rowId;
+    }
+
+    /**
+     * Compares a reading's (timestamp, type) with the cursor's: positive if the reading comes later,
+     * zero if the row id has to decide. Types are compared by name.
+     */
+    public int compareKey(long readingEpochNanos, VitalSignType readingType) {
+        int byTime = Long.compare(readingEpochNanos, epochNanos);
+        return byTime != 0 ? byTime : readingType.name().compareTo(type.name());
+    }
+
+    @Override
+    public String toString() {
+        return encode();
+    }
+}
@@ -0,0 +1,86 @@
+package com.vhg.patientmonitoring.repository;
+
+import com.vhg.patientmonitoring.model.reading.ReadingBlock;
+import com.vhg.patientmonitoring.model.reading.VitalSignType;
+
+import java.util.Arrays;
+import java.util.Comparator;
+
+/**
+ * One page of a patient's reading history, ordered by timestamp then type, with the cursor to
+ * continue from ({@code null} on the last page).
+ */
+public final class ReadingPage {
+    private final ReadingBlock readings;
+    private final ReadingCursor nextCursor;
+
+    public ReadingPage(ReadingBlock readings, ReadingCursor nextCursor) {
+        this.readings = readings;
+        this.nextCursor = nextCursor;
+    }
+
+    /**
+     * Selects one page from readings held in memory: those of the type ({@code null} for any) in
+     * [fromNanos, toNanos) after the cursor, sorted, cut to {@code limit}. Readings sharing a timestamp and type keep their order in
+     * {@code source}, and a reading's row id is its position among them.
+     */
+    public static ReadingPage select(ReadingBlock source, VitalSignType type, long fromNanos, long toNanos,
+                                     ReadingCursor after, int limit) {
+        Integer[] inRange = new Integer[source.size()];
+        int count = 0;
+        for (int i = 0; i < source.size(); i++) {
+            long epochNanos = source.epochNanos(i);
+            if (epochNanos >= fromNanos && epochNanos < toNanos && (type == null || source.type(i) == type)
+                    && (after == null || after.compareKey(epochNanos, source.type(i)) >= 0)) {
+                inRange[count++] = i;
+            }
+        }
+        // Stable, so equal keys stay in source order
+        Arrays.sort(inRange, 0, count, Comparator.<Integer>comparingLong(source::epochNanos)
+                .thenComparing(i -> source.type(i).name()));
+
+        int afterOrdinal = after != null ? ordinal(after) : -1;
+        int pageSize = Math.max(1, limit);
+        ReadingBlock page = new ReadingBlock(Math.min(count, pageSize));
+        int ordinal = 0;
+        int lastOrdinal = 0;
+        for (int n = 0; n < count; n++) {
+            int i = inRange[n];
+            boolean sameKey = n > 0 && source.epochNanos(inRange[n - 1]) == source.epochNanos(i)
+                    && source.type(inRange[n - 1]) == source.type(i);
+            ordinal = sameKey ? ordinal + 1 : 0;
+            if (after != null && after.compareKey(source.epochNanos(i), source.type(i)) == 0
+                    && ordinal <= afterOrdinal) {
+                continue;
+            }
+            if (page.size() == pageSize) {
+                int last = page.size() - 1;
+                return new ReadingPage(page, new ReadingCursor(page.epochNanos(last), page.type(last),
+                        Integer.toString(lastOrdinal)));
+            }
+            page.add(source.patientIndex(i), source.type(i), source.epochNanos(i), source.value(i), source.deviceIndex(i));
+            lastOrdinal = ordinal;
+        }
+        return new ReadingPage(page, null);
+    }
+
+    private static int ordinal(ReadingCursor cursor) {
+        try {
+            return Integer.parseInt(cursor.getRowId());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Malformed cursor: " + cursor, e);
+        }
+    }
+
+    public ReadingBlock getReadings() {
+        return readings;
+    }
+
+    public ReadingCursor getNextCursor() {
+        return nextCursor;
+    }
+
+    public boolean hasMore() {
+        return nextCursor != null;
+    }
+}
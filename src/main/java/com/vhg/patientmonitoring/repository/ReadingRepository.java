@@ -1,16 +1,96 @@
 package com.vhg.patientmonitoring.repository;
 
+import com.vhg.patientmonitoring.model.reading.ReadingBlock;
+import com.vhg.patientmonitoring.model.reading.ReadingView;
 import com.vhg.patientmonitoring.model.reading.VitalSignReading;
 import com.vhg.patientmonitoring.model.reading.VitalSignType;
+import com.vhg.patientmonitoring.util.DateTimeUtils;
 
+import java.time.Instant;
+import java.time.ZoneId;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 
 /**
  * Interface for vital sign readings storage
  */
 public interface ReadingRepository {
+    int EXPORT_PAGE_SIZE = 1000;
+
     void addReading(VitalSignReading reading);
     List<VitalSignReading> getReadingsForPatient(String patientId, int timeWindowMinutes);
     List<VitalSignReading> getReadingsForPatientByType(String patientId, VitalSignType type, int timeWindowMinutes);
     void purgeOldReadings(int daysToKeep);
-}
\ No newline at end of file
+
+    /**
+     * Stores a block of compact readings. Implementations with primitive storage should override this
+     * to avoid materializing a {@link VitalSignReading} per sample.
+     */
+    default void addReadings(ReadingBlock block) {
+        for (int i = 0; i < block.size(); i++) {
+            addReading(block.toReading(i, ZoneId.systemDefault()));
+        }
+    }
+
+    /**
+     * Stores readings older than ones already stored for their patient and type, e.g. a bulk upload of
+     * history. They belong only where history is kept: a store that holds recent readings in time order
+     * should leave them out rather than mix them in. The default stores them like any others.
+     */
+    default void addHistoricalReadings(ReadingBlock block) {
+        addReadings(block);
+    }
+
+    /**
+     * Whether {@link #addHistoricalReadings} keeps what it is given, so callers can tell uploaders which
+     * readings were stored.
+     */
+    default boolean keepsHistoricalReadings() {
+        return true;
+    }
+
+    /**
+     * Same window as {@link #getReadingsForPatient(String, int)}, returned as a compact block.
+     */
+    default ReadingBlock getReadingBlockForPatient(String patientId, int timeWindowMinutes) {
+        List<VitalSignReading> readings = getReadingsForPatient(patientId, timeWindowMinutes);
+        ReadingBlock block = new ReadingBlock(readings.size());
+        for (VitalSignReading reading : readings) {
+            block.add(reading);
+        }
+        return block;
+    }
+
+    /**
+     * Up to {@code limit} of the patient's readings of the given type ({@code null} for every type) in
+     * [fromNanos, toNanos) that come after the cursor ({@code null} for the first page), ordered by
+     * timestamp, then type name, then row id (see {@link ReadingCursor}).
+     * <p>
+     * The default loads the whole range through {@link #getReadingBlockForPatient(String, int)} and is
+     * only suitable for stores that hold little history; database-backed stores seek on the key instead.
+     */
+    default ReadingPage getReadingsPage(String patientId, VitalSignType type, long fromNanos, long toNanos,
+                                        ReadingCursor after, int limit) {
+        long ageNanos = DateTimeUtils.toEpochNanos(Instant.now()) - fromNanos;
+        int windowMinutes = (int) Math.min(Integer.MAX_VALUE, TimeUnit.NANOSECONDS.toMinutes(ageNanos) + 1);
+        return ReadingPage.select(getReadingBlockForPatient(patientId, windowMinutes), type, fromNanos, toNanos, after, limit);
+    }
+
+    /**
+     * Hands the patient's readings of every type in [fromNanos, toNanos) to {@code action} one at a
+     * time, in {@link #getReadingsPage} order. The view passed in may be a reused flyweight, so copy what you
+     * keep. Memory use does not grow with the range: the default walks it page by page.
+     */
+    default void forEachReading(String patientId, long fromNanos, long toNanos, Consumer<ReadingView> action) {
+        ReadingCursor after = null;
+        do {
+            ReadingPage page = getReadingsPage(patientId, null, fromNanos, toNanos, after, EXPORT_PAGE_SIZE);
+            ReadingBlock.Cursor cursor = page.getReadings().cursor();
+            while (cursor.next()) {
+                action.accept(cursor);
+            }
+            after = page.getNextCursor();
+        } while (after != null);
+    }
+}
@@ -0,0 +1,27 @@
+package com.vhg.patientmonitoring.repository;
+
+import com.vhg.patientmonitoring.model.analytics.Rollup;
+import com.vhg.patientmonitoring.model.analytics.RollupGranularity;
+import com.vhg.patientmonitoring.model.reading.VitalSignType;
+
+import java.util.List;
+
+/**
+ * Interface for storage of pre-aggregated reading rollups
+ */
+public interface RollupRepository {
+    /**
+     * Stores the rollups, each replacing any stored for the same patient, type, granularity and bucket.
+     */
+    void saveRollups(List<Rollup> rollups);
+
+    /**
+     * Rollups whose bucket starts in [fromNanos, toNanos), oldest first.
+     */
+    List<Rollup> getRollups(String patientId, VitalSignType type, RollupGranularity granularity, long fromNanos, long toNanos);
+
+    /**
+     * Drops rollups of the granularity whose bucket starts before the cutoff.
+     */
+    void purgeRollups(RollupGranularity granularity, long beforeNanos);
+}
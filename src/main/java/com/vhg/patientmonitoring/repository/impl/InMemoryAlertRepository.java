@@ -0,0 +1,235 @@
+package com.vhg.patientmonitoring.repository.impl;
+
+import com.vhg.patientmonitoring.model.alert.Alert;
+import com.vhg.patientmonitoring.model.alert.AlertSeverity;
+import com.vhg.patientmonitoring.model.alert.AlertStatus;
+import com.vhg.patientmonitoring.repository.AlertRepository;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * In-memory alert store indexed by status and severity, and by patient.
+ * <p>
+ * Queries read only their index bucket, so listing the pending alerts costs the number of pending
+ * alerts, however much history is kept. Status changes move an alert between buckets under one of a
+ * fixed set of lock stripes chosen by alert id, so transitions of different alerts rarely contend and
+ * readers never lock. Open alerts (pending or acknowledged) are always kept; of the closed ones
+ * (resolved or false alarms) only the most recently closed {@code maxClosedAlerts} are, which bounds
+ * memory when a durable store holds the full history.
+ */
+public class InMemoryAlertRepository implements AlertRepository {
+    public static final int DEFAULT_MAX_CLOSED_ALERTS = 100_000;
+
+    private static final int STRIPES = 64;
+    private static final AlertSeverity[] MOST_SEVERE_FIRST = {
+            AlertSeverity.CRITICAL, AlertSeverity.HIGH, AlertSeverity.MEDIUM, AlertSeverity.LOW};
+
+    private final int maxClosedAlerts;
+    private final Map<String, Entry> alerts = new ConcurrentHashMap<>();
+    private final Map<AlertStatus, Map<AlertSeverity, Set<Entry>>> byStatusAndSeverity = new EnumMap<>(AlertStatus.class);
+    private final Map<String, Set<Entry>> byPatient = new ConcurrentHashMap<>();
+    // Closed alerts in the order they were closed; the oldest are evicted beyond the bound
+    private final ConcurrentLinkedQueue<Entry> closed = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger closedCount = new AtomicInteger();
+    private final Object[] stripes = new Object[STRIPES];
+
+    public InMemoryAlertRepository() {
+        this(DEFAULT_MAX_CLOSED_ALERTS);
+    }
+
+    public InMemoryAlertRepository(int maxClosedAlerts) {
+        this.maxClosedAlerts = maxClosedAlerts;
+        for (AlertStatus status : AlertStatus.values()) {
+            Map<AlertSeverity, Set<Entry>> bySeverity = new EnumMap<>(AlertSeverity.class);
+            for (AlertSeverity severity : AlertSeverity.values()) {
+                bySeverity.put(severity, ConcurrentHashMap.newKeySet());
+            }
+            byStatusAndSeverity.put(status, bySeverity);
+        }
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new Object();
+        }
+    }
+
+    @Override
+    public void addAlert(Alert alert) {
+        Entry entry;
+        synchronized (stripe(alert.getAlertId())) {
+            entry = alerts.get(alert.getAlertId());
+            if (entry == null) {
+                entry = new Entry(alert);
+                alerts.put(alert.getAlertId(), entry);
+                byPatient.computeIfAbsent(alert.getPatientId(), id -> ConcurrentHashMap.newKeySet()).add(entry);
+            } else {
+                // A new version of a stored alert, e.g. escalated; its severity may have changed
+                unindex(entry);
+                entry.alert = alert;
+            }
+            entry.status = alert.getStatus();
+            entry.severity = alert.getSeverity();
+            index(entry);
+        }
+        if (isClosed(entry.status)) {
+            closed(entry);
+        }
+    }
+
+    /**
+     * Pending alerts, most severe first.
+     */
+    @Override
+    public List<Alert> getPendingAlerts() {
+        return getAlertsByStatus(AlertStatus.PENDING);
+    }
+
+    /**
+     * Alerts with the status, most severe first.
+     */
+    public List<Alert> getAlertsByStatus(AlertStatus status) {
+        List<Alert> result = new ArrayList<>();
+        for (AlertSeverity severity : MOST_SEVERE_FIRST) {
+            collect(byStatusAndSeverity.get(status).get(severity), result);
+        }
+        return result;
+    }
+
+    public List<Alert> getAlerts(AlertStatus status, AlertSeverity severity) {
+        List<Alert> result = new ArrayList<>();
+        collect(byStatusAndSeverity.get(status).get(severity), result);
+        return result;
+    }
+
+    public int countAlerts(AlertStatus status) {
+        int count = 0;
+        for (Set<Entry> entries : byStatusAndSeverity.get(status).values()) {
+            count += entries.size();
+        }
+        return count;
+    }
+
+    /**
+     * The patient's alerts still held in memory, oldest first.
+     */
+    @Override
+    public List<Alert> getAlertsForPatient(String patientId) {
+        List<Alert> result = new ArrayList<>();
+        collect(byPatient.getOrDefault(patientId, Set.of()), result);
+        result.sort(Comparator.comparing(Alert::getTimestamp));
+        return result;
+    }
+
+    /**
+     * Everything held fits in memory already, so the range is taken as a single page.
+     */
+    @Override
+    public void forEachAlert(String patientId, long fromNanos, long toNanos, Consumer<Alert> action) {
+        getAlertsPage(patientId, fromNanos, toNanos, null, Integer.MAX_VALUE).getAlerts().forEach(action);
+    }
+
+    public Alert getAlert(String alertId) {
+        Entry entry = alerts.get(alertId);
+        return entry != null ? entry.alert : null;
+    }
+
+    /**
+     * Moves the alert to the new status. Unknown ids (never stored here, or evicted) are ignored.
+     */
+    @Override
+    public void updateAlertStatus(String alertId, AlertStatus newStatus) {
+        Entry entry = alerts.get(alertId);
+        if (entry == null) {
+            return;
+        }
+        boolean closing;
+        synchronized (stripe(alertId)) {
+            if (entry.evicted || entry.status == newStatus) {
+                return;
+            }
+            closing = !isClosed(entry.status) && isClosed(newStatus);
+            unindex(entry);
+            entry.status = newStatus;
+            entry.alert.setStatus(newStatus);
+            index(entry);
+        }
+        if (closing) {
+            closed(entry);
+        }
+    }
+
+    public int size() {
+        return alerts.size();
+    }
+
+    private void closed(Entry entry) {
+        closed.add(entry);
+        if (closedCount.incrementAndGet() <= maxClosedAlerts) {
+            return;
+        }
+        while (closedCount.get() > maxClosedAlerts) {
+            Entry oldest = closed.poll();
+            if (oldest == null) {
+                return;
+            }
+            closedCount.decrementAndGet();
+            synchronized (stripe(oldest.alert.getAlertId())) {
+                // Reopened since it was closed, or closed twice and already gone
+                if (oldest.evicted || !isClosed(oldest.status)) {
+                    continue;
+                }
+                oldest.evicted = true;
+                unindex(oldest);
+                alerts.remove(oldest.alert.getAlertId());
+                Set<Entry> forPatient = byPatient.get(oldest.alert.getPatientId());
+                if (forPatient != null) {
+                    forPatient.remove(oldest);
+                }
+            }
+        }
+    }
+
+    private void index(Entry entry) {
+        byStatusAndSeverity.get(entry.status).get(entry.severity).add(entry);
+    }
+
+    private void unindex(Entry entry) {
+        byStatusAndSeverity.get(entry.status).get(entry.severity).remove(entry);
+    }
+
+    private Object stripe(String alertId) {
+        int hash = alertId.hashCode();
+        return stripes[(hash ^ (hash >>> 16)) & (STRIPES - 1)];
+    }
+
+    private static void collect(Set<Entry> entries, List<Alert> result) {
+        for (Entry entry : entries) {
+            result.add(entry.alert);
+        }
+    }
+
+    private static boolean isClosed(AlertStatus status) {
+        return status == AlertStatus.RESOLVED || status == AlertStatus.FALSE_ALARM;
+    }
+
+    /**
+     * A stored alert and the index bucket it is in; mutated under its stripe
+     */
+    private static final class Entry {
+        private volatile Alert alert;
+        private AlertStatus status;
+        private AlertSeverity severity;
+        private boolean evicted;
+
+        private Entry(Alert alert) {
+            this.alert = alert;
+        }
+    }
+}
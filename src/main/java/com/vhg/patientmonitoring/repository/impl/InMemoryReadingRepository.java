@@ -0,0 +1,203 @@
+package com.vhg.patientmonitoring.repository.impl;
+
+import com.vhg.patientmonitoring.model.reading.ReadingBlock;
+import com.vhg.patientmonitoring.model.reading.ReadingView;
+import com.vhg.patientmonitoring.model.reading.VitalSignReading;
+import com.vhg.patientmonitoring.model.reading.VitalSignType;
+import com.vhg.patientmonitoring.repository.ReadingCursor;
+import com.vhg.patientmonitoring.repository.ReadingPage;
+import com.vhg.patientmonitoring.repository.ReadingRepository;
+import com.vhg.patientmonitoring.util.DateTimeUtils;
+import com.vhg.patientmonitoring.util.IdIndex;
+
+import java.time.Clock;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Consumer;
+
+/**
+ * In-memory reading store backed by one fixed-capacity {@link ReadingRing} per (patient, vital sign type).
+ * <p>
+ * Appends and window queries are lock-free. Each ring takes one writer at a time, so callers must not
+ * append for the same patient concurrently; {@code PatientMonitoringSystem} holds a per-patient lock
+ * around its monitoring cycle's and streaming devices' appends. Once a ring is full the
+ * oldest samples are overwritten, and {@link #purgeOldReadings(int)} just moves a retention floor.
+ */
+public class InMemoryReadingRepository implements ReadingRepository {
+    public static final int DEFAULT_CAPACITY = 4096;
+
+    private static final VitalSignType[] TYPES = VitalSignType.values();
+
+    private final Map<String, AtomicReferenceArray<ReadingRing>> rings = new ConcurrentHashMap<>();
+    private final int capacity;
+    private final Clock clock;
+    private final ZoneId zone;
+    private volatile long retentionFloorNanos = Long.MIN_VALUE;
+
+    public InMemoryReadingRepository() {
+        this(DEFAULT_CAPACITY, Clock.systemDefaultZone());
+    }
+
+    /**
+     * @param capacity samples kept per (patient, type); must be a power of two
+     */
+    public InMemoryReadingRepository(int capacity, Clock clock) {
+        this.capacity = capacity;
+        this.clock = clock;
+        this.zone = clock.getZone();
+    }
+
+    @Override
+    public void addReading(VitalSignReading reading) {
+        ReadingRing ring = ringFor(reading.getPatientId(), reading.getType());
+        if (ring.getUnit() == null) {
+            ring.setUnit(reading.getUnit());
+        }
+        ring.append(DateTimeUtils.toEpochNanos(reading.getTimestamp(), zone), reading.getValue());
+    }
+
+    @Override
+    public void addReadings(ReadingBlock block) {
+        for (int i = 0; i < block.size(); i++) {
+            VitalSignType type = block.type(i);
+            ReadingRing ring = ringFor(block.patientId(i), type);
+            if (ring.getUnit() == null) {
+                ring.setUnit(type.getUnit());
+            }
+            ring.append(block.epochNanos(i), block.value(i));
+        }
+    }
+
+    /**
+     * Not kept: the rings hold recent samples in time order, and windows end at the first older one.
+     */
+    @Override
+    public void addHistoricalReadings(ReadingBlock block) {
+    }
+
+    @Override
+    public boolean keepsHistoricalReadings() {
+        return false;
+    }
+
+    @Override
+    public List<VitalSignReading> getReadingsForPatient(String patientId, int timeWindowMinutes) {
+        AtomicReferenceArray<ReadingRing> patientRings = rings.get(patientId);
+        if (patientRings == null) {
+            return new ArrayList<>();
+        }
+
+        long fromNanos = windowStart(timeWindowMinutes);
+        List<VitalSignReading> readings = new ArrayList<>();
+        for (VitalSignType type : TYPES) {
+            ReadingRing ring = patientRings.get(type.ordinal());
+            if (ring != null) {
+                materialize(patientId, type, ring, ring.window(fromNanos), readings);
+            }
+        }
+        readings.sort(Comparator.comparing(VitalSignReading::getTimestamp));
+        return readings;
+    }
+
+    @Override
+    public List<VitalSignReading> getReadingsForPatientByType(String patientId, VitalSignType type, int timeWindowMinutes) {
+        List<VitalSignReading> readings = new ArrayList<>();
+        AtomicReferenceArray<ReadingRing> patientRings = rings.get(patientId);
+        ReadingRing ring = patientRings != null ? patientRings.get(type.ordinal()) : null;
+        if (ring != null) {
+            materialize(patientId, type, ring, ring.window(windowStart(timeWindowMinutes)), readings);
+        }
+        return readings;
+    }
+
+    /**
+     * Copies the window straight from the rings into a block, grouped by type and oldest first within a type.
+     */
+    @Override
+    public ReadingBlock getReadingBlockForPatient(String patientId, int timeWindowMinutes) {
+        return copyFrom(patientId, windowStart(timeWindowMinutes));
+    }
+
+    /**
+     * Sorts just the part of the rings from {@code fromNanos} on; the rings bound how much that can be.
+     */
+    @Override
+    public ReadingPage getReadingsPage(String patientId, VitalSignType type, long fromNanos, long toNanos,
+                                       ReadingCursor after, int limit) {
+        ReadingBlock held = copyFrom(patientId, Math.max(fromNanos, retentionFloorNanos));
+        return ReadingPage.select(held, type, fromNanos, toNanos, after, limit);
+    }
+
+    /**
+     * Everything held fits in memory already, so the range is taken as a single page.
+     */
+    @Override
+    public void forEachReading(String patientId, long fromNanos, long toNanos, Consumer<ReadingView> action) {
+        ReadingBlock.Cursor cursor = getReadingsPage(patientId, null, fromNanos, toNanos, null, Integer.MAX_VALUE)
+                .getReadings().cursor();
+        while (cursor.next()) {
+            action.accept(cursor);
+        }
+    }
+
+    /**
+     * Moves the retention floor; older samples become invisible immediately and their slots are
+     * reused by later appends. Constant time regardless of how much data is stored.
+     */
+    @Override
+    public void purgeOldReadings(int daysToKeep) {
+        retentionFloorNanos = DateTimeUtils.nowEpochNanos(clock) - TimeUnit.DAYS.toNanos(daysToKeep);
+    }
+
+    private ReadingBlock copyFrom(String patientId, long fromNanos) {
+        AtomicReferenceArray<ReadingRing> patientRings = rings.get(patientId);
+        if (patientRings == null) {
+            return new ReadingBlock(0);
+        }
+
+        int patientIndex = IdIndex.PATIENTS.indexOf(patientId);
+        ReadingBlock block = new ReadingBlock(64);
+        for (VitalSignType type : TYPES) {
+            ReadingRing ring = patientRings.get(type.ordinal());
+            if (ring == null) {
+                continue;
+            }
+            ReadingRing.Window window = ring.window(fromNanos);
+            for (int i = window.offset; i < window.offset + window.length; i++) {
+                block.add(patientIndex, type, window.timestamps[i], window.values[i], -1);
+            }
+        }
+        return block;
+    }
+
+    private ReadingRing ringFor(String patientId, VitalSignType type) {
+        AtomicReferenceArray<ReadingRing> patientRings =
+                rings.computeIfAbsent(patientId, id -> new AtomicReferenceArray<>(TYPES.length));
+        ReadingRing ring = patientRings.get(type.ordinal());
+        if (ring == null) {
+            ReadingRing created = new ReadingRing(capacity);
+            ring = patientRings.compareAndSet(type.ordinal(), null, created) ? created : patientRings.get(type.ordinal());
+        }
+        return ring;
+    }
+
+    private long windowStart(int timeWindowMinutes) {
+        long fromNanos = DateTimeUtils.nowEpochNanos(clock) - TimeUnit.MINUTES.toNanos(timeWindowMinutes);
+        return Math.max(fromNanos, retentionFloorNanos);
+    }
+
+    private void materialize(String patientId, VitalSignType type, ReadingRing ring, ReadingRing.Window window,
+                             List<VitalSignReading> into) {
+        String unit = ring.getUnit();
+        for (int i = window.offset; i < window.offset + window.length; i++) {
+            into.add(new VitalSignReading(patientId, type, window.values[i], unit,
+                    DateTimeUtils.toLocalDateTime(window.timestamps[i], zone), null));
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package com.vhg.patientmonitoring.repository.impl;
+
+import com.vhg.patientmonitoring.model.analytics.Rollup;
+import com.vhg.patientmonitoring.model.analytics.RollupGranularity;
+import com.vhg.patientmonitoring.model.reading.VitalSignType;
+import com.vhg.patientmonitoring.repository.RollupRepository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * In-memory rollup store: one map per (patient, type, granularity), ordered by bucket start.
+ */
+public class InMemoryRollupRepository implements RollupRepository {
+    private final Map<String, NavigableMap<Long, Rollup>> series = new ConcurrentHashMap<>();
+
+    @Override
+    public void saveRollups(List<Rollup> rollups) {
+        for (Rollup rollup : rollups) {
+            series.computeIfAbsent(key(rollup.getPatientId(), rollup.getType(), rollup.getGranularity()),
+                            key -> new ConcurrentSkipListMap<>())
+                    .put(rollup.getBucketStartNanos(), rollup.copy());
+        }
+    }
+
+    @Override
+    public List<Rollup> getRollups(String patientId, VitalSignType type, RollupGranularity granularity,
+                                   long fromNanos, long toNanos) {
+        NavigableMap<Long, Rollup> buckets = series.get(key(patientId, type, granularity));
+        List<Rollup> rollups = new ArrayList<>();
+        if (buckets != null && fromNanos < toNanos) {
+            for (Rollup rollup : buckets.subMap(fromNanos, toNanos).values()) {
+                rollups.add(rollup.copy());
+            }
+        }
+        return rollups;
+    }
+
+    @Override
+    public void purgeRollups(RollupGranularity granularity, long beforeNanos) {
+        String suffix = "|" + granularity;
+        series.forEach((key, buckets) -> {
+            if (key.endsWith(suffix)) {
+                buckets.headMap(beforeNanos).clear();
+            }
+        });
+    }
+
+    private static String key(String patientId, VitalSignType type, RollupGranularity granularity) {
+        return patientId + "|" + type + "|" + granularity;
+    }
+}
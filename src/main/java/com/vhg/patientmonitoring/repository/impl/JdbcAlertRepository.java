@@ -0,0 +1,224 @@
+package com.vhg.patientmonitoring.repository.impl;
+
+import com.vhg.patientmonitoring.model.alert.Alert;
+import com.vhg.patientmonitoring.model.alert.AlertSeverity;
+import com.vhg.patientmonitoring.model.alert.AlertStatus;
+import com.vhg.patientmonitoring.repository.AlertCursor;
+import com.vhg.patientmonitoring.repository.AlertPage;
+import com.vhg.patientmonitoring.repository.AlertRepository;
+import com.vhg.patientmonitoring.util.DateTimeUtils;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+/**
+ * Alert storage in the {@code alerts} table using plain JDBC.
+ * <p>
+ * {@link #addAlert} is an upsert (PostgreSQL {@code ON CONFLICT}), so storing an escalated alert again
+ * updates its row. The severity is stored as the row's {@code priority}, and {@code acknowledged} is kept
+ * in step with the status. Pending alerts are looked up through the index on status.
+ * <p>
+ * History pages seek on the (timestamp, id) key through the (patient_id, timestamp) index rather than
+ * using OFFSET, and {@link #forEachAlert} runs a single query through a server-side cursor, fetching
+ * {@link #EXPORT_FETCH_SIZE} rows at a time.
+ */
+public class JdbcAlertRepository implements AlertRepository {
+    private static final String UPSERT_SQL =
+            "INSERT INTO alerts (id, patient_id, timestamp, message, priority, route_to, acknowledged, status, "
+                    + "occurrences, last_occurrence, peak_value) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?) "
+                    + "ON CONFLICT (id) DO UPDATE SET message = EXCLUDED.message, priority = EXCLUDED.priority, "
+                    + "route_to = EXCLUDED.route_to, acknowledged = EXCLUDED.acknowledged, status = EXCLUDED.status, "
+                    + "occurrences = EXCLUDED.occurrences, last_occurrence = EXCLUDED.last_occurrence, "
+                    + "peak_value = EXCLUDED.peak_value";
+    private static final String SELECT_COLUMNS =
+            "SELECT id, patient_id, timestamp, message, priority, status, occurrences, last_occurrence, peak_value FROM alerts ";
+    private static final String SELECT_BY_STATUS_SQL = SELECT_COLUMNS + "WHERE status = ? ORDER BY timestamp";
+    private static final String SELECT_FOR_PATIENT_SQL = SELECT_COLUMNS + "WHERE patient_id = ? ORDER BY timestamp";
+    private static final String PAGE_SQL = SELECT_COLUMNS
+            + "WHERE patient_id = ? AND timestamp >= ? AND timestamp < ? AND (timestamp, id) > (?, ?) "
+            + "ORDER BY timestamp, id LIMIT ?";
+    private static final String EXPORT_SQL = SELECT_COLUMNS
+            + "WHERE patient_id = ? AND timestamp >= ? AND timestamp < ? ORDER BY timestamp, id";
+    private static final String UPDATE_STATUS_SQL = "UPDATE alerts SET status = ?, acknowledged = ? WHERE id = ?";
+
+    public static final int EXPORT_FETCH_SIZE = 1000;
+
+    private final DataSource dataSource;
+
+    public JdbcAlertRepository(DataSource dataSource) {
+        this.dataSource = dataSource;
+    }
+
+    @Override
+    public void addAlert(Alert alert) {
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement(UPSERT_SQL)) {
+            statement.setObject(1, UUID.fromString(alert.getAlertId()));
+            statement.setObject(2, UUID.fromString(alert.getPatientId()));
+            statement.setTimestamp(3, Timestamp.valueOf(alert.getTimestamp()));
+            statement.setString(4, alert.getMessage());
+            statement.setString(5, alert.getSeverity().name());
+            statement.setString(6, routeTo(alert.getSeverity()));
+            statement.setBoolean(7, alert.getStatus() != AlertStatus.PENDING);
+            statement.setString(8, alert.getStatus().name());
+            statement.setInt(9, alert.getOccurrences());
+            statement.setTimestamp(10, Timestamp.valueOf(alert.getLastOccurrence()));
+            if (Double.isNaN(alert.getPeakValue())) {
+                statement.setNull(11, Types.DOUBLE);
+            } else {
+                statement.setDouble(11, alert.getPeakValue());
+            }
+            statement.executeUpdate();
+        } catch (SQLException e) {
+            throw new IllegalStateException("Failed to store alert " + alert.getAlertId(), e);
+        }
+    }
+
+    @Override
+    public List<Alert> getPendingAlerts() {
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement(SELECT_BY_STATUS_SQL)) {
+            statement.setString(1, AlertStatus.PENDING.name());
+            return readAll(statement);
+        } catch (SQLException e) {
+            throw new IllegalStateException("Failed to load pending alerts", e);
+        }
+    }
+
+    @Override
+    public List<Alert> getAlertsForPatient(String patientId) {
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement(SELECT_FOR_PATIENT_SQL)) {
+            statement.setObject(1, UUID.fromString(patientId));
+            return readAll(statement);
+        } catch (SQLException e) {
+            throw new IllegalStateException("Failed to load alerts for patient " + patientId, e);
+        }
+    }
+
+    @Override
+    public AlertPage getAlertsPage(String patientId, long fromNanos, long toNanos, AlertCursor after, int limit) {
+        int pageSize = Math.max(1, limit);
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement(PAGE_SQL)) {
+            // Starting the range at the cursor's timestamp lets the (patient_id, timestamp) index seek to it
+            bindRange(statement, patientId, after != null ? Math.max(fromNanos, after.getEpochNanos()) : fromNanos, toNanos);
+            // Before the first page the key is (from, nil id), which every alert in range follows
+            statement.setTimestamp(4, timestamp(after != null ? after.getEpochNanos() : fromNanos));
+            statement.setObject(5, after != null ? UUID.fromString(after.getAlertId()) : new UUID(0, 0));
+            // One row more than asked for says whether there is a next page
+            statement.setInt(6, pageSize + 1);
+            List<Alert> alerts = readAll(statement);
+            if (alerts.size() <= pageSize) {
+                return new AlertPage(alerts, null);
+            }
+            List<Alert> page = alerts.subList(0, pageSize);
+            Alert last = page.get(pageSize - 1);
+            return new AlertPage(page, new AlertCursor(AlertPage.epochNanos(last), last.getAlertId()));
+        } catch (SQLException e) {
+            throw new IllegalStateException("Failed to load a page of alerts for patient " + patientId, e);
+        }
+    }
+
+    /**
+     * Streams the range through one forward-only cursor, inside a transaction for PostgreSQL to honour
+     * the fetch size; the connection is held until the action has seen the last row.
+     */
+    @Override
+    public void forEachAlert(String patientId, long fromNanos, long toNanos, Consumer<Alert> action) {
+        try (Connection connection = dataSource.getConnection()) {
+            boolean autoCommit = connection.getAutoCommit();
+            connection.setAutoCommit(false);
+            try (PreparedStatement statement = connection.prepareStatement(EXPORT_SQL,
+                    ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+                statement.setFetchSize(EXPORT_FETCH_SIZE);
+                bindRange(statement, patientId, fromNanos, toNanos);
+                try (ResultSet resultSet = statement.executeQuery()) {
+                    while (resultSet.next()) {
+                        action.accept(read(resultSet));
+                    }
+                }
+            } finally {
+                // Read-only, so there is nothing to keep
+                connection.rollback();
+                connection.setAutoCommit(autoCommit);
+            }
+        } catch (SQLException e) {
+            throw new IllegalStateException("Failed to export alerts for patient " + patientId, e);
+        }
+    }
+
+    @Override
+    public void updateAlertStatus(String alertId, AlertStatus newStatus) {
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement(UPDATE_STATUS_SQL)) {
+            statement.setString(1, newStatus.name());
+            statement.setBoolean(2, newStatus != AlertStatus.PENDING);
+            statement.setObject(3, UUID.fromString(alertId));
+            statement.executeUpdate();
+        } catch (SQLException e) {
+            throw new IllegalStateException("Failed to update status of alert " + alertId, e);
+        }
+    }
+
+    /**
+     * Who is notified, after the alert dispatcher's channels
+     */
+    private static String routeTo(AlertSeverity severity) {
+        switch (severity) {
+            case CRITICAL:
+            case HIGH:
+                return "urgent";
+            case MEDIUM:
+                return "standard";
+            default:
+                return "none";
+        }
+    }
+
+    private static void bindRange(PreparedStatement statement, String patientId, long fromNanos, long toNanos)
+            throws SQLException {
+        statement.setObject(1, UUID.fromString(patientId));
+        statement.setTimestamp(2, timestamp(fromNanos));
+        statement.setTimestamp(3, timestamp(toNanos));
+    }
+
+    private static Timestamp timestamp(long epochNanos) {
+        return Timestamp.from(DateTimeUtils.toInstant(epochNanos));
+    }
+
+    private static List<Alert> readAll(PreparedStatement statement) throws SQLException {
+        List<Alert> alerts = new ArrayList<>();
+        try (ResultSet resultSet = statement.executeQuery()) {
+            while (resultSet.next()) {
+                alerts.add(read(resultSet));
+            }
+        }
+        return alerts;
+    }
+
+    private static Alert read(ResultSet resultSet) throws SQLException {
+        Alert alert = new Alert(resultSet.getString("patient_id"),
+                AlertSeverity.valueOf(resultSet.getString("priority")),
+                resultSet.getString("message"),
+                null);
+        alert.setAlertId(resultSet.getString("id"));
+        alert.setStatus(AlertStatus.valueOf(resultSet.getString("status")));
+        alert.setTimestamp(resultSet.getTimestamp("timestamp").toLocalDateTime());
+        alert.setOccurrences(resultSet.getInt("occurrences"));
+        Timestamp lastOccurrence = resultSet.getTimestamp("last_occurrence");
+        alert.setLastOccurrence(lastOccurrence != null ? lastOccurrence.toLocalDateTime() : alert.getTimestamp());
+        double peakValue = resultSet.getDouble("peak_value");
+        alert.setPeakValue(resultSet.wasNull() ? Double.NaN : peakValue);
+        return alert;
+    }
+}
@@ -0,0 +1,332 @@
+package com.vhg.patientmonitoring.repository.impl;
+
+import com.vhg.patientmonitoring.model.reading.ReadingBlock;
+import com.vhg.patientmonitoring.model.reading.ReadingView;
+import com.vhg.patientmonitoring.model.reading.VitalSignReading;
+import com.vhg.patientmonitoring.model.reading.VitalSignType;
+import com.vhg.patientmonitoring.repository.ReadingCursor;
+import com.vhg.patientmonitoring.repository.ReadingPage;
+import com.vhg.patientmonitoring.repository.ReadingRepository;
+import com.vhg.patientmonitoring.util.DateTimeUtils;
+import com.vhg.patientmonitoring.util.IdIndex;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+/**
+ * Reading storage in the {@code vital_signs} table using plain JDBC.
+ * <p>
+ * {@link #addReadings(ReadingBlock)} writes a whole block as one JDBC batch in one transaction, which
+ * is what the write-behind pipeline uses. With PostgreSQL, {@code reWriteBatchedInserts=true} on the
+ * connection URL lets the driver collapse the batch into multi-row inserts.
+ * <p>
+ * History pages seek on the (timestamp, type, id) key rather than using OFFSET, so every page costs the
+ * same however deep into the range it is. {@link #forEachReading} runs a single query through a
+ * server-side cursor, fetching {@link #EXPORT_FETCH_SIZE} rows at a time.
+ */
+public class JdbcReadingRepository implements ReadingRepository {
+    private static final String INSERT_SQL =
+            "INSERT INTO vital_signs (id, patient_id, timestamp, type, value, unit) VALUES (?, ?, ?, ?, ?, ?)";
+    private static final String SELECT_FOR_PATIENT_SQL =
+            "SELECT type, value, unit, timestamp FROM vital_signs WHERE patient_id = ? AND timestamp >= ? ORDER BY timestamp";
+    private static final String SELECT_FOR_PATIENT_BY_TYPE_SQL =
+            "SELECT type, value, unit, timestamp FROM vital_signs WHERE patient_id = ? AND type = ? AND timestamp >= ? ORDER BY timestamp";
+    // Types are ordered by name through their rank rather than by the column's collation, which
+    // differs between databases; the row id breaks ties between readings of one type at one instant
+    private static final String TYPE_RANK = typeRank();
+    private static final String PAGE_SQL = pageSql("");
+    private static final String PAGE_BY_TYPE_SQL = pageSql("AND type = ? ");
+    private static final String EXPORT_SQL =
+            "SELECT type, value, timestamp FROM vital_signs WHERE patient_id = ? AND timestamp >= ? AND timestamp < ? "
+                    + "ORDER BY timestamp, " + TYPE_RANK + ", id";
+    private static final String PURGE_SQL = "DELETE FROM vital_signs WHERE timestamp < ?";
+
+    public static final int EXPORT_FETCH_SIZE = 1000;
+
+    private final DataSource dataSource;
+
+    public JdbcReadingRepository(DataSource dataSource) {
+        this.dataSource = dataSource;
+    }
+
+    @Override
+    public void addReading(VitalSignReading reading) {
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement(INSERT_SQL)) {
+            bindInsert(statement, reading.getPatientId(), reading.getType(), Timestamp.valueOf(reading.getTimestamp()),
+                    reading.getValue(), reading.getUnit());
+            statement.executeUpdate();
+        } catch (SQLException e) {
+            throw new IllegalStateException("Failed to store reading for patient " + reading.getPatientId(), e);
+        }
+    }
+
+    @Override
+    public void addReadings(ReadingBlock block) {
+        if (block.isEmpty()) {
+            return;
+        }
+        try (Connection connection = dataSource.getConnection()) {
+            boolean autoCommit = connection.getAutoCommit();
+            connection.setAutoCommit(false);
+            try (PreparedStatement statement = connection.prepareStatement(INSERT_SQL)) {
+                for (int i = 0; i < block.size(); i++) {
+                    VitalSignType type = block.type(i);
+                    bindInsert(statement, block.patientId(i), type,
+                            Timestamp.from(DateTimeUtils.toInstant(block.epochNanos(i))), block.value(i), type.getUnit());
+                    statement.addBatch();
+                }
+                statement.executeBatch();
+                connection.commit();
+            } catch (SQLException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(autoCommit);
+            }
+        } catch (SQLException e) {
+            throw new IllegalStateException("Failed to store batch of " + block.size() + " readings", e);
+        }
+    }
+
+    @Override
+    public List<VitalSignReading> getReadingsForPatient(String patientId, int timeWindowMinutes) {
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement(SELECT_FOR_PATIENT_SQL)) {
+            statement.setObject(1, UUID.fromString(patientId));
+            statement.setTimestamp(2, Timestamp.valueOf(LocalDateTime.now().minusMinutes(timeWindowMinutes)));
+            return readAll(patientId, statement);
+        } catch (SQLException e) {
+            throw new IllegalStateException("Failed to load readings for patient " + patientId, e);
+        }
+    }
+
+    @Override
+    public List<VitalSignReading> getReadingsForPatientByType(String patientId, VitalSignType type, int timeWindowMinutes) {
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement(SELECT_FOR_PATIENT_BY_TYPE_SQL)) {
+            statement.setObject(1, UUID.fromString(patientId));
+            statement.setString(2, type.name());
+            statement.setTimestamp(3, Timestamp.valueOf(LocalDateTime.now().minusMinutes(timeWindowMinutes)));
+            return readAll(patientId, statement);
+        } catch (SQLException e) {
+            throw new IllegalStateException("Failed to load " + type + " readings for patient " + patientId, e);
+        }
+    }
+
+    @Override
+    public ReadingPage getReadingsPage(String patientId, VitalSignType type, long fromNanos, long toNanos,
+                                       ReadingCursor after, int limit) {
+        int pageSize = Math.max(1, limit);
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement(type != null ? PAGE_BY_TYPE_SQL : PAGE_SQL)) {
+            // Starting the range at the cursor's timestamp lets the (patient_id, timestamp) index seek to it
+            bindRange(statement, patientId, after != null ? Math.max(fromNanos, after.getEpochNanos()) : fromNanos, toNanos);
+            int parameter = 4;
+            if (type != null) {
+                statement.setString(parameter++, type.name());
+            }
+            if (after == null) {
+                // Every reading in range follows (from, rank -1)
+                statement.setTimestamp(parameter++, timestamp(fromNanos));
+                statement.setTimestamp(parameter++, timestamp(fromNanos));
+                statement.setInt(parameter++, -1);
+                statement.setInt(parameter++, -1);
+                statement.setObject(parameter++, new UUID(0, 0));
+            } else {
+                int rank = rank(after.getType());
+                statement.setTimestamp(parameter++, timestamp(after.getEpochNanos()));
+                statement.setTimestamp(parameter++, timestamp(after.getEpochNanos()));
+                statement.setInt(parameter++, rank);
+                statement.setInt(parameter++, rank);
+                statement.setObject(parameter++, rowId(after));
+            }
+            // One row more than asked for says whether there is a next page
+            statement.setInt(parameter, pageSize + 1);
+
+            int patientIndex = IdIndex.PATIENTS.indexOf(patientId);
+            ReadingBlock page = new ReadingBlock(Math.min(pageSize, EXPORT_FETCH_SIZE));
+            String lastRowId = null;
+            boolean more = false;
+            try (ResultSet resultSet = statement.executeQuery()) {
+                while (resultSet.next()) {
+                    if (page.size() == pageSize) {
+                        more = true;
+                        break;
+                    }
+                    lastRowId = resultSet.getString(1);
+                    page.add(patientIndex, VitalSignType.valueOf(resultSet.getString(2)),
+                            DateTimeUtils.toEpochNanos(resultSet.getTimestamp(4).toInstant()), resultSet.getDouble(3), -1);
+                }
+            }
+            int last = page.size() - 1;
+            return new ReadingPage(page, more ? new ReadingCursor(page.epochNanos(last), page.type(last), lastRowId) : null);
+        } catch (SQLException e) {
+            throw new IllegalStateException("Failed to load a page of readings for patient " + patientId, e);
+        }
+    }
+
+    /**
+     * Streams the range through one forward-only cursor. PostgreSQL only honours the fetch size
+     * inside a transaction, so auto-commit is off for the duration; the connection is held until the
+     * action has seen the last row, which for an export means until the client has received it.
+     */
+    @Override
+    public void forEachReading(String patientId, long fromNanos, long toNanos, Consumer<ReadingView> action) {
+        try (Connection connection = dataSource.getConnection()) {
+            boolean autoCommit = connection.getAutoCommit();
+            connection.setAutoCommit(false);
+            try (PreparedStatement statement = connection.prepareStatement(EXPORT_SQL,
+                    ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+                statement.setFetchSize(EXPORT_FETCH_SIZE);
+                bindRange(statement, patientId, fromNanos, toNanos);
+                RowView row = new RowView(patientId);
+                try (ResultSet resultSet = statement.executeQuery()) {
+                    while (resultSet.next()) {
+                        row.type = VitalSignType.valueOf(resultSet.getString(1));
+                        row.value = resultSet.getDouble(2);
+                        row.epochNanos = DateTimeUtils.toEpochNanos(resultSet.getTimestamp(3).toInstant());
+                        action.accept(row);
+                    }
+                }
+            } finally {
+                // Read-only, so there is nothing to keep
+                connection.rollback();
+                connection.setAutoCommit(autoCommit);
+            }
+        } catch (SQLException e) {
+            throw new IllegalStateException("Failed to export readings for patient " + patientId, e);
+        }
+    }
+
+    @Override
+    public void purgeOldReadings(int daysToKeep) {
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement(PURGE_SQL)) {
+            statement.setTimestamp(1, Timestamp.valueOf(LocalDateTime.now().minusDays(daysToKeep)));
+            statement.executeUpdate();
+        } catch (SQLException e) {
+            throw new IllegalStateException("Failed to purge readings older than " + daysToKeep + " days", e);
+        }
+    }
+
+    private static void bindInsert(PreparedStatement statement, String patientId, VitalSignType type,
+                                   Timestamp timestamp, double value, String unit) throws SQLException {
+        statement.setObject(1, UUID.randomUUID());
+        statement.setObject(2, UUID.fromString(patientId));
+        statement.setTimestamp(3, timestamp);
+        statement.setString(4, type.name());
+        statement.setDouble(5, value);
+        statement.setString(6, unit);
+    }
+
+    private static void bindRange(PreparedStatement statement, String patientId, long fromNanos, long toNanos)
+            throws SQLException {
+        statement.setObject(1, UUID.fromString(patientId));
+        statement.setTimestamp(2, timestamp(fromNanos));
+        statement.setTimestamp(3, timestamp(toNanos));
+    }
+
+    /**
+     * The type's position in name order, as {@link ReadingCursor} orders types
+     */
+    private static int rank(VitalSignType type) {
+        int rank = 0;
+        for (VitalSignType other : VitalSignType.values()) {
+            if (other.name().compareTo(type.name()) < 0) {
+                rank++;
+            }
+        }
+        return rank;
+    }
+
+    private static UUID rowId(ReadingCursor cursor) {
+        try {
+            return UUID.fromString(cursor.getRowId());
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Malformed cursor: " + cursor, e);
+        }
+    }
+
+    private static String pageSql(String typeFilter) {
+        return "SELECT id, type, value, timestamp FROM vital_signs WHERE patient_id = ? AND timestamp >= ? AND timestamp < ? "
+                + typeFilter
+                + "AND (timestamp > ? OR (timestamp = ? AND (" + TYPE_RANK + " > ? OR (" + TYPE_RANK + " = ? AND id > ?)))) "
+                + "ORDER BY timestamp, " + TYPE_RANK + ", id LIMIT ?";
+    }
+
+    private static String typeRank() {
+        StringBuilder sql = new StringBuilder("CASE type");
+        for (VitalSignType type : VitalSignType.values()) {
+            sql.append(" WHEN '").append(type.name()).append("' THEN ").append(rank(type));
+        }
+        return sql.append(" END").toString();
+    }
+
+    private static Timestamp timestamp(long epochNanos) {
+        return Timestamp.from(DateTimeUtils.toInstant(epochNanos));
+    }
+
+    private static List<VitalSignReading> readAll(String patientId, PreparedStatement statement) throws SQLException {
+        List<VitalSignReading> readings = new ArrayList<>();
+        try (ResultSet resultSet = statement.executeQuery()) {
+            while (resultSet.next()) {
+                readings.add(new VitalSignReading(patientId,
+                        VitalSignType.valueOf(resultSet.getString("type")),
+                        resultSet.getDouble("value"),
+                        resultSet.getString("unit"),
+                        resultSet.getTimestamp("timestamp").toLocalDateTime(),
+                        null));
+            }
+        }
+        return readings;
+    }
+
+    /**
+     * Reused for every row of an export
+     */
+    private static final class RowView implements ReadingView {
+        private final String patientId;
+        private VitalSignType type;
+        private double value;
+        private long epochNanos;
+
+        private RowView(String patientId) {
+            this.patientId = patientId;
+        }
+
+        @Override
+        public String getPatientId() {
+            return patientId;
+        }
+
+        @Override
+        public VitalSignType getType() {
+            return type;
+        }
+
+        @Override
+        public double getValue() {
+            return value;
+        }
+
+        @Override
+        public String getUnit() {
+            return type.getUnit();
+        }
+
+        @Override
+        public long getEpochNanos() {
+            return epochNanos;
+        }
+    }
+}
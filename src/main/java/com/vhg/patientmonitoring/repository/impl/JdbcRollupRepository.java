@@ -0,0 +1,144 @@
+package com.vhg.patientmonitoring.repository.impl;
+
+import com.vhg.patientmonitoring.model.analytics.Rollup;
+import com.vhg.patientmonitoring.model.analytics.RollupGranularity;
+import com.vhg.patientmonitoring.model.analytics.VitalStatistics;
+import com.vhg.patientmonitoring.model.reading.VitalSignType;
+import com.vhg.patientmonitoring.repository.RollupRepository;
+import com.vhg.patientmonitoring.util.DateTimeUtils;
+
+import javax.sql.DataSource;
+import java.nio.ByteBuffer;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Rollup storage in the {@code vital_sign_rollups} table using plain JDBC.
+ * <p>
+ * Each row is one bucket, keyed by (patient, type, granularity, bucket start), and {@link #saveRollups}
+ * upserts a whole flush as one batch (PostgreSQL {@code ON CONFLICT}). The histogram is stored as a
+ * {@code bytea} of its non-empty bins, six bytes each: the bin as a short and its count as an int.
+ */
+public class JdbcRollupRepository implements RollupRepository {
+    private static final String UPSERT_SQL =
+            "INSERT INTO vital_sign_rollups (patient_id, type, granularity, bucket_start, count, min_value, max_value, "
+                    + "mean_value, m2, histogram) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?) "
+                    + "ON CONFLICT (patient_id, type, granularity, bucket_start) DO UPDATE SET count = EXCLUDED.count, "
+                    + "min_value = EXCLUDED.min_value, max_value = EXCLUDED.max_value, mean_value = EXCLUDED.mean_value, "
+                    + "m2 = EXCLUDED.m2, histogram = EXCLUDED.histogram";
+    private static final String SELECT_SQL =
+            "SELECT bucket_start, count, min_value, max_value, mean_value, m2, histogram FROM vital_sign_rollups "
+                    + "WHERE patient_id = ? AND type = ? AND granularity = ? AND bucket_start >= ? AND bucket_start < ? "
+                    + "ORDER BY bucket_start";
+    private static final String PURGE_SQL = "DELETE FROM vital_sign_rollups WHERE granularity = ? AND bucket_start < ?";
+    private static final int BIN_BYTES = Short.BYTES + Integer.BYTES;
+
+    private final DataSource dataSource;
+
+    public JdbcRollupRepository(DataSource dataSource) {
+        this.dataSource = dataSource;
+    }
+
+    @Override
+    public void saveRollups(List<Rollup> rollups) {
+        if (rollups.isEmpty()) {
+            return;
+        }
+        try (Connection connection = dataSource.getConnection()) {
+            boolean autoCommit = connection.getAutoCommit();
+            connection.setAutoCommit(false);
+            try (PreparedStatement statement = connection.prepareStatement(UPSERT_SQL)) {
+                for (Rollup rollup : rollups) {
+                    VitalStatistics statistics = rollup.getStatistics();
+                    statement.setObject(1, UUID.fromString(rollup.getPatientId()));
+                    statement.setString(2, rollup.getType().name());
+                    statement.setString(3, rollup.getGranularity().name());
+                    statement.setTimestamp(4, timestamp(rollup.getBucketStartNanos()));
+                    statement.setLong(5, statistics.getCount());
+                    statement.setDouble(6, statistics.getMin());
+                    statement.setDouble(7, statistics.getMax());
+                    statement.setDouble(8, statistics.getMean());
+                    statement.setDouble(9, statistics.getM2());
+                    statement.setBytes(10, encodeHistogram(statistics));
+                    statement.addBatch();
+                }
+                statement.executeBatch();
+                connection.commit();
+            } catch (SQLException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(autoCommit);
+            }
+        } catch (SQLException e) {
+            throw new IllegalStateException("Failed to store batch of " + rollups.size() + " rollups", e);
+        }
+    }
+
+    @Override
+    public List<Rollup> getRollups(String patientId, VitalSignType type, RollupGranularity granularity,
+                                   long fromNanos, long toNanos) {
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement(SELECT_SQL)) {
+            statement.setObject(1, UUID.fromString(patientId));
+            statement.setString(2, type.name());
+            statement.setString(3, granularity.name());
+            statement.setTimestamp(4, timestamp(fromNanos));
+            statement.setTimestamp(5, timestamp(toNanos));
+            List<Rollup> rollups = new ArrayList<>();
+            try (ResultSet resultSet = statement.executeQuery()) {
+                while (resultSet.next()) {
+                    byte[] histogram = resultSet.getBytes("histogram");
+                    int bins = histogram.length / BIN_BYTES;
+                    short[] binIndexes = new short[bins];
+                    int[] binCounts = new int[bins];
+                    ByteBuffer buffer = ByteBuffer.wrap(histogram);
+                    for (int i = 0; i < bins; i++) {
+                        binIndexes[i] = buffer.getShort();
+                        binCounts[i] = buffer.getInt();
+                    }
+                    VitalStatistics statistics = VitalStatistics.of(type, resultSet.getLong("count"),
+                            resultSet.getDouble("min_value"), resultSet.getDouble("max_value"),
+                            resultSet.getDouble("mean_value"), resultSet.getDouble("m2"), binIndexes, binCounts);
+                    rollups.add(new Rollup(patientId, granularity,
+                            DateTimeUtils.toEpochNanos(resultSet.getTimestamp("bucket_start").toInstant()), statistics));
+                }
+            }
+            return rollups;
+        } catch (SQLException e) {
+            throw new IllegalStateException("Failed to load " + granularity + " " + type + " rollups for patient " + patientId, e);
+        }
+    }
+
+    @Override
+    public void purgeRollups(RollupGranularity granularity, long beforeNanos) {
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement(PURGE_SQL)) {
+            statement.setString(1, granularity.name());
+            statement.setTimestamp(2, timestamp(beforeNanos));
+            statement.executeUpdate();
+        } catch (SQLException e) {
+            throw new IllegalStateException("Failed to purge " + granularity + " rollups", e);
+        }
+    }
+
+    private static byte[] encodeHistogram(VitalStatistics statistics) {
+        short[] bins = statistics.getHistogramBins();
+        int[] counts = statistics.getHistogramCounts();
+        ByteBuffer buffer = ByteBuffer.allocate(bins.length * BIN_BYTES);
+        for (int i = 0; i < bins.length; i++) {
+            buffer.putShort(bins[i]).putInt(counts[i]);
+        }
+        return buffer.array();
+    }
+
+    private static Timestamp timestamp(long epochNanos) {
+        return Timestamp.from(DateTimeUtils.toInstant(epochNanos));
+    }
+}
@@ -0,0 +1,191 @@
+package com.vhg.patientmonitoring.repository.impl;
+
+import com.vhg.patientmonitoring.model.reading.ReadingBlock;
+import com.vhg.patientmonitoring.model.reading.VitalSignReading;
+import com.vhg.patientmonitoring.util.DateTimeUtils;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.Clock;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * JDBC reading storage for the daily-partitioned layout in {@code scripts/schema-partitioned.sql} (PostgreSQL).
+ * <p>
+ * Window queries are the same as {@link JdbcReadingRepository}; their lower timestamp bound lets
+ * PostgreSQL prune every partition outside the window. This class keeps daily partitions created
+ * ahead of incoming data, creates the partition of any earlier day before readings for it (e.g. a
+ * bulk upload of history) are stored, and implements {@link #purgeOldReadings(int)} by dropping whole
+ * partitions instead of deleting rows. Nothing it stores lands in the default partition, which would
+ * keep a partition for that day from being created later.
+ */
+public class PartitionedJdbcReadingRepository extends JdbcReadingRepository {
+    public static final int DEFAULT_DAYS_AHEAD = 7;
+
+    private static final String PARTITION_PREFIX = "vital_signs_p";
+    private static final String DEFAULT_PARTITION = "vital_signs_default";
+    private static final DateTimeFormatter PARTITION_SUFFIX = DateTimeFormatter.BASIC_ISO_DATE;
+    private static final String LIST_PARTITIONS_SQL =
+            "SELECT child.relname FROM pg_inherits "
+                    + "JOIN pg_class parent ON parent.oid = pg_inherits.inhparent "
+                    + "JOIN pg_class child ON child.oid = pg_inherits.inhrelid "
+                    + "WHERE parent.relname = 'vital_signs' AND parent.relnamespace = current_schema()::regnamespace";
+
+    private final DataSource dataSource;
+    private final int daysAhead;
+    private final Clock clock;
+    // Every day from the first through the last is known to have its own partition; written under this
+    private volatile LocalDate partitionedFrom;
+    private volatile LocalDate partitionedThrough;
+
+    public PartitionedJdbcReadingRepository(DataSource dataSource) {
+        this(dataSource, DEFAULT_DAYS_AHEAD, Clock.systemDefaultZone());
+    }
+
+    public PartitionedJdbcReadingRepository(DataSource dataSource, int daysAhead, Clock clock) {
+        super(dataSource);
+        this.dataSource = dataSource;
+        this.daysAhead = daysAhead;
+        this.clock = clock;
+        LocalDate today = LocalDate.now(clock);
+        createPartitions(today, today.plusDays(daysAhead));
+    }
+
+    @Override
+    public void addReading(VitalSignReading reading) {
+        LocalDate day = reading.getTimestamp().toLocalDate();
+        ensureCovered(day, day);
+        super.addReading(reading);
+    }
+
+    @Override
+    public void addReadings(ReadingBlock block) {
+        long earliest = Long.MAX_VALUE;
+        long latest = Long.MIN_VALUE;
+        for (int i = 0; i < block.size(); i++) {
+            earliest = Math.min(earliest, block.epochNanos(i));
+            latest = Math.max(latest, block.epochNanos(i));
+        }
+        if (!block.isEmpty()) {
+            ensureCovered(DateTimeUtils.toLocalDateTime(earliest, clock.getZone()).toLocalDate(),
+                    DateTimeUtils.toLocalDateTime(latest, clock.getZone()).toLocalDate());
+        }
+        super.addReadings(block);
+    }
+
+    /**
+     * Drops every daily partition that ends before the retention cutoff, then trims stragglers
+     * that landed in the default partition. Cost is per partition, not per row. Runs under the same
+     * lock as partition creation, so readings for the dropped days wait and then recreate their partition.
+     */
+    @Override
+    public synchronized void purgeOldReadings(int daysToKeep) {
+        LocalDate cutoff = LocalDate.now(clock).minusDays(daysToKeep);
+        // Narrowed before dropping, so no insert takes a day about to be dropped as covered
+        if (partitionedFrom != null && partitionedFrom.isBefore(cutoff)) {
+            if (cutoff.isAfter(partitionedThrough)) {
+                partitionedThrough = null;
+                partitionedFrom = null;
+            } else {
+                partitionedFrom = cutoff;
+            }
+        }
+        try (Connection connection = dataSource.getConnection()) {
+            for (String partition : listDailyPartitions(connection)) {
+                LocalDate day = LocalDate.parse(partition.substring(PARTITION_PREFIX.length()), PARTITION_SUFFIX);
+                if (day.isBefore(cutoff)) {
+                    try (Statement statement = connection.createStatement()) {
+                        statement.execute("DROP TABLE IF EXISTS " + partition);
+                    }
+                }
+            }
+            try (PreparedStatement statement = connection.prepareStatement(
+                    "DELETE FROM " + DEFAULT_PARTITION + " WHERE timestamp < ?")) {
+                statement.setTimestamp(1, Timestamp.valueOf(cutoff.atStartOfDay()));
+                statement.executeUpdate();
+            }
+        } catch (SQLException e) {
+            throw new IllegalStateException("Failed to drop partitions older than " + cutoff, e);
+        }
+    }
+
+    /**
+     * Creates the daily partitions for {@code from} through {@code to} (inclusive) if they don't exist yet.
+     */
+    public void ensurePartitions(LocalDate from, LocalDate to) {
+        createPartitions(from, to);
+    }
+
+    private synchronized void createPartitions(LocalDate from, LocalDate to) {
+        try (Connection connection = dataSource.getConnection();
+             Statement statement = connection.createStatement()) {
+            for (LocalDate day = from; !day.isAfter(to); day = day.plusDays(1)) {
+                statement.execute("CREATE TABLE IF NOT EXISTS " + partitionName(day)
+                        + " PARTITION OF vital_signs FOR VALUES FROM ('" + day + "') TO ('" + day.plusDays(1) + "')");
+            }
+        } catch (SQLException e) {
+            throw new IllegalStateException("Failed to create vital_signs partitions from " + from + " to " + to, e);
+        }
+        // Callers only ever extend the known range at one end, so it stays contiguous
+        if (partitionedFrom == null || from.isBefore(partitionedFrom)) {
+            partitionedFrom = from;
+        }
+        if (partitionedThrough == null || to.isAfter(partitionedThrough)) {
+            partitionedThrough = to;
+        }
+    }
+
+    /**
+     * Makes sure every day from {@code first} through {@code last} has its partition: later days
+     * (with {@link #daysAhead} more) past the known range, and earlier days before it.
+     */
+    private void ensureCovered(LocalDate first, LocalDate last) {
+        LocalDate from = partitionedFrom;
+        LocalDate through = partitionedThrough;
+        if (from != null && through != null && !first.isBefore(from) && !last.isAfter(through)) {
+            return;
+        }
+        synchronized (this) {
+            extendCoverage(first, last);
+        }
+    }
+
+    private void extendCoverage(LocalDate first, LocalDate last) {
+        if (partitionedFrom == null) {
+            createPartitions(first, last.plusDays(daysAhead));
+            return;
+        }
+        if (last.isAfter(partitionedThrough)) {
+            createPartitions(partitionedThrough.plusDays(1), last.plusDays(daysAhead));
+        }
+        if (first.isBefore(partitionedFrom)) {
+            createPartitions(first, partitionedFrom.minusDays(1));
+        }
+    }
+
+    private static List<String> listDailyPartitions(Connection connection) throws SQLException {
+        List<String> partitions = new ArrayList<>();
+        try (Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery(LIST_PARTITIONS_SQL)) {
+            while (resultSet.next()) {
+                String name = resultSet.getString(1);
+                if (name.startsWith(PARTITION_PREFIX)) {
+                    partitions.add(name);
+                }
+            }
+        }
+        return partitions;
+    }
+
+    private static String partitionName(LocalDate day) {
+        return PARTITION_PREFIX + day.format(PARTITION_SUFFIX);
+    }
+}
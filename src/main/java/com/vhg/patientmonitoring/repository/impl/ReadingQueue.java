@@ -0,0 +1,123 @@
+package com.vhg.patientmonitoring.repository.impl;
+
+import com.vhg.patientmonitoring.model.reading.ReadingBlock;
+import com.vhg.patientmonitoring.model.reading.VitalSignType;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Arrays;
+
+/**
+ * Bounded multi-producer, single-consumer queue of compact readings.
+ * <p>
+ * Producers claim a sequence with a CAS on {@code tail}, fill the primitive slot and then mark it
+ * published. The single consumer drains published slots in order straight into a {@link ReadingBlock}.
+ * No locks and no per-reading objects.
+ */
+class ReadingQueue {
+    private static final VarHandle TAIL;
+    private static final VarHandle HEAD;
+    private static final VarHandle SLOT_SEQUENCE = MethodHandles.arrayElementVarHandle(long[].class);
+    private static final VitalSignType[] TYPES = VitalSignType.values();
+
+    static {
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.lookup();
+            TAIL = lookup.findVarHandle(ReadingQueue.class, "tail", long.class);
+            HEAD = lookup.findVarHandle(ReadingQueue.class, "head", long.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private final int capacity;
+    private final int mask;
+    private final long[] slotSequences;
+    private final int[] patientIndexes;
+    private final byte[] typeOrdinals;
+    private final long[] epochNanos;
+    private final double[] values;
+    private final int[] deviceIndexes;
+
+    // Next sequence to claim / next sequence to consume; accessed through the VarHandles above
+    private long tail;
+    private long head;
+
+    ReadingQueue(int capacity) {
+        if (Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("Queue capacity must be a power of two: " + capacity);
+        }
+        this.capacity = capacity;
+        this.mask = capacity - 1;
+        this.slotSequences = new long[capacity];
+        Arrays.fill(slotSequences, -1);
+        this.patientIndexes = new int[capacity];
+        this.typeOrdinals = new byte[capacity];
+        this.epochNanos = new long[capacity];
+        this.values = new double[capacity];
+        this.deviceIndexes = new int[capacity];
+    }
+
+    /**
+     * Enqueues a reading if there is room.
+     *
+     * @return the reading's sequence number, or -1 if the queue is full
+     */
+    long offer(int patientIndex, VitalSignType type, long timestampNanos, double value, int deviceIndex) {
+        long sequence;
+        do {
+            sequence = (long) TAIL.getVolatile(this);
+            if (sequence - (long) HEAD.getAcquire(this) >= capacity) {
+                return -1;
+            }
+        } while (!TAIL.compareAndSet(this, sequence, sequence + 1));
+
+        int index = (int) (sequence & mask);
+        patientIndexes[index] = patientIndex;
+        typeOrdinals[index] = (byte) type.ordinal();
+        epochNanos[index] = timestampNanos;
+        values[index] = value;
+        deviceIndexes[index] = deviceIndex;
+        SLOT_SEQUENCE.setRelease(slotSequences, index, sequence);
+        return sequence;
+    }
+
+    /**
+     * Moves up to {@code max} published readings into the block. Consumer thread only.
+     *
+     * @return number of readings drained
+     */
+    int drainTo(ReadingBlock block, int max) {
+        long sequence = (long) HEAD.getOpaque(this);
+        int drained = 0;
+        while (drained < max) {
+            int index = (int) (sequence & mask);
+            if ((long) SLOT_SEQUENCE.getAcquire(slotSequences, index) != sequence) {
+                break;
+            }
+            block.add(patientIndexes[index], TYPES[typeOrdinals[index]], epochNanos[index], values[index], deviceIndexes[index]);
+            sequence++;
+            drained++;
+        }
+        if (drained > 0) {
+            HEAD.setRelease(this, sequence);
+        }
+        return drained;
+    }
+
+    /**
+     * Sequence of the next reading the consumer will take; everything below it has been drained.
+     */
+    long headSequence() {
+        return (long) HEAD.getAcquire(this);
+    }
+
+    int size() {
+        long size = (long) TAIL.getVolatile(this) - (long) HEAD.getAcquire(this);
+        return (int) Math.max(0, Math.min(size, capacity));
+    }
+
+    int capacity() {
+        return capacity;
+    }
+}
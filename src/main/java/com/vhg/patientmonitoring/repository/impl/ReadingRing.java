@@ -0,0 +1,120 @@
+package com.vhg.patientmonitoring.repository.impl;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+
+/**
+ * Fixed-capacity ring of (epoch-nanos timestamp, value) samples for one patient and vital sign type.
+ * <p>
+ * Single writer, many readers, no locks. The writer announces the slot it is about to overwrite
+ * ({@code claimed}) before touching the arrays and publishes it ({@code published}) afterwards.
+ * Readers copy what was published and then discard anything the writer may have claimed in the
+ * meantime, so a reader never returns a half-written or overwritten sample.
+ * Samples are expected to be appended in non-decreasing time order.
+ */
+class ReadingRing {
+    private static final VarHandle PUBLISHED;
+    private static final VarHandle CLAIMED;
+
+    static {
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.lookup();
+            PUBLISHED = lookup.findVarHandle(ReadingRing.class, "published", long.class);
+            CLAIMED = lookup.findVarHandle(ReadingRing.class, "claimed", long.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private final long[] timestamps;
+    private final double[] values;
+    private final int mask;
+    private volatile String unit;
+
+    // Total number of samples ever written / about to be written; accessed through the VarHandles above
+    private long published;
+    private long claimed;
+
+    ReadingRing(int capacity) {
+        if (Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("Ring capacity must be a power of two: " + capacity);
+        }
+        this.timestamps = new long[capacity];
+        this.values = new double[capacity];
+        this.mask = capacity - 1;
+    }
+
+    /**
+     * Appends a sample. Must not be called concurrently; writers on different threads take turns under a
+     * common lock, which also makes each one see the others' appends.
+     */
+    void append(long epochNanos, double value) {
+        long sequence = (long) PUBLISHED.getOpaque(this);
+        CLAIMED.setOpaque(this, sequence + 1);
+        VarHandle.storeStoreFence();
+
+        int index = (int) (sequence & mask);
+        timestamps[index] = epochNanos;
+        values[index] = value;
+
+        PUBLISHED.setRelease(this, sequence + 1);
+    }
+
+    /**
+     * Copies every sample with a timestamp at or after {@code fromNanos}, oldest first.
+     */
+    Window window(long fromNanos) {
+        long high = (long) PUBLISHED.getAcquire(this);
+        long low = Math.max(0, high - timestamps.length);
+
+        // Walk back from the newest sample until we leave the window
+        long start = high;
+        while (start > low && timestamps[(int) ((start - 1) & mask)] >= fromNanos) {
+            start--;
+        }
+
+        int count = (int) (high - start);
+        long[] windowTimestamps = new long[count];
+        double[] windowValues = new double[count];
+        for (int i = 0; i < count; i++) {
+            int index = (int) ((start + i) & mask);
+            windowTimestamps[i] = timestamps[index];
+            windowValues[i] = values[index];
+        }
+
+        // Anything the writer has claimed since we started may have been overwritten under us
+        VarHandle.loadLoadFence();
+        long firstIntact = (long) CLAIMED.getOpaque(this) - timestamps.length;
+        int offset = (int) Math.min(count, Math.max(0, firstIntact - start));
+        return new Window(windowTimestamps, windowValues, offset, count - offset);
+    }
+
+    long size() {
+        return Math.min((long) PUBLISHED.getAcquire(this), timestamps.length);
+    }
+
+    String getUnit() {
+        return unit;
+    }
+
+    void setUnit(String unit) {
+        this.unit = unit;
+    }
+
+    /**
+     * Consistent copy of a run of samples, oldest first
+     */
+    static final class Window {
+        final long[] timestamps;
+        final double[] values;
+        final int offset;
+        final int length;
+
+        Window(long[] timestamps, double[] values, int offset, int length) {
+            this.timestamps = timestamps;
+            this.values = values;
+            this.offset = offset;
+            this.length = length;
+        }
+    }
+}
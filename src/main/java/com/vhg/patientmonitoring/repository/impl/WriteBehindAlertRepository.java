@@ -0,0 +1,219 @@
+package com.vhg.patientmonitoring.repository.impl;
+
+import com.vhg.patientmonitoring.model.alert.Alert;
+import com.vhg.patientmonitoring.model.alert.AlertStatus;
+import com.vhg.patientmonitoring.repository.AlertCursor;
+import com.vhg.patientmonitoring.repository.AlertPage;
+import com.vhg.patientmonitoring.repository.AlertRepository;
+import com.vhg.patientmonitoring.util.SqlUtils;
+
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * Write-behind alert store: alerts and status changes apply synchronously to a {@code hot} repository
+ * that serves all queries but history pages and exports, and are replayed asynchronously, in order,
+ * against a {@code durable} one.
+ * <p>
+ * On startup the durable store's pending alerts are loaded into the hot one, so open alerts survive a
+ * restart. A single writer thread applies the queued changes, retrying one that fails transiently with
+ * exponential backoff, so a database outage delays persistence rather than alerting. A change that fails
+ * for any other reason, e.g. a constraint violation, would fail forever and hold up everything behind
+ * it, so it is counted as rejected and skipped. If the queue fills up, further changes are dropped from
+ * persistence and counted; the hot store still has them.
+ */
+public class WriteBehindAlertRepository implements AlertRepository {
+    private static final long INITIAL_RETRY_BACKOFF_MILLIS = 10;
+    private static final long MAX_RETRY_BACKOFF_MILLIS = 5_000;
+
+    private final AlertRepository hot;
+    private final AlertRepository durable;
+    private final BlockingQueue<Consumer<AlertRepository>> queue;
+    private final Thread writer;
+    private volatile boolean running = true;
+
+    private final LongAdder persisted = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+
+    public WriteBehindAlertRepository(AlertRepository hot, AlertRepository durable, int queueCapacity) {
+        this.hot = hot;
+        this.durable = durable;
+        this.queue = new LinkedBlockingQueue<>(queueCapacity);
+        try {
+            for (Alert alert : durable.getPendingAlerts()) {
+                hot.addAlert(alert);
+            }
+        } catch (RuntimeException e) {
+            System.err.println("Error loading pending alerts, starting without them: " + e.getMessage());
+        }
+        this.writer = new Thread(this::drainLoop, "alert-write-behind");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    @Override
+    public void addAlert(Alert alert) {
+        hot.addAlert(alert);
+        enqueue(repository -> repository.addAlert(alert));
+    }
+
+    @Override
+    public List<Alert> getPendingAlerts() {
+        return hot.getPendingAlerts();
+    }
+
+    @Override
+    public List<Alert> getAlertsForPatient(String patientId) {
+        return hot.getAlertsForPatient(patientId);
+    }
+
+    /**
+     * History comes from the durable store, since the hot one only keeps the most recently closed
+     * alerts. Changes still queued for it show up once written.
+     */
+    @Override
+    public AlertPage getAlertsPage(String patientId, long fromNanos, long toNanos, AlertCursor after, int limit) {
+        return durable.getAlertsPage(patientId, fromNanos, toNanos, after, limit);
+    }
+
+    @Override
+    public void forEachAlert(String patientId, long fromNanos, long toNanos, Consumer<Alert> action) {
+        durable.forEachAlert(patientId, fromNanos, toNanos, action);
+    }
+
+    @Override
+    public void updateAlertStatus(String alertId, AlertStatus newStatus) {
+        hot.updateAlertStatus(alertId, newStatus);
+        enqueue(repository -> repository.updateAlertStatus(alertId, newStatus));
+    }
+
+    /**
+     * Stops accepting changes, persists whatever is queued and stops the writer.
+     */
+    public void shutdown() {
+        running = false;
+        writer.interrupt();
+        try {
+            writer.join(TimeUnit.SECONDS.toMillis(30));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    public Stats getStats() {
+        return new Stats(queue.size(), persisted.sum(), failures.sum(), rejected.sum(), dropped.sum());
+    }
+
+    private void enqueue(Consumer<AlertRepository> change) {
+        if (!running || !queue.offer(change)) {
+            dropped.increment();
+        }
+    }
+
+    private void drainLoop() {
+        while (running || !queue.isEmpty()) {
+            Consumer<AlertRepository> change;
+            try {
+                change = queue.poll(100, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                // Shutting down: drain what is left
+                continue;
+            }
+            if (change != null) {
+                apply(change);
+            }
+        }
+    }
+
+    private void apply(Consumer<AlertRepository> change) {
+        long backoffMillis = INITIAL_RETRY_BACKOFF_MILLIS;
+        while (true) {
+            try {
+                change.accept(durable);
+                persisted.increment();
+                return;
+            } catch (RuntimeException e) {
+                failures.increment();
+                if (!SqlUtils.isTransient(e)) {
+                    rejected.increment();
+                    System.err.println("Error persisting alert change, skipping it: " + e.getMessage());
+                    return;
+                }
+                System.err.println("Error persisting alert change: " + e.getMessage());
+                if (!running) {
+                    // Shutting down: don't hold the process hostage to an unavailable database
+                    dropped.increment();
+                    return;
+                }
+                try {
+                    Thread.sleep(backoffMillis);
+                } catch (InterruptedException interrupted) {
+                    // Shutting down; the next attempt is the last
+                }
+                backoffMillis = Math.min(backoffMillis * 2, MAX_RETRY_BACKOFF_MILLIS);
+            }
+        }
+    }
+
+    /**
+     * Point-in-time snapshot of alert persistence
+     */
+    public static class Stats {
+        private final int queueDepth;
+        private final long persisted;
+        private final long failures;
+        private final long rejected;
+        private final long dropped;
+
+        public Stats(int queueDepth, long persisted, long failures, long rejected, long dropped) {
+            this.queueDepth = queueDepth;
+            this.persisted = persisted;
+            this.failures = failures;
+            this.rejected = rejected;
+            this.dropped = dropped;
+        }
+
+        public int getQueueDepth() {
+            return queueDepth;
+        }
+
+        public long getPersisted() {
+            return persisted;
+        }
+
+        public long getFailures() {
+            return failures;
+        }
+
+        /**
+         * Changes skipped after a failure that retrying would not fix
+         */
+        public long getRejected() {
+            return rejected;
+        }
+
+        /**
+         * Changes never persisted: queue full, or still failing at shutdown
+         */
+        public long getDropped() {
+            return dropped;
+        }
+
+        @Override
+        public String toString() {
+            return "Stats{" +
+                    "queueDepth=" + queueDepth +
+                    ", persisted=" + persisted +
+                    ", failures=" + failures +
+                    ", rejected=" + rejected +
+                    ", dropped=" + dropped +
+                    '}';
+        }
+    }
+}
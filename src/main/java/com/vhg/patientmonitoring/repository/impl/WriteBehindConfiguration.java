@@ -0,0 +1,95 @@
+package com.vhg.patientmonitoring.repository.impl;
+
+/**
+ * Settings for {@link WriteBehindReadingRepository}
+ */
+public class WriteBehindConfiguration {
+    /**
+     * What a producer does when the write-behind queue is full
+     */
+    public enum BackpressurePolicy {
+        BLOCK,  // Wait for the writer to make room
+        DROP    // Drop the new reading from persistence (it is still kept in memory) and count it
+    }
+
+    /**
+     * When {@code addReading} returns relative to the reading reaching the database
+     */
+    public enum DurabilityMode {
+        FIRE_AND_FORGET,    // As soon as the reading is queued
+        FLUSH_BEFORE_ACK    // Only once the batch containing the reading has been committed
+    }
+
+    private int queueCapacity = 1 << 16;
+    private int batchSize = 1000;
+    private long flushIntervalMillis = 200;
+    private long ackTimeoutMillis = 5000;
+    private long maxRetryBackoffMillis = 5000;
+    private BackpressurePolicy backpressurePolicy = BackpressurePolicy.BLOCK;
+    private DurabilityMode durabilityMode = DurabilityMode.FIRE_AND_FORGET;
+
+    /**
+     * Must be a power of two.
+     */
+    public int getQueueCapacity() {
+        return queueCapacity;
+    }
+
+    public void setQueueCapacity(int queueCapacity) {
+        this.queueCapacity = queueCapacity;
+    }
+
+    /**
+     * Readings that trigger a flush as soon as they are pending.
+     */
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    public void setBatchSize(int batchSize) {
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Longest time a pending reading waits before a partial batch is flushed.
+     */
+    public long getFlushIntervalMillis() {
+        return flushIntervalMillis;
+    }
+
+    public void setFlushIntervalMillis(long flushIntervalMillis) {
+        this.flushIntervalMillis = flushIntervalMillis;
+    }
+
+    public long getAckTimeoutMillis() {
+        return ackTimeoutMillis;
+    }
+
+    public void setAckTimeoutMillis(long ackTimeoutMillis) {
+        this.ackTimeoutMillis = ackTimeoutMillis;
+    }
+
+    public long getMaxRetryBackoffMillis() {
+        return maxRetryBackoffMillis;
+    }
+
+    public void setMaxRetryBackoffMillis(long maxRetryBackoffMillis) {
+        this.maxRetryBackoffMillis = maxRetryBackoffMillis;
+    }
+
+    public BackpressurePolicy getBackpressurePolicy() {
+        return backpressurePolicy;
+    }
+
+    public void setBackpressurePolicy(BackpressurePolicy backpressurePolicy) {
+        this.backpressurePolicy = backpressurePolicy;
+    }
+
+    public DurabilityMode getDurabilityMode() {
+        return durabilityMode;
+    }
+
+    public void setDurabilityMode(DurabilityMode durabilityMode) {
+        this.durabilityMode = durabilityMode;
+    }
+}
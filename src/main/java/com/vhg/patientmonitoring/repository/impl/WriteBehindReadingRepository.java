@@ -0,0 +1,380 @@
+package com.vhg.patientmonitoring.repository.impl;
+
+import com.vhg.patientmonitoring.model.reading.ReadingBlock;
+import com.vhg.patientmonitoring.model.reading.ReadingView;
+import com.vhg.patientmonitoring.model.reading.VitalSignReading;
+import com.vhg.patientmonitoring.model.reading.VitalSignType;
+import com.vhg.patientmonitoring.repository.ReadingCursor;
+import com.vhg.patientmonitoring.repository.ReadingPage;
+import com.vhg.patientmonitoring.repository.ReadingRepository;
+import com.vhg.patientmonitoring.repository.impl.WriteBehindConfiguration.BackpressurePolicy;
+import com.vhg.patientmonitoring.repository.impl.WriteBehindConfiguration.DurabilityMode;
+import com.vhg.patientmonitoring.util.IdIndex;
+import com.vhg.patientmonitoring.util.SqlUtils;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+/**
+ * Write-behind reading store: readings go synchronously into a fast {@code hot} repository that serves
+ * all queries, and asynchronously into a {@code durable} one.
+ * <p>
+ * Readings are queued in a bounded lock-free MPSC queue and a single writer thread drains them into
+ * batches, flushed through {@link ReadingRepository#addReadings(ReadingBlock)} once
+ * {@link WriteBehindConfiguration#getBatchSize()} readings are pending or the oldest pending one has
+ * waited {@link WriteBehindConfiguration#getFlushIntervalMillis()}. Flushes that fail transiently are
+ * retried with exponential backoff, so a database outage turns into backpressure rather than lost data.
+ * A batch that fails for any other reason, e.g. a constraint violation, would fail forever and hold up
+ * everything behind it, so it is split until the readings the durable store refuses are isolated, and
+ * those are counted as rejected and skipped.
+ */
+public class WriteBehindReadingRepository implements ReadingRepository {
+    private static final long INITIAL_RETRY_BACKOFF_MILLIS = 10;
+    private static final long FULL_QUEUE_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+
+    private final ReadingRepository hot;
+    private final ReadingRepository durable;
+    private final WriteBehindConfiguration configuration;
+    private final ReadingQueue queue;
+    private final Thread writer;
+    private final Object flushMonitor = new Object();
+    private volatile boolean running = true;
+    // Every sequence below this has been committed to the durable repository
+    private volatile long flushedThrough;
+
+    private final LongAdder enqueued = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder flushedReadings = new LongAdder();
+    private final LongAdder flushes = new LongAdder();
+    private final LongAdder flushFailures = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder totalFlushNanos = new LongAdder();
+    private final AtomicLong maxFlushNanos = new AtomicLong();
+    private volatile long lastFlushNanos;
+
+    public WriteBehindReadingRepository(ReadingRepository hot, ReadingRepository durable, WriteBehindConfiguration configuration) {
+        this.hot = hot;
+        this.durable = durable;
+        this.configuration = configuration;
+        this.queue = new ReadingQueue(configuration.getQueueCapacity());
+        this.writer = new Thread(this::drainLoop, "reading-write-behind");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    @Override
+    public void addReading(VitalSignReading reading) {
+        hot.addReading(reading);
+        int deviceIndex = reading.getSource() != null ? IdIndex.DEVICES.indexOf(reading.getSource().getDeviceId()) : -1;
+        long sequence = enqueue(IdIndex.PATIENTS.indexOf(reading.getPatientId()), reading.getType(),
+                reading.getEpochNanos(), reading.getValue(), deviceIndex);
+        awaitFlushed(sequence);
+    }
+
+    @Override
+    public void addReadings(ReadingBlock block) {
+        hot.addReadings(block);
+        enqueueAll(block);
+    }
+
+    /**
+     * Queued for the durable store only; the hot one serves recent windows.
+     */
+    @Override
+    public void addHistoricalReadings(ReadingBlock block) {
+        enqueueAll(block);
+    }
+
+    @Override
+    public List<VitalSignReading> getReadingsForPatient(String patientId, int timeWindowMinutes) {
+        return hot.getReadingsForPatient(patientId, timeWindowMinutes);
+    }
+
+    @Override
+    public List<VitalSignReading> getReadingsForPatientByType(String patientId, VitalSignType type, int timeWindowMinutes) {
+        return hot.getReadingsForPatientByType(patientId, type, timeWindowMinutes);
+    }
+
+    @Override
+    public ReadingBlock getReadingBlockForPatient(String patientId, int timeWindowMinutes) {
+        return hot.getReadingBlockForPatient(patientId, timeWindowMinutes);
+    }
+
+    /**
+     * History comes from the durable store, since the hot one only keeps recent readings. Readings
+     * still queued for it show up once flushed, at most one flush interval later.
+     */
+    @Override
+    public ReadingPage getReadingsPage(String patientId, VitalSignType type, long fromNanos, long toNanos,
+                                       ReadingCursor after, int limit) {
+        return durable.getReadingsPage(patientId, type, fromNanos, toNanos, after, limit);
+    }
+
+    @Override
+    public void forEachReading(String patientId, long fromNanos, long toNanos, Consumer<ReadingView> action) {
+        durable.forEachReading(patientId, fromNanos, toNanos, action);
+    }
+
+    @Override
+    public void purgeOldReadings(int daysToKeep) {
+        hot.purgeOldReadings(daysToKeep);
+        durable.purgeOldReadings(daysToKeep);
+    }
+
+    /**
+     * Stops accepting readings, flushes whatever is queued and stops the writer.
+     */
+    public void shutdown() {
+        running = false;
+        LockSupport.unpark(writer);
+        try {
+            writer.join(TimeUnit.SECONDS.toMillis(30));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    public Stats getStats() {
+        return new Stats(queue.size(), queue.capacity(), enqueued.sum(), dropped.sum(), flushedReadings.sum(),
+                flushes.sum(), flushFailures.sum(), rejected.sum(), lastFlushNanos, totalFlushNanos.sum(), maxFlushNanos.get());
+    }
+
+    private void enqueueAll(ReadingBlock block) {
+        long lastSequence = -1;
+        for (int i = 0; i < block.size(); i++) {
+            long sequence = enqueue(block.patientIndex(i), block.type(i), block.epochNanos(i), block.value(i), block.deviceIndex(i));
+            lastSequence = Math.max(lastSequence, sequence);
+        }
+        // Batches are flushed in queue order, so waiting for the last reading covers the whole block
+        awaitFlushed(lastSequence);
+    }
+
+    private long enqueue(int patientIndex, VitalSignType type, long epochNanos, double value, int deviceIndex) {
+        long sequence = queue.offer(patientIndex, type, epochNanos, value, deviceIndex);
+        while (sequence < 0) {
+            if (configuration.getBackpressurePolicy() == BackpressurePolicy.DROP) {
+                dropped.increment();
+                return -1;
+            }
+            if (!running) {
+                throw new IllegalStateException("Write-behind queue is full and the writer has been shut down");
+            }
+            LockSupport.unpark(writer);
+            LockSupport.parkNanos(FULL_QUEUE_PARK_NANOS);
+            sequence = queue.offer(patientIndex, type, epochNanos, value, deviceIndex);
+        }
+        enqueued.increment();
+        return sequence;
+    }
+
+    private void awaitFlushed(long sequence) {
+        if (configuration.getDurabilityMode() != DurabilityMode.FLUSH_BEFORE_ACK || sequence < 0) {
+            return;
+        }
+        LockSupport.unpark(writer);
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(configuration.getAckTimeoutMillis());
+        synchronized (flushMonitor) {
+            while (flushedThrough <= sequence) {
+                long remainingMillis = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+                if (remainingMillis <= 0) {
+                    throw new IllegalStateException("Timed out waiting for reading to be persisted");
+                }
+                try {
+                    flushMonitor.wait(remainingMillis);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException("Interrupted waiting for reading to be persisted", e);
+                }
+            }
+        }
+    }
+
+    private void drainLoop() {
+        int batchSize = configuration.getBatchSize();
+        long flushIntervalNanos = TimeUnit.MILLISECONDS.toNanos(configuration.getFlushIntervalMillis());
+        boolean flushEagerly = configuration.getDurabilityMode() == DurabilityMode.FLUSH_BEFORE_ACK;
+        ReadingBlock batch = new ReadingBlock(batchSize);
+        long oldestPendingAt = 0;
+
+        while (running || queue.size() > 0 || !batch.isEmpty()) {
+            int drained = queue.drainTo(batch, batchSize - batch.size());
+            if (drained > 0 && oldestPendingAt == 0) {
+                oldestPendingAt = System.nanoTime();
+            }
+
+            long waited = System.nanoTime() - oldestPendingAt;
+            boolean due = batch.size() >= batchSize
+                    || (!batch.isEmpty() && (flushEagerly || !running || waited >= flushIntervalNanos));
+            if (due) {
+                flush(batch);
+                batch.clear();
+                oldestPendingAt = 0;
+            } else if (drained == 0) {
+                LockSupport.parkNanos(batch.isEmpty() ? flushIntervalNanos : flushIntervalNanos - waited);
+            }
+        }
+    }
+
+    private void flush(ReadingBlock batch) {
+        persist(batch);
+        synchronized (flushMonitor) {
+            flushedThrough += batch.size();
+            flushMonitor.notifyAll();
+        }
+    }
+
+    private void persist(ReadingBlock batch) {
+        long backoffMillis = INITIAL_RETRY_BACKOFF_MILLIS;
+        while (true) {
+            long start = System.nanoTime();
+            try {
+                durable.addReadings(batch);
+                long duration = System.nanoTime() - start;
+                lastFlushNanos = duration;
+                totalFlushNanos.add(duration);
+                maxFlushNanos.accumulateAndGet(duration, Math::max);
+                flushes.increment();
+                flushedReadings.add(batch.size());
+                return;
+            } catch (RuntimeException e) {
+                flushFailures.increment();
+                if (!SqlUtils.isTransient(e)) {
+                    reject(batch, e);
+                    return;
+                }
+                System.err.println("Error persisting batch of " + batch.size() + " readings: " + e.getMessage());
+                if (!running) {
+                    // Shutting down: don't hold the process hostage to an unavailable database
+                    dropped.add(batch.size());
+                    return;
+                }
+                LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(backoffMillis));
+                backoffMillis = Math.min(backoffMillis * 2, configuration.getMaxRetryBackoffMillis());
+            }
+        }
+    }
+
+    /**
+     * Skips a reading the durable store refuses, or persists each half of a larger batch on its own
+     * so that only the refused readings are skipped.
+     */
+    private void reject(ReadingBlock batch, RuntimeException failure) {
+        if (batch.size() == 1) {
+            rejected.increment();
+            System.err.println("Error persisting reading for patient " + batch.patientId(0) + ", skipping it: "
+                    + failure.getMessage());
+            return;
+        }
+        int half = batch.size() / 2;
+        persist(slice(batch, 0, half));
+        persist(slice(batch, half, batch.size()));
+    }
+
+    private static ReadingBlock slice(ReadingBlock batch, int from, int to) {
+        ReadingBlock slice = new ReadingBlock(to - from);
+        for (int i = from; i < to; i++) {
+            slice.add(batch.patientIndex(i), batch.type(i), batch.epochNanos(i), batch.value(i), batch.deviceIndex(i));
+        }
+        return slice;
+    }
+
+    /**
+     * Point-in-time snapshot of the write-behind pipeline
+     */
+    public static class Stats {
+        private final int queueDepth;
+        private final int queueCapacity;
+        private final long enqueued;
+        private final long dropped;
+        private final long flushedReadings;
+        private final long flushes;
+        private final long flushFailures;
+        private final long rejected;
+        private final long lastFlushNanos;
+        private final long totalFlushNanos;
+        private final long maxFlushNanos;
+
+        public Stats(int queueDepth, int queueCapacity, long enqueued, long dropped, long flushedReadings, long flushes,
+                     long flushFailures, long rejected, long lastFlushNanos, long totalFlushNanos, long maxFlushNanos) {
+            this.queueDepth = queueDepth;
+            this.queueCapacity = queueCapacity;
+            this.enqueued = enqueued;
+            this.dropped = dropped;
+            this.flushedReadings = flushedReadings;
+            this.flushes = flushes;
+            this.flushFailures = flushFailures;
+            this.rejected = rejected;
+            this.lastFlushNanos = lastFlushNanos;
+            this.totalFlushNanos = totalFlushNanos;
+            this.maxFlushNanos = maxFlushNanos;
+        }
+
+        public int getQueueDepth() {
+            return queueDepth;
+        }
+
+        public int getQueueCapacity() {
+            return queueCapacity;
+        }
+
+        public long getEnqueued() {
+            return enqueued;
+        }
+
+        public long getDropped() {
+            return dropped;
+        }
+
+        public long getFlushedReadings() {
+            return flushedReadings;
+        }
+
+        public long getFlushes() {
+            return flushes;
+        }
+
+        public long getFlushFailures() {
+            return flushFailures;
+        }
+
+        /**
+         * Readings skipped after a failure that retrying would not fix
+         */
+        public long getRejected() {
+            return rejected;
+        }
+
+        public long getLastFlushNanos() {
+            return lastFlushNanos;
+        }
+
+        public long getMeanFlushNanos() {
+            return flushes == 0 ? 0 : totalFlushNanos / flushes;
+        }
+
+        public long getMaxFlushNanos() {
+            return maxFlushNanos;
+        }
+
+        @Override
+        public String toString() {
+            return "Stats{" +
+                    "queueDepth=" + queueDepth +
+                    ", queueCapacity=" + queueCapacity +
+                    ", enqueued=" + enqueued +
+                    ", dropped=" + dropped +
+                    ", flushedReadings=" + flushedReadings +
+                    ", flushes=" + flushes +
+                    ", flushFailures=" + flushFailures +
+                    ", rejected=" + rejected +
+                    ", lastFlushNanos=" + lastFlushNanos +
+                    ", meanFlushNanos=" + getMeanFlushNanos() +
+                    ", maxFlushNanos=" + maxFlushNanos +
+                    '}';
+        }
+    }
+}
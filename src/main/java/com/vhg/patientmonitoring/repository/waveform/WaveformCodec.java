@@ -0,0 +1,234 @@
+package com.vhg.patientmonitoring.repository.waveform;
+
+import com.vhg.patientmonitoring.model.reading.VitalSignType;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Lossless compression of one chunk of evenly spaced waveform samples.
+ * <p>
+ * Timestamps cost nothing: a chunk is a start time plus a fixed interval. Values use one of two encodings:
+ * <ul>
+ *     <li>{@link #QUANTIZED_DELTA}: when every value is an exact multiple of the channel's ADC resolution
+ *     (as device samples normally are), the integer steps between consecutive samples are stored in
+ *     variable-width bit fields, usually 5-10 bits per sample.</li>
+ *     <li>{@link #GORILLA}: otherwise, the XOR of consecutive IEEE 754 bit patterns with Gorilla's
+ *     leading/trailing-zero windows, which never loses precision.</li>
+ * </ul>
+ */
+final class WaveformCodec {
+    static final byte GORILLA = 0;
+    static final byte QUANTIZED_DELTA = 1;
+
+    // Finest step a device reports per vital sign (in its unit), indexed by ordinal
+    private static final double[] RESOLUTION = new double[VitalSignType.values().length];
+
+    static {
+        Arrays.fill(RESOLUTION, 0.01);
+        RESOLUTION[VitalSignType.ECG.ordinal()] = 0.001;
+        RESOLUTION[VitalSignType.EEG.ordinal()] = 0.01;
+    }
+
+    private WaveformCodec() {
+    }
+
+    /**
+     * Encoded values; the first byte is the encoding.
+     */
+    static byte[] encode(VitalSignType type, double[] values, int count) {
+        double resolution = RESOLUTION[type.ordinal()];
+        long[] steps = quantize(values, count, resolution);
+        BitOutput out = new BitOutput(count + 16);
+        if (steps != null) {
+            out.writeBits(QUANTIZED_DELTA, 8);
+            encodeDeltas(steps, count, out);
+        } else {
+            out.writeBits(GORILLA, 8);
+            encodeGorilla(values, count, out);
+        }
+        return out.toByteArray();
+    }
+
+    static double[] decode(VitalSignType type, ByteBuffer encoded, int count) {
+        BitInput in = new BitInput(encoded);
+        byte encoding = (byte) in.readBits(8);
+        double[] values = new double[count];
+        if (encoding == QUANTIZED_DELTA) {
+            decodeDeltas(in, values, count, RESOLUTION[type.ordinal()]);
+        } else {
+            decodeGorilla(in, values, count);
+        }
+        return values;
+    }
+
+    // Integer steps of the values, or null if any value isn't exactly reproduced by steps * resolution
+    private static long[] quantize(double[] values, int count, double resolution) {
+        long[] steps = new long[count];
+        for (int i = 0; i < count; i++) {
+            long step = Math.round(values[i] / resolution);
+            if (Double.doubleToRawLongBits(step * resolution) != Double.doubleToRawLongBits(values[i])
+                    || Math.abs(step) > (1L << 52)) {
+                return null;
+            }
+            steps[i] = step;
+        }
+        return steps;
+    }
+
+    private static void encodeDeltas(long[] steps, int count, BitOutput out) {
+        long previous = 0;
+        for (int i = 0; i < count; i++) {
+            long delta = steps[i] - previous;
+            long zigzag = (delta << 1) ^ (delta >> 63);
+            // Prefix code: 0 | 10+4 | 110+8 | 1110+16 | 1111+64 bits
+            if (zigzag == 0) {
+                out.writeBits(0b0, 1);
+            } else if (zigzag < (1 << 4)) {
+                out.writeBits(0b10, 2);
+                out.writeBits(zigzag, 4);
+            } else if (zigzag < (1 << 8)) {
+                out.writeBits(0b110, 3);
+                out.writeBits(zigzag, 8);
+            } else if (zigzag < (1 << 16)) {
+                out.writeBits(0b1110, 4);
+                out.writeBits(zigzag, 16);
+            } else {
+                out.writeBits(0b1111, 4);
+                out.writeBits(zigzag, 64);
+            }
+            previous = steps[i];
+        }
+    }
+
+    private static void decodeDeltas(BitInput in, double[] values, int count, double resolution) {
+        long previous = 0;
+        for (int i = 0; i < count; i++) {
+            long zigzag;
+            if (in.readBits(1) == 0) {
+                zigzag = 0;
+            } else if (in.readBits(1) == 0) {
+                zigzag = in.readBits(4);
+            } else if (in.readBits(1) == 0) {
+                zigzag = in.readBits(8);
+            } else if (in.readBits(1) == 0) {
+                zigzag = in.readBits(16);
+            } else {
+                zigzag = in.readBits(64);
+            }
+            long step = previous + ((zigzag >>> 1) ^ -(zigzag & 1));
+            values[i] = step * resolution;
+            previous = step;
+        }
+    }
+
+    private static void encodeGorilla(double[] values, int count, BitOutput out) {
+        if (count == 0) {
+            return;
+        }
+        long previous = Double.doubleToRawLongBits(values[0]);
+        out.writeBits(previous, 64);
+        int previousLeading = -1;
+        int previousTrailing = 0;
+        for (int i = 1; i < count; i++) {
+            long bits = Double.doubleToRawLongBits(values[i]);
+            long xor = bits ^ previous;
+            if (xor == 0) {
+                out.writeBits(0b0, 1);
+            } else {
+                int leading = Math.min(Long.numberOfLeadingZeros(xor), 31);
+                int trailing = Long.numberOfTrailingZeros(xor);
+                if (previousLeading >= 0 && leading >= previousLeading && trailing >= previousTrailing) {
+                    // Meaningful bits fit the previous window
+                    out.writeBits(0b10, 2);
+                    out.writeBits(xor >>> previousTrailing, 64 - previousLeading - previousTrailing);
+                } else {
+                    int significant = 64 - leading - trailing;
+                    out.writeBits(0b11, 2);
+                    out.writeBits(leading, 5);
+                    // 64 significant bits don't fit in 6 bits and are written as 0
+                    out.writeBits(significant & 63, 6);
+                    out.writeBits(xor >>> trailing, significant);
+                    previousLeading = leading;
+                    previousTrailing = trailing;
+                }
+            }
+            previous = bits;
+        }
+    }
+
+    private static void decodeGorilla(BitInput in, double[] values, int count) {
+        if (count == 0) {
+            return;
+        }
+        long previous = in.readBits(64);
+        values[0] = Double.longBitsToDouble(previous);
+        int leading = 0;
+        int trailing = 0;
+        for (int i = 1; i < count; i++) {
+            if (in.readBits(1) != 0) {
+                if (in.readBits(1) != 0) {
+                    leading = (int) in.readBits(5);
+                    int significant = (int) in.readBits(6);
+                    if (significant == 0) {
+                        significant = 64;
+                    }
+                    trailing = 64 - leading - significant;
+                }
+                previous ^= in.readBits(64 - leading - trailing) << trailing;
+            }
+            values[i] = Double.longBitsToDouble(previous);
+        }
+    }
+
+    /**
+     * Growable MSB-first bit sink
+     */
+    static final class BitOutput {
+        private byte[] bytes;
+        private long bitPosition;
+
+        BitOutput(int initialBytes) {
+            this.bytes = new byte[Math.max(16, initialBytes)];
+        }
+
+        void writeBits(long value, int bitCount) {
+            for (int i = bitCount - 1; i >= 0; i--) {
+                int byteIndex = (int) (bitPosition >>> 3);
+                if (byteIndex == bytes.length) {
+                    bytes = Arrays.copyOf(bytes, bytes.length * 2);
+                }
+                if (((value >>> i) & 1) != 0) {
+                    bytes[byteIndex] |= (byte) (0x80 >>> (bitPosition & 7));
+                }
+                bitPosition++;
+            }
+        }
+
+        byte[] toByteArray() {
+            return Arrays.copyOf(bytes, (int) ((bitPosition + 7) >>> 3));
+        }
+    }
+
+    /**
+     * MSB-first bit source over a buffer, reading with absolute offsets so the buffer's position is untouched
+     */
+    static final class BitInput {
+        private final ByteBuffer buffer;
+        private long bitPosition;
+
+        BitInput(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        long readBits(int bitCount) {
+            long value = 0;
+            for (int i = 0; i < bitCount; i++) {
+                int current = buffer.get((int) (bitPosition >>> 3));
+                value = (value << 1) | ((current >>> (7 - (bitPosition & 7))) & 1);
+                bitPosition++;
+            }
+            return value;
+        }
+    }
+}
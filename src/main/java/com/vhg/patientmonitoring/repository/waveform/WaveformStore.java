@@ -0,0 +1,592 @@
+package com.vhg.patientmonitoring.repository.waveform;
+
+import com.vhg.patientmonitoring.model.reading.SampleBatch;
+import com.vhg.patientmonitoring.model.reading.VitalSignType;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+
+/**
+ * Append-only store for high-rate waveforms (ECG, EEG) in compressed, memory-mapped segment files.
+ * <p>
+ * Samples of each (patient, channel) are buffered into fixed-duration chunks. A full chunk is compressed
+ * with {@link WaveformCodec} and appended to the current segment file; a full segment is forced to disk
+ * and the next one started. An in-memory index of each channel's chunks gives random access by time
+ * range, and the min/max it keeps per chunk lets downsampled reads for dashboards skip decoding chunks
+ * that fall inside a single output bucket. Opening a directory scans its segments to rebuild the index.
+ * <p>
+ * Each channel only moves forward in time: samples at or before its newest one (a late or replayed
+ * batch) are dropped and counted, so a channel's chunks never overlap.
+ */
+public class WaveformStore implements Closeable {
+    private static final int RECORD_MAGIC = 0x57415645; // "WAVE"
+    // magic, id length, type, start, interval, count, min, max, payload length (plus the id itself)
+    private static final int RECORD_HEADER_BYTES = 4 + 2 + 1 + 8 + 8 + 4 + 8 + 8 + 4;
+    private static final String SEGMENT_SUFFIX = ".wseg";
+    private static final VitalSignType[] TYPES = VitalSignType.values();
+
+    private final Path directory;
+    private final long chunkNanos;
+    private final int segmentBytes;
+    private final Map<String, AtomicReferenceArray<Channel>> channels = new ConcurrentHashMap<>();
+    // Guarded by this
+    private final List<Segment> segments = new ArrayList<>();
+    private Segment current;
+
+    private final LongAdder chunks = new LongAdder();
+    private final LongAdder samples = new LongAdder();
+    private final LongAdder payloadBytes = new LongAdder();
+    private final LongAdder storedBytes = new LongAdder();
+    private final LongAdder lateSamples = new LongAdder();
+
+    private WaveformStore(Path directory, long chunkMillis, int segmentBytes) {
+        this.directory = directory;
+        this.chunkNanos = TimeUnit.MILLISECONDS.toNanos(chunkMillis);
+        this.segmentBytes = segmentBytes;
+    }
+
+    /**
+     * Opens (or creates) a store in the directory, recovering the chunks of any existing segments.
+     *
+     * @param chunkMillis  duration of samples compressed together
+     * @param segmentBytes size of each memory-mapped segment file
+     */
+    public static WaveformStore open(Path directory, long chunkMillis, int segmentBytes) throws IOException {
+        WaveformStore store = new WaveformStore(directory, chunkMillis, segmentBytes);
+        Files.createDirectories(directory);
+        List<Path> files;
+        try (Stream<Path> listing = Files.list(directory)) {
+            files = listing.filter(path -> path.getFileName().toString().endsWith(SEGMENT_SUFFIX)).sorted().toList();
+        }
+        for (Path file : files) {
+            store.recover(file);
+        }
+        return store;
+    }
+
+    /**
+     * Appends a batch of evenly spaced samples. A gap or a change of sample rate starts a new chunk, and
+     * samples no newer than the channel's newest one are dropped.
+     */
+    public void append(SampleBatch batch) {
+        long interval = batch.getIntervalNanos();
+        if (interval <= 0) {
+            throw new IllegalArgumentException("Waveform samples need a sample interval, got " + interval);
+        }
+        Channel channel = channel(batch.getPatientId(), batch.getType(), true);
+        synchronized (channel) {
+            for (int i = 0; i < batch.size(); i++) {
+                long timestamp = batch.epochNanos(i);
+                if (timestamp <= channel.latest) {
+                    lateSamples.increment();
+                    continue;
+                }
+                if (channel.openCount > 0 && (interval != channel.openInterval
+                        || Math.abs(timestamp - channel.nextTimestamp()) > interval / 2)) {
+                    seal(channel);
+                }
+                if (channel.openCount == 0) {
+                    channel.openStart = timestamp;
+                    channel.openInterval = interval;
+                    int capacity = (int) Math.max(1, Math.min(chunkNanos / interval, Integer.MAX_VALUE - 8));
+                    if (channel.open == null || channel.open.length != capacity) {
+                        channel.open = new double[capacity];
+                    }
+                }
+                channel.open[channel.openCount++] = batch.value(i);
+                channel.latest = timestamp;
+                if (channel.openCount == channel.open.length) {
+                    seal(channel);
+                }
+            }
+        }
+    }
+
+    /**
+     * Samples of the channel between the two instants (inclusive), one batch per stored chunk, in time order.
+     */
+    public List<SampleBatch> read(String patientId, VitalSignType type, long fromNanos, long toNanos) {
+        List<SampleBatch> result = new ArrayList<>();
+        Channel channel = channel(patientId, type, false);
+        if (channel == null) {
+            return result;
+        }
+        List<ChunkRef> overlapping = new ArrayList<>();
+        ChunkRef open;
+        synchronized (channel) {
+            channel.collectOverlapping(fromNanos, toNanos, overlapping);
+            open = channel.openChunk();
+        }
+        if (open != null && open.overlaps(fromNanos, toNanos)) {
+            overlapping.add(open);
+        }
+
+        for (ChunkRef chunk : overlapping) {
+            int first = chunk.firstIndexAtOrAfter(fromNanos);
+            int last = chunk.lastIndexAtOrBefore(toNanos);
+            double[] values = chunk.values(type);
+            result.add(new SampleBatch(patientId, type, null, chunk.epochNanos(first), chunk.interval,
+                    Arrays.copyOfRange(values, first, last + 1)));
+        }
+        return result;
+    }
+
+    /**
+     * Min/max envelope of the channel over {@code buckets} equal buckets between the two instants, as drawn by
+     * dashboards. Chunks that fit in one bucket contribute their indexed min/max without being decoded.
+     */
+    public MinMaxSeries downsample(String patientId, VitalSignType type, long fromNanos, long toNanos, int buckets) {
+        long bucketNanos = Math.max(1, (toNanos - fromNanos + buckets) / buckets);
+        MinMaxSeries series = new MinMaxSeries(fromNanos, bucketNanos, buckets);
+        Channel channel = channel(patientId, type, false);
+        if (channel == null) {
+            return series;
+        }
+        List<ChunkRef> overlapping = new ArrayList<>();
+        ChunkRef open;
+        synchronized (channel) {
+            channel.collectOverlapping(fromNanos, toNanos, overlapping);
+            open = channel.openChunk();
+        }
+        if (open != null && open.overlaps(fromNanos, toNanos)) {
+            overlapping.add(open);
+        }
+
+        for (ChunkRef chunk : overlapping) {
+            long end = chunk.end();
+            int firstBucket = (int) ((Math.max(chunk.start, fromNanos) - fromNanos) / bucketNanos);
+            int lastBucket = (int) ((Math.min(end, toNanos) - fromNanos) / bucketNanos);
+            if (chunk.start >= fromNanos && end <= toNanos && firstBucket == lastBucket) {
+                series.merge(firstBucket, chunk.min, chunk.max);
+                continue;
+            }
+            double[] values = chunk.values(type);
+            int last = chunk.lastIndexAtOrBefore(toNanos);
+            for (int i = chunk.firstIndexAtOrAfter(fromNanos); i <= last; i++) {
+                int bucket = (int) ((chunk.epochNanos(i) - fromNanos) / bucketNanos);
+                series.merge(bucket, values[i], values[i]);
+            }
+        }
+        return series;
+    }
+
+    /**
+     * Compresses every partially filled chunk and forces the current segment to disk.
+     */
+    public void flush() {
+        for (AtomicReferenceArray<Channel> patientChannels : channels.values()) {
+            for (int t = 0; t < patientChannels.length(); t++) {
+                Channel channel = patientChannels.get(t);
+                if (channel != null) {
+                    synchronized (channel) {
+                        if (channel.openCount > 0) {
+                            seal(channel);
+                        }
+                    }
+                }
+            }
+        }
+        synchronized (this) {
+            if (current != null) {
+                current.buffer.force();
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        flush();
+        synchronized (this) {
+            for (Segment segment : segments) {
+                segment.file.close();
+            }
+        }
+    }
+
+    public Stats getStats() {
+        int segmentCount;
+        synchronized (this) {
+            segmentCount = segments.size();
+        }
+        return new Stats(segmentCount, chunks.sum(), samples.sum(), payloadBytes.sum(), storedBytes.sum(), lateSamples.sum());
+    }
+
+    private Channel channel(String patientId, VitalSignType type, boolean create) {
+        AtomicReferenceArray<Channel> patientChannels = create
+                ? channels.computeIfAbsent(patientId, id -> new AtomicReferenceArray<>(TYPES.length))
+                : channels.get(patientId);
+        if (patientChannels == null) {
+            return null;
+        }
+        Channel channel = patientChannels.get(type.ordinal());
+        if (channel == null && create) {
+            patientChannels.compareAndSet(type.ordinal(), null, new Channel(patientId, type));
+            channel = patientChannels.get(type.ordinal());
+        }
+        return channel;
+    }
+
+    // Caller holds the channel's lock. The open chunk is emptied even if it can't be written, so one
+    // bad chunk doesn't make every later append to the channel fail too.
+    private void seal(Channel channel) {
+        int count = channel.openCount;
+        double min = Double.POSITIVE_INFINITY;
+        double max = Double.NEGATIVE_INFINITY;
+        for (int i = 0; i < count; i++) {
+            min = Math.min(min, channel.open[i]);
+            max = Math.max(max, channel.open[i]);
+        }
+        byte[] payload;
+        try {
+            payload = WaveformCodec.encode(channel.type, channel.open, count);
+            channel.add(write(channel, count, min, max, payload));
+        } finally {
+            channel.openCount = 0;
+        }
+        chunks.increment();
+        samples.add(count);
+        payloadBytes.add(payload.length);
+    }
+
+    private synchronized ChunkRef write(Channel channel, int count, double min, double max, byte[] payload) {
+        byte[] id = channel.patientId.getBytes(StandardCharsets.UTF_8);
+        int size = RECORD_HEADER_BYTES + id.length + payload.length;
+        if (size > segmentBytes) {
+            throw new IllegalStateException("Chunk of " + size + " bytes doesn't fit a " + segmentBytes + " byte segment");
+        }
+        if (current == null || segmentBytes - current.position < size) {
+            roll();
+        }
+
+        // Everything but the magic goes first, so a record torn by a crash is never taken for a complete one
+        ByteBuffer buffer = current.buffer;
+        int start = current.position;
+        int offset = start + 4;
+        buffer.putShort(offset, (short) id.length);
+        buffer.put(offset + 2, id);
+        offset += 2 + id.length;
+        buffer.put(offset, (byte) channel.type.ordinal());
+        buffer.putLong(offset + 1, channel.openStart);
+        buffer.putLong(offset + 9, channel.openInterval);
+        buffer.putInt(offset + 17, count);
+        buffer.putDouble(offset + 21, min);
+        buffer.putDouble(offset + 29, max);
+        buffer.putInt(offset + 37, payload.length);
+        int payloadOffset = offset + 41;
+        buffer.put(payloadOffset, payload);
+        buffer.putInt(start, RECORD_MAGIC);
+        current.position = payloadOffset + payload.length;
+        storedBytes.add(size);
+
+        return new ChunkRef(channel.openStart, channel.openInterval, count, min, max, current.buffer, payloadOffset,
+                payload.length, null);
+    }
+
+    // Caller holds this
+    private void roll() {
+        if (current != null) {
+            current.buffer.force();
+        }
+        Path file = directory.resolve(String.format("segment-%06d%s", segments.size(), SEGMENT_SUFFIX));
+        try {
+            FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ,
+                    StandardOpenOption.WRITE);
+            current = new Segment(channel, channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentBytes));
+            segments.add(current);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not create waveform segment " + file, e);
+        }
+    }
+
+    private void recover(Path file) throws IOException {
+        FileChannel fileChannel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        long size = Math.max(fileChannel.size(), segmentBytes);
+        MappedByteBuffer buffer = fileChannel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+        Segment segment = new Segment(fileChannel, buffer);
+
+        int position = 0;
+        while (position + RECORD_HEADER_BYTES <= size && buffer.getInt(position) == RECORD_MAGIC) {
+            int idLength = buffer.getShort(position + 4);
+            byte[] id = new byte[idLength];
+            buffer.get(position + 6, id);
+            int offset = position + 6 + idLength;
+            VitalSignType type = TYPES[buffer.get(offset)];
+            long start = buffer.getLong(offset + 1);
+            long interval = buffer.getLong(offset + 9);
+            int count = buffer.getInt(offset + 17);
+            double min = buffer.getDouble(offset + 21);
+            double max = buffer.getDouble(offset + 29);
+            int payloadLength = buffer.getInt(offset + 37);
+            int payloadOffset = offset + 41;
+            if (payloadOffset + payloadLength > size) {
+                break;
+            }
+
+            Channel channel = channel(new String(id, StandardCharsets.UTF_8), type, true);
+            channel.add(new ChunkRef(start, interval, count, min, max, buffer, payloadOffset, payloadLength, null));
+            chunks.increment();
+            samples.add(count);
+            payloadBytes.add(payloadLength);
+            storedBytes.add(payloadOffset + payloadLength - position);
+            position = payloadOffset + payloadLength;
+        }
+        segment.position = position;
+
+        synchronized (this) {
+            segments.add(segment);
+            current = segment;
+        }
+    }
+
+    /**
+     * One memory-mapped segment file and its append position
+     */
+    private static final class Segment {
+        private final FileChannel file;
+        private final MappedByteBuffer buffer;
+        private int position;
+
+        private Segment(FileChannel file, MappedByteBuffer buffer) {
+            this.file = file;
+            this.buffer = buffer;
+        }
+    }
+
+    /**
+     * Index of one (patient, channel), plus the chunk still being filled; guarded by its own monitor
+     */
+    private static final class Channel {
+        private final String patientId;
+        private final VitalSignType type;
+        // Stored chunks ordered by start time, never overlapping
+        private final List<ChunkRef> chunks = new ArrayList<>();
+        // Timestamp of the newest sample stored or buffered
+        private long latest = Long.MIN_VALUE;
+        private double[] open;
+        private int openCount;
+        private long openStart;
+        private long openInterval;
+
+        private Channel(String patientId, VitalSignType type) {
+            this.patientId = patientId;
+            this.type = type;
+        }
+
+        private long nextTimestamp() {
+            return openStart + openCount * openInterval;
+        }
+
+        private void add(ChunkRef chunk) {
+            int index = chunks.size();
+            // Appends are in order; segments recovered out of order are sorted in
+            while (index > 0 && chunks.get(index - 1).start > chunk.start) {
+                index--;
+            }
+            chunks.add(index, chunk);
+            latest = Math.max(latest, chunk.end());
+        }
+
+        private void collectOverlapping(long fromNanos, long toNanos, List<ChunkRef> result) {
+            // Last chunk starting at or before fromNanos; earlier ones end before it
+            int low = 0;
+            int high = chunks.size() - 1;
+            int first = 0;
+            while (low <= high) {
+                int mid = (low + high) >>> 1;
+                if (chunks.get(mid).start <= fromNanos) {
+                    first = mid;
+                    low = mid + 1;
+                } else {
+                    high = mid - 1;
+                }
+            }
+            for (int i = first; i < chunks.size() && chunks.get(i).start <= toNanos; i++) {
+                if (chunks.get(i).overlaps(fromNanos, toNanos)) {
+                    result.add(chunks.get(i));
+                }
+            }
+        }
+
+        private ChunkRef openChunk() {
+            if (openCount == 0) {
+                return null;
+            }
+            double min = Double.POSITIVE_INFINITY;
+            double max = Double.NEGATIVE_INFINITY;
+            for (int i = 0; i < openCount; i++) {
+                min = Math.min(min, open[i]);
+                max = Math.max(max, open[i]);
+            }
+            return new ChunkRef(openStart, openInterval, openCount, min, max, null, 0, 0, Arrays.copyOf(open, openCount));
+        }
+    }
+
+    /**
+     * Location and summary of one chunk; {@code raw} holds the values of a chunk not yet compressed
+     */
+    private record ChunkRef(long start, long interval, int count, double min, double max, ByteBuffer buffer,
+                            int payloadOffset, int payloadLength, double[] raw) {
+
+        long end() {
+            return start + (count - 1) * interval;
+        }
+
+        long epochNanos(int i) {
+            return start + i * interval;
+        }
+
+        boolean overlaps(long fromNanos, long toNanos) {
+            return start <= toNanos && end() >= fromNanos;
+        }
+
+        int firstIndexAtOrAfter(long nanos) {
+            return nanos <= start ? 0 : (int) Math.min(count - 1, (nanos - start + interval - 1) / interval);
+        }
+
+        int lastIndexAtOrBefore(long nanos) {
+            return nanos >= end() ? count - 1 : (int) ((nanos - start) / interval);
+        }
+
+        double[] values(VitalSignType type) {
+            return raw != null ? raw : WaveformCodec.decode(type, buffer.slice(payloadOffset, payloadLength), count);
+        }
+    }
+
+    /**
+     * Per-bucket minimum and maximum of a channel, NaN for buckets without samples
+     */
+    public static class MinMaxSeries {
+        private final long fromNanos;
+        private final long bucketNanos;
+        private final double[] min;
+        private final double[] max;
+
+        MinMaxSeries(long fromNanos, long bucketNanos, int buckets) {
+            this.fromNanos = fromNanos;
+            this.bucketNanos = bucketNanos;
+            this.min = new double[buckets];
+            this.max = new double[buckets];
+            Arrays.fill(min, Double.NaN);
+            Arrays.fill(max, Double.NaN);
+        }
+
+        private void merge(int bucket, double low, double high) {
+            if (bucket < 0 || bucket >= min.length) {
+                return;
+            }
+            min[bucket] = Double.isNaN(min[bucket]) ? low : Math.min(min[bucket], low);
+            max[bucket] = Double.isNaN(max[bucket]) ? high : Math.max(max[bucket], high);
+        }
+
+        public int size() {
+            return min.length;
+        }
+
+        public long bucketStartNanos(int bucket) {
+            return fromNanos + bucket * bucketNanos;
+        }
+
+        public long getBucketNanos() {
+            return bucketNanos;
+        }
+
+        public double min(int bucket) {
+            return min[bucket];
+        }
+
+        public double max(int bucket) {
+            return max[bucket];
+        }
+    }
+
+    /**
+     * Point-in-time snapshot of the waveform store
+     */
+    public static class Stats {
+        private final int segments;
+        private final long chunks;
+        private final long samples;
+        private final long payloadBytes;
+        private final long storedBytes;
+        private final long lateSamples;
+
+        public Stats(int segments, long chunks, long samples, long payloadBytes, long storedBytes, long lateSamples) {
+            this.segments = segments;
+            this.chunks = chunks;
+            this.samples = samples;
+            this.payloadBytes = payloadBytes;
+            this.storedBytes = storedBytes;
+            this.lateSamples = lateSamples;
+        }
+
+        public int getSegments() {
+            return segments;
+        }
+
+        public long getChunks() {
+            return chunks;
+        }
+
+        /**
+         * Samples in stored chunks; samples of chunks still being filled aren't counted
+         */
+        public long getSamples() {
+            return samples;
+        }
+
+        public long getStoredBytes() {
+            return storedBytes;
+        }
+
+        /**
+         * Samples dropped because they were no newer than their channel's newest sample
+         */
+        public long getLateSamples() {
+            return lateSamples;
+        }
+
+        /**
+         * Size of the samples as 8-byte doubles over their compressed size
+         */
+        public double getCompressionRatio() {
+            return payloadBytes == 0 ? 0 : samples * 8.0 / payloadBytes;
+        }
+
+        /**
+         * Stored bytes per sample, including chunk headers
+         */
+        public double getBytesPerSample() {
+            return samples == 0 ? 0 : (double) storedBytes / samples;
+        }
+
+        @Override
+        public String toString() {
+            return "Stats{" +
+                    "segments=" + segments +
+                    ", chunks=" + chunks +
+                    ", samples=" + samples +
+                    ", storedBytes=" + storedBytes +
+                    ", lateSamples=" + lateSamples +
+                    ", compressionRatio=" + String.format("%.2f", getCompressionRatio()) +
+                    ", bytesPerSample=" + String.format("%.3f", getBytesPerSample()) +
+                    '}';
+        }
+    }
+}
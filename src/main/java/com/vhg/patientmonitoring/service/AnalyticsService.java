@@ -0,0 +1,550 @@
+package com.vhg.patientmonitoring.service;
+
+import com.vhg.patientmonitoring.core.MonitoringConfiguration;
+import com.vhg.patientmonitoring.model.analytics.Rollup;
+import com.vhg.patientmonitoring.model.analytics.RollupGranularity;
+import com.vhg.patientmonitoring.model.analytics.VitalStatistics;
+import com.vhg.patientmonitoring.model.reading.ReadingView;
+import com.vhg.patientmonitoring.model.reading.VitalSignType;
+import com.vhg.patientmonitoring.repository.RollupRepository;
+import com.vhg.patientmonitoring.util.DateTimeUtils;
+import com.vhg.patientmonitoring.util.SqlUtils;
+
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * Continuous minute, hour and day rollups of every patient's discrete vital signs.
+ * <p>
+ * {@link #record} adds each reading to its three buckets as it is stored, so nothing is ever
+ * recomputed from raw readings. Buckets being filled live in memory and are written to the
+ * {@link RollupRepository} every flush interval; a bucket stays in memory until its latest state has
+ * been written and it has ended. A reading for an older bucket than the one being filled reloads
+ * that bucket from the repository first. If the repository rejects a flush, each series is written on
+ * its own so that one bad bucket holds back only its own series, and a bucket rejected
+ * {@value #MAX_FAILED_SAVES} flushes in a row is given up on rather than kept in memory for good.
+ * <p>
+ * {@link #summarize} covers a range with as few buckets as possible: whole days in the middle, whole
+ * hours next to them and minutes at the edges, so a week is at most about 170 rollups however many
+ * readings it holds. The range is resolved to whole minutes, and to whole hours or days where the
+ * finer rollups are past retention.
+ */
+public class AnalyticsService {
+    private static final VitalSignType[] TYPES = VitalSignType.values();
+    private static final RollupGranularity[] GRANULARITIES = RollupGranularity.values();
+    private static final long PURGE_INTERVAL_NANOS = TimeUnit.HOURS.toNanos(1);
+    // A bucket the repository rejected this many flushes in a row is given up on
+    private static final int MAX_FAILED_SAVES = 5;
+
+    private final RollupRepository repository;
+    private final Clock clock;
+    private final long flushIntervalMillis;
+    // Indexed by granularity ordinal
+    private final long[] retentionNanos = new long[GRANULARITIES.length];
+    private final Map<String, AtomicReferenceArray<Series>> series = new ConcurrentHashMap<>();
+    private final Object flushLock = new Object();
+    private final Thread flusher;
+    private volatile boolean running = true;
+    private long lastPurgeNanos = Long.MIN_VALUE;
+
+    private final LongAdder recorded = new LongAdder();
+    private final LongAdder reloaded = new LongAdder();
+    private final LongAdder flushes = new LongAdder();
+    private final LongAdder rollupsSaved = new LongAdder();
+    private final LongAdder flushFailures = new LongAdder();
+    private final LongAdder rollupsDropped = new LongAdder();
+    private final LongAdder queries = new LongAdder();
+    private final LongAdder rollupsRead = new LongAdder();
+
+    public AnalyticsService(RollupRepository repository, MonitoringConfiguration configuration, Clock clock) {
+        this.repository = repository;
+        this.clock = clock;
+        this.flushIntervalMillis = configuration.getRollupFlushIntervalMillis();
+        retentionNanos[RollupGranularity.MINUTE.ordinal()] = TimeUnit.DAYS.toNanos(configuration.getMinuteRollupRetentionDays());
+        retentionNanos[RollupGranularity.HOUR.ordinal()] = TimeUnit.DAYS.toNanos(configuration.getHourRollupRetentionDays());
+        retentionNanos[RollupGranularity.DAY.ordinal()] = TimeUnit.DAYS.toNanos(configuration.getDayRollupRetentionDays());
+        this.flusher = new Thread(this::flushLoop, "rollup-flush");
+        this.flusher.setDaemon(true);
+        this.flusher.start();
+    }
+
+    /**
+     * Adds a discrete reading to its minute, hour and day rollups; waveform samples are ignored.
+     */
+    public void record(ReadingView reading) {
+        VitalSignType type = reading.getType();
+        if (type.isWaveform()) {
+            return;
+        }
+        Series target = seriesFor(reading.getPatientId(), type);
+        long epochNanos = reading.getEpochNanos();
+        double value = reading.getValue();
+        synchronized (target) {
+            for (RollupGranularity granularity : GRANULARITIES) {
+                target.bucket(granularity, granularity.bucketStart(epochNanos)).add(value);
+            }
+        }
+        recorded.increment();
+    }
+
+    /**
+     * Statistics of the patient's readings of the type in [fromNanos, toNanos), rounded out to whole minutes.
+     */
+    public VitalStatistics summarize(String patientId, VitalSignType type, long fromNanos, long toNanos) {
+        queries.increment();
+        VitalStatistics total = new VitalStatistics(type);
+        cover(patientId, type, RollupGranularity.DAY, RollupGranularity.MINUTE.bucketStart(fromNanos),
+                RollupGranularity.MINUTE.nextBoundary(toNanos), total);
+        return total;
+    }
+
+    /**
+     * The patient's rollups of one granularity whose buckets start in [fromNanos, toNanos), oldest first,
+     * e.g. hourly points for a week-long trend chart.
+     */
+    public List<Rollup> getRollups(String patientId, VitalSignType type, RollupGranularity granularity,
+                                   long fromNanos, long toNanos) {
+        queries.increment();
+        return rollups(patientId, type, granularity, fromNanos, toNanos);
+    }
+
+    /**
+     * Writes every changed rollup to the repository and drops ended buckets that are already stored.
+     * Runs every flush interval on its own; call it directly to make recent readings durable.
+     */
+    public void flush() {
+        flushChanges();
+    }
+
+    /**
+     * Stops the periodic flush after a last one.
+     */
+    public void shutdown() {
+        running = false;
+        flusher.interrupt();
+        try {
+            flusher.join(TimeUnit.SECONDS.toMillis(30));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    public Stats getStats() {
+        int[] resident = new int[1];
+        forEachSeries(target -> {
+            synchronized (target) {
+                for (TreeMap<Long, Resident> buckets : target.buckets) {
+                    resident[0] += buckets.size();
+                }
+            }
+        });
+        return new Stats(recorded.sum(), resident[0], reloaded.sum(), flushes.sum(), rollupsSaved.sum(),
+                flushFailures.sum(), rollupsDropped.sum(), queries.sum(), rollupsRead.sum());
+    }
+
+    private void flushChanges() {
+        synchronized (flushLock) {
+            long nowNanos = DateTimeUtils.nowEpochNanos(clock);
+            List<Changes> changed = new ArrayList<>();
+            List<Rollup> snapshots = new ArrayList<>();
+            forEachSeries(target -> {
+                Changes changes = new Changes();
+                synchronized (target) {
+                    for (TreeMap<Long, Resident> buckets : target.buckets) {
+                        for (Resident resident : buckets.values()) {
+                            if (resident.version != resident.savedVersion) {
+                                changes.add(resident);
+                            }
+                        }
+                    }
+                }
+                if (!changes.residents.isEmpty()) {
+                    changed.add(changes);
+                    snapshots.addAll(changes.snapshots);
+                }
+            });
+
+            if (!snapshots.isEmpty()) {
+                RuntimeException failure = save(snapshots);
+                if (failure == null) {
+                    changed.forEach(this::saved);
+                } else if (!SqlUtils.isTransient(failure)) {
+                    if (changed.size() == 1) {
+                        failed(changed.get(0));
+                    } else {
+                        // One bad row fails the whole batch, so each series is saved on its own and only
+                        // the series holding it stays behind; the rest are stored and can be evicted
+                        for (Changes changes : changed) {
+                            RuntimeException seriesFailure = save(changes.snapshots);
+                            if (seriesFailure == null) {
+                                saved(changes);
+                            } else if (SqlUtils.isTransient(seriesFailure)) {
+                                break;
+                            } else {
+                                failed(changes);
+                            }
+                        }
+                    }
+                }
+                // Whatever failed transiently (e.g. the database is unreachable) is retried by the next flush
+            }
+            flushes.increment();
+
+            long evictBefore = nowNanos - TimeUnit.MILLISECONDS.toNanos(flushIntervalMillis);
+            forEachSeries(target -> {
+                synchronized (target) {
+                    target.evict(evictBefore);
+                }
+            });
+            purgeIfDue(nowNanos);
+        }
+    }
+
+    private void cover(String patientId, VitalSignType type, RollupGranularity granularity, long fromNanos, long toNanos,
+                       VitalStatistics into) {
+        if (fromNanos >= toNanos) {
+            return;
+        }
+        RollupGranularity finer = granularity.finer();
+        if (finer == null) {
+            mergeInto(into, rollups(patientId, type, granularity, fromNanos, toNanos));
+            return;
+        }
+        long firstWhole = granularity.nextBoundary(fromNanos);
+        long lastWhole = granularity.bucketStart(toNanos);
+        if (firstWhole >= lastWhole) {
+            cover(patientId, type, finer, fromNanos, toNanos, into);
+            return;
+        }
+        mergeInto(into, rollups(patientId, type, granularity, firstWhole, lastWhole));
+        // An edge whose finer rollups are past retention is left out rather than counted as partial
+        long retainedFrom = DateTimeUtils.nowEpochNanos(clock) - retentionNanos[finer.ordinal()];
+        if (fromNanos >= retainedFrom) {
+            cover(patientId, type, finer, fromNanos, firstWhole, into);
+        }
+        if (lastWhole >= retainedFrom) {
+            cover(patientId, type, finer, lastWhole, toNanos, into);
+        }
+    }
+
+    private void mergeInto(VitalStatistics into, List<Rollup> rollups) {
+        for (Rollup rollup : rollups) {
+            into.merge(rollup.getStatistics());
+        }
+        rollupsRead.add(rollups.size());
+    }
+
+    /**
+     * Stored rollups overlaid with those in memory. Both are states of the same bucket, which only
+     * grows, so the one with more readings is the later.
+     */
+    private List<Rollup> rollups(String patientId, VitalSignType type, RollupGranularity granularity,
+                                 long fromNanos, long toNanos) {
+        TreeMap<Long, Rollup> merged = new TreeMap<>();
+        AtomicReferenceArray<Series> patientSeries = series.get(patientId);
+        Series target = patientSeries != null ? patientSeries.get(type.ordinal()) : null;
+        if (target != null) {
+            synchronized (target) {
+                for (Resident resident : target.buckets.get(granularity.ordinal()).subMap(fromNanos, toNanos).values()) {
+                    merged.put(resident.rollup.getBucketStartNanos(), resident.rollup.copy());
+                }
+            }
+        }
+        for (Rollup stored : repository.getRollups(patientId, type, granularity, fromNanos, toNanos)) {
+            merged.merge(stored.getBucketStartNanos(), stored, (held, loaded) ->
+                    held.getStatistics().getCount() >= loaded.getStatistics().getCount() ? held : loaded);
+        }
+        return new ArrayList<>(merged.values());
+    }
+
+    private Series seriesFor(String patientId, VitalSignType type) {
+        AtomicReferenceArray<Series> patientSeries =
+                series.computeIfAbsent(patientId, id -> new AtomicReferenceArray<>(TYPES.length));
+        Series target = patientSeries.get(type.ordinal());
+        if (target == null) {
+            Series created = new Series(patientId, type);
+            target = patientSeries.compareAndSet(type.ordinal(), null, created) ? created : patientSeries.get(type.ordinal());
+        }
+        return target;
+    }
+
+    private void forEachSeries(Consumer<Series> action) {
+        for (AtomicReferenceArray<Series> patientSeries : series.values()) {
+            for (int i = 0; i < patientSeries.length(); i++) {
+                Series target = patientSeries.get(i);
+                if (target != null) {
+                    action.accept(target);
+                }
+            }
+        }
+    }
+
+    /**
+     * @return the failure, or {@code null} once the rollups are stored
+     */
+    private RuntimeException save(List<Rollup> rollups) {
+        try {
+            repository.saveRollups(rollups);
+            rollupsSaved.add(rollups.size());
+            return null;
+        } catch (RuntimeException e) {
+            flushFailures.increment();
+            System.err.println("Error storing " + rollups.size() + " rollups: " + e.getMessage());
+            return e;
+        }
+    }
+
+    private void saved(Changes changes) {
+        for (int i = 0; i < changes.residents.size(); i++) {
+            Resident resident = changes.residents.get(i);
+            synchronized (resident.series) {
+                resident.savedVersion = changes.versions.get(i);
+                resident.failedSaves = 0;
+            }
+        }
+    }
+
+    /**
+     * Leaves the changes to be retried by the next flush, except those that have failed too often to
+     * ever succeed: they are given up on, so their buckets can be evicted instead of piling up.
+     */
+    private void failed(Changes changes) {
+        for (int i = 0; i < changes.residents.size(); i++) {
+            Resident resident = changes.residents.get(i);
+            synchronized (resident.series) {
+                if (++resident.failedSaves >= MAX_FAILED_SAVES) {
+                    resident.savedVersion = changes.versions.get(i);
+                    resident.failedSaves = 0;
+                    rollupsDropped.increment();
+                }
+            }
+        }
+    }
+
+    private void purgeIfDue(long nowNanos) {
+        if (nowNanos - lastPurgeNanos < PURGE_INTERVAL_NANOS) {
+            return;
+        }
+        lastPurgeNanos = nowNanos;
+        for (RollupGranularity granularity : GRANULARITIES) {
+            try {
+                repository.purgeRollups(granularity, nowNanos - retentionNanos[granularity.ordinal()]);
+            } catch (RuntimeException e) {
+                System.err.println("Error purging " + granularity + " rollups: " + e.getMessage());
+            }
+        }
+    }
+
+    private void flushLoop() {
+        while (running) {
+            try {
+                Thread.sleep(flushIntervalMillis);
+            } catch (InterruptedException e) {
+                // Shutting down: flush once more below
+            }
+            try {
+                flushChanges();
+            } catch (RuntimeException e) {
+                System.err.println("Error flushing rollups: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Buckets of one (patient, type) held in memory, per granularity. Guarded by its own monitor.
+     */
+    private final class Series {
+        private final String patientId;
+        private final VitalSignType type;
+        private final List<TreeMap<Long, Resident>> buckets = new ArrayList<>(GRANULARITIES.length);
+        // Newest bucket ever held per granularity; anything later cannot be stored yet
+        private final long[] newest = new long[GRANULARITIES.length];
+
+        private Series(String patientId, VitalSignType type) {
+            this.patientId = patientId;
+            this.type = type;
+            for (int i = 0; i < GRANULARITIES.length; i++) {
+                buckets.add(new TreeMap<>());
+                newest[i] = Long.MIN_VALUE;
+            }
+        }
+
+        /**
+         * The bucket's statistics, marked as changed since they are about to be added to.
+         */
+        private VitalStatistics bucket(RollupGranularity granularity, long bucketStart) {
+            TreeMap<Long, Resident> held = buckets.get(granularity.ordinal());
+            // Nearly always the bucket being filled
+            Map.Entry<Long, Resident> last = held.lastEntry();
+            Resident resident = last != null && last.getKey() == bucketStart ? last.getValue() : held.get(bucketStart);
+            if (resident == null) {
+                resident = new Resident(this, load(granularity, bucketStart));
+                held.put(bucketStart, resident);
+                newest[granularity.ordinal()] = Math.max(newest[granularity.ordinal()], bucketStart);
+            }
+            resident.version++;
+            return resident.rollup.getStatistics();
+        }
+
+        private Rollup load(RollupGranularity granularity, long bucketStart) {
+            // Only a bucket at or before one already seen, or any bucket after a restart, may be stored
+            if (bucketStart > newest[granularity.ordinal()] && newest[granularity.ordinal()] != Long.MIN_VALUE) {
+                return new Rollup(patientId, granularity, bucketStart, new VitalStatistics(type));
+            }
+            List<Rollup> stored = repository.getRollups(patientId, type, granularity, bucketStart, bucketStart + 1);
+            if (stored.isEmpty()) {
+                return new Rollup(patientId, granularity, bucketStart, new VitalStatistics(type));
+            }
+            reloaded.increment();
+            return stored.get(0);
+        }
+
+        private void evict(long endedBefore) {
+            for (TreeMap<Long, Resident> held : buckets) {
+                Map.Entry<Long, Resident> last = held.lastEntry();
+                Iterator<Resident> residents = held.values().iterator();
+                while (residents.hasNext()) {
+                    Resident resident = residents.next();
+                    boolean current = last != null && resident == last.getValue();
+                    if (!current && resident.version == resident.savedVersion
+                            && resident.rollup.getBucketEndNanos() <= endedBefore) {
+                        residents.remove();
+                    } else if (!current) {
+                        resident.rollup.getStatistics().compact();
+                    }
+                }
+            }
+        }
+    }
+
+    private static final class Resident {
+        private final Series series;
+        private final Rollup rollup;
+        // Changes made, and how many of them the repository has
+        private long version;
+        private long savedVersion;
+        // Flushes in a row that failed to store this bucket on its own
+        private int failedSaves;
+
+        private Resident(Series series, Rollup rollup) {
+            this.series = series;
+            this.rollup = rollup;
+        }
+    }
+
+    /**
+     * Changed buckets of one series as of a flush: the buckets, a copy of each and the version copied.
+     * Read under the series' monitor.
+     */
+    private static final class Changes {
+        private final List<Resident> residents = new ArrayList<>();
+        private final List<Rollup> snapshots = new ArrayList<>();
+        private final List<Long> versions = new ArrayList<>();
+
+        private void add(Resident resident) {
+            residents.add(resident);
+            snapshots.add(resident.rollup.copy());
+            versions.add(resident.version);
+        }
+    }
+
+    /**
+     * Point-in-time snapshot of rollup maintenance and queries
+     */
+    public static class Stats {
+        private final long recorded;
+        private final int residentRollups;
+        private final long reloaded;
+        private final long flushes;
+        private final long rollupsSaved;
+        private final long flushFailures;
+        private final long rollupsDropped;
+        private final long queries;
+        private final long rollupsRead;
+
+        public Stats(long recorded, int residentRollups, long reloaded, long flushes, long rollupsSaved,
+                     long flushFailures, long rollupsDropped, long queries, long rollupsRead) {
+            this.recorded = recorded;
+            this.residentRollups = residentRollups;
+            this.reloaded = reloaded;
+            this.flushes = flushes;
+            this.rollupsSaved = rollupsSaved;
+            this.flushFailures = flushFailures;
+            this.rollupsDropped = rollupsDropped;
+            this.queries = queries;
+            this.rollupsRead = rollupsRead;
+        }
+
+        public long getRecorded() {
+            return recorded;
+        }
+
+        /**
+         * Rollups currently held in memory
+         */
+        public int getResidentRollups() {
+            return residentRollups;
+        }
+
+        /**
+         * Older buckets brought back from the repository for a late reading
+         */
+        public long getReloaded() {
+            return reloaded;
+        }
+
+        public long getFlushes() {
+            return flushes;
+        }
+
+        public long getRollupsSaved() {
+            return rollupsSaved;
+        }
+
+        /**
+         * Failed attempts to store rollups, whether the whole flush or one series of it
+         */
+        public long getFlushFailures() {
+            return flushFailures;
+        }
+
+        /**
+         * Bucket states given up on after the repository kept rejecting them
+         */
+        public long getRollupsDropped() {
+            return rollupsDropped;
+        }
+
+        public long getQueries() {
+            return queries;
+        }
+
+        public long getRollupsRead() {
+            return rollupsRead;
+        }
+
+        @Override
+        public String toString() {
+            return "Stats{" +
+                    "recorded=" + recorded +
+                    ", residentRollups=" + residentRollups +
+                    ", reloaded=" + reloaded +
+                    ", flushes=" + flushes +
+                    ", rollupsSaved=" + rollupsSaved +
+                    ", flushFailures=" + flushFailures +
+                    ", rollupsDropped=" + rollupsDropped +
+                    ", queries=" + queries +
+                    ", rollupsRead=" + rollupsRead +
+                    '}';
+        }
+    }
+}
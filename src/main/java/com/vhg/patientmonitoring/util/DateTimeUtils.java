@@ -0,0 +1,112 @@
+package com.vhg.patientmonitoring.util;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Conversions between {@link LocalDateTime} and the primitive epoch-nanosecond timestamps used on the hot path
+ */
+public final class DateTimeUtils {
+    private static final long NANOS_PER_SECOND = TimeUnit.SECONDS.toNanos(1);
+    private static final long SECONDS_PER_DAY = TimeUnit.DAYS.toSeconds(1);
+    private static final long DAYS_0000_TO_1970 = 719_528;
+    private static final int[] DAYS_IN_MONTH = {31, 28, 31, 30, 31, 30, 31, 31, 30, 31, 30, 31};
+
+    private DateTimeUtils() {
+    }
+
+    public static long toEpochNanos(Instant instant) {
+        return instant.getEpochSecond() * NANOS_PER_SECOND + instant.getNano();
+    }
+
+    public static long toEpochNanos(LocalDateTime dateTime, ZoneId zone) {
+        ZoneOffset offset = zone.getRules().getOffset(dateTime);
+        return dateTime.toEpochSecond(offset) * NANOS_PER_SECOND + dateTime.getNano();
+    }
+
+    public static LocalDateTime toLocalDateTime(long epochNanos, ZoneId zone) {
+        return LocalDateTime.ofInstant(toInstant(epochNanos), zone);
+    }
+
+    public static Instant toInstant(long epochNanos) {
+        return Instant.ofEpochSecond(Math.floorDiv(epochNanos, NANOS_PER_SECOND), Math.floorMod(epochNanos, NANOS_PER_SECOND));
+    }
+
+    public static long nowEpochNanos(Clock clock) {
+        return toEpochNanos(clock.instant());
+    }
+
+    /**
+     * Parses a UTC instant in the form {@code 2024-03-01T11:00:00Z}, optionally with up to nine fraction
+     * digits, without allocating, e.g. straight from a JSON parser's buffer.
+     *
+     * @return epoch nanos, or {@link Long#MIN_VALUE} if the text is not in that form; other ISO-8601
+     * forms, such as offsets other than {@code Z}, are left to {@link Instant#parse}
+     */
+    public static long parseUtcEpochNanos(char[] text, int offset, int length) {
+        if (length < 20 || text[offset + length - 1] != 'Z'
+                || text[offset + 4] != '-' || text[offset + 7] != '-' || text[offset + 10] != 'T'
+                || text[offset + 13] != ':' || text[offset + 16] != ':') {
+            return Long.MIN_VALUE;
+        }
+        int year = digits(text, offset, 4);
+        int month = digits(text, offset + 5, 2);
+        int day = digits(text, offset + 8, 2);
+        int hour = digits(text, offset + 11, 2);
+        int minute = digits(text, offset + 14, 2);
+        int second = digits(text, offset + 17, 2);
+        if (year < 0 || month < 1 || month > 12 || day < 1 || hour < 0 || hour > 23 || minute < 0 || minute > 59
+                || second < 0 || second > 59) {
+            return Long.MIN_VALUE;
+        }
+        boolean leap = (year % 4 == 0 && year % 100 != 0) || year % 400 == 0;
+        if (day > DAYS_IN_MONTH[month - 1] + (month == 2 && leap ? 1 : 0)) {
+            return Long.MIN_VALUE;
+        }
+
+        long nanos = 0;
+        int fractionDigits = length - 21;
+        if (fractionDigits >= 0) {
+            if (text[offset + 19] != '.' || fractionDigits < 1 || fractionDigits > 9) {
+                return Long.MIN_VALUE;
+            }
+            int fraction = digits(text, offset + 20, fractionDigits);
+            if (fraction < 0) {
+                return Long.MIN_VALUE;
+            }
+            nanos = fraction;
+            for (int i = fractionDigits; i < 9; i++) {
+                nanos *= 10;
+            }
+        }
+
+        // Days since 1970 as in LocalDate.toEpochDay, for years from 0
+        long days = 365L * year + (year + 3) / 4 - (year + 99) / 100 + (year + 399) / 400
+                + (367 * month - 362) / 12 + day - 1;
+        if (month > 2) {
+            days -= leap ? 1 : 2;
+        }
+        days -= DAYS_0000_TO_1970;
+        long seconds = days * SECONDS_PER_DAY + hour * 3600L + minute * 60L + second;
+        return seconds * NANOS_PER_SECOND + nanos;
+    }
+
+    /**
+     * Value of {@code count} decimal digits, or -1 if any of them isn't one
+     */
+    private static int digits(char[] text, int offset, int count) {
+        int value = 0;
+        for (int i = offset; i < offset + count; i++) {
+            char c = text[i];
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            value = value * 10 + (c - '0');
+        }
+        return value;
+    }
+}
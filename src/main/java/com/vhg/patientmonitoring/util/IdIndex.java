@@ -0,0 +1,61 @@
+package com.vhg.patientmonitoring.util;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Interns string ids into dense int indexes so hot-path data can refer to them with a primitive
+ */
+public final class IdIndex {
+    /** Shared index of patient ids used by compact readings */
+    public static final IdIndex PATIENTS = new IdIndex();
+    /** Shared index of device ids used by compact readings */
+    public static final IdIndex DEVICES = new IdIndex();
+
+    private final Map<String, Integer> indexes = new ConcurrentHashMap<>();
+    private volatile String[] ids = new String[64];
+    private int size;
+
+    /**
+     * Returns the index for the id, assigning the next free one the first time the id is seen.
+     */
+    public int indexOf(String id) {
+        Integer index = indexes.get(id);
+        return index != null ? index : assign(id);
+    }
+
+    /**
+     * Returns the index for the id, or -1 if it was never interned.
+     */
+    public int find(String id) {
+        Integer index = indexes.get(id);
+        return index != null ? index : -1;
+    }
+
+    public String idAt(int index) {
+        String[] current = ids;
+        return index >= 0 && index < current.length ? current[index] : null;
+    }
+
+    public int size() {
+        return indexes.size();
+    }
+
+    private synchronized int assign(String id) {
+        Integer existing = indexes.get(id);
+        if (existing != null) {
+            return existing;
+        }
+        int index = size++;
+        String[] current = ids;
+        if (index == current.length) {
+            current = Arrays.copyOf(current, current.length * 2);
+        }
+        current[index] = id;
+        // Publish the array before the mapping so any reader that finds the index can resolve it
+        ids = current;
+        indexes.put(id, index);
+        return index;
+    }
+}
@@ -0,0 +1,54 @@
+package com.vhg.patientmonitoring.util;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Supplier;
+
+/**
+ * Concurrent table of per-id state keyed by an {@link IdIndex} index.
+ * <p>
+ * Slots live in fixed-size shards allocated on first use, so lookups are two array reads with no
+ * hashing or boxing, and memory grows with the highest index in use rather than up front.
+ */
+public final class IndexedTable<T> {
+    private static final int SHARD_BITS = 10;
+    private static final int SHARD_SIZE = 1 << SHARD_BITS;
+    private static final int SHARD_COUNT = 4096;
+
+    private final AtomicReferenceArray<AtomicReferenceArray<T>> shards = new AtomicReferenceArray<>(SHARD_COUNT);
+
+    /**
+     * The entry at the index, or null if none was created.
+     */
+    public T get(int index) {
+        AtomicReferenceArray<T> shard = shards.get(shardIndex(index));
+        return shard != null ? shard.get(index & (SHARD_SIZE - 1)) : null;
+    }
+
+    /**
+     * The entry at the index, created with {@code factory} if absent. Concurrent callers get the same instance.
+     */
+    public T getOrCreate(int index, Supplier<? extends T> factory) {
+        int shardIndex = shardIndex(index);
+        AtomicReferenceArray<T> shard = shards.get(shardIndex);
+        if (shard == null) {
+            shards.compareAndSet(shardIndex, null, new AtomicReferenceArray<>(SHARD_SIZE));
+            shard = shards.get(shardIndex);
+        }
+
+        int slot = index & (SHARD_SIZE - 1);
+        T entry = shard.get(slot);
+        if (entry == null) {
+            shard.compareAndSet(slot, null, factory.get());
+            entry = shard.get(slot);
+        }
+        return entry;
+    }
+
+    private static int shardIndex(int index) {
+        int shardIndex = index >>> SHARD_BITS;
+        if (shardIndex >= SHARD_COUNT) {
+            throw new IllegalStateException("Index out of range for indexed table: " + index);
+        }
+        return shardIndex;
+    }
+}
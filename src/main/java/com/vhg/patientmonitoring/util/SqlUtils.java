@@ -0,0 +1,32 @@
+package com.vhg.patientmonitoring.util;
+
+import java.sql.SQLException;
+import java.sql.SQLRecoverableException;
+import java.sql.SQLTransientException;
+
+/**
+ * Classification of database failures for the background writers that decide whether to retry them
+ */
+public final class SqlUtils {
+
+    private SqlUtils() {
+    }
+
+    /**
+     * Whether a retry may succeed: the database was unreachable, the transaction lost a conflict or the
+     * server ran short of resources (SQLSTATE classes 08, 40, 53 and 57P). Looks through the cause
+     * chain, since repositories wrap {@link SQLException}s.
+     */
+    public static boolean isTransient(Throwable failure) {
+        for (Throwable cause = failure; cause != null; cause = cause.getCause()) {
+            if (cause instanceof SQLTransientException || cause instanceof SQLRecoverableException) {
+                return true;
+            }
+            if (cause instanceof SQLException sqlException && sqlException.getSQLState() != null) {
+                String state = sqlException.getSQLState();
+                return state.startsWith("08") || state.startsWith("40") || state.startsWith("53") || state.startsWith("57P");
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,17 @@
+package com.vhg.patientmonitoring.web.config;
+
+import com.vhg.patientmonitoring.core.MonitoringConfiguration;
+import com.vhg.patientmonitoring.core.PatientMonitoringSystem;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * The monitoring system behind the REST endpoints, started and stopped with the application context.
+ */
+@Configuration
+public class MonitoringSystemConfig {
+    @Bean(initMethod = "initialize", destroyMethod = "shutdown")
+    public PatientMonitoringSystem patientMonitoringSystem() {
+        return new PatientMonitoringSystem(new MonitoringConfiguration());
+    }
+}
@@ -0,0 +1,249 @@
+package com.vhg.patientmonitoring.web.controller;
+
+import com.vhg.patientmonitoring.core.LiveFeed;
+import com.vhg.patientmonitoring.core.PatientMonitoringSystem;
+import com.vhg.patientmonitoring.export.AlertExporter;
+import com.vhg.patientmonitoring.export.ReadingExporter;
+import com.vhg.patientmonitoring.ingest.BulkReadingParser;
+import com.vhg.patientmonitoring.model.reading.VitalSignType;
+import com.vhg.patientmonitoring.repository.AlertCursor;
+import com.vhg.patientmonitoring.repository.AlertPage;
+import com.vhg.patientmonitoring.repository.ReadingCursor;
+import com.vhg.patientmonitoring.repository.ReadingPage;
+import com.vhg.patientmonitoring.util.DateTimeUtils;
+import com.vhg.patientmonitoring.web.dto.AlertPageDto;
+import com.vhg.patientmonitoring.web.dto.ReadingPageDto;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.Function;
+
+/**
+ * Vital sign ingestion, vital sign and alert history, and live monitoring endpoints.
+ * <p>
+ * Bulk uploads are parsed from the request stream as they arrive; see {@link BulkReadingParser} for the
+ * accepted formats. History is paged with an opaque keyset cursor, and exports are written to the
+ * response while they are read; see {@link ReadingExporter} and {@link AlertExporter}. Dashboards keep one server-sent event
+ * stream open per patient or ward instead of re-querying vital sign history; see {@link LiveFeed} for
+ * the frames sent.
+ */
+@RestController
+public class MonitoringController {
+    private static final String NDJSON_VALUE = "application/x-ndjson";
+    private static final String BINARY_READINGS_VALUE = "application/vnd.vhg.readings";
+    private static final int MAX_PAGE_SIZE = 1000;
+    // Range used when a query leaves out start_time
+    private static final Duration DEFAULT_RANGE = Duration.ofDays(1);
+
+    private final PatientMonitoringSystem system;
+
+    public MonitoringController(PatientMonitoringSystem system) {
+        this.system = system;
+    }
+
+    @PostMapping(path = "/patients/{patientId}/vitals/bulk", consumes = {MediaType.APPLICATION_JSON_VALUE, NDJSON_VALUE})
+    public BulkReadingParser.Result bulkJson(@PathVariable String patientId, InputStream body) {
+        try {
+            return bulkReadingParser().parseJson(patientId, body);
+        } catch (IOException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage(), e);
+        }
+    }
+
+    @PostMapping(path = "/patients/{patientId}/vitals/bulk", consumes = BINARY_READINGS_VALUE)
+    public BulkReadingParser.Result bulkBinary(@PathVariable String patientId, InputStream body) {
+        try {
+            return bulkReadingParser().parseBinary(patientId, body);
+        } catch (IOException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage(), e);
+        }
+    }
+
+    @GetMapping("/patients/{patientId}/vitals")
+    public ReadingPageDto vitals(@PathVariable String patientId,
+                                 @RequestParam(name = "start_time", required = false) String startTime,
+                                 @RequestParam(name = "end_time", required = false) String endTime,
+                                 @RequestParam(name = "vital_type", required = false) String vitalType,
+                                 @RequestParam(defaultValue = "100") int limit,
+                                 @RequestParam(required = false) String cursor) {
+        Instant end = parseTime(endTime, Instant.now());
+        Instant start = parseTime(startTime, end.minus(DEFAULT_RANGE));
+        VitalSignType type;
+        ReadingCursor after;
+        try {
+            type = vitalType != null ? VitalSignType.valueOf(vitalType.toUpperCase(Locale.ROOT)) : null;
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Unknown vital sign type " + vitalType, e);
+        }
+        ReadingPage page;
+        try {
+            after = cursor != null ? ReadingCursor.decode(cursor) : null;
+            // A well-formed token can still carry a row id this store never issued
+            page = system.getReadingRepository().getReadingsPage(patientId, type, DateTimeUtils.toEpochNanos(start),
+                    DateTimeUtils.toEpochNanos(end), after, Math.max(1, Math.min(limit, MAX_PAGE_SIZE)));
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage(), e);
+        }
+        return ReadingPageDto.from(patientId, start, end, page);
+    }
+
+    @GetMapping("/patients/{patientId}/vitals/export")
+    public ResponseEntity<StreamingResponseBody> exportPatient(@PathVariable String patientId,
+                                                               @RequestParam(name = "start_time", required = false) String startTime,
+                                                               @RequestParam(name = "end_time", required = false) String endTime,
+                                                               @RequestParam(defaultValue = "ndjson") String format) {
+        return export(system.getReadingExporter()::export, "vitals-patient-" + patientId, List.of(patientId),
+                startTime, endTime, format);
+    }
+
+    @GetMapping("/wards/{ward}/vitals/export")
+    public ResponseEntity<StreamingResponseBody> exportWard(@PathVariable String ward,
+                                                            @RequestParam(name = "start_time", required = false) String startTime,
+                                                            @RequestParam(name = "end_time", required = false) String endTime,
+                                                            @RequestParam(defaultValue = "ndjson") String format) {
+        return export(system.getReadingExporter()::export, "vitals-ward-" + ward, system.getPatientIdsInWard(ward),
+                startTime, endTime, format);
+    }
+
+    @GetMapping("/patients/{patientId}/alerts")
+    public AlertPageDto alerts(@PathVariable String patientId,
+                               @RequestParam(name = "start_time", required = false) String startTime,
+                               @RequestParam(name = "end_time", required = false) String endTime,
+                               @RequestParam(defaultValue = "100") int limit,
+                               @RequestParam(required = false) String cursor) {
+        Instant end = parseTime(endTime, Instant.now());
+        Instant start = parseTime(startTime, end.minus(DEFAULT_RANGE));
+        AlertCursor after;
+        try {
+            after = cursor != null ? AlertCursor.decode(cursor) : null;
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage(), e);
+        }
+        AlertPage page = system.getAlertRepository().getAlertsPage(patientId, DateTimeUtils.toEpochNanos(start),
+                DateTimeUtils.toEpochNanos(end), after, Math.max(1, Math.min(limit, MAX_PAGE_SIZE)));
+        return AlertPageDto.from(patientId, start, end, page);
+    }
+
+    @GetMapping("/patients/{patientId}/alerts/export")
+    public ResponseEntity<StreamingResponseBody> exportPatientAlerts(@PathVariable String patientId,
+                                                                     @RequestParam(name = "start_time", required = false) String startTime,
+                                                                     @RequestParam(name = "end_time", required = false) String endTime,
+                                                                     @RequestParam(defaultValue = "ndjson") String format) {
+        return export(system.getAlertExporter()::export, "alerts-patient-" + patientId, List.of(patientId),
+                startTime, endTime, format);
+    }
+
+    @GetMapping("/wards/{ward}/alerts/export")
+    public ResponseEntity<StreamingResponseBody> exportWardAlerts(@PathVariable String ward,
+                                                                  @RequestParam(name = "start_time", required = false) String startTime,
+                                                                  @RequestParam(name = "end_time", required = false) String endTime,
+                                                                  @RequestParam(defaultValue = "ndjson") String format) {
+        return export(system.getAlertExporter()::export, "alerts-ward-" + ward, system.getPatientIdsInWard(ward),
+                startTime, endTime, format);
+    }
+
+    @GetMapping(path = "/patients/{patientId}/vitals/live", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter livePatient(@PathVariable String patientId) {
+        return stream(sink -> system.getLiveFeed().subscribePatient(patientId, sink));
+    }
+
+    @GetMapping(path = "/wards/{ward}/vitals/live", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter liveWard(@PathVariable String ward) {
+        return stream(sink -> system.getLiveFeed().subscribeWard(ward, sink));
+    }
+
+    private ResponseEntity<StreamingResponseBody> export(Export exporter, String name, List<String> patientIds,
+                                                         String startTime, String endTime, String formatName) {
+        Instant end = parseTime(endTime, Instant.now());
+        Instant start = parseTime(startTime, end.minus(DEFAULT_RANGE));
+        ReadingExporter.Format format;
+        try {
+            format = ReadingExporter.Format.of(formatName);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Unsupported export format " + formatName, e);
+        }
+        long fromNanos = DateTimeUtils.toEpochNanos(start);
+        long toNanos = DateTimeUtils.toEpochNanos(end);
+        // Runs on the async request thread, writing to the response as the readings are read
+        StreamingResponseBody body = out -> exporter.export(patientIds, fromNanos, toNanos, format, out);
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(format.getContentType()))
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + name + "."
+                        + format.name().toLowerCase(Locale.ROOT) + "\"")
+                .body(body);
+    }
+
+    private BulkReadingParser bulkReadingParser() {
+        BulkReadingParser parser = system.getBulkReadingParser();
+        if (parser == null) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Monitoring system is still starting");
+        }
+        return parser;
+    }
+
+    private static Instant parseTime(String text, Instant defaultValue) {
+        if (text == null) {
+            return defaultValue;
+        }
+        try {
+            return Instant.parse(text);
+        } catch (DateTimeParseException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid timestamp " + text, e);
+        }
+    }
+
+    private static SseEmitter stream(Function<LiveFeed.Sink, LiveFeed.Subscription> subscribe) {
+        // No timeout: the stream lasts as long as the dashboard stays connected
+        SseEmitter emitter = new SseEmitter(0L);
+        LiveFeed.Subscription subscription = subscribe.apply(new SseSink(emitter));
+        emitter.onCompletion(subscription::close);
+        emitter.onTimeout(subscription::close);
+        emitter.onError(error -> subscription.close());
+        return emitter;
+    }
+
+    /**
+     * {@link ReadingExporter#export} or {@link AlertExporter#export}
+     */
+    @FunctionalInterface
+    private interface Export {
+        long export(List<String> patientIds, long fromNanos, long toNanos, ReadingExporter.Format format,
+                    OutputStream out) throws IOException;
+    }
+
+    private static final class SseSink implements LiveFeed.Sink {
+        private final SseEmitter emitter;
+
+        private SseSink(SseEmitter emitter) {
+            this.emitter = emitter;
+        }
+
+        @Override
+        public void send(String event, String data) throws IOException {
+            emitter.send(SseEmitter.event().name(event).data(data, MediaType.APPLICATION_JSON));
+        }
+
+        @Override
+        public void close() {
+            emitter.complete();
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package com.vhg.patientmonitoring.web.dto;
+
+import com.vhg.patientmonitoring.model.alert.Alert;
+import com.vhg.patientmonitoring.model.alert.AlertSeverity;
+import com.vhg.patientmonitoring.model.alert.AlertStatus;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+
+/**
+ * API representation of a single alert. {@code peakValue} is {@code null} for alerts not raised from
+ * a reading.
+ */
+public class AlertDto {
+    private String alertId;
+    private String patientId;
+    private AlertSeverity severity;
+    private AlertStatus status;
+    private String message;
+    private Instant timestamp;
+    private int occurrences;
+    private Instant lastOccurrence;
+    private Double peakValue;
+
+    public AlertDto() {
+    }
+
+    public static AlertDto from(Alert alert) {
+        AlertDto dto = new AlertDto();
+        dto.setAlertId(alert.getAlertId());
+        dto.setPatientId(alert.getPatientId());
+        dto.setSeverity(alert.getSeverity());
+        dto.setStatus(alert.getStatus());
+        dto.setMessage(alert.getMessage());
+        dto.setTimestamp(instant(alert.getTimestamp()));
+        dto.setOccurrences(alert.getOccurrences());
+        dto.setLastOccurrence(instant(alert.getLastOccurrence()));
+        dto.setPeakValue(Double.isNaN(alert.getPeakValue()) ? null : alert.getPeakValue());
+        return dto;
+    }
+
+    /**
+     * Alert timestamps are local to the system's zone
+     */
+    private static Instant instant(LocalDateTime timestamp) {
+        return timestamp.atZone(ZoneId.systemDefault()).toInstant();
+    }
+
+    public String getAlertId() {
+        return alertId;
+    }
+
+    public void setAlertId(String alertId) {
+        this.alertId = alertId;
+    }
+
+    public String getPatientId() {
+        return patientId;
+    }
+
+    public void setPatientId(String patientId) {
+        this.patientId = patientId;
+    }
+
+    public AlertSeverity getSeverity() {
+        return severity;
+    }
+
+    public void setSeverity(AlertSeverity severity) {
+        this.severity = severity;
+    }
+
+    public AlertStatus getStatus() {
+        return status;
+    }
+
+    public void setStatus(AlertStatus status) {
+        this.status = status;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public void setMessage(String message) {
+        this.message = message;
+    }
+
+    public Instant getTimestamp() {
+        return timestamp;
+    }
+
+    public void setTimestamp(Instant timestamp) {
+        this.timestamp = timestamp;
+    }
+
+    public int getOccurrences() {
+        return occurrences;
+    }
+
+    public void setOccurrences(int occurrences) {
+        this.occurrences = occurrences;
+    }
+
+    public Instant getLastOccurrence() {
+        return lastOccurrence;
+    }
+
+    public void setLastOccurrence(Instant lastOccurrence) {
+        this.lastOccurrence = lastOccurrence;
+    }
+
+    public Double getPeakValue() {
+        return peakValue;
+    }
+
+    public void setPeakValue(Double peakValue) {
+        this.peakValue = peakValue;
+    }
+}
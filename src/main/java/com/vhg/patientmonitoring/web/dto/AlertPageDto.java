@@ -0,0 +1,73 @@
+package com.vhg.patientmonitoring.web.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.vhg.patientmonitoring.model.alert.Alert;
+import com.vhg.patientmonitoring.repository.AlertPage;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * API representation of one page of a patient's alert history. {@code next_cursor} is passed back as
+ * {@code cursor} for the following page and is absent on the last one.
+ */
+public class AlertPageDto {
+    private List<AlertDto> alerts;
+    @JsonProperty("patient_id")
+    private String patientId;
+    @JsonProperty("time_range")
+    private ReadingPageDto.TimeRange timeRange;
+    @JsonProperty("next_cursor")
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private String nextCursor;
+
+    public AlertPageDto() {
+    }
+
+    public static AlertPageDto from(String patientId, Instant start, Instant end, AlertPage page) {
+        AlertPageDto dto = new AlertPageDto();
+        List<AlertDto> alerts = new ArrayList<>(page.getAlerts().size());
+        for (Alert alert : page.getAlerts()) {
+            alerts.add(AlertDto.from(alert));
+        }
+        dto.setAlerts(alerts);
+        dto.setPatientId(patientId);
+        dto.setTimeRange(new ReadingPageDto.TimeRange(start, end));
+        dto.setNextCursor(page.hasMore() ? page.getNextCursor().encode() : null);
+        return dto;
+    }
+
+    public List<AlertDto> getAlerts() {
+        return alerts;
+    }
+
+    public void setAlerts(List<AlertDto> alerts) {
+        this.alerts = alerts;
+    }
+
+    public String getPatientId() {
+        return patientId;
+    }
+
+    public void setPatientId(String patientId) {
+        this.patientId = patientId;
+    }
+
+    public ReadingPageDto.TimeRange getTimeRange() {
+        return timeRange;
+    }
+
+    public void setTimeRange(ReadingPageDto.TimeRange timeRange) {
+        this.timeRange = timeRange;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public void setNextCursor(String nextCursor) {
+        this.nextCursor = nextCursor;
+    }
+}
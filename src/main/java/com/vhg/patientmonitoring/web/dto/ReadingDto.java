@@ -0,0 +1,78 @@
+package com.vhg.patientmonitoring.web.dto;
+
+import com.vhg.patientmonitoring.model.reading.ReadingView;
+import com.vhg.patientmonitoring.model.reading.VitalSignType;
+import com.vhg.patientmonitoring.util.DateTimeUtils;
+
+import java.time.Instant;
+
+/**
+ * API representation of a single vital sign reading
+ */
+public class ReadingDto {
+    private String patientId;
+    private VitalSignType type;
+    private double value;
+    private String unit;
+    private Instant timestamp;
+
+    public ReadingDto() {
+    }
+
+    public ReadingDto(String patientId, VitalSignType type, double value, String unit, Instant timestamp) {
+        this.patientId = patientId;
+        this.type = type;
+        this.value = value;
+        this.unit = unit;
+        this.timestamp = timestamp;
+    }
+
+    /**
+     * Builds the DTO from any reading view, including a {@code ReadingBlock} cursor, without going
+     * through a {@code VitalSignReading}.
+     */
+    public static ReadingDto from(ReadingView reading) {
+        return new ReadingDto(reading.getPatientId(), reading.getType(), reading.getValue(), reading.getUnit(),
+                DateTimeUtils.toInstant(reading.getEpochNanos()));
+    }
+
+    public String getPatientId() {
+        return patientId;
+    }
+
+    public void setPatientId(String patientId) {
+        this.patientId = patientId;
+    }
+
+    public VitalSignType getType() {
+        return type;
+    }
+
+    public void setType(VitalSignType type) {
+        this.type = type;
+    }
+
+    public double getValue() {
+        return value;
+    }
+
+    public void setValue(double value) {
+        this.value = value;
+    }
+
+    public String getUnit() {
+        return unit;
+    }
+
+    public void setUnit(String unit) {
+        this.unit = unit;
+    }
+
+    public Instant getTimestamp() {
+        return timestamp;
+    }
+
+    public void setTimestamp(Instant timestamp) {
+        this.timestamp = timestamp;
+    }
+}
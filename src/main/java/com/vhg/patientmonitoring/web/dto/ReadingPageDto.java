@@ -0,0 +1,104 @@
+package com.vhg.patientmonitoring.web.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.vhg.patientmonitoring.model.reading.ReadingBlock;
+import com.vhg.patientmonitoring.repository.ReadingPage;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * API representation of one page of a patient's vital sign history. {@code next_cursor} is passed
+ * back as {@code cursor} for the following page and is absent on the last one.
+ */
+public class ReadingPageDto {
+    @JsonProperty("vital_signs")
+    private List<ReadingDto> vitalSigns;
+    @JsonProperty("patient_id")
+    private String patientId;
+    @JsonProperty("time_range")
+    private TimeRange timeRange;
+    @JsonProperty("next_cursor")
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private String nextCursor;
+
+    public ReadingPageDto() {
+    }
+
+    public static ReadingPageDto from(String patientId, Instant start, Instant end, ReadingPage page) {
+        ReadingPageDto dto = new ReadingPageDto();
+        List<ReadingDto> vitalSigns = new ArrayList<>(page.getReadings().size());
+        ReadingBlock.Cursor cursor = page.getReadings().cursor();
+        while (cursor.next()) {
+            vitalSigns.add(ReadingDto.from(cursor));
+        }
+        dto.setVitalSigns(vitalSigns);
+        dto.setPatientId(patientId);
+        dto.setTimeRange(new TimeRange(start, end));
+        dto.setNextCursor(page.hasMore() ? page.getNextCursor().encode() : null);
+        return dto;
+    }
+
+    public List<ReadingDto> getVitalSigns() {
+        return vitalSigns;
+    }
+
+    public void setVitalSigns(List<ReadingDto> vitalSigns) {
+        this.vitalSigns = vitalSigns;
+    }
+
+    public String getPatientId() {
+        return patientId;
+    }
+
+    public void setPatientId(String patientId) {
+        this.patientId = patientId;
+    }
+
+    public TimeRange getTimeRange() {
+        return timeRange;
+    }
+
+    public void setTimeRange(TimeRange timeRange) {
+        this.timeRange = timeRange;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public void setNextCursor(String nextCursor) {
+        this.nextCursor = nextCursor;
+    }
+
+    public static class TimeRange {
+        private Instant start;
+        private Instant end;
+
+        public TimeRange() {
+        }
+
+        public TimeRange(Instant start, Instant end) {
+            this.start = start;
+            this.end = end;
+        }
+
+        public Instant getStart() {
+            return start;
+        }
+
+        public void setStart(Instant start) {
+            this.start = start;
+        }
+
+        public Instant getEnd() {
+            return end;
+        }
+
+        public void setEnd(Instant end) {
+            this.end = end;
+        }
+    }
+}
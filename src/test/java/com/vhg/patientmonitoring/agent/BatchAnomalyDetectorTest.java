@@ -0,0 +1,67 @@
+package com.vhg.patientmonitoring.agent;
+
+import com.vhg.patientmonitoring.agent.baseline.BaselineStore;
+import com.vhg.patientmonitoring.model.alert.Alert;
+import com.vhg.patientmonitoring.model.reading.ReadingBlock;
+import com.vhg.patientmonitoring.model.reading.VitalSignReading;
+import com.vhg.patientmonitoring.model.reading.VitalSignType;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class BatchAnomalyDetectorTest {
+
+    @Test
+    void flagsOnlyDeviationsFromEstablishedBaselines() {
+        BaselineStore store = new BaselineStore();
+        Random random = new Random(1);
+        for (int i = 0; i < 200; i++) {
+            store.record("batch-known", VitalSignType.HEART_RATE, 70 + 3 * random.nextGaussian());
+        }
+
+        ReadingBlock block = new ReadingBlock(8);
+        block.add("batch-known", VitalSignType.HEART_RATE, 0, 71);
+        block.add("batch-known", VitalSignType.HEART_RATE, 0, 110);   // well inside guidelines, far outside baseline
+        block.add("batch-new", VitalSignType.HEART_RATE, 0, 180);     // no baseline yet: left to the rules
+
+        assertThat(BatchAnomalyDetector.detect(block, store)).containsExactly(1);
+    }
+
+    @Test
+    void blockAndListDetectionAgree() {
+        AIAgentSystem agent = new AIAgentSystem(null);
+        Random random = new Random(7);
+        VitalSignType[] types = {VitalSignType.HEART_RATE, VitalSignType.TEMPERATURE};
+        double[] means = {75, 37};
+        for (int patient = 0; patient < 50; patient++) {
+            for (int i = 0; i < 100; i++) {
+                for (int t = 0; t < types.length; t++) {
+                    agent.getBaselineStore().record("agree-" + patient, types[t], means[t] * (1 + 0.02 * random.nextGaussian()));
+                }
+            }
+        }
+
+        List<VitalSignReading> readings = new ArrayList<>();
+        ReadingBlock block = new ReadingBlock(16);
+        for (int patient = 0; patient < 100; patient++) {
+            for (int t = 0; t < types.length; t++) {
+                double spread = random.nextInt(10) == 0 ? 0.3 : 0.02;
+                VitalSignReading reading = new VitalSignReading("agree-" + patient, types[t],
+                        means[t] * (1 + spread * random.nextGaussian()), types[t].getUnit(), LocalDateTime.now(), null);
+                readings.add(reading);
+                block.add(reading);
+            }
+        }
+
+        List<Alert> fromList = agent.detectAnomalies(readings);
+        List<Alert> fromBlock = agent.detectAnomalies(block);
+        assertThat(fromBlock).extracting(Alert::getSeverity)
+                .containsExactlyElementsOf(fromList.stream().map(Alert::getSeverity).toList());
+        assertThat(fromBlock).isNotEmpty();
+    }
+}
@@ -0,0 +1,91 @@
+package com.vhg.patientmonitoring.agent;
+
+import com.vhg.patientmonitoring.model.patient.Medication;
+import com.vhg.patientmonitoring.model.patient.Patient;
+import com.vhg.patientmonitoring.model.reading.VitalSignReading;
+import com.vhg.patientmonitoring.model.reading.VitalSignType;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class DecisionCacheTest {
+    private static final Decision DECISION = new Decision(DecisionType.NO_ACTION, "Continue monitoring", 0.9);
+
+    @Test
+    void quantizedStateIsReusedUntilItChanges() {
+        long stable = DecisionCache.fingerprint(null, List.of(heartRate(72.1), heartRate(73.4)));
+        long jitter = DecisionCache.fingerprint(null, List.of(heartRate(71.9), heartRate(73.2)));
+        long changed = DecisionCache.fingerprint(null, List.of(heartRate(72.1), heartRate(95)));
+        assertThat(jitter).isEqualTo(stable);
+        assertThat(changed).isNotEqualTo(stable);
+
+        DecisionCache cache = new DecisionCache(60_000, 100);
+        cache.put("p1", stable, DECISION, cache.generation("p1"));
+        assertThat(cache.get("p1", jitter)).isSameAs(DECISION);
+        assertThat(cache.get("p1", changed)).isNull();
+        assertThat(cache.getStats().getHits()).isEqualTo(1);
+        assertThat(cache.getStats().getMisses()).isEqualTo(1);
+    }
+
+    @Test
+    void expiresAndEvictsLeastRecentlyUsed() throws InterruptedException {
+        DecisionCache cache = new DecisionCache(60_000, 2);
+        cache.put("p1", 1, DECISION, 0);
+        cache.put("p2", 2, DECISION, 0);
+        cache.get("p1", 1);
+        cache.put("p3", 3, DECISION, 0);
+        assertThat(cache.get("p2", 2)).isNull();
+        assertThat(cache.get("p1", 1)).isSameAs(DECISION);
+        assertThat(cache.getStats().getEvictions()).isEqualTo(1);
+
+        DecisionCache shortLived = new DecisionCache(10, 10);
+        shortLived.put("p1", 1, DECISION, 0);
+        Thread.sleep(30);
+        assertThat(shortLived.get("p1", 1)).isNull();
+        assertThat(shortLived.getStats().getExpirations()).isEqualTo(1);
+    }
+
+    @Test
+    void invalidationDiscardsDecisionsMadeBeforeIt() {
+        DecisionCache cache = new DecisionCache(60_000, 100);
+        cache.put("p1", 1, DECISION, cache.generation("p1"));
+        long inFlight = cache.generation("p1");
+
+        cache.invalidate("p1");
+        cache.put("p1", 1, DECISION, inFlight);
+        assertThat(cache.get("p1", 1)).isNull();
+        assertThat(cache.getStats().getInvalidations()).isEqualTo(1);
+    }
+
+    @Test
+    void medicationChangeMissesTheCachedDecision() {
+        LocalDateTime started = LocalDateTime.of(2026, 1, 5, 8, 0);
+        Patient patient = new Patient(UUID.randomUUID(), "Jane Doe", 64, "FEMALE");
+        patient.setMedicalHistory("Hypertension");
+        patient.setCurrentMedications(new ArrayList<>(List.of(new Medication("Metoprolol", "50 mg", "daily", started, null))));
+        List<VitalSignReading> readings = List.of(heartRate(72));
+
+        DecisionCache cache = new DecisionCache(60_000, 100);
+        cache.put("p1", DecisionCache.fingerprint(patient, readings), DECISION, cache.generation("p1"));
+
+        // The same prescription entered again is the same state
+        patient.setCurrentMedications(new ArrayList<>(List.of(new Medication("Metoprolol", "50 mg", "daily", started, null))));
+        assertThat(cache.get("p1", DecisionCache.fingerprint(patient, readings))).isSameAs(DECISION);
+
+        patient.getCurrentMedications().set(0, new Medication("Metoprolol", "100 mg", "daily", started, null));
+        assertThat(cache.get("p1", DecisionCache.fingerprint(patient, readings))).isNull();
+
+        patient.setCurrentMedications(new ArrayList<>(List.of(new Medication("Metoprolol", "50 mg", "daily", started, null))));
+        patient.setMedicalHistory("Hypertension, atrial fibrillation");
+        assertThat(cache.get("p1", DecisionCache.fingerprint(patient, readings))).isNull();
+    }
+
+    private static VitalSignReading heartRate(double value) {
+        return new VitalSignReading("p1", VitalSignType.HEART_RATE, value, "bpm", LocalDateTime.now(), null);
+    }
+}
@@ -0,0 +1,201 @@
+package com.vhg.patientmonitoring.agent;
+
+import com.vhg.patientmonitoring.agent.model.ModelInterface;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class DecisionPipelineTest {
+    private static final Decision FALLBACK = new Decision(DecisionType.ALERT, "fallback", 0.5);
+    private static final long NO_TIMEOUT = 60_000;
+
+    private final BlockingQueue<String> decided = new LinkedBlockingQueue<>();
+    private final BlockingQueue<Decision> decisions = new LinkedBlockingQueue<>();
+    private final ManualModel model = new ManualModel();
+    private DecisionPipeline pipeline;
+
+    @AfterEach
+    void shutDown() {
+        pipeline.shutdown();
+    }
+
+    @Test
+    void coalescesRequestsPerPatientWhileOneIsInFlight() throws Exception {
+        pipeline = pipeline(16, 4, NO_TIMEOUT);
+
+        pipeline.submit("coalesce", 0, Map.of("sequence", 0), FALLBACK);
+        Call first = model.nextCall();
+        for (int i = 1; i < 5; i++) {
+            pipeline.submit("coalesce", i, Map.of("sequence", i), FALLBACK);
+        }
+        first.answer();
+        Call second = model.nextCall();
+        second.answer();
+        awaitDecisions(2);
+
+        // The first request went out alone; the four that arrived meanwhile collapsed into the newest
+        assertThat(first.inputs).containsExactly(Map.of("sequence", 0));
+        assertThat(second.inputs).containsExactly(Map.of("sequence", 4));
+        assertThat(model.calls).isEmpty();
+        assertThat(decided).containsExactly("coalesce", "coalesce");
+        assertThat(pipeline.getStats().getCoalesced()).isEqualTo(3);
+    }
+
+    @Test
+    void batchesPatientsWithinConcurrencyBound() throws Exception {
+        pipeline = pipeline(8, 2, NO_TIMEOUT);
+
+        for (int i = 0; i < 40; i++) {
+            pipeline.submit("batch-" + i, 0, Map.of(), FALLBACK);
+        }
+        int answered = 0;
+        while (answered < 40) {
+            Call call = model.nextCall();
+            assertThat(call.inputs.size()).isLessThanOrEqualTo(8);
+            answered += call.inputs.size();
+            call.answer();
+        }
+        awaitDecisions(40);
+
+        assertThat(model.maxInFlight.get()).isLessThanOrEqualTo(2);
+        assertThat(decisions).allMatch(decision -> decision.getType() == DecisionType.NO_ACTION);
+        assertThat(pipeline.getStats().getFallbackDecisions()).isZero();
+    }
+
+    @Test
+    void fallsBackToRuleBasedDecisionOnTimeout() throws Exception {
+        pipeline = pipeline(16, 4, 50);
+
+        pipeline.submit("slow", 0, Map.of(), FALLBACK);
+        model.nextCall();
+        awaitDecisions(1);
+
+        assertThat(decisions).containsExactly(FALLBACK);
+        assertThat(pipeline.getStats().getFallbackDecisions()).isEqualTo(1);
+    }
+
+    @Test
+    void batchWaitingForAPermitFallsBackAndIsNeverSent() throws Exception {
+        pipeline = pipeline(16, 1, 50);
+
+        pipeline.submit("stuck", 0, Map.of(), FALLBACK);
+        Call stuck = model.nextCall();
+        pipeline.submit("waiting", 0, Map.of(), FALLBACK);
+        // Both time out while the only permit is held: the first at the model, the second waiting for it
+        awaitDecisions(2);
+        stuck.answer();
+
+        assertThat(decided).containsExactlyInAnyOrder("stuck", "waiting");
+        assertThat(decisions).containsOnly(FALLBACK);
+        assertThat(model.calls).isEmpty();
+        assertThat(pipeline.getStats().getBatches()).isEqualTo(1);
+    }
+
+    @Test
+    void releasedPermitStartsTheWaitingBatch() throws Exception {
+        pipeline = pipeline(16, 1, NO_TIMEOUT);
+
+        pipeline.submit("first", 0, Map.of(), FALLBACK);
+        Call first = model.nextCall();
+        pipeline.submit("second", 0, Map.of(), FALLBACK);
+        first.answer();
+        model.nextCall().answer();
+        awaitDecisions(2);
+
+        assertThat(decided).containsExactlyInAnyOrder("first", "second");
+        assertThat(model.maxInFlight.get()).isEqualTo(1);
+        assertThat(pipeline.getStats().getModelDecisions()).isEqualTo(2);
+    }
+
+    private DecisionPipeline pipeline(int batchSize, int maxConcurrentBatches, long timeoutMillis) {
+        return new DecisionPipeline(model, new DecisionCache(60_000, 1_000), batchSize, 10, maxConcurrentBatches, timeoutMillis,
+                output -> new Decision(DecisionType.valueOf((String) output.get("decisionType")), "model", 0.9),
+                (patientId, decision) -> {
+                    synchronized (decisions) {
+                        decided.add(patientId);
+                        decisions.add(decision);
+                        decisions.notifyAll();
+                    }
+                });
+    }
+
+    private void awaitDecisions(int count) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(10);
+        synchronized (decisions) {
+            for (long left = 10_000; decisions.size() < count && left > 0; left = deadline - System.currentTimeMillis()) {
+                decisions.wait(left);
+            }
+        }
+        assertThat(decisions).hasSize(count);
+    }
+
+    /**
+     * Model whose batch calls are answered by the test
+     */
+    private static final class ManualModel implements ModelInterface {
+        private final BlockingQueue<Call> calls = new LinkedBlockingQueue<>();
+        private final AtomicInteger inFlight = new AtomicInteger();
+        private final AtomicInteger maxInFlight = new AtomicInteger();
+
+        @Override
+        public CompletableFuture<List<Map<String, Object>>> predictBatch(List<Map<String, Object>> inputs) {
+            maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+            Call call = new Call(this, inputs);
+            calls.add(call);
+            return call.result;
+        }
+
+        Call nextCall() throws InterruptedException {
+            Call call = calls.poll(10, TimeUnit.SECONDS);
+            assertThat(call).as("model call").isNotNull();
+            return call;
+        }
+
+        @Override
+        public Map<String, Object> predict(Map<String, Object> input) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void train(List<Map<String, Object>> trainingData) {
+        }
+
+        @Override
+        public void saveModel(String path) {
+        }
+
+        @Override
+        public void loadModel(String path) {
+        }
+    }
+
+    private static final class Call {
+        private final ManualModel model;
+        private final List<Map<String, Object>> inputs;
+        private final CompletableFuture<List<Map<String, Object>>> result = new CompletableFuture<>();
+
+        private Call(ManualModel model, List<Map<String, Object>> inputs) {
+            this.model = model;
+            this.inputs = inputs;
+        }
+
+        void answer() {
+            List<Map<String, Object>> outputs = new ArrayList<>(inputs.size());
+            for (int i = 0; i < inputs.size(); i++) {
+                outputs.add(Map.of("decisionType", DecisionType.NO_ACTION.toString()));
+            }
+            model.inFlight.decrementAndGet();
+            result.complete(outputs);
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package com.vhg.patientmonitoring.agent.baseline;
+
+import com.vhg.patientmonitoring.model.reading.ReadingBlock;
+import com.vhg.patientmonitoring.model.reading.VitalSignType;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+public class BaselineStoreTest {
+    private static final int HEART_RATE = VitalSignType.HEART_RATE.ordinal();
+    private static final int TEMPERATURE = VitalSignType.TEMPERATURE.ordinal();
+
+    private final BaselineStore store = new BaselineStore();
+
+    @Test
+    void recordingPublishesNewValuesWithoutChangingEarlierViews() {
+        store.record("store-update", VitalSignType.HEART_RATE, 70);
+        store.record("store-update", VitalSignType.TEMPERATURE, 37.0);
+        PatientBaselines before = store.get("store-update");
+
+        store.record("store-update", VitalSignType.HEART_RATE, 90);
+        PatientBaselines after = store.get("store-update");
+
+        assertThat(before.getCount(HEART_RATE)).isEqualTo(1);
+        assertThat(before.getMean(HEART_RATE)).isCloseTo(70, within(1e-9));
+        assertThat(after.getCount(HEART_RATE)).isEqualTo(2);
+        assertThat(after.getMean(HEART_RATE)).isCloseTo(80, within(1e-9));
+        assertThat(after.getStdDev(HEART_RATE)).isPositive();
+        // Types the reading didn't touch carry over unchanged
+        assertThat(after.getCount(TEMPERATURE)).isEqualTo(1);
+        assertThat(after.getMean(TEMPERATURE)).isCloseTo(37.0, within(1e-9));
+        assertThat(after.hasBaseline(VitalSignType.BLOOD_OXYGEN)).isFalse();
+    }
+
+    @Test
+    void blockOfSeveralPatientsMatchesRecordingReadingsOneByOne() {
+        BaselineStore oneByOne = new BaselineStore();
+        ReadingBlock block = new ReadingBlock(16);
+        for (int i = 0; i < 12; i++) {
+            String patientId = i < 6 ? "store-merge-a" : "store-merge-b";
+            VitalSignType type = i % 2 == 0 ? VitalSignType.HEART_RATE : VitalSignType.TEMPERATURE;
+            double value = type == VitalSignType.HEART_RATE ? 60 + i : 36.5 + i / 10.0;
+            block.add(patientId, type, i, value);
+            oneByOne.record(patientId, type, value);
+        }
+
+        store.recordAll(block);
+
+        for (String patientId : new String[]{"store-merge-a", "store-merge-b"}) {
+            PatientBaselines merged = store.get(patientId);
+            PatientBaselines expected = oneByOne.get(patientId);
+            for (int type : new int[]{HEART_RATE, TEMPERATURE}) {
+                assertThat(merged.getCount(type)).isEqualTo(expected.getCount(type));
+                assertThat(merged.getMean(type)).isCloseTo(expected.getMean(type), within(1e-9));
+                assertThat(merged.getStdDev(type)).isCloseTo(expected.getStdDev(type), within(1e-9));
+            }
+        }
+    }
+
+    @Test
+    void restoreReplacesOnlyTheSnapshottedTypes() {
+        StreamingBaseline saved = new StreamingBaseline();
+        for (int i = 0; i < 10; i++) {
+            saved.add(100 + i);
+        }
+        store.record("store-restore", VitalSignType.HEART_RATE, 70);
+        store.record("store-restore", VitalSignType.TEMPERATURE, 37.0);
+
+        store.restore("store-restore", Map.of(VitalSignType.HEART_RATE, saved.snapshot()));
+
+        PatientBaselines restored = store.get("store-restore");
+        assertThat(restored.getCount(HEART_RATE)).isEqualTo(10);
+        assertThat(restored.getMean(HEART_RATE)).isCloseTo(saved.getMean(), within(1e-9));
+        assertThat(restored.getCount(TEMPERATURE)).isEqualTo(1);
+        assertThat(store.snapshot("store-restore")).containsOnlyKeys(VitalSignType.HEART_RATE, VitalSignType.TEMPERATURE);
+    }
+
+    @Test
+    void unknownPatientHasNoBaselines() {
+        assertThat(store.get("store-unknown")).isNull();
+        assertThat(store.contains("store-unknown")).isFalse();
+        assertThat(store.snapshot("store-unknown")).isEmpty();
+    }
+}
@@ -0,0 +1,45 @@
+package com.vhg.patientmonitoring.agent.baseline;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+public class StreamingBaselineTest {
+
+    @Test
+    void tracksMeanSpreadAndPercentiles() {
+        Random random = new Random(42);
+        StreamingBaseline baseline = new StreamingBaseline(0.001);
+        for (int i = 0; i < 50_000; i++) {
+            baseline.add(80 + 5 * random.nextGaussian());
+        }
+
+        assertThat(baseline.getMean()).isCloseTo(80, within(1.0));
+        assertThat(baseline.getStdDev()).isCloseTo(5, within(0.5));
+        assertThat(baseline.getMedian()).isCloseTo(80, within(0.5));
+        assertThat(baseline.getP05()).isCloseTo(80 - 1.645 * 5, within(0.5));
+        assertThat(baseline.getP95()).isCloseTo(80 + 1.645 * 5, within(0.5));
+    }
+
+    @Test
+    void restoredBaselineContinuesExactlyWhereSnapshotLeftOff() {
+        StreamingBaseline original = new StreamingBaseline();
+        for (int i = 0; i < 100; i++) {
+            original.add(60 + i % 7);
+        }
+
+        StreamingBaseline restored = StreamingBaseline.restore(original.snapshot());
+        for (int i = 0; i < 20; i++) {
+            original.add(70 + i);
+            restored.add(70 + i);
+        }
+
+        assertThat(restored.getCount()).isEqualTo(original.getCount());
+        assertThat(restored.getMean()).isEqualTo(original.getMean());
+        assertThat(restored.getVariance()).isEqualTo(original.getVariance());
+        assertThat(restored.getP95()).isEqualTo(original.getP95());
+    }
+}
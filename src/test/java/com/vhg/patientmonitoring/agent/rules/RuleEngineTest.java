@@ -0,0 +1,111 @@
+package com.vhg.patientmonitoring.agent.rules;
+
+import com.vhg.patientmonitoring.model.alert.AlertSeverity;
+import com.vhg.patientmonitoring.model.reading.ReadingBlock;
+import com.vhg.patientmonitoring.model.reading.VitalSignType;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class RuleEngineTest {
+    private static final long MINUTE = TimeUnit.MINUTES.toNanos(1);
+
+    @Test
+    void defaultRulesCoverGeneralGuidelines() {
+        RuleEngine engine = RuleEngine.withDefaultRules();
+        ReadingBlock block = new ReadingBlock(8);
+        block.add("rules-guidelines", VitalSignType.HEART_RATE, 0, 80);
+        block.add("rules-guidelines", VitalSignType.HEART_RATE, MINUTE, 45);
+        block.add("rules-guidelines", VitalSignType.TEMPERATURE, MINUTE, 38.5);
+        block.add("rules-guidelines", VitalSignType.BLOOD_OXYGEN, MINUTE, 97);
+
+        RuleMatches matches = engine.evaluate(block);
+
+        assertThat(matches.size()).isEqualTo(2);
+        assertThat(matches.position(0)).isEqualTo(1);
+        assertThat(matches.rule(0).getId()).isEqualTo("heart-rate-out-of-range");
+        assertThat(matches.position(1)).isEqualTo(2);
+        assertThat(matches.rule(1).getId()).isEqualTo("temperature-out-of-range");
+    }
+
+    @Test
+    void combinationFiresOnlyWhileBothVitalsAreFresh() {
+        RuleEngine engine = RuleEngine.withDefaultRules();
+        ReadingBlock block = new ReadingBlock(8);
+        block.add("rules-combination", VitalSignType.BLOOD_OXYGEN, 0, 86);
+        block.add("rules-combination", VitalSignType.HEART_RATE, 30_000_000_000L, 125);
+        block.add("rules-combination", VitalSignType.HEART_RATE, 10 * MINUTE, 126);
+
+        RuleMatches matches = engine.evaluate(block);
+
+        assertThat(matches.size()).isEqualTo(2);
+        assertThat(matches.rule(0).getId()).isEqualTo("tachycardia-with-desaturation");
+        assertThat(matches.rule(0).getSeverity()).isEqualTo(AlertSeverity.CRITICAL);
+        // The SpO2 reading is ten minutes old by now, so only the plain threshold remains
+        assertThat(matches.rule(1).getId()).isEqualTo("heart-rate-out-of-range");
+    }
+
+    @Test
+    void rateOfChangeUsesConsecutiveReadings() {
+        RuleEngine engine = RuleEngine.withDefaultRules();
+        ReadingBlock block = new ReadingBlock(8);
+        block.add("rules-rate", VitalSignType.HEART_RATE, 0, 70);
+        block.add("rules-rate", VitalSignType.HEART_RATE, MINUTE, 80);
+        block.add("rules-rate", VitalSignType.HEART_RATE, 2 * MINUTE, 115);
+
+        RuleMatches matches = engine.evaluate(block);
+
+        assertThat(matches.size()).isEqualTo(1);
+        assertThat(matches.position(0)).isEqualTo(2);
+        assertThat(matches.rule(0).getId()).isEqualTo("heart-rate-surge");
+    }
+
+    @Test
+    void invalidRulesLeaveActiveSetInPlace() throws Exception {
+        RuleEngine engine = RuleEngine.withDefaultRules();
+        int ruleCount = engine.getRuleCount();
+
+        String invalid = "{\"rules\": [{\"kind\": \"threshold\", \"id\": \"no-bounds\", \"type\": \"HEART_RATE\"}]}";
+        assertThatThrownBy(() -> engine.load(new ByteArrayInputStream(invalid.getBytes(StandardCharsets.UTF_8))))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThat(engine.getRuleCount()).isEqualTo(ruleCount);
+    }
+
+    @Test
+    void watchedFileIsReloadedWhenItChanges(@TempDir Path directory) throws Exception {
+        Path file = directory.resolve("rules.json");
+        Files.writeString(file, rules(120));
+        RuleEngine engine = new RuleEngine();
+        engine.watch(file, 10);
+        try {
+            ReadingBlock block = new ReadingBlock(1);
+            block.add("rules-reload", VitalSignType.HEART_RATE, 0, 110);
+            assertThat(engine.evaluate(block).size()).isZero();
+
+            Files.writeString(file, rules(100));
+            Files.setLastModifiedTime(file, FileTime.from(Instant.now().plusSeconds(5)));
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (engine.getReloadCount() == 0 && System.nanoTime() < deadline) {
+                Thread.sleep(10);
+            }
+            assertThat(engine.getReloadCount()).isEqualTo(1);
+            assertThat(engine.evaluate(block).size()).isEqualTo(1);
+        } finally {
+            engine.stopWatching();
+        }
+    }
+
+    private static String rules(double above) {
+        return "{\"rules\": [{\"kind\": \"threshold\", \"id\": \"tachycardia\", \"type\": \"HEART_RATE\", \"above\": " + above + "}]}";
+    }
+}
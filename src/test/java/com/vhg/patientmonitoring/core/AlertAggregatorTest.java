@@ -0,0 +1,114 @@
+package com.vhg.patientmonitoring.core;
+
+import com.vhg.patientmonitoring.model.alert.Alert;
+import com.vhg.patientmonitoring.model.alert.AlertSeverity;
+import com.vhg.patientmonitoring.model.alert.AlertStatus;
+import com.vhg.patientmonitoring.model.reading.VitalSignReading;
+import com.vhg.patientmonitoring.model.reading.VitalSignType;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class AlertAggregatorTest {
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    @Test
+    void sustainedTachycardiaBecomesOneEvolvingAlert() {
+        AlertAggregator aggregator = new AlertAggregator(60_000, 6, 30, patientId -> null);
+        Alert first = alert("dedup-p1", VitalSignType.HEART_RATE, 125, AlertSeverity.MEDIUM);
+        assertThat(aggregator.offer(first, 0)).isSameAs(first);
+
+        // One alert every 5 s for a minute, all folded into the first
+        for (int i = 1; i <= 12; i++) {
+            assertThat(aggregator.offer(alert("dedup-p1", VitalSignType.HEART_RATE, i == 6 ? 131 : 126, AlertSeverity.MEDIUM), i * 5 * SECOND)).isNull();
+        }
+        assertThat(first.getOccurrences()).isEqualTo(13);
+        assertThat(first.getPeakValue()).isEqualTo(131.0);
+
+        // Worsening escalates the same alert
+        Alert worse = alert("dedup-p1", VitalSignType.HEART_RATE, 150, AlertSeverity.HIGH);
+        assertThat(aggregator.offer(worse, 65 * SECOND)).isSameAs(first);
+        assertThat(first.getSeverity()).isEqualTo(AlertSeverity.HIGH);
+        assertThat(first.getPeakValue()).isEqualTo(150.0);
+
+        // A different vital sign is a different condition, and a quiet window closes the episode
+        assertThat(aggregator.offer(alert("dedup-p1", VitalSignType.BLOOD_OXYGEN, 88, AlertSeverity.HIGH), 66 * SECOND)).isNotNull();
+        assertThat(aggregator.offer(alert("dedup-p1", VitalSignType.HEART_RATE, 126, AlertSeverity.MEDIUM), 200 * SECOND)).isNotNull();
+
+        AlertAggregator.Stats stats = aggregator.getStats();
+        assertThat(stats.getReceived()).isEqualTo(16);
+        assertThat(stats.getEmitted()).isEqualTo(4);
+        assertThat(stats.getEscalations()).isEqualTo(1);
+        assertThat(stats.getCollapsed()).isEqualTo(12);
+    }
+
+    @Test
+    void rateLimitsNewAlertsPerPatientAndWardButNeverCritical() {
+        AlertAggregator aggregator = new AlertAggregator(60_000, 2, 3, patientId -> "ward-7");
+        VitalSignType[] types = {VitalSignType.HEART_RATE, VitalSignType.TEMPERATURE, VitalSignType.RESPIRATORY_RATE};
+
+        int emitted = 0;
+        for (VitalSignType type : types) {
+            if (aggregator.offer(alert("storm-a", type, 200, AlertSeverity.MEDIUM), 0) != null) {
+                emitted++;
+            }
+        }
+        assertThat(emitted).isEqualTo(2);
+        // The ward has one token left after patient a's two
+        assertThat(aggregator.offer(alert("storm-b", VitalSignType.HEART_RATE, 200, AlertSeverity.MEDIUM), 0)).isNotNull();
+        assertThat(aggregator.offer(alert("storm-c", VitalSignType.HEART_RATE, 200, AlertSeverity.MEDIUM), 0)).isNull();
+        assertThat(aggregator.offer(alert("storm-c", VitalSignType.BLOOD_OXYGEN, 70, AlertSeverity.CRITICAL), 0)).isNotNull();
+
+        // A held-back alert still goes out once it escalates
+        assertThat(aggregator.offer(alert("storm-c", VitalSignType.HEART_RATE, 220, AlertSeverity.HIGH), SECOND)).isNotNull();
+        // Tokens refill over the minute
+        assertThat(aggregator.offer(alert("storm-d", VitalSignType.HEART_RATE, 200, AlertSeverity.MEDIUM), 30 * SECOND)).isNotNull();
+
+        assertThat(aggregator.getStats().getRateLimited()).isEqualTo(2);
+    }
+
+    @Test
+    void alertHeldBackByAStormGoesOutOnceTheLimitRefills() {
+        AlertAggregator aggregator = new AlertAggregator(60_000, 1, 30, patientId -> null);
+        assertThat(aggregator.offer(alert("storm-e", VitalSignType.TEMPERATURE, 39, AlertSeverity.MEDIUM), 0)).isNotNull();
+        Alert held = alert("storm-e", VitalSignType.HEART_RATE, 125, AlertSeverity.MEDIUM);
+        assertThat(aggregator.offer(held, 0)).isNull();
+
+        // Repeats at the same severity while the bucket is still empty stay held back
+        assertThat(aggregator.offer(alert("storm-e", VitalSignType.HEART_RATE, 126, AlertSeverity.MEDIUM), 30 * SECOND)).isNull();
+        // A token is back after a minute: the sustained condition is raised once, then folded as usual
+        assertThat(aggregator.offer(alert("storm-e", VitalSignType.HEART_RATE, 127, AlertSeverity.MEDIUM), 61 * SECOND)).isSameAs(held);
+        assertThat(aggregator.offer(alert("storm-e", VitalSignType.HEART_RATE, 126, AlertSeverity.MEDIUM), 62 * SECOND)).isNull();
+
+        assertThat(held.getOccurrences()).isEqualTo(4);
+        AlertAggregator.Stats stats = aggregator.getStats();
+        assertThat(stats.getEmitted()).isEqualTo(2);
+        assertThat(stats.getRateLimited()).isEqualTo(2);
+        assertThat(stats.getCollapsed()).isEqualTo(1);
+    }
+
+    @Test
+    void recurrenceAfterStaffCloseTheAlertIsANewAlert() {
+        AlertAggregator aggregator = new AlertAggregator(60_000, 6, 30, patientId -> null);
+        Alert resolved = alert("closed-p1", VitalSignType.HEART_RATE, 125, AlertSeverity.MEDIUM);
+        aggregator.offer(resolved, 0);
+        resolved.setStatus(AlertStatus.RESOLVED);
+        Alert recurrence = alert("closed-p1", VitalSignType.HEART_RATE, 126, AlertSeverity.MEDIUM);
+        assertThat(aggregator.offer(recurrence, 5 * SECOND)).isSameAs(recurrence);
+
+        // A store that doesn't update the alert in place closes the episode explicitly
+        aggregator.close(recurrence.getAlertId());
+        Alert another = alert("closed-p1", VitalSignType.HEART_RATE, 127, AlertSeverity.MEDIUM);
+        assertThat(aggregator.offer(another, 10 * SECOND)).isSameAs(another);
+        assertThat(aggregator.offer(alert("closed-p1", VitalSignType.HEART_RATE, 127, AlertSeverity.MEDIUM), 15 * SECOND)).isNull();
+        assertThat(resolved.getOccurrences()).isEqualTo(1);
+    }
+
+    private static Alert alert(String patientId, VitalSignType type, double value, AlertSeverity severity) {
+        VitalSignReading reading = new VitalSignReading(patientId, type, value, type.getUnit(), LocalDateTime.now(), null);
+        return new Alert(patientId, severity, type + " " + value, reading);
+    }
+}
@@ -0,0 +1,85 @@
+package com.vhg.patientmonitoring.core;
+
+import com.vhg.patientmonitoring.model.alert.Alert;
+import com.vhg.patientmonitoring.model.alert.AlertSeverity;
+import com.vhg.patientmonitoring.model.reading.VitalSignReading;
+import com.vhg.patientmonitoring.model.reading.VitalSignType;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class AlertDispatcherTest {
+
+    @Test
+    void criticalAlertsOvertakeABackedUpMediumLane() throws InterruptedException {
+        AlertDispatcher dispatcher = new AlertDispatcher(1, 100, 3, 10, 100);
+        CountDownLatch emailGatewayDown = new CountDownLatch(1);
+        CountDownLatch paged = new CountDownLatch(1);
+        dispatcher.addChannel("email", alert -> await(emailGatewayDown), AlertSeverity.MEDIUM);
+        dispatcher.addChannel("pager", alert -> paged.countDown(), AlertSeverity.CRITICAL);
+
+        for (int i = 0; i < 20; i++) {
+            dispatcher.dispatch(alert(AlertSeverity.MEDIUM, LocalDateTime.now()));
+        }
+        long start = System.nanoTime();
+        dispatcher.dispatch(alert(AlertSeverity.CRITICAL, LocalDateTime.now()));
+
+        assertThat(paged.await(1, TimeUnit.SECONDS)).isTrue();
+        assertThat((System.nanoTime() - start) / 1_000_000).isLessThan(1_000);
+        assertThat(dispatcher.getStats().getQueued(AlertSeverity.MEDIUM)).isGreaterThanOrEqualTo(19);
+        emailGatewayDown.countDown();
+        dispatcher.shutdown();
+    }
+
+    @Test
+    void retriesFailedDeliveriesAndMeasuresFromTheReading() throws InterruptedException {
+        AlertDispatcher dispatcher = new AlertDispatcher(1, 100, 5, 5, 20);
+        AtomicInteger attempts = new AtomicInteger();
+        List<Alert> sent = new CopyOnWriteArrayList<>();
+        dispatcher.addChannel("flaky-sms", alert -> {
+            if (attempts.incrementAndGet() < 3) {
+                throw new IllegalStateException("gateway timeout");
+            }
+            sent.add(alert);
+        }, AlertSeverity.HIGH);
+
+        Alert alert = alert(AlertSeverity.HIGH, LocalDateTime.now().minusSeconds(2));
+        dispatcher.dispatch(alert);
+        // Nothing is registered for LOW alerts: they are only stored
+        dispatcher.dispatch(alert(AlertSeverity.LOW, LocalDateTime.now()));
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(1);
+        while (dispatcher.getStats().getDelivered() == 0 && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        assertThat(sent).containsExactly(alert);
+        AlertDispatcher.Stats stats = dispatcher.getStats();
+        assertThat(stats.getDispatched()).isEqualTo(2);
+        assertThat(stats.getRetries()).isEqualTo(2);
+        assertThat(stats.getFailed()).isZero();
+        // Latency starts at the reading, two seconds before the alert was even raised
+        assertThat(stats.getLatency(AlertSeverity.HIGH).getCount()).isEqualTo(1);
+        assertThat(stats.getLatency(AlertSeverity.HIGH).getP99Nanos()).isGreaterThanOrEqualTo(2_000_000_000L);
+        dispatcher.shutdown();
+    }
+
+    private static Alert alert(AlertSeverity severity, LocalDateTime readingTime) {
+        VitalSignReading reading = new VitalSignReading("dispatch-p1", VitalSignType.HEART_RATE, 150, "bpm", readingTime, null);
+        return new Alert("dispatch-p1", severity, "Heart rate 150 bpm", reading);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
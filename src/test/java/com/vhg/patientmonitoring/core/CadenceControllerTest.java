@@ -0,0 +1,96 @@
+package com.vhg.patientmonitoring.core;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+public class CadenceControllerTest {
+
+    @Test
+    void deterioratingPatientRampsToSubSecondImmediately() throws InterruptedException {
+        MonitoringConfiguration configuration = new MonitoringConfiguration();
+        configuration.setDefaultCadenceMillis(30_000);
+        AtomicInteger cycles = new AtomicInteger();
+        CountDownLatch ramped = new CountDownLatch(3);
+        MonitoringScheduler scheduler = new MonitoringScheduler(configuration, patientId -> {
+            cycles.incrementAndGet();
+            ramped.countDown();
+        });
+        CadenceController controller = new CadenceController(scheduler, configuration);
+        controller.register("cadence-p1");
+
+        for (int i = 0; i < 4; i++) {
+            controller.escalate("cadence-p1");
+        }
+        assertThat(controller.getCadenceMillis("cadence-p1")).isEqualTo(configuration.getMinCadenceMillis());
+        // Without re-timing the first tick could still be up to 30 s away
+        assertThat(ramped.await(5, TimeUnit.SECONDS)).isTrue();
+
+        controller.relax("cadence-p1");
+        assertThat(controller.getCadenceMillis("cadence-p1")).isEqualTo(750);
+        scheduler.shutdown();
+    }
+
+    @Test
+    void stretchesCadencesToStayWithinBudget() {
+        MonitoringConfiguration configuration = new MonitoringConfiguration();
+        configuration.setMaxSamplesPerSecond(100);
+        MonitoringScheduler scheduler = new MonitoringScheduler(configuration, patientId -> { });
+        CadenceController controller = new CadenceController(scheduler, configuration);
+        for (int i = 0; i < 100; i++) {
+            controller.register("budget-" + i);
+            controller.recordCycle("budget-" + i, 4);
+        }
+
+        // 100 patients x 4 samples every 5 s
+        CadenceController.Stats stats = controller.getStats();
+        assertThat(stats.getRequestedSamplesPerSecond()).isCloseTo(80, within(1e-6));
+        assertThat(stats.getRateScale()).isEqualTo(1.0);
+
+        for (int i = 0; i < 10; i++) {
+            controller.escalate("budget-" + i);
+        }
+        stats = controller.getStats();
+        assertThat(stats.getRequestedSamplesPerSecond()).isGreaterThan(100);
+        assertThat(stats.getEffectiveSamplesPerSecond()).isCloseTo(100, within(1e-6));
+        assertThat(controller.getEffectiveSamplesPerSecond("budget-0"))
+                .isGreaterThan(controller.getEffectiveSamplesPerSecond("budget-99"));
+        scheduler.shutdown();
+    }
+
+    @Test
+    void cadenceChangesRacingUnregisterNeverRescheduleThePatient() throws InterruptedException {
+        MonitoringConfiguration configuration = new MonitoringConfiguration();
+        MonitoringScheduler scheduler = new MonitoringScheduler(configuration, patientId -> { });
+        CadenceController controller = new CadenceController(scheduler, configuration);
+        for (int round = 0; round < 200; round++) {
+            String patientId = "race-" + round;
+            controller.register(patientId);
+            CountDownLatch start = new CountDownLatch(1);
+            Thread changer = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int i = 0; i < 20; i++) {
+                    controller.escalate(patientId);
+                    controller.relax(patientId);
+                }
+            });
+            changer.start();
+            start.countDown();
+            controller.unregister(patientId);
+            changer.join();
+
+            assertThat(scheduler.isScheduled(patientId)).isFalse();
+            assertThat(controller.getCadenceMillis(patientId)).isEqualTo(-1);
+        }
+        scheduler.shutdown();
+    }
+}
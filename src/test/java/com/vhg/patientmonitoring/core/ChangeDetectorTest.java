@@ -0,0 +1,60 @@
+package com.vhg.patientmonitoring.core;
+
+import com.vhg.patientmonitoring.agent.baseline.BaselineStore;
+import com.vhg.patientmonitoring.model.reading.VitalSignReading;
+import com.vhg.patientmonitoring.model.reading.VitalSignType;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ChangeDetectorTest {
+
+    @Test
+    void evaluatesOnlyMaterialChangesAndHeartbeats() throws InterruptedException {
+        BaselineStore baselines = new BaselineStore();
+        Random random = new Random(3);
+        for (int i = 0; i < 100; i++) {
+            baselines.record("change-p1", VitalSignType.HEART_RATE, 70 + 4 * random.nextGaussian());
+        }
+        MonitoringConfiguration configuration = new MonitoringConfiguration();
+        configuration.setMaxEvaluationStalenessMillis(200);
+        ChangeDetector detector = new ChangeDetector(baselines, configuration);
+
+        detector.observe(heartRate(70));
+        assertThat(detector.shouldEvaluate("change-p1")).isTrue();
+        detector.observe(heartRate(71));
+        assertThat(detector.shouldEvaluate("change-p1")).isFalse();
+        detector.observe(heartRate(90));
+        assertThat(detector.shouldEvaluate("change-p1")).isTrue();
+        assertThat(detector.shouldEvaluate("change-p1")).isFalse();
+
+        Thread.sleep(250);
+        assertThat(detector.shouldEvaluate("change-p1")).isTrue();
+
+        ChangeDetector.Stats stats = detector.getStats();
+        assertThat(stats.getMaterialChanges()).isEqualTo(2);
+        assertThat(stats.getHeartbeats()).isEqualTo(1);
+        assertThat(stats.getSkippedFraction()).isEqualTo(0.4);
+    }
+
+    @Test
+    void measuresLatencyFromOldestUnevaluatedReading() throws InterruptedException {
+        ChangeDetector detector = new ChangeDetector(new BaselineStore(), new MonitoringConfiguration());
+        detector.observe(heartRate(70));
+        Thread.sleep(20);
+        assertThat(detector.shouldEvaluate("change-p1")).isTrue();
+        detector.decisionMade("change-p1");
+        detector.decisionMade("change-p1");
+
+        ChangeDetector.Stats stats = detector.getStats();
+        assertThat(stats.getDecisions()).isEqualTo(1);
+        assertThat(stats.getMaxLatencyNanos()).isGreaterThanOrEqualTo(20_000_000L);
+    }
+
+    private static VitalSignReading heartRate(double value) {
+        return new VitalSignReading("change-p1", VitalSignType.HEART_RATE, value, "bpm", LocalDateTime.now(), null);
+    }
+}
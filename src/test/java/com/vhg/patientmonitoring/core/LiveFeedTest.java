@@ -0,0 +1,147 @@
+package com.vhg.patientmonitoring.core;
+
+import com.vhg.patientmonitoring.model.alert.Alert;
+import com.vhg.patientmonitoring.model.alert.AlertSeverity;
+import com.vhg.patientmonitoring.model.reading.VitalSignReading;
+import com.vhg.patientmonitoring.model.reading.VitalSignType;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class LiveFeedTest {
+    private final LiveFeed feed = new LiveFeed(10_000, 64, patientId -> patientId.startsWith("icu-") ? "icu" : null);
+
+    @AfterEach
+    void tearDown() {
+        feed.shutdown();
+    }
+
+    @Test
+    void sendsOnlyChangedVitalsToPatientAndWardSubscribers() throws Exception {
+        RecordingSink patientSink = new RecordingSink();
+        RecordingSink wardSink = new RecordingSink();
+        feed.subscribePatient("icu-1", patientSink);
+        feed.subscribeWard("icu", wardSink);
+
+        feed.publish(reading("icu-1", VitalSignType.HEART_RATE, 72));
+        feed.publish(reading("ward-9", VitalSignType.HEART_RATE, 80));
+        awaitTrue(() -> patientSink.frames().size() == 1 && wardSink.frames().size() == 1);
+
+        // An unchanged heart rate isn't sent again
+        feed.publish(reading("icu-1", VitalSignType.HEART_RATE, 72));
+        feed.publish(reading("icu-1", VitalSignType.BLOOD_OXYGEN, 97));
+        awaitTrue(() -> patientSink.frames().size() == 2);
+
+        feed.publish(new Alert("icu-1", AlertSeverity.HIGH, "SpO2 \"low\"", null));
+        awaitTrue(() -> patientSink.frames().size() == 3);
+
+        List<String> frames = patientSink.frames();
+        assertThat(frames.get(0)).startsWith("vitals {\"p\":\"icu-1\",\"ts\":").endsWith(",\"v\":{\"HEART_RATE\":72.0}}");
+        assertThat(frames.get(1)).endsWith(",\"v\":{\"BLOOD_OXYGEN\":97.0}}");
+        assertThat(frames.get(2)).startsWith("alert {\"id\":").contains("\"severity\":\"HIGH\"", "SpO2 \\\"low\\\"");
+        assertThat(wardSink.frames()).hasSize(3);
+    }
+
+    @Test
+    void slowClientIsConflatedToTheLatestValues() throws Exception {
+        RecordingSink slow = new RecordingSink();
+        slow.blocked = new CountDownLatch(1);
+        RecordingSink fast = new RecordingSink();
+        feed.subscribePatient("p1", slow);
+        feed.subscribePatient("p1", fast);
+
+        for (int i = 0; i < 200; i++) {
+            feed.publish(reading("p1", VitalSignType.HEART_RATE, 60 + i));
+        }
+        awaitTrue(() -> fast.frames().size() > 0 && feed.getStats().getPublished() == 200
+                && fast.frames().get(fast.frames().size() - 1).contains("259.0"));
+        slow.blocked.countDown();
+        awaitTrue(() -> slow.frames().get(slow.frames().size() - 1).contains("259.0"));
+
+        // The stalled client got its first frame and then only the latest value
+        assertThat(slow.frames().size()).isLessThanOrEqualTo(3);
+        assertThat(feed.getStats().getConflated()).isGreaterThan(0);
+    }
+
+    @Test
+    void fansOutToThousandsOfSubscribersAndDropsFailedOnes() throws Exception {
+        List<RecordingSink> sinks = new ArrayList<>();
+        for (int i = 0; i < 5_000; i++) {
+            RecordingSink sink = new RecordingSink();
+            feed.subscribeWard("icu", sink);
+            sinks.add(sink);
+        }
+        RecordingSink broken = new RecordingSink();
+        broken.fail = true;
+        feed.subscribeWard("icu", broken);
+
+        feed.publish(reading("icu-7", VitalSignType.TEMPERATURE, 38.2));
+        awaitTrue(() -> sinks.stream().allMatch(sink -> sink.frames().size() == 1));
+        awaitTrue(() -> feed.getSubscriptionCount() == 5_000);
+
+        assertThat(broken.closed).isTrue();
+        assertThat(feed.getStats().getFramesSent()).isEqualTo(5_000);
+    }
+
+    private static VitalSignReading reading(String patientId, VitalSignType type, double value) {
+        return new VitalSignReading(patientId, type, value, type.getUnit(), LocalDateTime.now(), null);
+    }
+
+    private static void awaitTrue(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (!condition.getAsBoolean()) {
+            assertThat(System.nanoTime() < deadline).isTrue();
+            Thread.sleep(5);
+        }
+    }
+
+    private static final class RecordingSink implements LiveFeed.Sink {
+        private final List<String> frames = new ArrayList<>();
+        private volatile CountDownLatch blocked;
+        private volatile boolean fail;
+        private volatile boolean closed;
+
+        @Override
+        public void send(String event, String data) throws IOException {
+            if (fail) {
+                throw new IOException("connection reset");
+            }
+            CountDownLatch latch = blocked;
+            if (latch != null) {
+                synchronized (frames) {
+                    frames.add(event + " " + data);
+                }
+                try {
+                    latch.await();
+                } catch (InterruptedException e) {
+                    throw new IOException(e);
+                }
+                blocked = null;
+                return;
+            }
+            synchronized (frames) {
+                frames.add(event + " " + data);
+            }
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+        }
+
+        private List<String> frames() {
+            synchronized (frames) {
+                return new ArrayList<>(frames);
+            }
+        }
+    }
+}
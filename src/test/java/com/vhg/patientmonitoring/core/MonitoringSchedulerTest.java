@@ -0,0 +1,55 @@
+package com.vhg.patientmonitoring.core;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class MonitoringSchedulerTest {
+
+    @Test
+    void monitorsMorePatientsThanThreads() throws InterruptedException {
+        MonitoringConfiguration configuration = new MonitoringConfiguration();
+        configuration.setSchedulerThreads(1);
+        Map<String, Integer> cycles = new ConcurrentHashMap<>();
+        CountDownLatch allSeen = new CountDownLatch(500);
+        MonitoringScheduler scheduler = new MonitoringScheduler(configuration, patientId -> {
+            if (cycles.merge(patientId, 1, Integer::sum) == 1) {
+                allSeen.countDown();
+            }
+        });
+
+        for (int i = 0; i < 500; i++) {
+            scheduler.schedulePatient("patient-" + i, 50);
+        }
+
+        assertThat(allSeen.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(scheduler.getStats().getScheduledPatients()).isEqualTo(500);
+        scheduler.shutdown();
+    }
+
+    @Test
+    void skipsTicksWhileCycleIsStillRunning() throws InterruptedException {
+        CountDownLatch release = new CountDownLatch(1);
+        MonitoringScheduler scheduler = new MonitoringScheduler(new MonitoringConfiguration(), patientId -> {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+
+        scheduler.schedulePatient("slow", 10);
+        Thread.sleep(200);
+        release.countDown();
+
+        MonitoringScheduler.Stats stats = scheduler.getStats();
+        assertThat(stats.getSkippedTicks()).isPositive();
+        assertThat(stats.getTicks()).isGreaterThan(stats.getSkippedTicks());
+        scheduler.shutdown();
+    }
+}
@@ -0,0 +1,144 @@
+package com.vhg.patientmonitoring.device;
+
+import com.vhg.patientmonitoring.device.impl.SimulatedDeviceDiscovery;
+import com.vhg.patientmonitoring.model.reading.VitalSignReading;
+import com.vhg.patientmonitoring.model.reading.VitalSignType;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class DeviceManagerTest {
+
+    @Test
+    void connectsThousandsOfDevicesInParallel() {
+        List<String> patients = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            patients.add("manager-" + i);
+        }
+        DevicePoller poller = new DevicePoller(1000, 3, 1000);
+        DeviceManager manager = new DeviceManager(poller, 256, 1000, 60_000);
+
+        // 5,000 devices with a 20 ms handshake would take 100 s one after another
+        assertThat(manager.connectAll(new SimulatedDeviceDiscovery(patients, 20))).isEqualTo(5000);
+        assertThat(manager.getStats().getStartupMillis()).isLessThan(5_000);
+        assertThat(manager.getDevicesForPatient("manager-7")).hasSize(5);
+        assertThat(poller.poll("manager-7")).extracting(VitalSignReading::getType).containsExactlyInAnyOrder(
+                VitalSignType.HEART_RATE, VitalSignType.BLOOD_PRESSURE, VitalSignType.BLOOD_OXYGEN,
+                VitalSignType.RESPIRATORY_RATE, VitalSignType.TEMPERATURE);
+
+        // Discovering the same devices again doesn't connect them twice
+        assertThat(manager.connectAll(new SimulatedDeviceDiscovery(patients, 20))).isZero();
+        assertThat(manager.getStats().getManaged()).isEqualTo(5000);
+        manager.shutdown();
+        assertThat(poller.getStats().getDevices()).isZero();
+    }
+
+    @Test
+    void boundsConcurrentConnects() {
+        AtomicInteger inFlight = new AtomicInteger();
+        AtomicInteger maxInFlight = new AtomicInteger();
+        List<DeviceDiscovery.Assignment> assignments = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            TestDevice device = new TestDevice("bounded-" + i, 0);
+            device.onConnect = () -> {
+                maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+                sleep(5);
+                inFlight.decrementAndGet();
+            };
+            assignments.add(new DeviceDiscovery.Assignment(device, "bounded-patient"));
+        }
+        DeviceManager manager = new DeviceManager(new DevicePoller(100, 3, 1000), 8, 1000, 60_000);
+
+        assertThat(manager.connectAll(() -> assignments)).isEqualTo(200);
+        assertThat(maxInFlight.get()).isLessThanOrEqualTo(8);
+    }
+
+    @Test
+    void reconnectsFailedAndDroppedDevicesWithBackoff() {
+        DevicePoller poller = new DevicePoller(100, 3, 1000);
+        DeviceManager manager = new DeviceManager(poller, 4, 1, 4);
+        TestDevice flaky = new TestDevice("flaky-1", 2);
+        TestDevice steady = new TestDevice("steady-1", 0);
+
+        assertThat(manager.connect(flaky, "reconnect-patient")).isFalse();
+        assertThat(manager.connect(steady, "reconnect-patient")).isTrue();
+        assertThat(poller.getDevices("reconnect-patient")).containsExactly(steady);
+        assertThat(manager.getStats().getReconnecting()).isEqualTo(1);
+
+        for (int i = 0; i < 20 && !flaky.isConnected(); i++) {
+            sleep(10);
+            manager.checkHealth();
+        }
+        assertThat(flaky.isConnected()).isTrue();
+        assertThat(poller.getDevices("reconnect-patient")).containsExactlyInAnyOrder(steady, flaky);
+
+        steady.disconnect();
+        manager.checkHealth();
+        assertThat(steady.isConnected()).isTrue();
+
+        DeviceManager.Stats stats = manager.getStats();
+        assertThat(stats.getConnected()).isEqualTo(2);
+        assertThat(stats.getConnectFailures()).isEqualTo(2);
+        assertThat(stats.getLostConnections()).isEqualTo(1);
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static class TestDevice implements SensorDevice {
+        private final String deviceId;
+        private final AtomicInteger failuresLeft;
+        private volatile boolean connected;
+        private Runnable onConnect = () -> {
+        };
+
+        TestDevice(String deviceId, int failures) {
+            this.deviceId = deviceId;
+            this.failuresLeft = new AtomicInteger(failures);
+        }
+
+        @Override
+        public String getDeviceId() {
+            return deviceId;
+        }
+
+        @Override
+        public String getDeviceType() {
+            return "Heart rate monitor";
+        }
+
+        @Override
+        public boolean isConnected() {
+            return connected;
+        }
+
+        @Override
+        public void connect() {
+            onConnect.run();
+            if (failuresLeft.getAndDecrement() > 0) {
+                throw new IllegalStateException("no response from " + deviceId);
+            }
+            connected = true;
+        }
+
+        @Override
+        public void disconnect() {
+            connected = false;
+        }
+
+        @Override
+        public VitalSignReading takeReading(String patientId, VitalSignType type) {
+            return new VitalSignReading(patientId, type, 1.0, type.getUnit(), LocalDateTime.now(), this);
+        }
+    }
+}
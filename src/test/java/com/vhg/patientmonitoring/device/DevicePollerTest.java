@@ -0,0 +1,111 @@
+package com.vhg.patientmonitoring.device;
+
+import com.vhg.patientmonitoring.model.reading.VitalSignReading;
+import com.vhg.patientmonitoring.model.reading.VitalSignType;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class DevicePollerTest {
+
+    @Test
+    void hungDeviceCostsOneTimeoutThenIsSkipped() {
+        CountDownLatch never = new CountDownLatch(1);
+        DevicePoller poller = new DevicePoller(100, 2, 60_000);
+        poller.add(new TestDevice("pulse-1", "Heart rate monitor", null), "poll-p1");
+        poller.add(new TestDevice("temp-1", "Temperature probe", null), "poll-p1");
+        poller.add(new TestDevice("spo2-1", "Oxygen saturation monitor", never), "poll-p1");
+        assertThat(poller.add(new TestDevice("scale-1", "Weight scale", null), "poll-p1")).isFalse();
+
+        for (int cycle = 0; cycle < 2; cycle++) {
+            long start = System.nanoTime();
+            List<VitalSignReading> readings = poller.poll("poll-p1");
+            assertThat(readings).extracting(VitalSignReading::getType)
+                    .containsExactly(VitalSignType.HEART_RATE, VitalSignType.TEMPERATURE);
+            // One timeout for the whole cycle, not one per device
+            assertThat((System.nanoTime() - start) / 1_000_000).isLessThan(1_000);
+        }
+
+        long start = System.nanoTime();
+        assertThat(poller.poll("poll-p1")).hasSize(2);
+        assertThat((System.nanoTime() - start) / 1_000_000).isLessThan(100);
+
+        DevicePoller.Stats stats = poller.getStats();
+        assertThat(stats.getTimeouts()).isEqualTo(2);
+        assertThat(stats.getShortCircuited()).isEqualTo(1);
+        assertThat(stats.getOpenCircuits()).isEqualTo(1);
+        never.countDown();
+    }
+
+    @Test
+    void pollsOnlyThePatientsOwnDevices() {
+        DevicePoller poller = new DevicePoller(100, 2, 60_000);
+        TestDevice moved = new TestDevice("rr-1", "Respiratory rate monitor", null);
+        poller.add(new TestDevice("pulse-a", "Heart rate monitor", null), "poll-a");
+        poller.add(moved, "poll-a");
+        poller.add(new TestDevice("pulse-b", "Heart rate monitor", null), "poll-b");
+
+        assertThat(poller.poll("poll-a")).extracting(VitalSignReading::getType)
+                .containsExactly(VitalSignType.HEART_RATE, VitalSignType.RESPIRATORY_RATE);
+        assertThat(poller.poll("poll-c")).isEmpty();
+
+        poller.add(moved, "poll-b");
+        assertThat(poller.getDevices("poll-a")).extracting(SensorDevice::getDeviceId).containsExactly("pulse-a");
+        assertThat(poller.getDevices("poll-b")).extracting(SensorDevice::getDeviceId).containsExactly("pulse-b", "rr-1");
+        assertThat(poller.getStats().getDevices()).isEqualTo(3);
+
+        poller.remove(moved);
+        assertThat(poller.poll("poll-b")).hasSize(1);
+    }
+
+    private static class TestDevice implements SensorDevice {
+        private final String deviceId;
+        private final String deviceType;
+        private final CountDownLatch hangUntil;
+
+        TestDevice(String deviceId, String deviceType, CountDownLatch hangUntil) {
+            this.deviceId = deviceId;
+            this.deviceType = deviceType;
+            this.hangUntil = hangUntil;
+        }
+
+        @Override
+        public String getDeviceId() {
+            return deviceId;
+        }
+
+        @Override
+        public String getDeviceType() {
+            return deviceType;
+        }
+
+        @Override
+        public boolean isConnected() {
+            return true;
+        }
+
+        @Override
+        public void connect() {
+        }
+
+        @Override
+        public void disconnect() {
+        }
+
+        @Override
+        public VitalSignReading takeReading(String patientId, VitalSignType type) {
+            if (hangUntil != null) {
+                try {
+                    hangUntil.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            return new VitalSignReading(patientId, type, 1.0, type.getUnit(), LocalDateTime.now(), this);
+        }
+    }
+}
@@ -0,0 +1,154 @@
+package com.vhg.patientmonitoring.device;
+
+import com.vhg.patientmonitoring.model.reading.SampleBatch;
+import com.vhg.patientmonitoring.model.reading.VitalSignReading;
+import com.vhg.patientmonitoring.model.reading.VitalSignType;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class PullDeviceAdapterTest {
+    private static final long PERIOD_MILLIS = 2;
+
+    private final ScheduledExecutorService ticker = Executors.newSingleThreadScheduledExecutor();
+    private final CountingDevice device = new CountingDevice();
+    private final PullDeviceAdapter adapter = new PullDeviceAdapter(device, PERIOD_MILLIS, ticker, Runnable::run);
+
+    @AfterEach
+    void stopTicker() {
+        ticker.shutdownNow();
+    }
+
+    @Test
+    void pollsOnlyWhileThereIsDemand() throws InterruptedException {
+        List<SampleBatch> received = new CopyOnWriteArrayList<>();
+        CountDownLatch delivered = new CountDownLatch(3);
+        adapter.samples("stream-p1", VitalSignType.HEART_RATE).subscribe(new RecordingSubscriber(3) {
+            @Override
+            public void onNext(SampleBatch batch) {
+                received.add(batch);
+                delivered.countDown();
+            }
+        });
+
+        assertThat(delivered.await(5, TimeUnit.SECONDS)).isTrue();
+        awaitTicks(20);
+
+        assertThat(received).hasSize(3);
+        assertThat(received.get(0).getType()).isEqualTo(VitalSignType.HEART_RATE);
+        assertThat(device.readings.get()).isEqualTo(3);
+    }
+
+    @Test
+    void subscriberKeepsDemandBounded() throws InterruptedException {
+        CountDownLatch delivered = new CountDownLatch(20);
+        SampleSubscriber subscriber = new SampleSubscriber("counting", 4, batch -> delivered.countDown());
+        adapter.samples("stream-p2", VitalSignType.HEART_RATE).subscribe(subscriber);
+
+        // Only a prefetch of 4 is ever requested at once, so 20 batches means demand kept being replenished
+        assertThat(delivered.await(5, TimeUnit.SECONDS)).isTrue();
+        subscriber.cancel();
+    }
+
+    @Test
+    void pollsOnlyBetweenFirstSubscribeAndLastCancel() throws InterruptedException {
+        Flow.Publisher<SampleBatch> samples = adapter.samples("stream-p3", VitalSignType.HEART_RATE);
+        awaitTicks(10);
+        assertThat(device.readings.get()).isZero();
+
+        CountDownLatch delivered = new CountDownLatch(1);
+        samples.subscribe(new RecordingSubscriber(Long.MAX_VALUE) {
+            @Override
+            public void onNext(SampleBatch batch) {
+                subscription.cancel();
+                delivered.countDown();
+            }
+        });
+        assertThat(delivered.await(5, TimeUnit.SECONDS)).isTrue();
+        awaitTicks(10);
+        int afterCancel = device.readings.get();
+        awaitTicks(10);
+
+        // At most one more poll could already have started when the subscriber cancelled
+        assertThat(afterCancel).isLessThanOrEqualTo(2);
+        assertThat(device.readings.get()).isEqualTo(afterCancel);
+    }
+
+    /**
+     * Waits until a probe on the same single-threaded ticker has run {@code ticks} times at the poll period
+     */
+    private void awaitTicks(int ticks) throws InterruptedException {
+        CountDownLatch ticked = new CountDownLatch(ticks);
+        ScheduledFuture<?> probe = ticker.scheduleAtFixedRate(ticked::countDown, PERIOD_MILLIS, PERIOD_MILLIS, TimeUnit.MILLISECONDS);
+        assertThat(ticked.await(5, TimeUnit.SECONDS)).isTrue();
+        probe.cancel(false);
+    }
+
+    private abstract static class RecordingSubscriber implements Flow.Subscriber<SampleBatch> {
+        private final long demand;
+        protected Flow.Subscription subscription;
+
+        private RecordingSubscriber(long demand) {
+            this.demand = demand;
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+            subscription.request(demand);
+        }
+
+        @Override
+        public void onError(Throwable error) {
+        }
+
+        @Override
+        public void onComplete() {
+        }
+    }
+
+    private static class CountingDevice implements SensorDevice {
+        private final AtomicInteger readings = new AtomicInteger();
+
+        @Override
+        public String getDeviceId() {
+            return "counting-monitor";
+        }
+
+        @Override
+        public String getDeviceType() {
+            return "Heart Rate Monitor";
+        }
+
+        @Override
+        public boolean isConnected() {
+            return true;
+        }
+
+        @Override
+        public void connect() {
+        }
+
+        @Override
+        public void disconnect() {
+        }
+
+        @Override
+        public VitalSignReading takeReading(String patientId, VitalSignType type) {
+            readings.incrementAndGet();
+            return new VitalSignReading(patientId, type, 72, type.getUnit(), LocalDateTime.now(), this);
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package com.vhg.patientmonitoring.export;
+
+import com.vhg.patientmonitoring.model.alert.Alert;
+import com.vhg.patientmonitoring.model.alert.AlertSeverity;
+import com.vhg.patientmonitoring.model.alert.AlertStatus;
+import com.vhg.patientmonitoring.repository.impl.InMemoryAlertRepository;
+import com.vhg.patientmonitoring.util.DateTimeUtils;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class AlertExporterTest {
+    private static final Instant NOW = Instant.parse("2024-03-01T12:00:00Z");
+    private static final long START = DateTimeUtils.toEpochNanos(NOW.minusSeconds(3600));
+    private static final long END = DateTimeUtils.toEpochNanos(NOW);
+
+    private final InMemoryAlertRepository repository = new InMemoryAlertRepository();
+
+    @Test
+    void writesEachPatientsAlertsInTimestampOrderAsNdjsonAndCsv() throws IOException {
+        store("a-2", "export-p1", AlertSeverity.HIGH, "Heart rate 131 above 120", 131, NOW.minusSeconds(60));
+        store("a-1", "export-p1", AlertSeverity.MEDIUM, "SpO2 low, \"check probe\"", 91, NOW.minusSeconds(120));
+        store("a-3", "export-p2", AlertSeverity.LOW, "Device offline", Double.NaN, NOW.minusSeconds(30));
+        store("a-4", "export-p2", AlertSeverity.LOW, "Too early", Double.NaN, NOW.minusSeconds(7200));
+        repository.updateAlertStatus("a-1", AlertStatus.RESOLVED);
+        AlertExporter exporter = new AlertExporter(repository);
+
+        ByteArrayOutputStream ndjson = new ByteArrayOutputStream();
+        long written = exporter.export(List.of("export-p1", "export-p2"), START, END, ReadingExporter.Format.NDJSON, ndjson);
+        ByteArrayOutputStream csv = new ByteArrayOutputStream();
+        exporter.export(List.of("export-p1"), START, END, ReadingExporter.Format.CSV, csv);
+
+        assertThat(written).isEqualTo(3);
+        assertThat(ndjson.toString(StandardCharsets.UTF_8)).isEqualTo(
+                "{\"alertId\":\"a-1\",\"patientId\":\"export-p1\",\"severity\":\"MEDIUM\",\"status\":\"RESOLVED\","
+                        + "\"message\":\"SpO2 low, \\\"check probe\\\"\",\"timestamp\":\"2024-03-01T11:58:00Z\","
+                        + "\"occurrences\":1,\"lastOccurrence\":\"2024-03-01T11:58:00Z\",\"peakValue\":91.0}\n"
+                        + "{\"alertId\":\"a-2\",\"patientId\":\"export-p1\",\"severity\":\"HIGH\",\"status\":\"PENDING\","
+                        + "\"message\":\"Heart rate 131 above 120\",\"timestamp\":\"2024-03-01T11:59:00Z\","
+                        + "\"occurrences\":1,\"lastOccurrence\":\"2024-03-01T11:59:00Z\",\"peakValue\":131.0}\n"
+                        + "{\"alertId\":\"a-3\",\"patientId\":\"export-p2\",\"severity\":\"LOW\",\"status\":\"PENDING\","
+                        + "\"message\":\"Device offline\",\"timestamp\":\"2024-03-01T11:59:30Z\","
+                        + "\"occurrences\":1,\"lastOccurrence\":\"2024-03-01T11:59:30Z\",\"peakValue\":null}\n");
+        assertThat(csv.toString(StandardCharsets.UTF_8)).isEqualTo(
+                "alert_id,patient_id,severity,status,message,timestamp,occurrences,last_occurrence,peak_value\n"
+                        + "a-1,export-p1,MEDIUM,RESOLVED,\"SpO2 low, \"\"check probe\"\"\",2024-03-01T11:58:00Z,1,2024-03-01T11:58:00Z,91.0\n"
+                        + "a-2,export-p1,HIGH,PENDING,Heart rate 131 above 120,2024-03-01T11:59:00Z,1,2024-03-01T11:59:00Z,131.0\n");
+        assertThat(exporter.getStats().getAlerts()).isEqualTo(5);
+    }
+
+    private void store(String alertId, String patientId, AlertSeverity severity, String message, double peakValue,
+                       Instant raised) {
+        Alert alert = new Alert(patientId, severity, message, null);
+        LocalDateTime timestamp = LocalDateTime.ofInstant(raised, ZoneId.systemDefault());
+        alert.setAlertId(alertId);
+        alert.setTimestamp(timestamp);
+        alert.setLastOccurrence(timestamp);
+        alert.setPeakValue(peakValue);
+        repository.addAlert(alert);
+    }
+}
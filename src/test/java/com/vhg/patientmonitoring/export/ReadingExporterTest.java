@@ -0,0 +1,138 @@
+package com.vhg.patientmonitoring.export;
+
+import com.vhg.patientmonitoring.model.reading.ReadingBlock;
+import com.vhg.patientmonitoring.model.reading.VitalSignReading;
+import com.vhg.patientmonitoring.model.reading.VitalSignType;
+import com.vhg.patientmonitoring.repository.ReadingCursor;
+import com.vhg.patientmonitoring.repository.ReadingPage;
+import com.vhg.patientmonitoring.repository.ReadingRepository;
+import com.vhg.patientmonitoring.repository.impl.InMemoryReadingRepository;
+import com.vhg.patientmonitoring.util.DateTimeUtils;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class ReadingExporterTest {
+    private static final Instant NOW = Instant.parse("2024-03-01T12:00:00Z");
+    private static final long START = DateTimeUtils.toEpochNanos(NOW.minusSeconds(3600));
+    private static final long END = DateTimeUtils.toEpochNanos(NOW);
+
+    private final InMemoryReadingRepository repository = new InMemoryReadingRepository(4096, Clock.fixed(NOW, ZoneOffset.UTC));
+
+    @Test
+    void writesEachPatientInTimestampOrderAsNdjsonAndCsv() throws IOException {
+        store("export-p1", VitalSignType.HEART_RATE, START + 2_000_000_000L, 72);
+        store("export-p1", VitalSignType.BLOOD_OXYGEN, START + 1_000_000_000L, 97);
+        store("export-p2", VitalSignType.TEMPERATURE, START + 500_000_000L, 37.2);
+        store("export-p2", VitalSignType.TEMPERATURE, END, 37.9);
+        ReadingExporter exporter = new ReadingExporter(repository);
+
+        ByteArrayOutputStream ndjson = new ByteArrayOutputStream();
+        long written = exporter.export(List.of("export-p1", "export-p2"), START, END, ReadingExporter.Format.NDJSON, ndjson);
+        ByteArrayOutputStream csv = new ByteArrayOutputStream();
+        exporter.export(List.of("export-p2"), START, END, ReadingExporter.Format.of("csv"), csv);
+
+        assertThat(written).isEqualTo(3);
+        assertThat(ndjson.toString(StandardCharsets.UTF_8)).isEqualTo(
+                "{\"patientId\":\"export-p1\",\"type\":\"BLOOD_OXYGEN\",\"value\":97.0,\"unit\":\"%\",\"timestamp\":\"2024-03-01T11:00:01Z\"}\n"
+                        + "{\"patientId\":\"export-p1\",\"type\":\"HEART_RATE\",\"value\":72.0,\"unit\":\"bpm\",\"timestamp\":\"2024-03-01T11:00:02Z\"}\n"
+                        + "{\"patientId\":\"export-p2\",\"type\":\"TEMPERATURE\",\"value\":37.2,\"unit\":\"°C\",\"timestamp\":\"2024-03-01T11:00:00.500Z\"}\n");
+        assertThat(csv.toString(StandardCharsets.UTF_8)).isEqualTo(
+                "patient_id,type,value,unit,timestamp\n"
+                        + "export-p2,TEMPERATURE,37.2,°C,2024-03-01T11:00:00.500Z\n");
+        assertThat(exporter.getStats().getReadings()).isEqualTo(4);
+    }
+
+    @Test
+    void defaultExportWalksTheRangeOnePageAtATime() throws IOException {
+        for (int i = 0; i < 2500; i++) {
+            store("export-p3", VitalSignType.HEART_RATE, START + i * 1_000_000_000L, 60 + i % 40);
+        }
+        int[] pages = new int[1];
+        // Only pages, like a database-backed store
+        ReadingRepository paged = new PagedOnly(repository) {
+            @Override
+            public ReadingPage getReadingsPage(String patientId, VitalSignType type, long fromNanos, long toNanos,
+                                               ReadingCursor after, int limit) {
+                pages[0]++;
+                return super.getReadingsPage(patientId, type, fromNanos, toNanos, after, limit);
+            }
+        };
+
+        long written = new ReadingExporter(paged).export(List.of("export-p3"), START, END,
+                ReadingExporter.Format.CSV, new ByteArrayOutputStream());
+
+        assertThat(written).isEqualTo(2500);
+        assertThat(pages[0]).isEqualTo(3);
+    }
+
+    @Test
+    void stopsReadingWhenTheClientGoesAway() {
+        for (int i = 0; i < 2000; i++) {
+            store("export-p4", VitalSignType.HEART_RATE, START + i * 1_000_000_000L, 70);
+        }
+        ReadingExporter exporter = new ReadingExporter(repository);
+        OutputStream disconnected = new OutputStream() {
+            @Override
+            public void write(int b) throws IOException {
+                throw new IOException("Broken pipe");
+            }
+        };
+
+        assertThatThrownBy(() -> exporter.export(List.of("export-p4"), START, END, ReadingExporter.Format.NDJSON, disconnected))
+                .isInstanceOf(IOException.class)
+                .hasMessage("Broken pipe");
+        assertThat(exporter.getStats().getAborted()).isEqualTo(1);
+        assertThat(exporter.getStats().getReadings()).isLessThan(2000);
+    }
+
+    private void store(String patientId, VitalSignType type, long epochNanos, double value) {
+        ReadingBlock block = new ReadingBlock(1);
+        block.add(patientId, type, epochNanos, value);
+        repository.addReadings(block);
+    }
+
+    private static class PagedOnly implements ReadingRepository {
+        private final ReadingRepository delegate;
+
+        PagedOnly(ReadingRepository delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public void addReading(VitalSignReading reading) {
+            delegate.addReading(reading);
+        }
+
+        @Override
+        public List<VitalSignReading> getReadingsForPatient(String patientId, int timeWindowMinutes) {
+            return delegate.getReadingsForPatient(patientId, timeWindowMinutes);
+        }
+
+        @Override
+        public List<VitalSignReading> getReadingsForPatientByType(String patientId, VitalSignType type, int timeWindowMinutes) {
+            return delegate.getReadingsForPatientByType(patientId, type, timeWindowMinutes);
+        }
+
+        @Override
+        public void purgeOldReadings(int daysToKeep) {
+            delegate.purgeOldReadings(daysToKeep);
+        }
+
+        @Override
+        public ReadingPage getReadingsPage(String patientId, VitalSignType type, long fromNanos, long toNanos,
+                                           ReadingCursor after, int limit) {
+            return delegate.getReadingsPage(patientId, type, fromNanos, toNanos, after, limit);
+        }
+    }
+}
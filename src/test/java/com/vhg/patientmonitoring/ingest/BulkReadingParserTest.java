@@ -0,0 +1,138 @@
+package com.vhg.patientmonitoring.ingest;
+
+import com.vhg.patientmonitoring.model.reading.ReadingBlock;
+import com.vhg.patientmonitoring.model.reading.VitalSignType;
+import com.vhg.patientmonitoring.util.DateTimeUtils;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class BulkReadingParserTest {
+    private static final Instant NOW = Instant.parse("2024-03-01T12:00:00Z");
+
+    private final List<String> stored = new ArrayList<>();
+    private final List<Integer> batchSizes = new ArrayList<>();
+    private final BulkReadingParser parser = new BulkReadingParser(3, this::store, Clock.fixed(NOW, ZoneOffset.UTC));
+
+    @Test
+    void parsesDocumentedUploadInBatchesAndReportsRejectedReadings() throws IOException {
+        String body = """
+                {"vital_signs": [
+                  {"timestamp": "2024-03-01T11:00:00Z", "heart_rate": 72, "blood_pressure_systolic": 120,
+                   "blood_pressure_diastolic": 80, "oxygen_saturation": 98, "device_id": "monitor_001",
+                   "source": "automatic", "pain_level": null},
+                  {"timestamp": "2024-03-01T11:00:01Z", "heart_rate": 900, "temperature": 37.2},
+                  {"type": "RESPIRATORY_RATE", "value": 16, "timestamp": 1709290802000},
+                  {"heart_rate": 70},
+                  {"type": "PULSE", "value": 70, "timestamp": 1709290802000},
+                  {"timestamp": "2024-03-01T13:00:00Z", "heart_rate": 70}
+                ], "source": "gateway-7"}
+                """;
+
+        BulkReadingParser.Result result = parser.parseJson("bulk-p1", stream(body));
+
+        assertThat(result.getCreated()).isEqualTo(5);
+        assertThat(result.getRolledUp()).isZero();
+        assertThat(result.getFailed()).isEqualTo(4);
+        assertThat(result.getErrors()).containsExactly(
+                "vital_signs[1]: HEART_RATE value 900.0 out of range",
+                "vital_signs[3]: timestamp missing",
+                "vital_signs[4]: unknown type PULSE",
+                "vital_signs[5]: timestamp in the future");
+        assertThat(batchSizes).containsExactly(3, 2);
+        assertThat(stored).contains(
+                "bulk-p1 HEART_RATE 72.0 2024-03-01T11:00:00Z",
+                "bulk-p1 BLOOD_PRESSURE 120.0 2024-03-01T11:00:00Z",
+                "bulk-p1 TEMPERATURE 37.2 2024-03-01T11:00:01Z",
+                "bulk-p1 RESPIRATORY_RATE 16.0 2024-03-01T11:00:02Z");
+    }
+
+    @Test
+    void parsesNewlineDelimitedRecords() throws IOException {
+        String body = """
+                {"type": "HEART_RATE", "value": 71, "timestamp": "2024-03-01T11:00:00Z"}
+                {"type": "HEART_RATE", "value": 72, "timestamp": "2024-03-01T11:00:01.25Z"}
+                {"type": "HEART_RATE", "value": 73, "timestamp": "2024-03-01T12:00:02+01:00"}
+                {"type": "BLOOD_OXYGEN", "value": 97, "timestamp": "2024-03-01T11:00:01Z", "patient_id": "bulk-p2"}
+                {"type": "BLOOD_OXYGEN", "value": 97, "timestamp": "2024-03-01T11:00:01Z", "patient_id": "someone-else"}
+                """;
+
+        BulkReadingParser.Result result = parser.parseJson("bulk-p2", stream(body));
+
+        assertThat(result.getCreated()).isEqualTo(4);
+        assertThat(result.getErrors()).containsExactly("vital_signs[4]: belongs to another patient");
+        assertThat(stored).contains(
+                "bulk-p2 HEART_RATE 72.0 2024-03-01T11:00:01.250Z",
+                "bulk-p2 HEART_RATE 73.0 2024-03-01T11:00:02Z");
+    }
+
+    @Test
+    void roundTripsTheBinaryFormat() throws IOException {
+        ReadingBlock block = new ReadingBlock(4);
+        long start = DateTimeUtils.toEpochNanos(NOW.minusSeconds(60));
+        for (int i = 0; i < 4; i++) {
+            block.add("bulk-p3", VitalSignType.ECG, start + i * 4_000_000L, 0.1 * i);
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        BulkReadingParser.writeBinary(block, out);
+
+        BulkReadingParser.Result result = parser.parseBinary("bulk-p3", new ByteArrayInputStream(out.toByteArray()));
+
+        assertThat(result.getCreated()).isEqualTo(4);
+        assertThat(batchSizes).containsExactly(3, 1);
+        assertThat(parser.getStats().getBatches()).isEqualTo(2);
+    }
+
+    @Test
+    void readingsTheSinkOnlyRolledUpAreNotReportedAsCreated() throws IOException {
+        // As without a durable store: readings from before the last hour are history and only rolled up
+        long historyBeforeNanos = DateTimeUtils.toEpochNanos(NOW.minusSeconds(3600));
+        BulkReadingParser rollingUp = new BulkReadingParser(3, block -> {
+            int rolledUp = 0;
+            for (int i = 0; i < block.size(); i++) {
+                if (block.epochNanos(i) < historyBeforeNanos) {
+                    rolledUp++;
+                }
+            }
+            return rolledUp;
+        }, Clock.fixed(NOW, ZoneOffset.UTC));
+        String body = """
+                {"type": "HEART_RATE", "value": 71, "timestamp": "2024-03-01T09:00:00Z"}
+                {"type": "HEART_RATE", "value": 72, "timestamp": "2024-03-01T10:00:00Z"}
+                {"type": "HEART_RATE", "value": 73, "timestamp": "2024-03-01T11:30:00Z"}
+                {"type": "HEART_RATE", "value": 74, "timestamp": "2024-03-01T11:45:00Z"}
+                {"type": "HEART_RATE", "value": 900, "timestamp": "2024-03-01T11:50:00Z"}
+                """;
+
+        BulkReadingParser.Result result = rollingUp.parseJson("bulk-p4", stream(body));
+
+        assertThat(result.getCreated()).isEqualTo(2);
+        assertThat(result.getRolledUp()).isEqualTo(2);
+        assertThat(result.getFailed()).isEqualTo(1);
+        assertThat(rollingUp.getStats().getCreated()).isEqualTo(2);
+        assertThat(rollingUp.getStats().getRolledUp()).isEqualTo(2);
+    }
+
+    private int store(ReadingBlock block) {
+        batchSizes.add(block.size());
+        for (int i = 0; i < block.size(); i++) {
+            stored.add(block.patientId(i) + " " + block.type(i) + " " + block.value(i) + " "
+                    + DateTimeUtils.toInstant(block.epochNanos(i)));
+        }
+        return 0;
+    }
+
+    private static ByteArrayInputStream stream(String body) {
+        return new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8));
+    }
+}
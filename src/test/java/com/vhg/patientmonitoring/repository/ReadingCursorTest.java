@@ -0,0 +1,32 @@
+package com.vhg.patientmonitoring.repository;
+
+import com.vhg.patientmonitoring.model.reading.VitalSignType;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class ReadingCursorTest {
+
+    @Test
+    void roundTripsThroughItsToken() {
+        ReadingCursor cursor = new ReadingCursor(1_709_290_800_000_000_000L, VitalSignType.HEART_RATE,
+                "0b6e8c1e-5d0f-4f3c-9a43-3c1d2a7e9f10");
+
+        ReadingCursor decoded = ReadingCursor.decode(cursor.encode());
+
+        assertThat(decoded.getEpochNanos()).isEqualTo(cursor.getEpochNanos());
+        assertThat(decoded.getType()).isEqualTo(VitalSignType.HEART_RATE);
+        assertThat(decoded.getRowId()).isEqualTo(cursor.getRowId());
+    }
+
+    @Test
+    void rejectsMalformedTokens() {
+        for (String token : new String[]{"", "1709290800000000000", "1709290800000000000.HEART_RATE",
+                "1709290800000000000.HEART_RATE.", ".HEART_RATE.3", "soon.HEART_RATE.3", "1709290800000000000.PULSE.3",
+                "1709290800000000000.HEART_RATE.3.4"}) {
+            assertThatThrownBy(() -> ReadingCursor.decode(token)).isInstanceOf(IllegalArgumentException.class)
+                    .hasMessageContaining("Malformed cursor");
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package com.vhg.patientmonitoring.repository.impl;
+
+import com.vhg.patientmonitoring.model.alert.Alert;
+import com.vhg.patientmonitoring.model.alert.AlertSeverity;
+import com.vhg.patientmonitoring.model.alert.AlertStatus;
+import com.vhg.patientmonitoring.repository.AlertCursor;
+import com.vhg.patientmonitoring.repository.AlertPage;
+import com.vhg.patientmonitoring.util.DateTimeUtils;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class InMemoryAlertRepositoryTest {
+
+    @Test
+    void pendingAlertsFollowStatusTransitionsMostSevereFirst() {
+        InMemoryAlertRepository repository = new InMemoryAlertRepository();
+        Alert low = alert("p1", AlertSeverity.LOW);
+        Alert critical = alert("p2", AlertSeverity.CRITICAL);
+        Alert medium = alert("p1", AlertSeverity.MEDIUM);
+        repository.addAlert(low);
+        repository.addAlert(critical);
+        repository.addAlert(medium);
+
+        assertThat(repository.getPendingAlerts()).containsExactly(critical, medium, low);
+
+        repository.updateAlertStatus(critical.getAlertId(), AlertStatus.ACKNOWLEDGED);
+        repository.updateAlertStatus(low.getAlertId(), AlertStatus.RESOLVED);
+        repository.updateAlertStatus("unknown", AlertStatus.RESOLVED);
+
+        assertThat(repository.getPendingAlerts()).containsExactly(medium);
+        assertThat(repository.getAlertsByStatus(AlertStatus.ACKNOWLEDGED)).containsExactly(critical);
+        assertThat(critical.getStatus()).isEqualTo(AlertStatus.ACKNOWLEDGED);
+        assertThat(repository.countAlerts(AlertStatus.RESOLVED)).isEqualTo(1);
+        assertThat(repository.getAlertsForPatient("p1")).hasSize(2);
+    }
+
+    @Test
+    void escalatedAlertMovesToItsNewSeverity() {
+        InMemoryAlertRepository repository = new InMemoryAlertRepository();
+        Alert alert = alert("p1", AlertSeverity.MEDIUM);
+        repository.addAlert(alert);
+
+        alert.setSeverity(AlertSeverity.HIGH);
+        repository.addAlert(alert);
+
+        assertThat(repository.getAlerts(AlertStatus.PENDING, AlertSeverity.MEDIUM)).isEmpty();
+        assertThat(repository.getAlerts(AlertStatus.PENDING, AlertSeverity.HIGH)).containsExactly(alert);
+        assertThat(repository.size()).isEqualTo(1);
+    }
+
+    @Test
+    void keepsOnlyTheMostRecentlyClosedAlerts() {
+        InMemoryAlertRepository repository = new InMemoryAlertRepository(3);
+        Alert open = alert("p1", AlertSeverity.HIGH);
+        repository.addAlert(open);
+        Alert[] closed = new Alert[5];
+        for (int i = 0; i < closed.length; i++) {
+            closed[i] = alert("p1", AlertSeverity.LOW);
+            repository.addAlert(closed[i]);
+            repository.updateAlertStatus(closed[i].getAlertId(), AlertStatus.RESOLVED);
+        }
+
+        assertThat(repository.size()).isEqualTo(4);
+        assertThat(repository.getAlert(closed[0].getAlertId())).isNull();
+        assertThat(repository.getAlert(closed[1].getAlertId())).isNull();
+        assertThat(repository.getAlert(closed[4].getAlertId())).isSameAs(closed[4]);
+        assertThat(repository.getPendingAlerts()).containsExactly(open);
+        List<Alert> forPatient = repository.getAlertsForPatient("p1");
+        assertThat(forPatient).hasSize(4);
+    }
+
+    @Test
+    void pagesThroughAPatientsAlertsByTimestampThenId() {
+        InMemoryAlertRepository repository = new InMemoryAlertRepository();
+        LocalDateTime raised = LocalDateTime.of(2025, 1, 1, 12, 0);
+        List<String> expected = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            Alert alert = alert("p1", AlertSeverity.MEDIUM);
+            // Two alerts per instant, so the id has to separate them
+            alert.setTimestamp(raised.plusSeconds(i / 2));
+            alert.setAlertId("alert-" + (4 - i));
+            repository.addAlert(alert);
+        }
+        Alert outOfRange = alert("p1", AlertSeverity.LOW);
+        outOfRange.setTimestamp(raised.plusHours(1));
+        repository.addAlert(outOfRange);
+        repository.addAlert(alert("p2", AlertSeverity.HIGH));
+        long from = DateTimeUtils.toEpochNanos(raised, ZoneId.systemDefault());
+        long to = DateTimeUtils.toEpochNanos(raised.plusMinutes(1), ZoneId.systemDefault());
+
+        List<String> seen = new ArrayList<>();
+        AlertCursor after = null;
+        do {
+            AlertPage page = repository.getAlertsPage("p1", from, to, after, 2);
+            page.getAlerts().forEach(alert -> seen.add(alert.getAlertId()));
+            // Clients get the cursor back as a token
+            after = page.getNextCursor() != null ? AlertCursor.decode(page.getNextCursor().encode()) : null;
+        } while (after != null);
+        List<String> exported = new ArrayList<>();
+        repository.forEachAlert("p1", from, to, alert -> exported.add(alert.getAlertId()));
+
+        assertThat(seen).containsExactly("alert-3", "alert-4", "alert-1", "alert-2", "alert-0");
+        assertThat(exported).isEqualTo(seen);
+    }
+
+    private static Alert alert(String patientId, AlertSeverity severity) {
+        return new Alert(patientId, severity, severity + " alert", null);
+    }
+}
@@ -0,0 +1,156 @@
+package com.vhg.patientmonitoring.repository.impl;
+
+import com.vhg.patientmonitoring.model.reading.ReadingBlock;
+import com.vhg.patientmonitoring.model.reading.VitalSignReading;
+import com.vhg.patientmonitoring.model.reading.VitalSignType;
+import com.vhg.patientmonitoring.repository.ReadingCursor;
+import com.vhg.patientmonitoring.repository.ReadingPage;
+import com.vhg.patientmonitoring.util.DateTimeUtils;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class InMemoryReadingRepositoryTest {
+    private static final Instant NOW = Instant.parse("2025-01-01T12:00:00Z");
+    private static final LocalDateTime NOW_LOCAL = LocalDateTime.ofInstant(NOW, ZoneOffset.UTC);
+
+    private final InMemoryReadingRepository repository =
+            new InMemoryReadingRepository(8, Clock.fixed(NOW, ZoneOffset.UTC));
+
+    @Test
+    void returnsOnlyReadingsInsideTheWindow() {
+        repository.addReading(reading(VitalSignType.HEART_RATE, 70, 90));
+        repository.addReading(reading(VitalSignType.HEART_RATE, 72, 30));
+        repository.addReading(reading(VitalSignType.BLOOD_OXYGEN, 97, 10));
+
+        List<VitalSignReading> heartRate = repository.getReadingsForPatientByType("p1", VitalSignType.HEART_RATE, 60);
+        assertThat(heartRate).extracting(VitalSignReading::getValue).containsExactly(72.0);
+        assertThat(heartRate.get(0).getUnit()).isEqualTo("bpm");
+        assertThat(heartRate.get(0).getTimestamp()).isEqualTo(NOW_LOCAL.minusMinutes(30));
+
+        assertThat(repository.getReadingsForPatient("p1", 60))
+                .extracting(VitalSignReading::getValue)
+                .containsExactly(72.0, 97.0);
+    }
+
+    @Test
+    void keepsOnlyTheNewestReadingsOnceFull() {
+        for (int i = 0; i < 20; i++) {
+            repository.addReading(reading(VitalSignType.HEART_RATE, i, 20 - i));
+        }
+
+        assertThat(repository.getReadingsForPatientByType("p1", VitalSignType.HEART_RATE, 60))
+                .extracting(VitalSignReading::getValue)
+                .containsExactly(12.0, 13.0, 14.0, 15.0, 16.0, 17.0, 18.0, 19.0);
+    }
+
+    @Test
+    void purgeHidesReadingsOlderThanRetention() {
+        repository.addReading(reading(VitalSignType.TEMPERATURE, 37.0, 3 * 24 * 60));
+        repository.addReading(reading(VitalSignType.TEMPERATURE, 37.4, 60));
+
+        repository.purgeOldReadings(1);
+
+        assertThat(repository.getReadingsForPatientByType("p1", VitalSignType.TEMPERATURE, 7 * 24 * 60))
+                .extracting(VitalSignReading::getValue)
+                .containsExactly(37.4);
+    }
+
+    @Test
+    void pagesThroughARangeByTimestampThenType() {
+        repository.addReading(reading(VitalSignType.HEART_RATE, 70, 50));
+        repository.addReading(reading(VitalSignType.BLOOD_OXYGEN, 97, 40));
+        repository.addReading(reading(VitalSignType.HEART_RATE, 71, 40));
+        repository.addReading(reading(VitalSignType.HEART_RATE, 72, 30));
+        repository.addReading(reading(VitalSignType.BLOOD_OXYGEN, 98, 20));
+        repository.addReading(reading(VitalSignType.HEART_RATE, 73, 5));
+        long from = DateTimeUtils.toEpochNanos(NOW.minusSeconds(45 * 60));
+        long to = DateTimeUtils.toEpochNanos(NOW.minusSeconds(10 * 60));
+
+        List<String> seen = new ArrayList<>();
+        List<String> cursors = new ArrayList<>();
+        ReadingCursor after = null;
+        do {
+            ReadingPage page = repository.getReadingsPage("p1", null, from, to, after, 2);
+            ReadingBlock.Cursor cursor = page.getReadings().cursor();
+            while (cursor.next()) {
+                seen.add(cursor.getType() + "=" + cursor.getValue());
+            }
+            after = page.getNextCursor();
+            // Clients get the cursor back as a token
+            after = after != null ? ReadingCursor.decode(after.encode()) : null;
+            cursors.add(String.valueOf(after));
+        } while (after != null);
+
+        assertThat(seen).containsExactly("BLOOD_OXYGEN=97.0", "HEART_RATE=71.0", "HEART_RATE=72.0", "BLOOD_OXYGEN=98.0");
+        assertThat(cursors).hasSize(2);
+        assertThat(cursors.get(1)).isEqualTo("null");
+    }
+
+    @Test
+    void readingsSharingATimestampAndTypeAreSplitAcrossPagesWithoutLoss() {
+        // Two monitors on one patient reporting the same instant
+        repository.addReading(reading(VitalSignType.HEART_RATE, 70, 20));
+        repository.addReading(reading(VitalSignType.HEART_RATE, 71, 20));
+        repository.addReading(reading(VitalSignType.HEART_RATE, 72, 20));
+        repository.addReading(reading(VitalSignType.HEART_RATE, 73, 10));
+        long from = DateTimeUtils.toEpochNanos(NOW.minusSeconds(60 * 60));
+        long to = DateTimeUtils.toEpochNanos(NOW);
+
+        List<Double> seen = new ArrayList<>();
+        ReadingCursor after = null;
+        do {
+            ReadingPage page = repository.getReadingsPage("p1", null, from, to, after, 2);
+            ReadingBlock.Cursor cursor = page.getReadings().cursor();
+            while (cursor.next()) {
+                seen.add(cursor.getValue());
+            }
+            after = page.getNextCursor() != null ? ReadingCursor.decode(page.getNextCursor().encode()) : null;
+        } while (after != null);
+
+        assertThat(seen).containsExactly(70.0, 71.0, 72.0, 73.0);
+    }
+
+    @Test
+    void cursorWithARowIdThisStoreNeverIssuedIsRejected() {
+        repository.addReading(reading(VitalSignType.HEART_RATE, 70, 20));
+        long from = DateTimeUtils.toEpochNanos(NOW.minusSeconds(60 * 60));
+        long to = DateTimeUtils.toEpochNanos(NOW);
+        ReadingCursor foreign = ReadingCursor.decode(from + ".HEART_RATE.0b6e8c1e-5d0f-4f3c-9a43-3c1d2a7e9f10");
+
+        assertThatThrownBy(() -> repository.getReadingsPage("p1", null, from, to, foreign, 2))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void pagesOfOneTypeSkipTheOthers() {
+        repository.addReading(reading(VitalSignType.HEART_RATE, 70, 30));
+        repository.addReading(reading(VitalSignType.BLOOD_OXYGEN, 97, 25));
+        repository.addReading(reading(VitalSignType.HEART_RATE, 71, 20));
+        repository.addReading(reading(VitalSignType.HEART_RATE, 72, 10));
+        long from = DateTimeUtils.toEpochNanos(NOW.minusSeconds(60 * 60));
+        long to = DateTimeUtils.toEpochNanos(NOW);
+
+        ReadingPage first = repository.getReadingsPage("p1", VitalSignType.HEART_RATE, from, to, null, 2);
+        ReadingPage second = repository.getReadingsPage("p1", VitalSignType.HEART_RATE, from, to, first.getNextCursor(), 2);
+
+        assertThat(first.getReadings().size()).isEqualTo(2);
+        assertThat(first.getReadings().value(1)).isEqualTo(71.0);
+        assertThat(second.getReadings().size()).isEqualTo(1);
+        assertThat(second.getReadings().value(0)).isEqualTo(72.0);
+        assertThat(second.hasMore()).isFalse();
+    }
+
+    private static VitalSignReading reading(VitalSignType type, double value, int minutesAgo) {
+        String unit = type == VitalSignType.HEART_RATE ? "bpm" : "%";
+        return new VitalSignReading("p1", type, value, unit, NOW_LOCAL.minusMinutes(minutesAgo), null);
+    }
+}
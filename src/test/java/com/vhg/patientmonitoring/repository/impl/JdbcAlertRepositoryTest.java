@@ -0,0 +1,88 @@
+package com.vhg.patientmonitoring.repository.impl;
+
+import com.vhg.patientmonitoring.repository.AlertCursor;
+import com.vhg.patientmonitoring.repository.AlertPage;
+import com.vhg.patientmonitoring.util.DateTimeUtils;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs against the same in-memory H2 setup as application-test.yml
+ */
+public class JdbcAlertRepositoryTest {
+    private static final String PATIENT_ID = "11111111-1111-1111-1111-111111111111";
+    private static final LocalDateTime T = LocalDateTime.of(2025, 1, 1, 12, 0);
+
+    private JdbcTemplate jdbcTemplate;
+    private JdbcAlertRepository repository;
+
+    @BeforeEach
+    void createSchema() throws Exception {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+                "jdbc:h2:mem:" + UUID.randomUUID() + ";MODE=PostgreSQL;NON_KEYWORDS=VALUE;DB_CLOSE_DELAY=-1", "sa", "");
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        for (String statement : Files.readString(Path.of("scripts/schema.sql")).split(";")) {
+            if (!statement.isBlank()) {
+                jdbcTemplate.execute(statement);
+            }
+        }
+        jdbcTemplate.update("INSERT INTO patients (id, first_name, last_name, dob, gender) VALUES (?, 'John', 'Doe', DATE '1990-01-01', 'MALE')",
+                UUID.fromString(PATIENT_ID));
+        repository = new JdbcAlertRepository(dataSource);
+    }
+
+    @Test
+    void pagesThroughAlertsRaisedAtTheSameInstant() {
+        List<String> stored = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            stored.add(insert(i < 4 ? T : T.plusSeconds(1)));
+        }
+        insert(T.minusSeconds(1));
+
+        List<String> seen = new ArrayList<>();
+        int pages = 0;
+        AlertCursor after = null;
+        do {
+            AlertPage page = repository.getAlertsPage(PATIENT_ID, nanos(T), nanos(T.plusMinutes(1)), after, 2);
+            page.getAlerts().forEach(alert -> seen.add(alert.getAlertId()));
+            pages++;
+            after = page.getNextCursor() != null ? AlertCursor.decode(page.getNextCursor().encode()) : null;
+        } while (after != null);
+
+        assertThat(pages).isEqualTo(3);
+        assertThat(seen).containsExactlyInAnyOrderElementsOf(stored);
+        assertThat(seen.get(4)).isEqualTo(stored.get(4));
+
+        List<String> exported = new ArrayList<>();
+        repository.forEachAlert(PATIENT_ID, nanos(T), nanos(T.plusMinutes(1)), alert -> exported.add(alert.getAlertId()));
+        assertThat(exported).isEqualTo(seen);
+    }
+
+    /**
+     * Inserted directly: H2 has no {@code ON CONFLICT ... DO UPDATE} for the repository's upsert
+     */
+    private String insert(LocalDateTime timestamp) {
+        UUID id = UUID.randomUUID();
+        jdbcTemplate.update("INSERT INTO alerts (id, patient_id, timestamp, message, priority, route_to, status) "
+                + "VALUES (?, ?, ?, 'Heart rate high', 'HIGH', 'urgent', 'PENDING')",
+                id, UUID.fromString(PATIENT_ID), Timestamp.valueOf(timestamp));
+        return id.toString();
+    }
+
+    private static long nanos(LocalDateTime timestamp) {
+        return DateTimeUtils.toEpochNanos(timestamp, ZoneId.systemDefault());
+    }
+}
@@ -0,0 +1,123 @@
+package com.vhg.patientmonitoring.repository.impl;
+
+import com.vhg.patientmonitoring.model.reading.ReadingBlock;
+import com.vhg.patientmonitoring.model.reading.VitalSignReading;
+import com.vhg.patientmonitoring.model.reading.VitalSignType;
+import com.vhg.patientmonitoring.repository.ReadingCursor;
+import com.vhg.patientmonitoring.repository.ReadingPage;
+import com.vhg.patientmonitoring.util.DateTimeUtils;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Runs against the same in-memory H2 setup as application-test.yml
+ */
+public class JdbcReadingRepositoryTest {
+    private static final String PATIENT_ID = "11111111-1111-1111-1111-111111111111";
+    private static final LocalDateTime T = LocalDateTime.of(2025, 1, 1, 12, 0);
+
+    private JdbcReadingRepository repository;
+
+    @BeforeEach
+    void createSchema() throws Exception {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+                "jdbc:h2:mem:" + UUID.randomUUID() + ";MODE=PostgreSQL;NON_KEYWORDS=VALUE;DB_CLOSE_DELAY=-1", "sa", "");
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        for (String statement : Files.readString(Path.of("scripts/schema.sql")).split(";")) {
+            if (!statement.isBlank()) {
+                jdbcTemplate.execute(statement);
+            }
+        }
+        jdbcTemplate.update("INSERT INTO patients (id, first_name, last_name, dob, gender) VALUES (?, 'John', 'Doe', DATE '1990-01-01', 'MALE')",
+                UUID.fromString(PATIENT_ID));
+        repository = new JdbcReadingRepository(dataSource);
+    }
+
+    @Test
+    void pagesSplitReadingsSharingATimestampAndTypeWithoutLoss() {
+        // Three monitors reporting heart rate at the same instant
+        repository.addReading(reading(VitalSignType.HEART_RATE, 70, T));
+        repository.addReading(reading(VitalSignType.HEART_RATE, 71, T));
+        repository.addReading(reading(VitalSignType.HEART_RATE, 72, T));
+        repository.addReading(reading(VitalSignType.BLOOD_OXYGEN, 97, T));
+        repository.addReading(reading(VitalSignType.HEART_RATE, 73, T.plusSeconds(1)));
+        repository.addReading(reading(VitalSignType.HEART_RATE, 60, T.minusSeconds(1)));
+
+        List<String> seen = new ArrayList<>();
+        int pages = 0;
+        ReadingCursor after = null;
+        do {
+            ReadingPage page = repository.getReadingsPage(PATIENT_ID, null, nanos(T), nanos(T.plusMinutes(1)), after, 2);
+            ReadingBlock.Cursor cursor = page.getReadings().cursor();
+            while (cursor.next()) {
+                seen.add(cursor.getType() + "=" + cursor.getValue());
+            }
+            pages++;
+            // Clients get the cursor back as a token
+            after = page.getNextCursor() != null ? ReadingCursor.decode(page.getNextCursor().encode()) : null;
+        } while (after != null);
+
+        assertThat(pages).isEqualTo(3);
+        assertThat(seen).hasSize(5).doesNotHaveDuplicates();
+        assertThat(seen.get(0)).isEqualTo("BLOOD_OXYGEN=97.0");
+        assertThat(seen.subList(1, 4)).containsExactlyInAnyOrder("HEART_RATE=70.0", "HEART_RATE=71.0", "HEART_RATE=72.0");
+        assertThat(seen.get(4)).isEqualTo("HEART_RATE=73.0");
+
+        List<String> exported = new ArrayList<>();
+        repository.forEachReading(PATIENT_ID, nanos(T), nanos(T.plusMinutes(1)),
+                reading -> exported.add(reading.getType() + "=" + reading.getValue()));
+        assertThat(exported).isEqualTo(seen);
+    }
+
+    @Test
+    void cursorWithARowIdThisStoreNeverIssuedIsRejected() {
+        repository.addReading(reading(VitalSignType.HEART_RATE, 70, T));
+
+        // The in-memory store's row ids are positions, not database ids
+        assertThatThrownBy(() -> repository.getReadingsPage(PATIENT_ID, null, nanos(T), nanos(T.plusMinutes(1)),
+                ReadingCursor.decode(nanos(T) + ".HEART_RATE.0"), 10))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void vitalTypeFilterPagesThroughOneType() {
+        repository.addReading(reading(VitalSignType.HEART_RATE, 70, T));
+        repository.addReading(reading(VitalSignType.BLOOD_OXYGEN, 97, T));
+        repository.addReading(reading(VitalSignType.HEART_RATE, 71, T.plusSeconds(1)));
+        repository.addReading(reading(VitalSignType.BLOOD_OXYGEN, 98, T.plusSeconds(1)));
+        repository.addReading(reading(VitalSignType.HEART_RATE, 72, T.plusSeconds(2)));
+
+        ReadingPage first = repository.getReadingsPage(PATIENT_ID, VitalSignType.HEART_RATE, nanos(T),
+                nanos(T.plusMinutes(1)), null, 2);
+        ReadingPage second = repository.getReadingsPage(PATIENT_ID, VitalSignType.HEART_RATE, nanos(T),
+                nanos(T.plusMinutes(1)), first.getNextCursor(), 2);
+
+        assertThat(first.getReadings().size()).isEqualTo(2);
+        assertThat(first.getReadings().value(0)).isEqualTo(70.0);
+        assertThat(first.getReadings().value(1)).isEqualTo(71.0);
+        assertThat(second.getReadings().size()).isEqualTo(1);
+        assertThat(second.getReadings().value(0)).isEqualTo(72.0);
+        assertThat(second.hasMore()).isFalse();
+    }
+
+    private static VitalSignReading reading(VitalSignType type, double value, LocalDateTime timestamp) {
+        return new VitalSignReading(PATIENT_ID, type, value, type.getUnit(), timestamp, null);
+    }
+
+    private static long nanos(LocalDateTime timestamp) {
+        return DateTimeUtils.toEpochNanos(timestamp, ZoneId.systemDefault());
+    }
+}
@@ -0,0 +1,78 @@
+package com.vhg.patientmonitoring.repository.impl;
+
+import com.vhg.patientmonitoring.model.alert.Alert;
+import com.vhg.patientmonitoring.model.alert.AlertSeverity;
+import com.vhg.patientmonitoring.model.alert.AlertStatus;
+import com.vhg.patientmonitoring.repository.AlertRepository;
+import org.junit.jupiter.api.Test;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class WriteBehindAlertRepositoryTest {
+
+    @Test
+    void retriesAnOutageButSkipsAChangeThatCanNeverSucceed() throws InterruptedException {
+        FlakyStore durable = new FlakyStore();
+        WriteBehindAlertRepository repository = new WriteBehindAlertRepository(new InMemoryAlertRepository(), durable, 100);
+        Alert unknownPatient = new Alert("unknown-patient", AlertSeverity.HIGH, "Tachycardia", null);
+        Alert afterOutage = new Alert("known-patient", AlertSeverity.HIGH, "Tachycardia", null);
+        Alert queuedBehind = new Alert("known-patient", AlertSeverity.LOW, "Low battery", null);
+
+        repository.addAlert(unknownPatient);
+        repository.addAlert(afterOutage);
+        repository.addAlert(queuedBehind);
+        assertThat(durable.bothStored.await(30, TimeUnit.SECONDS)).isTrue();
+        repository.shutdown();
+
+        assertThat(durable.stored).containsExactly(afterOutage.getAlertId(), queuedBehind.getAlertId());
+        WriteBehindAlertRepository.Stats stats = repository.getStats();
+        assertThat(stats.getPersisted()).isEqualTo(2);
+        assertThat(stats.getRejected()).isEqualTo(1);
+        assertThat(stats.getFailures()).isEqualTo(3);
+        assertThat(stats.getDropped()).isZero();
+    }
+
+    /**
+     * Fails for unknown patients like a foreign key would, and goes down twice before the first good write
+     */
+    private static class FlakyStore implements AlertRepository {
+        private final List<String> stored = new CopyOnWriteArrayList<>();
+        private final CountDownLatch bothStored = new CountDownLatch(2);
+        private int outages = 2;
+
+        @Override
+        public void addAlert(Alert alert) {
+            if (alert.getPatientId().equals("unknown-patient")) {
+                throw new IllegalStateException("Failed to store alert",
+                        new SQLException("violates foreign key constraint", "23503"));
+            }
+            if (outages-- > 0) {
+                throw new IllegalStateException("Failed to store alert",
+                        new SQLException("connection refused", "08001"));
+            }
+            stored.add(alert.getAlertId());
+            bothStored.countDown();
+        }
+
+        @Override
+        public List<Alert> getPendingAlerts() {
+            return new ArrayList<>();
+        }
+
+        @Override
+        public List<Alert> getAlertsForPatient(String patientId) {
+            return new ArrayList<>();
+        }
+
+        @Override
+        public void updateAlertStatus(String alertId, AlertStatus newStatus) {
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package com.vhg.patientmonitoring.repository.impl;
+
+import com.vhg.patientmonitoring.model.reading.ReadingBlock;
+import com.vhg.patientmonitoring.model.reading.VitalSignReading;
+import com.vhg.patientmonitoring.model.reading.VitalSignType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs against the same in-memory H2 setup as application-test.yml
+ */
+public class WriteBehindReadingRepositoryTest {
+    private static final String PATIENT_ID = "11111111-1111-1111-1111-111111111111";
+
+    private DriverManagerDataSource dataSource;
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void createSchema() throws Exception {
+        dataSource = new DriverManagerDataSource(
+                "jdbc:h2:mem:" + UUID.randomUUID() + ";MODE=PostgreSQL;NON_KEYWORDS=VALUE;DB_CLOSE_DELAY=-1", "sa", "");
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        for (String statement : Files.readString(Path.of("scripts/schema.sql")).split(";")) {
+            if (!statement.isBlank()) {
+                jdbcTemplate.execute(statement);
+            }
+        }
+        jdbcTemplate.update("INSERT INTO patients (id, first_name, last_name, dob, gender) VALUES (?, 'John', 'Doe', DATE '1990-01-01', 'MALE')",
+                UUID.fromString(PATIENT_ID));
+    }
+
+    @Test
+    void flushBeforeAckPersistsBeforeReturning() {
+        WriteBehindConfiguration configuration = new WriteBehindConfiguration();
+        configuration.setDurabilityMode(WriteBehindConfiguration.DurabilityMode.FLUSH_BEFORE_ACK);
+        WriteBehindReadingRepository repository = newRepository(configuration);
+
+        repository.addReading(new VitalSignReading(PATIENT_ID, VitalSignType.HEART_RATE, 72, "bpm", null));
+
+        assertThat(rowCount()).isEqualTo(1);
+        assertThat(repository.getStats().getFlushes()).isEqualTo(1);
+        repository.shutdown();
+    }
+
+    @Test
+    void fireAndForgetBatchesAndFlushesOnShutdown() {
+        WriteBehindConfiguration configuration = new WriteBehindConfiguration();
+        configuration.setBatchSize(100);
+        configuration.setFlushIntervalMillis(60_000);
+        WriteBehindReadingRepository repository = newRepository(configuration);
+
+        for (int i = 0; i < 250; i++) {
+            repository.addReading(new VitalSignReading(PATIENT_ID, VitalSignType.BLOOD_OXYGEN, 95 + i % 5, "%", null));
+        }
+        assertThat(repository.getReadingsForPatient(PATIENT_ID, 5)).hasSize(250);
+
+        repository.shutdown();
+
+        assertThat(rowCount()).isEqualTo(250);
+        WriteBehindReadingRepository.Stats stats = repository.getStats();
+        assertThat(stats.getFlushedReadings()).isEqualTo(250);
+        assertThat(stats.getFlushes()).isGreaterThanOrEqualTo(3);
+        assertThat(stats.getQueueDepth()).isZero();
+    }
+
+    @Test
+    void readingsTheDurableStoreRefusesAreSkippedWithoutWedgingTheWriter() {
+        WriteBehindConfiguration configuration = new WriteBehindConfiguration();
+        configuration.setDurabilityMode(WriteBehindConfiguration.DurabilityMode.FLUSH_BEFORE_ACK);
+        configuration.setAckTimeoutMillis(5_000);
+        InMemoryReadingRepository refusing = new InMemoryReadingRepository() {
+            @Override
+            public void addReadings(ReadingBlock block) {
+                throw new IllegalArgumentException("Invalid UUID string: not-a-uuid");
+            }
+        };
+        WriteBehindReadingRepository repository = new WriteBehindReadingRepository(new InMemoryReadingRepository(), refusing, configuration);
+
+        for (int i = 0; i < 3; i++) {
+            repository.addReading(new VitalSignReading(PATIENT_ID, VitalSignType.HEART_RATE, 70 + i, "bpm", null));
+        }
+
+        WriteBehindReadingRepository.Stats stats = repository.getStats();
+        assertThat(stats.getRejected()).isEqualTo(3);
+        assertThat(stats.getFlushedReadings()).isZero();
+        assertThat(repository.getReadingsForPatient(PATIENT_ID, 5)).hasSize(3);
+        repository.shutdown();
+    }
+
+    @Test
+    void refusedReadingIsIsolatedFromTheRestOfItsBatch() {
+        WriteBehindConfiguration configuration = new WriteBehindConfiguration();
+        configuration.setDurabilityMode(WriteBehindConfiguration.DurabilityMode.FLUSH_BEFORE_ACK);
+        WriteBehindReadingRepository repository = newRepository(configuration);
+        ReadingBlock block = new ReadingBlock(8);
+        long now = System.currentTimeMillis() * 1_000_000;
+        for (int i = 0; i < 7; i++) {
+            block.add(PATIENT_ID, VitalSignType.HEART_RATE, now + i, 70 + i);
+        }
+        // Not a UUID, so the JDBC store can never insert it
+        block.add("not-a-uuid", VitalSignType.HEART_RATE, now, 80);
+
+        repository.addReadings(block);
+
+        assertThat(rowCount()).isEqualTo(7);
+        assertThat(repository.getStats().getRejected()).isEqualTo(1);
+        assertThat(repository.getStats().getFlushedReadings()).isEqualTo(7);
+        repository.shutdown();
+    }
+
+    private WriteBehindReadingRepository newRepository(WriteBehindConfiguration configuration) {
+        return new WriteBehindReadingRepository(new InMemoryReadingRepository(), new JdbcReadingRepository(dataSource), configuration);
+    }
+
+    private int rowCount() {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM vital_signs", Integer.class);
+    }
+}
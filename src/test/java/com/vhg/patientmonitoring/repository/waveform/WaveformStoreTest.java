@@ -0,0 +1,151 @@
+package com.vhg.patientmonitoring.repository.waveform;
+
+import com.vhg.patientmonitoring.model.reading.SampleBatch;
+import com.vhg.patientmonitoring.model.reading.VitalSignType;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class WaveformStoreTest {
+    private static final long INTERVAL_NANOS = 2_000_000; // 500 Hz
+    private static final long START_NANOS = 1_700_000_000_000_000_000L;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void roundTripsCompressedChunksAcrossReopen() throws IOException {
+        double[] ecg = ecg(5_000, new Random(1));
+        try (WaveformStore store = WaveformStore.open(directory, 1_000, 1 << 20)) {
+            for (int offset = 0; offset < ecg.length; offset += 250) {
+                store.append(batch("wave-p1", offset, Arrays.copyOfRange(ecg, offset, offset + 250)));
+            }
+            // 10 s at 500 Hz in 1 s chunks, none left open
+            assertThat(store.getStats().getChunks()).isEqualTo(10);
+            assertThat(store.getStats().getCompressionRatio()).isGreaterThan(4);
+        }
+
+        try (WaveformStore reopened = WaveformStore.open(directory, 1_000, 1 << 20)) {
+            List<SampleBatch> range = reopened.read("wave-p1", VitalSignType.ECG,
+                    START_NANOS + 1_500 * INTERVAL_NANOS, START_NANOS + 2_499 * INTERVAL_NANOS);
+            assertThat(range).hasSize(2);
+            assertThat(range.get(0).getStartEpochNanos()).isEqualTo(START_NANOS + 1_500 * INTERVAL_NANOS);
+            assertThat(range.get(0).size() + range.get(1).size()).isEqualTo(1_000);
+            for (int i = 0; i < range.get(1).size(); i++) {
+                assertThat(range.get(1).value(i)).isEqualTo(ecg[2_000 + i]);
+            }
+        }
+    }
+
+    @Test
+    void fallsBackToLosslessXorForUnquantizedValues() throws IOException {
+        Random random = new Random(2);
+        double[] values = new double[700];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = Math.sin(i / 20.0) + random.nextGaussian() / 1e6;
+        }
+        try (WaveformStore store = WaveformStore.open(directory, 1_000, 1 << 20)) {
+            store.append(batch("wave-p2", 0, values));
+            // Half of the samples are still in the open chunk and are read from memory
+            List<SampleBatch> all = store.read("wave-p2", VitalSignType.ECG, 0, Long.MAX_VALUE);
+            assertThat(all).hasSize(2);
+            for (int i = 0; i < values.length; i++) {
+                SampleBatch batch = i < 500 ? all.get(0) : all.get(1);
+                assertThat(batch.value(i % 500)).isEqualTo(values[i]);
+            }
+        }
+    }
+
+    @Test
+    void downsamplesToMinMaxEnvelope() throws IOException {
+        double[] ecg = ecg(30_000, new Random(3));
+        try (WaveformStore store = WaveformStore.open(directory, 1_000, 1 << 20)) {
+            store.append(batch("wave-p3", 0, ecg));
+            WaveformStore.MinMaxSeries series = store.downsample("wave-p3", VitalSignType.ECG,
+                    START_NANOS, START_NANOS + 30_000 * INTERVAL_NANOS - 1, 60);
+
+            assertThat(series.size()).isEqualTo(60);
+            for (int bucket = 0; bucket < 60; bucket++) {
+                double min = Double.POSITIVE_INFINITY;
+                double max = Double.NEGATIVE_INFINITY;
+                for (int i = bucket * 500; i < (bucket + 1) * 500; i++) {
+                    min = Math.min(min, ecg[i]);
+                    max = Math.max(max, ecg[i]);
+                }
+                assertThat(series.min(bucket)).isEqualTo(min);
+                assertThat(series.max(bucket)).isEqualTo(max);
+            }
+        }
+    }
+
+    @Test
+    void dropsLateAndReplayedSamplesSoChunksNeverOverlap() throws IOException {
+        double[] ecg = ecg(1_000, new Random(4));
+        try (WaveformStore store = WaveformStore.open(directory, 1_000, 1 << 20)) {
+            store.append(batch("wave-p4", 0, Arrays.copyOfRange(ecg, 0, 500)));
+            // Overlaps the first batch by half; only its newer half is kept
+            store.append(batch("wave-p4", 250, Arrays.copyOfRange(ecg, 250, 750)));
+            store.append(batch("wave-p4", 100, Arrays.copyOfRange(ecg, 100, 200)));
+            store.flush();
+
+            List<SampleBatch> all = store.read("wave-p4", VitalSignType.ECG, 0, Long.MAX_VALUE);
+            int read = 0;
+            for (SampleBatch batch : all) {
+                assertThat(batch.getStartEpochNanos()).isEqualTo(START_NANOS + read * INTERVAL_NANOS);
+                for (int i = 0; i < batch.size(); i++) {
+                    assertThat(batch.value(i)).isEqualTo(ecg[read + i]);
+                }
+                read += batch.size();
+            }
+            assertThat(read).isEqualTo(750);
+            assertThat(store.getStats().getLateSamples()).isEqualTo(350);
+        }
+    }
+
+    @Test
+    void chunkThatCannotBeWrittenDoesNotBlockLaterAppends() throws IOException {
+        Random random = new Random(5);
+        double[] noise = new double[500];
+        for (int i = 0; i < noise.length; i++) {
+            noise[i] = random.nextGaussian();
+        }
+        try (WaveformStore store = WaveformStore.open(directory, 1_000, 1_024)) {
+            // A full second of unquantized noise doesn't compress into a 1 KiB segment
+            assertThatThrownBy(() -> store.append(batch("wave-p5", 0, noise))).isInstanceOf(IllegalStateException.class);
+
+            store.append(batch("wave-p5", 500, new double[]{0.1, 0.2, 0.3}));
+            store.flush();
+
+            List<SampleBatch> all = store.read("wave-p5", VitalSignType.ECG, 0, Long.MAX_VALUE);
+            assertThat(all).hasSize(1);
+            assertThat(all.get(0).getStartEpochNanos()).isEqualTo(START_NANOS + 500 * INTERVAL_NANOS);
+            assertThat(all.get(0).size()).isEqualTo(3);
+        }
+    }
+
+    private static SampleBatch batch(String patientId, int firstSample, double[] values) {
+        return new SampleBatch(patientId, VitalSignType.ECG, "ecg-1", START_NANOS + firstSample * INTERVAL_NANOS,
+                INTERVAL_NANOS, values);
+    }
+
+    // Synthetic lead at 1 uV ADC resolution: baseline wander, a QRS spike every 0.8 s and noise
+    static double[] ecg(int samples, Random random) {
+        double[] values = new double[samples];
+        for (int i = 0; i < samples; i++) {
+            double t = i / 500.0;
+            double phase = t % 0.8;
+            double qrs = phase < 0.04 ? 1.2 * Math.sin(Math.PI * phase / 0.04) : 0;
+            double microvolts = 1000 * (0.1 * Math.sin(2 * Math.PI * 0.3 * t) + qrs) + 10 * random.nextGaussian();
+            values[i] = Math.round(microvolts) * 0.001;
+        }
+        return values;
+    }
+}
@@ -0,0 +1,205 @@
+package com.vhg.patientmonitoring.service;
+
+import com.vhg.patientmonitoring.core.MonitoringConfiguration;
+import com.vhg.patientmonitoring.model.analytics.Rollup;
+import com.vhg.patientmonitoring.model.analytics.RollupGranularity;
+import com.vhg.patientmonitoring.model.analytics.VitalStatistics;
+import com.vhg.patientmonitoring.model.reading.ReadingBlock;
+import com.vhg.patientmonitoring.model.reading.VitalSignType;
+import com.vhg.patientmonitoring.repository.impl.InMemoryRollupRepository;
+import com.vhg.patientmonitoring.util.DateTimeUtils;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.SQLException;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+public class AnalyticsServiceTest {
+    private static final long MINUTE = TimeUnit.MINUTES.toNanos(1);
+    private static final double HALF_BIN = (VitalSignType.HEART_RATE.getMaxPlausible()
+            - VitalSignType.HEART_RATE.getMinPlausible()) / VitalStatistics.BINS / 2;
+
+    private final InMemoryRollupRepository repository = new InMemoryRollupRepository();
+    private final MutableClock clock = new MutableClock(Instant.parse("2024-03-08T12:00:00Z"));
+    private final AnalyticsService analytics = new AnalyticsService(repository, configuration(), clock);
+
+    @AfterEach
+    void shutdown() {
+        analytics.shutdown();
+    }
+
+    @Test
+    void summarizesAWeekLikeTheRawReadingsFromFewRollups() {
+        long end = clock.nanos();
+        long start = end - TimeUnit.DAYS.toNanos(7);
+        double[] raw = new double[7 * 24 * 60];
+        for (int i = 0; i < raw.length; i++) {
+            raw[i] = 55 + (i * 37) % 80 + (i % 7) * 0.1;
+            record("analytics-p1", start + i * MINUTE + 30_000_000_000L, raw[i]);
+        }
+
+        VitalStatistics summary = analytics.summarize("analytics-p1", VitalSignType.HEART_RATE, start, end);
+
+        double mean = Arrays.stream(raw).average().orElseThrow();
+        double squares = Arrays.stream(raw).map(value -> (value - mean) * (value - mean)).sum();
+        double[] sorted = raw.clone();
+        Arrays.sort(sorted);
+        assertThat(summary.getCount()).isEqualTo(raw.length);
+        assertThat(summary.getMin()).isEqualTo(sorted[0]);
+        assertThat(summary.getMax()).isEqualTo(sorted[sorted.length - 1]);
+        assertThat(summary.getMean()).isCloseTo(mean, within(1e-9));
+        assertThat(summary.getStandardDeviation()).isCloseTo(Math.sqrt(squares / (raw.length - 1)), within(1e-9));
+        assertThat(summary.getPercentile(50)).isCloseTo(sorted[raw.length / 2 - 1], within(HALF_BIN));
+        assertThat(summary.getPercentile(95)).isCloseTo(sorted[(int) Math.ceil(raw.length * 0.95) - 1], within(HALF_BIN));
+        // Six whole days and twelve hours either side, instead of 10080 minutes
+        assertThat(analytics.getStats().getRollupsRead()).isEqualTo(30);
+    }
+
+    @Test
+    void roundsPartialRangesOutToWholeMinutes() {
+        long hour = clock.nanos() - TimeUnit.HOURS.toNanos(1);
+        record("analytics-p2", hour + 10 * MINUTE + 1, 70);
+        record("analytics-p2", hour + 70 * MINUTE - 1, 80);
+        record("analytics-p2", hour + 75 * MINUTE, 90);
+
+        VitalStatistics summary = analytics.summarize("analytics-p2", VitalSignType.HEART_RATE,
+                hour + 10 * MINUTE + 30_000_000_000L, hour + 69 * MINUTE + 1);
+
+        assertThat(summary.getCount()).isEqualTo(2);
+        assertThat(summary.getMean()).isEqualTo(75);
+        assertThat(analytics.summarize("analytics-p2", VitalSignType.BLOOD_PRESSURE, hour, hour + 70 * MINUTE).getCount())
+                .isZero();
+    }
+
+    @Test
+    void flushesRollupsEvictsEndedOnesAndReloadsThemForLateReadings() {
+        long minute = RollupGranularity.MINUTE.bucketStart(clock.nanos());
+        record("analytics-p3", minute + 1_000_000_000L, 60);
+        record("analytics-p3", minute + 2_000_000_000L, 64);
+
+        analytics.flush();
+
+        assertThat(stored(RollupGranularity.MINUTE, minute)).hasSize(1);
+        assertThat(stored(RollupGranularity.HOUR, RollupGranularity.HOUR.bucketStart(minute)).get(0).getStatistics().getCount())
+                .isEqualTo(2);
+        assertThat(stored(RollupGranularity.DAY, RollupGranularity.DAY.bucketStart(minute))).hasSize(1);
+
+        clock.advance(5 * MINUTE);
+        record("analytics-p3", minute + 5 * MINUTE, 70);
+        analytics.flush();
+        int resident = analytics.getStats().getResidentRollups();
+        // The first minute has ended and is stored, so only the current minute, hour and day stay
+        assertThat(resident).isEqualTo(3);
+
+        record("analytics-p3", minute + 30_000_000_000L, 68);
+        analytics.flush();
+
+        assertThat(analytics.getStats().getReloaded()).isEqualTo(1);
+        VitalStatistics late = stored(RollupGranularity.MINUTE, minute).get(0).getStatistics();
+        assertThat(late.getCount()).isEqualTo(3);
+        assertThat(late.getMean()).isEqualTo(64);
+        assertThat(analytics.summarize("analytics-p3", VitalSignType.HEART_RATE, minute, clock.nanos() + 1).getCount())
+                .isEqualTo(4);
+    }
+
+    @Test
+    void aSeriesTheRepositoryRejectsDoesNotHoldBackTheOthers() {
+        // Like a foreign key violation for a patient the database does not know
+        InMemoryRollupRepository rejecting = new InMemoryRollupRepository() {
+            @Override
+            public void saveRollups(List<Rollup> rollups) {
+                if (rollups.stream().anyMatch(rollup -> rollup.getPatientId().equals("analytics-unknown"))) {
+                    throw new IllegalStateException("Failed to store batch",
+                            new SQLException("violates foreign key constraint", "23503"));
+                }
+                super.saveRollups(rollups);
+            }
+        };
+        AnalyticsService isolated = new AnalyticsService(rejecting, configuration(), clock);
+        long minute = RollupGranularity.MINUTE.bucketStart(clock.nanos());
+        record(isolated, "analytics-p4", minute + 1_000_000_000L, 60);
+        record(isolated, "analytics-unknown", minute + 1_000_000_000L, 61);
+
+        isolated.flush();
+
+        assertThat(rejecting.getRollups("analytics-p4", VitalSignType.HEART_RATE, RollupGranularity.MINUTE, minute, minute + 1))
+                .hasSize(1);
+        assertThat(isolated.getStats().getRollupsSaved()).isEqualTo(3);
+        // The whole batch, then the rejected series on its own
+        assertThat(isolated.getStats().getFlushFailures()).isEqualTo(2);
+
+        for (int i = 0; i < 4; i++) {
+            isolated.flush();
+        }
+        assertThat(isolated.getStats().getRollupsDropped()).isEqualTo(3);
+
+        clock.advance(5 * MINUTE);
+        record(isolated, "analytics-p4", minute + 5 * MINUTE, 62);
+        record(isolated, "analytics-unknown", minute + 5 * MINUTE, 63);
+        isolated.flush();
+        // Both ended minutes are gone: one stored, the other given up on
+        assertThat(isolated.getStats().getResidentRollups()).isEqualTo(6);
+        isolated.shutdown();
+    }
+
+    private List<Rollup> stored(RollupGranularity granularity, long bucketStart) {
+        return repository.getRollups("analytics-p3", VitalSignType.HEART_RATE, granularity, bucketStart, bucketStart + 1);
+    }
+
+    private void record(String patientId, long epochNanos, double value) {
+        record(analytics, patientId, epochNanos, value);
+    }
+
+    private static void record(AnalyticsService service, String patientId, long epochNanos, double value) {
+        ReadingBlock block = new ReadingBlock(1);
+        block.add(patientId, VitalSignType.HEART_RATE, epochNanos, value);
+        service.record(block.cursor().moveTo(0));
+    }
+
+    private static MonitoringConfiguration configuration() {
+        MonitoringConfiguration configuration = new MonitoringConfiguration();
+        // Long enough that the background flush stays out of the way; the tests flush themselves
+        configuration.setRollupFlushIntervalMillis(TimeUnit.MINUTES.toMillis(1));
+        return configuration;
+    }
+
+    private static class MutableClock extends Clock {
+        private volatile Instant now;
+
+        MutableClock(Instant now) {
+            this.now = now;
+        }
+
+        long nanos() {
+            return DateTimeUtils.toEpochNanos(now);
+        }
+
+        void advance(long nanos) {
+            now = now.plusNanos(nanos);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}